@@ -0,0 +1,287 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2015, Delta Star Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.deltastar.task7.bench;
+
+import com.deltastar.task7.core.repository.domain.Customer;
+import com.deltastart.task7.core.constants.CCConstants;
+import org.springframework.context.support.ClassPathXmlApplicationContext;
+
+import javax.sql.DataSource;
+import java.sql.*;
+
+/**
+ * Seeds the embedded benchmark database: customers with cash and positions, funds with a price
+ * history, and pending orders for the transition day. The rows are written with JDBC batches and
+ * explicit ids, so seeding stays fast whatever the volume.
+ * <p>
+ * On JDK 9 and later, hibernate builds its proxies only if java.lang is opened to it in the forks:
+ * {@code java -jar benchmarks.jar -jvmArgsAppend --add-opens=java.base/java.lang=ALL-UNNAMED}.
+ * <p>
+ * Delta Star Team
+ */
+public final class BenchData {
+
+    public static final String PASSWORD = "password";
+    public static final long CUSTOMER_CASH = 1000000L * 1000;
+    public static final long POSITION_SHARES = 100000L * 1000;
+    public static final long FUND_PRICE = 10L * 1000;
+    public static final long DAY_MILLIS = 24L * 60 * 60 * 1000;
+    //the first day of the price history.
+    private static final long FIRST_DAY = Timestamp.valueOf("2015-01-01 00:00:00").getTime();
+    private static final int BATCH_SIZE = 1000;
+
+    private BenchData() {
+    }
+
+    /**
+     * Start the benchmark context on a new embedded database and seed it.
+     *
+     * @param customerCount the number of customers, each holding positions in two funds
+     * @param fundCount     the number of funds
+     * @param historyDays   the number of days of price history of every fund
+     * @return the started context
+     */
+    public static ClassPathXmlApplicationContext open(int customerCount, int fundCount, int historyDays) throws SQLException {
+        ClassPathXmlApplicationContext context = new ClassPathXmlApplicationContext("META-INF/spring/bench-context.xml");
+        seed(context.getBean(DataSource.class), customerCount, fundCount, historyDays);
+        return context;
+    }
+
+    /**
+     * @return the day after the last day of the price history, the first possible transition day
+     */
+    public static Timestamp getFirstTransitionDay(int historyDays) {
+        return new Timestamp(FIRST_DAY + historyDays * DAY_MILLIS);
+    }
+
+    public static void seed(DataSource dataSource, int customerCount, int fundCount, int historyDays) throws SQLException {
+        Customer passwordHolder = new Customer();
+        passwordHolder.setPassword(PASSWORD);
+        passwordHolder.hashPassword();
+
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            Timestamp lastDay = new Timestamp(getFirstTransitionDay(historyDays).getTime() - DAY_MILLIS);
+
+            try (PreparedStatement statement = connection.prepareStatement("INSERT INTO Fund "
+                    + "(id, fundName, symbol, comment, lastPrice, lastTransitionDay, status) VALUES (?, ?, ?, ?, ?, ?, 0)")) {
+                for (int fundId = 1; fundId <= fundCount; fundId++) {
+                    statement.setInt(1, fundId);
+                    statement.setString(2, "Fund " + fundId);
+                    statement.setString(3, "F" + fundId);
+                    statement.setString(4, "Benchmark fund " + fundId);
+                    statement.setLong(5, FUND_PRICE);
+                    statement.setTimestamp(6, lastDay);
+                    add(statement, fundId);
+                }
+                executeRemaining(statement, fundCount);
+            }
+
+            try (PreparedStatement statement = connection.prepareStatement("INSERT INTO FundPriceHistory "
+                    + "(id, fundId, price, priceDate, status) VALUES (?, ?, ?, ?, 0)")) {
+                int id = 0;
+                for (int fundId = 1; fundId <= fundCount; fundId++) {
+                    for (int day = 0; day < historyDays; day++) {
+                        statement.setInt(1, ++id);
+                        statement.setInt(2, fundId);
+                        //a slow sine around the fund price.
+                        statement.setLong(3, FUND_PRICE + (long) (Math.sin((day + fundId) / 10.0) * FUND_PRICE / 10));
+                        statement.setTimestamp(4, new Timestamp(FIRST_DAY + day * DAY_MILLIS));
+                        add(statement, id);
+                    }
+                }
+                executeRemaining(statement, id);
+            }
+
+            try (PreparedStatement statement = connection.prepareStatement("INSERT INTO Customer "
+                    + "(id, userName, firstName, lastName, addressLine1, city, state, zipcode, salt, password, cash, status) "
+                    + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0)")) {
+                for (int customerId = 1; customerId <= customerCount; customerId++) {
+                    statement.setInt(1, customerId);
+                    statement.setString(2, getUserName(customerId));
+                    statement.setString(3, "First" + customerId);
+                    statement.setString(4, "Last" + customerId);
+                    statement.setString(5, customerId + " Forbes Avenue");
+                    statement.setString(6, "Pittsburgh");
+                    statement.setString(7, "PA");
+                    statement.setString(8, "15213");
+                    statement.setInt(9, passwordHolder.getSalt());
+                    statement.setString(10, passwordHolder.getPassword());
+                    statement.setLong(11, CUSTOMER_CASH);
+                    add(statement, customerId);
+                }
+                executeRemaining(statement, customerCount);
+            }
+
+            try (PreparedStatement statement = connection.prepareStatement("INSERT INTO Position "
+                    + "(id, customerId, fundId, shares, status) VALUES (?, ?, ?, ?, ?)")) {
+                int id = 0;
+                for (int customerId = 1; customerId <= customerCount; customerId++) {
+                    for (int fundId : getHeldFundIds(customerId, fundCount)) {
+                        statement.setInt(1, ++id);
+                        statement.setInt(2, customerId);
+                        statement.setInt(3, fundId);
+                        statement.setLong(4, POSITION_SHARES);
+                        statement.setByte(5, CCConstants.POSITION_STATUS_IN_POSSESSION);
+                        add(statement, id);
+                    }
+                }
+                executeRemaining(statement, id);
+            }
+
+            restartIdentities(connection);
+            connection.commit();
+        }
+    }
+
+    /**
+     * Add pending orders for every customer, cycling through buys, sells, deposits and check requests.
+     *
+     * @param ordersPerCustomer the number of pending orders of each customer
+     * @return the number of added orders
+     */
+    public static int addPendingOrders(DataSource dataSource, int customerCount, int fundCount, int ordersPerCustomer)
+            throws SQLException {
+        int count = 0;
+        int positionCount = 0;
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            int positionId = getMaxId(connection, "Position");
+            int transitionId = getMaxId(connection, "Transition");
+            try (PreparedStatement positionStatement = connection.prepareStatement("INSERT INTO Position "
+                    + "(id, customerId, fundId, shares, status) VALUES (?, ?, ?, ?, ?)");
+                 PreparedStatement transitionStatement = connection.prepareStatement("INSERT INTO Transition "
+                         + "(id, customerId, fundId, positionId, shares, type, amount, status) VALUES (?, ?, ?, ?, ?, ?, ?, ?)")) {
+                for (int customerId = 1; customerId <= customerCount; customerId++) {
+                    int[] heldFundIds = getHeldFundIds(customerId, fundCount);
+                    for (int order = 0; order < ordersPerCustomer; order++) {
+                        int fundId = heldFundIds[order % heldFundIds.length];
+                        byte type;
+                        long shares = 0;
+                        long amount = 0;
+                        int orderPositionId = 0;
+                        switch (order % 4) {
+                            case 0:
+                                type = CCConstants.TRAN_TYPE_BUY_FUND;
+                                amount = 100L * 1000;
+                                orderPositionId = ++positionId;
+                                addPosition(positionStatement, orderPositionId, customerId, fundId, 0,
+                                        CCConstants.POSITION_STATUS_TO_BE_BOUGHT);
+                                add(positionStatement, ++positionCount);
+                                break;
+                            case 1:
+                                type = CCConstants.TRAN_TYPE_SELL_FUND;
+                                shares = 1000;
+                                orderPositionId = ++positionId;
+                                addPosition(positionStatement, orderPositionId, customerId, fundId, shares,
+                                        CCConstants.POSITION_STATUS_TO_BE_SOLD);
+                                add(positionStatement, ++positionCount);
+                                break;
+                            case 2:
+                                type = CCConstants.TRAN_TYPE_DEPOSIT_CHECK;
+                                amount = 50L * 1000;
+                                fundId = CCConstants.SETTLEMENT_CASH_FUND_ID;
+                                break;
+                            default:
+                                type = CCConstants.TRAN_TYPE_REQUEST_CHECK;
+                                amount = 20L * 1000;
+                                fundId = CCConstants.SETTLEMENT_CASH_FUND_ID;
+                                break;
+                        }
+                        transitionStatement.setInt(1, ++transitionId);
+                        transitionStatement.setInt(2, customerId);
+                        transitionStatement.setInt(3, fundId);
+                        transitionStatement.setInt(4, orderPositionId);
+                        transitionStatement.setLong(5, shares);
+                        transitionStatement.setByte(6, type);
+                        transitionStatement.setLong(7, amount);
+                        transitionStatement.setByte(8, CCConstants.TRAN_STATUS_PENDING);
+                        add(transitionStatement, ++count);
+                    }
+                }
+                executeRemaining(positionStatement, positionCount);
+                executeRemaining(transitionStatement, count);
+            }
+            restartIdentities(connection);
+            connection.commit();
+        }
+        return count;
+    }
+
+    public static String getUserName(int customerId) {
+        return "customer" + customerId;
+    }
+
+    /**
+     * @return the two funds held by a customer
+     */
+    public static int[] getHeldFundIds(int customerId, int fundCount) {
+        return new int[]{1 + customerId % fundCount, 1 + (customerId + 1) % fundCount};
+    }
+
+    private static void addPosition(PreparedStatement statement, int id, int customerId, int fundId, long shares,
+                                    byte status) throws SQLException {
+        statement.setInt(1, id);
+        statement.setInt(2, customerId);
+        statement.setInt(3, fundId);
+        statement.setLong(4, shares);
+        statement.setByte(5, status);
+    }
+
+    private static void add(PreparedStatement statement, int count) throws SQLException {
+        statement.addBatch();
+        if (count % BATCH_SIZE == 0) {
+            statement.executeBatch();
+        }
+    }
+
+    /**
+     * Send the rows added since the last full batch, an empty batch is an error for some drivers.
+     */
+    private static void executeRemaining(PreparedStatement statement, int count) throws SQLException {
+        if (count % BATCH_SIZE != 0) {
+            statement.executeBatch();
+        }
+    }
+
+    private static int getMaxId(Connection connection, String table) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT MAX(id) FROM " + table)) {
+            return resultSet.next() ? resultSet.getInt(1) : 0;
+        }
+    }
+
+    /**
+     * The rows were inserted with explicit ids, the identities restart after them.
+     */
+    private static void restartIdentities(Connection connection) throws SQLException {
+        for (String table : new String[]{"Fund", "FundPriceHistory", "Customer", "Position", "Transition"}) {
+            int next = getMaxId(connection, table) + 1;
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("ALTER TABLE " + table + " ALTER COLUMN id RESTART WITH " + next);
+            }
+        }
+    }
+}
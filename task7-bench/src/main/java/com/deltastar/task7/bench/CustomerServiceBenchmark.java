@@ -0,0 +1,109 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2015, Delta Star Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.deltastar.task7.bench;
+
+import com.deltastar.task7.core.repository.domain.Customer;
+import com.deltastar.task7.core.service.api.CustomerService;
+import com.deltastar.task7.core.service.exception.CfsException;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.support.ClassPathXmlApplicationContext;
+
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Order entry and chart data of {@link CustomerService} against the embedded database. Every
+ * invocation acts for the next customer, on one of the funds it holds.
+ * <p>
+ * Delta Star Team
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CustomerServiceBenchmark {
+
+    @Param({"1000"})
+    public int customerCount;
+
+    @Param({"20"})
+    public int fundCount;
+
+    @Param({"250"})
+    public int historyDays;
+
+    private ClassPathXmlApplicationContext context;
+    private CustomerService customerService;
+    private int customerId;
+
+    @Setup
+    public void setUp() throws SQLException {
+        context = BenchData.open(customerCount, fundCount, historyDays);
+        customerService = context.getBean(CustomerService.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void buyFund() throws CfsException {
+        Customer customer = nextCustomer();
+        customerService.buyFund(customer, String.valueOf(getHeldFundId(customer)), "1.5", null);
+    }
+
+    @Benchmark
+    public void sellFund() throws CfsException {
+        Customer customer = nextCustomer();
+        customerService.sellFund(customer, String.valueOf(getHeldFundId(customer)), "0.001", null);
+    }
+
+    @Benchmark
+    public void requestCheck() throws CfsException {
+        customerService.requestCheck(nextCustomer(), "1.5", null);
+    }
+
+    @Benchmark
+    public String generateBarChartData() {
+        return customerService.generateBarChartData();
+    }
+
+    @Benchmark
+    public String generateBarChartDataOfFund() throws CfsException {
+        return customerService.generateBarChartData(String.valueOf(1 + customerId++ % fundCount));
+    }
+
+    private Customer nextCustomer() throws CfsException {
+        customerId = customerId % customerCount + 1;
+        return customerService.getCustomerById(customerId);
+    }
+
+    private int getHeldFundId(Customer customer) {
+        return BenchData.getHeldFundIds(customer.getId(), fundCount)[0];
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2015, Delta Star Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.deltastar.task7.bench;
+
+import com.deltastar.task7.core.service.api.SettlementService;
+import com.deltastar.task7.core.service.exception.CfsException;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.support.ClassPathXmlApplicationContext;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One transition day over a freshly seeded book of pending orders, with the settlement settings of
+ * config/settlement.properties. The employee service only submits the same settlement as a
+ * background job, so the synchronous {@link SettlementService} entry point is measured.
+ * <p>
+ * Delta Star Team
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TransitionDayBenchmark {
+
+    @Param({"1000"})
+    public int customerCount;
+
+    @Param({"20"})
+    public int fundCount;
+
+    @Param({"4"})
+    public int ordersPerCustomer;
+
+    private ClassPathXmlApplicationContext context;
+    private SettlementService settlementService;
+    private final Map<Integer, Long> priceByFundId = new LinkedHashMap<>();
+    private Timestamp executionDay;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        context = BenchData.open(customerCount, fundCount, 1);
+        settlementService = context.getBean(SettlementService.class);
+        executionDay = BenchData.getFirstTransitionDay(1);
+        for (int fundId = 1; fundId <= fundCount; fundId++) {
+            priceByFundId.put(fundId, BenchData.FUND_PRICE + fundId);
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void addPendingOrders() throws SQLException {
+        BenchData.addPendingOrders(context.getBean(DataSource.class), customerCount, fundCount, ordersPerCustomer);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void executeTransitionDay() throws CfsException {
+        settlementService.executeTransitionDay(priceByFundId, executionDay);
+        executionDay = new Timestamp(executionDay.getTime() + BenchData.DAY_MILLIS);
+    }
+}
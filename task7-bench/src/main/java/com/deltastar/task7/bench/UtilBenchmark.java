@@ -0,0 +1,88 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2015, Delta Star Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.deltastar.task7.bench;
+
+import com.deltastar.task7.core.repository.domain.Customer;
+import com.deltastar.task7.core.service.exception.CfsException;
+import com.deltastart.task7.core.constants.Util;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.Timestamp;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The {@link Util} formatters and the password check of {@link Customer}, without database.
+ * <p>
+ * Delta Star Team
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class UtilBenchmark {
+
+    private final long cash = 1234567890L;
+    private final Timestamp timestamp = new Timestamp(1420070400000L);
+    private Customer customer;
+
+    @Setup
+    public void setUp() {
+        customer = new Customer();
+        customer.setPassword(BenchData.PASSWORD);
+        customer.hashPassword();
+    }
+
+    @Benchmark
+    public String formatCash() {
+        return Util.formatCash(cash);
+    }
+
+    @Benchmark
+    public String cashFormatForDisplay() {
+        return Util.cashFormatForDisplay(cash);
+    }
+
+    @Benchmark
+    public long formatToLong() throws CfsException {
+        return Util.formatToLong("1234567.891");
+    }
+
+    @Benchmark
+    public String formatTime() {
+        return Util.formatTime(timestamp);
+    }
+
+    @Benchmark
+    public Timestamp formatTimeStamp() throws CfsException {
+        return Util.formatTimeStamp("01/01/2015");
+    }
+
+    @Benchmark
+    public boolean checkPassword() {
+        return customer.checkPassword(BenchData.PASSWORD);
+    }
+}
@@ -0,0 +1,382 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2015, Delta Star Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.deltastar.task7.core.generator;
+
+import com.deltastar.task7.core.repository.domain.Customer;
+import com.deltastart.task7.core.constants.CCConstants;
+import com.deltastart.task7.core.constants.Money;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Properties;
+import java.util.Random;
+
+/**
+ * Fills the database with synthetic funds, price history, customers, positions and transitions at
+ * production volumes. The rows are appended after the existing ones with explicit ids and written
+ * with multi-row inserts, with the foreign key checks turned off while generating. The same seed
+ * always generates the same data.
+ * <p>
+ * Customers are either active or dormant, which sets how many positions and transitions they have.
+ * Funds are picked with a Zipf distribution, so the first funds are the popular ones. A ratio of the
+ * transitions is left pending, with their pending positions and reserved cash, for the next
+ * transition day.
+ * <p>
+ * Run it with the database.properties and generator.properties of the classpath, any property can
+ * be overridden with a system property:
+ * <pre>
+ * mvn -pl task7-core exec:java -Dexec.mainClass=com.deltastar.task7.core.generator.DataGenerator \
+ *     -Dgenerator.customerCount=100000
+ * </pre>
+ * For a new HSQLDB file database, also set db.driver=org.hsqldb.jdbcDriver,
+ * db.url=jdbc:hsqldb:file:cfs;shutdown=true, db.username=sa and
+ * generator.schema=config/schema_cfs_hsql.sql.
+ * <p>
+ * Delta Star Team
+ */
+public class DataGenerator {
+
+    public static final String PASSWORD = "password";
+    private static final String[] TABLES = {"Fund", "FundPriceHistory", "Customer", "Position", "Transition"};
+    private static final String[] STATES = {"PA", "NY", "CA", "TX", "IL", "OH", "MA", "WA"};
+    private static final int CUSTOMERS_PER_COMMIT = 10000;
+    private static final int PROGRESS_CUSTOMERS = 100000;
+
+    private final GeneratorConfig config;
+    private final Random random;
+    //cumulative probability of each fund, for the Zipf distribution.
+    private final double[] fundCumulative;
+    private final long[] dayMillis;
+    private long[] lastPrice;
+
+    public DataGenerator(GeneratorConfig config) {
+        this.config = config;
+        this.random = new Random(config.getSeed());
+        this.fundCumulative = getCumulative(config.getFundCount(), config.getFundPopularity());
+        this.dayMillis = getBusinessDays(config.getFirstPriceDay(), config.getHistoryDays());
+    }
+
+    public static void main(String[] args) throws Exception {
+        Properties properties = new Properties();
+        load(properties, "config/database.properties");
+        load(properties, "config/generator.properties");
+        for (String name : System.getProperties().stringPropertyNames()) {
+            if (name.startsWith("db.") || name.startsWith("generator.")) {
+                properties.setProperty(name, System.getProperty(name));
+            }
+        }
+
+        GeneratorConfig config = new GeneratorConfig(properties);
+        Class.forName(properties.getProperty("db.driver"));
+        long start = System.currentTimeMillis();
+        try (Connection connection = DriverManager.getConnection(properties.getProperty("db.url"),
+                properties.getProperty("db.username"), properties.getProperty("db.password"))) {
+            if (!config.getSchema().isEmpty()) {
+                ResourceDatabasePopulator populator = new ResourceDatabasePopulator();
+                populator.addScript(new ClassPathResource(config.getSchema()));
+                populator.populate(connection);
+            }
+            new DataGenerator(config).generate(connection);
+        }
+        System.out.println("generated in " + (System.currentTimeMillis() - start) / 1000 + " s");
+    }
+
+    private static void load(Properties properties, String resource) throws IOException {
+        try (InputStream inputStream = DataGenerator.class.getClassLoader().getResourceAsStream(resource)) {
+            if (inputStream != null) {
+                properties.load(inputStream);
+            }
+        }
+    }
+
+    /**
+     * Generate the configured volumes. The connection is committed every few thousand customers.
+     */
+    public void generate(Connection connection) throws SQLException {
+        boolean mySql = connection.getMetaData().getDatabaseProductName().toLowerCase().contains("mysql");
+        connection.setAutoCommit(false);
+        setChecks(connection, mySql, false);
+        try {
+            generateFunds(connection);
+            generateCustomers(connection);
+            connection.commit();
+        } finally {
+            setChecks(connection, mySql, true);
+        }
+        if (!mySql) {
+            restartIdentities(connection);
+        }
+        connection.commit();
+    }
+
+    private void generateFunds(Connection connection) throws SQLException {
+        int fundIdBase = getMaxId(connection, "Fund");
+        int historyId = getMaxId(connection, "FundPriceHistory");
+        int rowsPerStatement = config.getRowsPerStatement();
+        lastPrice = new long[config.getFundCount()];
+        Timestamp lastDay = new Timestamp(dayMillis[dayMillis.length - 1]);
+
+        try (RowWriter fundWriter = new RowWriter(connection, "Fund",
+                new String[]{"id", "fundName", "symbol", "comment", "lastPrice", "lastTransitionDay", "status", "createdAt"},
+                rowsPerStatement);
+             RowWriter historyWriter = new RowWriter(connection, "FundPriceHistory",
+                     new String[]{"id", "fundId", "price", "priceDate", "status", "createdAt"}, rowsPerStatement)) {
+            for (int fund = 0; fund < lastPrice.length; fund++) {
+                int fundId = fundIdBase + fund + 1;
+                //a random walk from $5 to $100 with a daily volatility of 1%.
+                long price = (5 + random.nextInt(96)) * Money.ONE;
+                for (long day : dayMillis) {
+                    price = Math.max(Money.ONE, Math.min(Integer.MAX_VALUE / 2,
+                            price + (long) (price * random.nextGaussian() / 100)));
+                    Timestamp priceDate = new Timestamp(day);
+                    historyWriter.add(++historyId, fundId, price, priceDate, (byte) 0, priceDate);
+                }
+                lastPrice[fund] = price;
+                fundWriter.add(fundId, "Generated Fund " + fundId, "G" + fundId, "Generated fund " + fundId,
+                        price, lastDay, (byte) 0, new Timestamp(dayMillis[0]));
+            }
+            fundWriter.flush();
+            historyWriter.flush();
+            System.out.println(fundWriter.getWrittenCount() + " funds, " + historyWriter.getWrittenCount()
+                    + " prices");
+        }
+        connection.commit();
+    }
+
+    private void generateCustomers(Connection connection) throws SQLException {
+        int fundIdBase = getMaxId(connection, "Fund") - config.getFundCount();
+        int customerId = getMaxId(connection, "Customer");
+        int positionId = getMaxId(connection, "Position");
+        int transitionId = getMaxId(connection, "Transition");
+        int rowsPerStatement = config.getRowsPerStatement();
+        Timestamp nextDay = new Timestamp(dayMillis[dayMillis.length - 1] + 24L * 60 * 60 * 1000);
+
+        Customer passwordHolder = new Customer();
+        passwordHolder.setPassword(PASSWORD);
+        passwordHolder.hashPassword();
+
+        int[] heldFunds = new int[config.getFundCount()];
+        int[] heldPositionIds = new int[config.getFundCount()];
+        long[] heldShares = new long[config.getFundCount()];
+        boolean[] held = new boolean[config.getFundCount()];
+
+        try (RowWriter customerWriter = new RowWriter(connection, "Customer",
+                new String[]{"id", "userName", "firstName", "lastName", "addressLine1", "city", "state", "zipcode",
+                        "salt", "password", "cash", "cashToBeDeposited", "cashToBeChecked", "status", "createdAt"},
+                rowsPerStatement);
+             RowWriter positionWriter = new RowWriter(connection, "Position",
+                     new String[]{"id", "customerId", "fundId", "shares", "status", "createdAt"}, rowsPerStatement);
+             RowWriter transitionWriter = new RowWriter(connection, "Transition",
+                     new String[]{"id", "customerId", "fundId", "positionId", "executeDate", "shares", "type",
+                             "amount", "status", "createdAt"}, rowsPerStatement)) {
+
+            for (int customer = 0; customer < config.getCustomerCount(); customer++) {
+                customerId++;
+                boolean active = random.nextDouble() < config.getActiveCustomerRatio();
+                Timestamp createdAt = new Timestamp(dayMillis[random.nextInt(dayMillis.length)]);
+
+                //the possessed positions, in distinct funds.
+                int heldCount = Math.min(getCount(active ? config.getActivePositionCount()
+                        : config.getDormantPositionCount()), heldFunds.length);
+                for (int i = 0; i < heldCount; i++) {
+                    int fund = pickFund();
+                    while (held[fund]) {
+                        fund = (fund + 1) % heldFunds.length;
+                    }
+                    held[fund] = true;
+                    heldFunds[i] = fund;
+                    heldPositionIds[i] = ++positionId;
+                    heldShares[i] = (1 + random.nextInt(1000)) * Money.ONE;
+                }
+
+                long cashToBeDeposited = 0;
+                long cashToBeChecked = 0;
+                int transitionCount = getCount(active ? config.getActiveTransitionCount()
+                        : config.getDormantTransitionCount());
+                for (int i = 0; i < transitionCount; i++) {
+                    boolean pending = random.nextDouble() < config.getPendingTransitionRatio();
+                    Timestamp executeDate = pending ? null : new Timestamp(dayMillis[random.nextInt(dayMillis.length)]);
+                    byte status = pending ? CCConstants.TRAN_STATUS_PENDING : CCConstants.TRAN_STATUS_DONE;
+                    double typeDraw = random.nextDouble();
+
+                    if (typeDraw < config.getBuyRatio()) {
+                        int fund = pickFund();
+                        long amount = (10 + random.nextInt(10000)) * Money.ONE;
+                        long shares = 0;
+                        int transitionPositionId = 0;
+                        if (pending) {
+                            transitionPositionId = ++positionId;
+                            positionWriter.add(transitionPositionId, customerId, fundIdBase + fund + 1, 0L,
+                                    CCConstants.POSITION_STATUS_TO_BE_BOUGHT, nextDay);
+                        } else {
+                            shares = Money.getShares(amount, lastPrice[fund]);
+                        }
+                        transitionWriter.add(++transitionId, customerId, fundIdBase + fund + 1, transitionPositionId,
+                                executeDate, shares, CCConstants.TRAN_TYPE_BUY_FUND, amount, status,
+                                pending ? nextDay : executeDate);
+                    } else if (typeDraw < config.getBuyRatio() + config.getSellRatio() && heldCount > 0) {
+                        int fund = heldFunds[random.nextInt(heldCount)];
+                        long shares = (1 + random.nextInt(100)) * Money.ONE;
+                        long amount = 0;
+                        int transitionPositionId = 0;
+                        if (pending) {
+                            transitionPositionId = ++positionId;
+                            positionWriter.add(transitionPositionId, customerId, fundIdBase + fund + 1, shares,
+                                    CCConstants.POSITION_STATUS_TO_BE_SOLD, nextDay);
+                        } else {
+                            amount = Money.getCash(shares, lastPrice[fund]);
+                        }
+                        transitionWriter.add(++transitionId, customerId, fundIdBase + fund + 1, transitionPositionId,
+                                executeDate, shares, CCConstants.TRAN_TYPE_SELL_FUND, amount, status,
+                                pending ? nextDay : executeDate);
+                    } else {
+                        //deposits and check requests, also the sells of a customer without position.
+                        boolean deposit = typeDraw < config.getBuyRatio() + config.getSellRatio() + config.getDepositRatio();
+                        long amount = (10 + random.nextInt(5000)) * Money.ONE;
+                        if (pending && deposit) {
+                            cashToBeDeposited += amount;
+                        } else if (pending) {
+                            cashToBeChecked += amount;
+                        }
+                        transitionWriter.add(++transitionId, customerId, CCConstants.SETTLEMENT_CASH_FUND_ID, 0,
+                                executeDate, 0L, deposit ? CCConstants.TRAN_TYPE_DEPOSIT_CHECK
+                                        : CCConstants.TRAN_TYPE_REQUEST_CHECK, amount, status,
+                                pending ? nextDay : executeDate);
+                    }
+                }
+
+                long cash = (active ? random.nextInt(100000) : random.nextInt(1000)) * Money.ONE;
+                customerWriter.add(customerId, "gen" + customerId, "First" + customerId, "Last" + customerId,
+                        (1 + random.nextInt(9999)) + " Forbes Avenue", "Pittsburgh", STATES[random.nextInt(STATES.length)],
+                        String.valueOf(10000 + random.nextInt(90000)), passwordHolder.getSalt(),
+                        passwordHolder.getPassword(), cash, cashToBeDeposited, cashToBeChecked, (byte) 0, createdAt);
+                for (int i = 0; i < heldCount; i++) {
+                    positionWriter.add(heldPositionIds[i], customerId, fundIdBase + heldFunds[i] + 1, heldShares[i],
+                            CCConstants.POSITION_STATUS_IN_POSSESSION, createdAt);
+                    held[heldFunds[i]] = false;
+                }
+
+                if ((customer + 1) % CUSTOMERS_PER_COMMIT == 0) {
+                    connection.commit();
+                }
+                if ((customer + 1) % PROGRESS_CUSTOMERS == 0) {
+                    System.out.println((customer + 1) + " customers");
+                }
+            }
+            customerWriter.flush();
+            positionWriter.flush();
+            transitionWriter.flush();
+            System.out.println(customerWriter.getWrittenCount() + " customers, " + positionWriter.getWrittenCount()
+                    + " positions, " + transitionWriter.getWrittenCount() + " transitions");
+        }
+    }
+
+    /**
+     * @return a count drawn uniformly between 1 and 2 * mean - 1, so that its mean is the given one
+     */
+    private int getCount(int mean) {
+        return mean <= 0 ? 0 : 1 + random.nextInt(2 * mean - 1);
+    }
+
+    /**
+     * @return the index of a fund, drawn with the Zipf distribution
+     */
+    private int pickFund() {
+        int index = Arrays.binarySearch(fundCumulative, random.nextDouble());
+        return Math.min(index < 0 ? -index - 1 : index, fundCumulative.length - 1);
+    }
+
+    private static double[] getCumulative(int fundCount, double exponent) {
+        double[] cumulative = new double[fundCount];
+        double sum = 0;
+        for (int i = 0; i < fundCount; i++) {
+            sum += 1 / Math.pow(i + 1, exponent);
+            cumulative[i] = sum;
+        }
+        for (int i = 0; i < fundCount; i++) {
+            cumulative[i] /= sum;
+        }
+        return cumulative;
+    }
+
+    /**
+     * @return the given number of days from the first day, without the week-ends
+     */
+    private static long[] getBusinessDays(Timestamp firstDay, int dayCount) {
+        long[] days = new long[dayCount];
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTime(firstDay);
+        for (int i = 0; i < dayCount; calendar.add(Calendar.DATE, 1)) {
+            int dayOfWeek = calendar.get(Calendar.DAY_OF_WEEK);
+            if (dayOfWeek != Calendar.SATURDAY && dayOfWeek != Calendar.SUNDAY) {
+                days[i++] = calendar.getTimeInMillis();
+            }
+        }
+        return days;
+    }
+
+    private static int getMaxId(Connection connection, String table) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT MAX(id) FROM " + table)) {
+            return resultSet.next() ? resultSet.getInt(1) : 0;
+        }
+    }
+
+    /**
+     * The rows are written in customer order, not in the order of the foreign keys.
+     */
+    private static void setChecks(Connection connection, boolean mySql, boolean enabled) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            if (mySql) {
+                statement.execute("SET FOREIGN_KEY_CHECKS = " + (enabled ? 1 : 0));
+                statement.execute("SET UNIQUE_CHECKS = " + (enabled ? 1 : 0));
+            } else {
+                statement.execute("SET DATABASE REFERENTIAL INTEGRITY " + (enabled ? "TRUE" : "FALSE"));
+            }
+        }
+    }
+
+    /**
+     * HSQLDB identities do not move past explicit ids, they restart after the generated rows.
+     */
+    private static void restartIdentities(Connection connection) throws SQLException {
+        for (String table : TABLES) {
+            int next = getMaxId(connection, table) + 1;
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("ALTER TABLE " + table + " ALTER COLUMN id RESTART WITH " + next);
+            }
+        }
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2015, Delta Star Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.deltastar.task7.core.generator;
+
+import java.sql.Timestamp;
+import java.util.Properties;
+
+/**
+ * Volumes and distributions of the generated data, read from the generator.* properties. Every
+ * property has a default, see config/generator.properties.
+ * <p>
+ * Delta Star Team
+ */
+public class GeneratorConfig {
+
+    private final long seed;
+    private final int customerCount;
+    private final double activeCustomerRatio;
+    private final int activePositionCount;
+    private final int dormantPositionCount;
+    private final int activeTransitionCount;
+    private final int dormantTransitionCount;
+    private final double pendingTransitionRatio;
+    private final double buyRatio;
+    private final double sellRatio;
+    private final double depositRatio;
+    private final int fundCount;
+    private final double fundPopularity;
+    private final int historyDays;
+    private final Timestamp firstPriceDay;
+    private final int rowsPerStatement;
+    private final String schema;
+
+    public GeneratorConfig(Properties properties) {
+        seed = Long.parseLong(get(properties, "seed", "1"));
+        customerCount = Integer.parseInt(get(properties, "customerCount", "1000000"));
+        activeCustomerRatio = Double.parseDouble(get(properties, "activeCustomerRatio", "0.2"));
+        activePositionCount = Integer.parseInt(get(properties, "activePositionCount", "26"));
+        dormantPositionCount = Integer.parseInt(get(properties, "dormantPositionCount", "6"));
+        activeTransitionCount = Integer.parseInt(get(properties, "activeTransitionCount", "30"));
+        dormantTransitionCount = Integer.parseInt(get(properties, "dormantTransitionCount", "5"));
+        pendingTransitionRatio = Double.parseDouble(get(properties, "pendingTransitionRatio", "0.01"));
+        buyRatio = Double.parseDouble(get(properties, "buyRatio", "0.4"));
+        sellRatio = Double.parseDouble(get(properties, "sellRatio", "0.2"));
+        depositRatio = Double.parseDouble(get(properties, "depositRatio", "0.25"));
+        fundCount = Integer.parseInt(get(properties, "fundCount", "5000"));
+        fundPopularity = Double.parseDouble(get(properties, "fundPopularity", "1.0"));
+        historyDays = Integer.parseInt(get(properties, "historyDays", "1000"));
+        firstPriceDay = Timestamp.valueOf(get(properties, "firstPriceDay", "2012-01-02") + " 00:00:00");
+        rowsPerStatement = Integer.parseInt(get(properties, "rowsPerStatement", "1000"));
+        schema = get(properties, "schema", "");
+
+        if (customerCount < 0 || fundCount < 1 || historyDays < 1 || rowsPerStatement < 1) {
+            throw new IllegalArgumentException("The generator needs at least one fund, one price day and one row per statement");
+        }
+        if (buyRatio + sellRatio + depositRatio > 1) {
+            throw new IllegalArgumentException("The buy, sell and deposit ratios add up to more than 1");
+        }
+    }
+
+    private static String get(Properties properties, String name, String defaultValue) {
+        String value = properties.getProperty("generator." + name);
+        return value == null || value.trim().isEmpty() ? defaultValue : value.trim();
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public int getCustomerCount() {
+        return customerCount;
+    }
+
+    public double getActiveCustomerRatio() {
+        return activeCustomerRatio;
+    }
+
+    public int getActivePositionCount() {
+        return activePositionCount;
+    }
+
+    public int getDormantPositionCount() {
+        return dormantPositionCount;
+    }
+
+    public int getActiveTransitionCount() {
+        return activeTransitionCount;
+    }
+
+    public int getDormantTransitionCount() {
+        return dormantTransitionCount;
+    }
+
+    public double getPendingTransitionRatio() {
+        return pendingTransitionRatio;
+    }
+
+    public double getBuyRatio() {
+        return buyRatio;
+    }
+
+    public double getSellRatio() {
+        return sellRatio;
+    }
+
+    public double getDepositRatio() {
+        return depositRatio;
+    }
+
+    public int getFundCount() {
+        return fundCount;
+    }
+
+    public double getFundPopularity() {
+        return fundPopularity;
+    }
+
+    public int getHistoryDays() {
+        return historyDays;
+    }
+
+    public Timestamp getFirstPriceDay() {
+        return firstPriceDay;
+    }
+
+    public int getRowsPerStatement() {
+        return rowsPerStatement;
+    }
+
+    public String getSchema() {
+        return schema;
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2015, Delta Star Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.deltastar.task7.core.generator;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * Buffers the rows of one table and writes them with multi-row INSERT statements, which both MySQL
+ * and HSQLDB execute in a single round trip. The statement of a full buffer is prepared once.
+ * <p>
+ * Delta Star Team
+ */
+class RowWriter implements AutoCloseable {
+
+    private final Connection connection;
+    private final String sqlPrefix;
+    private final String rowPlaceholder;
+    private final int columnCount;
+    private final int rowsPerStatement;
+    private final Object[] values;
+    private PreparedStatement fullStatement;
+    private int rowCount;
+    private long writtenCount;
+
+    RowWriter(Connection connection, String table, String[] columns, int rowsPerStatement) {
+        this.connection = connection;
+        this.columnCount = columns.length;
+        this.rowsPerStatement = rowsPerStatement;
+        this.values = new Object[columnCount * rowsPerStatement];
+
+        StringBuilder prefix = new StringBuilder("INSERT INTO ").append(table).append(" (");
+        StringBuilder placeholder = new StringBuilder("(");
+        for (int i = 0; i < columnCount; i++) {
+            if (i > 0) {
+                prefix.append(", ");
+                placeholder.append(", ");
+            }
+            prefix.append(columns[i]);
+            placeholder.append('?');
+        }
+        this.sqlPrefix = prefix.append(") VALUES ").toString();
+        this.rowPlaceholder = placeholder.append(')').toString();
+    }
+
+    /**
+     * Add a row, in the order of the columns. The buffer is written when it is full.
+     */
+    void add(Object... row) throws SQLException {
+        System.arraycopy(row, 0, values, rowCount * columnCount, columnCount);
+        if (++rowCount == rowsPerStatement) {
+            flush();
+        }
+    }
+
+    void flush() throws SQLException {
+        if (rowCount == 0) {
+            return;
+        }
+        if (rowCount == rowsPerStatement) {
+            if (fullStatement == null) {
+                fullStatement = connection.prepareStatement(getSql(rowsPerStatement));
+            }
+            execute(fullStatement);
+        } else {
+            try (PreparedStatement statement = connection.prepareStatement(getSql(rowCount))) {
+                execute(statement);
+            }
+        }
+        writtenCount += rowCount;
+        rowCount = 0;
+    }
+
+    /**
+     * @return the number of rows written so far
+     */
+    long getWrittenCount() {
+        return writtenCount;
+    }
+
+    private void execute(PreparedStatement statement) throws SQLException {
+        int parameterCount = rowCount * columnCount;
+        for (int i = 0; i < parameterCount; i++) {
+            statement.setObject(i + 1, values[i]);
+            values[i] = null;
+        }
+        statement.executeUpdate();
+    }
+
+    private String getSql(int rows) {
+        StringBuilder sql = new StringBuilder(sqlPrefix.length() + rows * (rowPlaceholder.length() + 2));
+        sql.append(sqlPrefix);
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append(rowPlaceholder);
+        }
+        return sql.toString();
+    }
+
+    @Override
+    public void close() throws SQLException {
+        try {
+            flush();
+        } finally {
+            if (fullStatement != null) {
+                fullStatement.close();
+            }
+        }
+    }
+}
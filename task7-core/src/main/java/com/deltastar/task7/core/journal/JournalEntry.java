@@ -0,0 +1,96 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2015, Delta Star Team
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package com.deltastar.task7.core.journal;
+
+/**
+ * An order accepted into the {@link OrderJournal}. The sequence numbers of a journal have no gaps, so
+ * the last sequence written to the database tells exactly which orders are left to drain.
+ * <p>
+ * Delta Star Team
+ */
+public class JournalEntry {
+
+    private final long sequence;
+    private final int customerId;
+    private final int fundId;
+    private final byte type;
+    private final long amount;
+    private final long shares;
+    private final long createdAt;
+    private final String requestKey;
+
+    public JournalEntry(long sequence, int customerId, int fundId, byte type, long amount, long shares,
+                        long createdAt, String requestKey) {
+        this.sequence = sequence;
+        this.customerId = customerId;
+        this.fundId = fundId;
+        this.type = type;
+        this.amount = amount;
+        this.shares = shares;
+        this.createdAt = createdAt;
+        this.requestKey = requestKey;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public int getCustomerId() {
+        return customerId;
+    }
+
+    public int getFundId() {
+        return fundId;
+    }
+
+    /**
+     * @return the transition type of the order, a buy or a sell
+     */
+    public byte getType() {
+        return type;
+    }
+
+    public long getAmount() {
+        return amount;
+    }
+
+    public long getShares() {
+        return shares;
+    }
+
+    /**
+     * @return the time the order was accepted, in milliseconds
+     */
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    /**
+     * @return the key the client sent with the order, or null if it sent none
+     */
+    public String getRequestKey() {
+        return requestKey;
+    }
+}
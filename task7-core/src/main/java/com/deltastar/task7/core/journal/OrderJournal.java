@@ -0,0 +1,423 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2015, Delta Star Team
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package com.deltastar.task7.core.journal;
+
+import com.deltastart.task7.core.constants.CCConstants;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of accepted orders, kept in memory-mapped segment files of fixed size records.
+ * Every record holds a CRC32 of its content, so a record torn by a crash is found and dropped when the
+ * journal is opened again.
+ * <p>
+ * An append returns once its record is synced to disk. The sync is shared: the first waiting
+ * appender syncs every record appended so far while the others wait for it, so a burst of orders
+ * costs a few syncs instead of one per order.
+ * <p>
+ * A segment is named after its first sequence. Once all its orders are drained, it is renamed and
+ * written over as a later segment, since the mapping of a deleted file holds its disk space until the
+ * buffer is garbage collected. The records left from its previous use are dropped when the journal
+ * is opened, their sequences do not follow the name of the segment.
+ * <p>
+ * Delta Star Team
+ */
+public class OrderJournal implements Closeable {
+
+    /**
+     * crc, sequence, customerId, fundId, type, amount, shares, createdAt, then the length and the chars
+     * of the request key.
+     */
+    static final int RECORD_SIZE = 4 + 8 + 4 + 4 + 1 + 8 + 8 + 8 + 1 + 2 * CCConstants.MAX_REQUEST_KEY_LENGTH;
+
+    private static final String SEGMENT_SUFFIX = ".journal";
+
+    /**
+     * The drained segments kept to be written over, more of them are deleted.
+     */
+    private static final int MAX_FREE_SEGMENT_COUNT = 2;
+
+    private final File directory;
+    private final String name;
+    private final int recordsPerSegment;
+    private final TreeMap<Long, Segment> segmentBySequence = new TreeMap<>();
+    private final Deque<Segment> freeSegmentDeque = new ArrayDeque<>();
+    private Segment currentSegment;
+    private long nextSequence;
+    private boolean open;
+
+    private final Object syncLock = new Object();
+    private long syncedSequence;
+    private boolean syncing;
+
+    /**
+     * @param directory   the directory of the segment files
+     * @param name        the name of the journal, which prefixes its segment files
+     * @param segmentSize the size of a segment file in bytes
+     */
+    public OrderJournal(File directory, String name, int segmentSize) {
+        if (segmentSize < RECORD_SIZE) {
+            throw new IllegalArgumentException("A journal segment must hold at least one record");
+        }
+        this.directory = directory;
+        this.name = name;
+        this.recordsPerSegment = segmentSize / RECORD_SIZE;
+    }
+
+    /**
+     * Read the segments left by the previous run and start a new segment. The segments which are
+     * drained are deleted and the records after the first invalid one of a segment are dropped, since
+     * they were never acknowledged.
+     *
+     * @param drainedSequence the last sequence written to the database
+     * @throws IOException if a segment cannot be read or an order which is not drained is missing
+     */
+    public synchronized void open(long drainedSequence) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create the journal directory " + directory);
+        }
+        File[] files = directory.listFiles(new FileFilter() {
+            @Override
+            public boolean accept(File file) {
+                return file.getName().startsWith(name + "-") && file.getName().endsWith(SEGMENT_SUFFIX);
+            }
+        });
+        Arrays.sort(files, new Comparator<File>() {
+            @Override
+            public int compare(File file1, File file2) {
+                return Long.compare(getFirstSequence(file1), getFirstSequence(file2));
+            }
+        });
+
+        long lastSequence = drainedSequence;
+        for (File file : files) {
+            Segment segment = readSegment(file, getFirstSequence(file));
+            long segmentLastSequence = segment.firstSequence + segment.recordCount - 1;
+            if (segmentLastSequence <= drainedSequence) {
+                delete(file);
+                continue;
+            }
+            if (segment.firstSequence > lastSequence + 1) {
+                throw new IOException("The orders " + (lastSequence + 1) + " to " + (segment.firstSequence - 1)
+                        + " of journal " + name + " are missing");
+            }
+            segmentBySequence.put(segment.firstSequence, segment);
+            lastSequence = segmentLastSequence;
+        }
+
+        nextSequence = lastSequence + 1;
+        synchronized (syncLock) {
+            syncedSequence = lastSequence;
+        }
+        currentSegment = createSegment(nextSequence);
+        open = true;
+    }
+
+    /**
+     * Append an order and wait until it is synced to disk.
+     *
+     * @param requestKey the key the client sent with the order, or null if it sent none
+     * @return the appended order with its sequence
+     * @throws IOException if the journal is closed or the order could not be synced
+     */
+    public JournalEntry append(int customerId, int fundId, byte type, long amount, long shares,
+                               String requestKey) throws IOException {
+        if (requestKey != null && requestKey.length() > CCConstants.MAX_REQUEST_KEY_LENGTH) {
+            throw new IllegalArgumentException("The request key " + requestKey + " is too long");
+        }
+        JournalEntry entry;
+        synchronized (this) {
+            if (!open) {
+                throw new IOException("The journal " + name + " is closed");
+            }
+            if (currentSegment.recordCount == recordsPerSegment) {
+                currentSegment.buffer.force();
+                currentSegment = createSegment(nextSequence);
+            }
+            entry = new JournalEntry(nextSequence, customerId, fundId, type, amount, shares,
+                    System.currentTimeMillis(), requestKey);
+            currentSegment.write(entry);
+            nextSequence++;
+        }
+        sync(entry.getSequence());
+        return entry;
+    }
+
+    /**
+     * Read the synced orders following a sequence.
+     *
+     * @param afterSequence the sequence to read after
+     * @param maxCount      the maximum number of orders to read
+     * @return the orders, in sequence order
+     */
+    public synchronized List<JournalEntry> read(long afterSequence, int maxCount) {
+        List<JournalEntry> entryList = new ArrayList<>();
+        if (segmentBySequence.isEmpty()) {
+            return entryList;
+        }
+        long sequence = Math.max(afterSequence + 1, segmentBySequence.firstKey());
+        long lastSequence = getSyncedSequence();
+        while (sequence <= lastSequence && entryList.size() < maxCount) {
+            Segment segment = segmentBySequence.floorEntry(sequence).getValue();
+            entryList.add(segment.read((int) (sequence - segment.firstSequence)));
+            sequence++;
+        }
+        return entryList;
+    }
+
+    /**
+     * Free the segments whose orders are all drained, except the one being appended to.
+     *
+     * @param drainedSequence the last sequence written to the database
+     */
+    public synchronized void release(long drainedSequence) {
+        Iterator<Map.Entry<Long, Segment>> iterator = segmentBySequence.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Segment segment = iterator.next().getValue();
+            if (segment == currentSegment || segment.firstSequence + segment.recordCount - 1 > drainedSequence) {
+                break;
+            }
+            iterator.remove();
+            free(segment);
+        }
+    }
+
+    /**
+     * @return the last sequence synced to disk
+     */
+    public long getSyncedSequence() {
+        synchronized (syncLock) {
+            return syncedSequence;
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (open) {
+            open = false;
+            currentSegment.buffer.force();
+        }
+    }
+
+    /**
+     * Wait until the sequence is synced. If no sync is running, this thread syncs every record appended
+     * so far for all the appenders waiting behind it.
+     */
+    private void sync(long sequence) throws IOException {
+        while (true) {
+            synchronized (syncLock) {
+                while (syncing && syncedSequence < sequence) {
+                    try {
+                        syncLock.wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new InterruptedIOException("Interrupted while waiting for the journal sync");
+                    }
+                }
+                if (syncedSequence >= sequence) {
+                    return;
+                }
+                syncing = true;
+            }
+
+            long appendedSequence;
+            MappedByteBuffer buffer;
+            synchronized (this) {
+                appendedSequence = nextSequence - 1;
+                buffer = currentSegment.buffer;
+            }
+            boolean synced = false;
+            try {
+                //a full segment is synced before the next one is started, only the current one is left.
+                buffer.force();
+                synced = true;
+            } finally {
+                synchronized (syncLock) {
+                    syncing = false;
+                    if (synced) {
+                        syncedSequence = appendedSequence;
+                    }
+                    syncLock.notifyAll();
+                }
+            }
+        }
+    }
+
+    private Segment createSegment(long firstSequence) throws IOException {
+        File file = new File(directory, String.format("%s-%020d%s", name, firstSequence, SEGMENT_SUFFIX));
+        Segment freeSegment = freeSegmentDeque.poll();
+        if (freeSegment != null) {
+            //the mapping follows the file, the records are written over through the same buffer.
+            if (freeSegment.file.renameTo(file)) {
+                Segment segment = new Segment(file, firstSequence, freeSegment.buffer, 0);
+                segmentBySequence.put(firstSequence, segment);
+                return segment;
+            }
+            delete(freeSegment.file);
+        }
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+             FileChannel channel = randomAccessFile.getChannel()) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                    (long) recordsPerSegment * RECORD_SIZE);
+            channel.force(true);
+            Segment segment = new Segment(file, firstSequence, buffer, 0);
+            segmentBySequence.put(firstSequence, segment);
+            return segment;
+        }
+    }
+
+    /**
+     * Map a segment of the previous run and count its records up to the first invalid one.
+     */
+    private static Segment readSegment(File file, long firstSequence) throws IOException {
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+             FileChannel channel = randomAccessFile.getChannel()) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            byte[] record = new byte[RECORD_SIZE];
+            int recordCount = 0;
+            while ((recordCount + 1) * RECORD_SIZE <= buffer.limit()) {
+                buffer.get(record);
+                ByteBuffer recordBuffer = ByteBuffer.wrap(record);
+                if (recordBuffer.getInt(0) != checksum(record) || recordBuffer.getLong(4) != firstSequence + recordCount) {
+                    break;
+                }
+                recordCount++;
+            }
+            return new Segment(file, firstSequence, buffer, recordCount);
+        }
+    }
+
+    /**
+     * Keep a drained segment to be written over, unless it was mapped read only by {@link #open(long)}
+     * or enough segments are kept already.
+     */
+    private void free(Segment segment) {
+        if (segment.buffer.isReadOnly() || freeSegmentDeque.size() >= MAX_FREE_SEGMENT_COUNT) {
+            delete(segment.file);
+        } else {
+            freeSegmentDeque.add(segment);
+        }
+    }
+
+    private static long getFirstSequence(File file) {
+        String fileName = file.getName();
+        return Long.parseLong(fileName.substring(fileName.lastIndexOf('-') + 1, fileName.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private static int checksum(byte[] record) {
+        CRC32 crc32 = new CRC32();
+        crc32.update(record, 4, RECORD_SIZE - 4);
+        return (int) crc32.getValue();
+    }
+
+    private static void delete(File file) {
+        if (!file.delete() && file.exists()) {
+            file.deleteOnExit();
+        }
+    }
+
+    private static class Segment {
+
+        private final File file;
+        private final long firstSequence;
+        private final MappedByteBuffer buffer;
+        private int recordCount;
+
+        private Segment(File file, long firstSequence, MappedByteBuffer buffer, int recordCount) {
+            this.file = file;
+            this.firstSequence = firstSequence;
+            this.buffer = buffer;
+            this.recordCount = recordCount;
+        }
+
+        private void write(JournalEntry entry) {
+            byte[] record = new byte[RECORD_SIZE];
+            ByteBuffer recordBuffer = ByteBuffer.wrap(record);
+            recordBuffer.position(4);
+            recordBuffer.putLong(entry.getSequence());
+            recordBuffer.putInt(entry.getCustomerId());
+            recordBuffer.putInt(entry.getFundId());
+            recordBuffer.put(entry.getType());
+            recordBuffer.putLong(entry.getAmount());
+            recordBuffer.putLong(entry.getShares());
+            recordBuffer.putLong(entry.getCreatedAt());
+            String requestKey = entry.getRequestKey();
+            if (requestKey == null) {
+                recordBuffer.put((byte) -1);
+            } else {
+                recordBuffer.put((byte) requestKey.length());
+                for (int i = 0; i < requestKey.length(); i++) {
+                    recordBuffer.putChar(requestKey.charAt(i));
+                }
+            }
+            recordBuffer.putInt(0, checksum(record));
+
+            ByteBuffer segmentBuffer = buffer.duplicate();
+            segmentBuffer.position(recordCount * RECORD_SIZE);
+            segmentBuffer.put(record);
+            recordCount++;
+        }
+
+        private JournalEntry read(int index) {
+            ByteBuffer recordBuffer = buffer.duplicate();
+            recordBuffer.position(index * RECORD_SIZE + 4);
+            long sequence = recordBuffer.getLong();
+            int customerId = recordBuffer.getInt();
+            int fundId = recordBuffer.getInt();
+            byte type = recordBuffer.get();
+            long amount = recordBuffer.getLong();
+            long shares = recordBuffer.getLong();
+            long createdAt = recordBuffer.getLong();
+            String requestKey = null;
+            int requestKeyLength = recordBuffer.get();
+            if (requestKeyLength >= 0) {
+                char[] chars = new char[requestKeyLength];
+                for (int i = 0; i < requestKeyLength; i++) {
+                    chars[i] = recordBuffer.getChar();
+                }
+                requestKey = new String(chars);
+            }
+            return new JournalEntry(sequence, customerId, fundId, type, amount, shares, createdAt, requestKey);
+        }
+    }
+}
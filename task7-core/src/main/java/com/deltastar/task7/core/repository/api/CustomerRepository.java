@@ -25,6 +25,8 @@
 package com.deltastar.task7.core.repository.api;
 
 import com.deltastar.task7.core.repository.domain.Customer;
+import com.deltastar.task7.core.repository.domain.CustomerSummary;
+import com.deltastar.task7.core.repository.domain.SummaryKey;
 
 import java.util.List;
 
@@ -76,4 +78,38 @@ public interface CustomerRepository {
     List<Customer> findCustomerByUserNameOrFirstNameOrLastName(String userName, String firstName, String lastName);
 
     Customer findCustomerById(int customerId);
+
+    /**
+     * Take an amount from the cash of a customer, in a single conditional update, if the customer has
+     * enough cash. Customers already loaded in the persistence context are not refreshed.
+     *
+     * @param customerId the customer's id
+     * @param amount     the amount to take
+     * @return true if the cash was debited, false if the customer does not have enough cash
+     */
+    boolean debitCash(int customerId, long amount);
+
+    /**
+     * Move an amount from the cash of a customer to the cash to be checked, in a single conditional
+     * update, if the customer has enough cash. Customers already loaded in the persistence context are
+     * not refreshed.
+     *
+     * @param customerId the customer's id
+     * @param amount     the amount of the check
+     * @return true if the cash was reserved, false if the customer does not have enough cash
+     */
+    boolean reserveCashToBeChecked(int customerId, long amount);
+
+    /**
+     * Read a page of the customers, with only the columns the customer list shows.
+     *
+     * @param keyword    the prefix of the user name, first name or last name of the customers to read,
+     *                   null for every customer
+     * @param sortField  the column to sort by, one of the SORT_BY constants of CCConstants
+     * @param descending whether the customers are sorted in descending order
+     * @param after      the key of the last customer of the previous page, null for the first page
+     * @param limit      the maximum number of customers to read
+     * @return the customers
+     */
+    List<CustomerSummary> getCustomerSummaryPage(String keyword, String sortField, boolean descending, SummaryKey after, int limit);
 }
@@ -25,6 +25,8 @@
 package com.deltastar.task7.core.repository.api;
 
 import com.deltastar.task7.core.repository.domain.Employee;
+import com.deltastar.task7.core.repository.domain.EmployeeSummary;
+import com.deltastar.task7.core.repository.domain.SummaryKey;
 
 import java.util.List;
 
@@ -71,4 +73,17 @@ public interface EmployeeRepository {
     void remove(final Employee employee);
 
     List<Employee> getEmployeeList();
+
+    /**
+     * Read a page of the employees, with only the columns the employee list shows.
+     *
+     * @param keyword    the prefix of the user name, first name or last name of the employees to read,
+     *                   null for every employee
+     * @param sortField  the column to sort by, one of the SORT_BY constants of CCConstants
+     * @param descending whether the employees are sorted in descending order
+     * @param after      the key of the last employee of the previous page, null for the first page
+     * @param limit      the maximum number of employees to read
+     * @return the employees
+     */
+    List<EmployeeSummary> getEmployeeSummaryPage(String keyword, String sortField, boolean descending, SummaryKey after, int limit);
 }
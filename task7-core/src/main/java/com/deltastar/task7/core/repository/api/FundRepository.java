@@ -26,6 +26,7 @@ package com.deltastar.task7.core.repository.api;
 
 import com.deltastar.task7.core.repository.domain.Fund;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -79,4 +80,12 @@ public interface FundRepository {
     Fund getFundBySymbol(String symbol);
 
     List<Fund> findFundByFundNameOrSymbol(String fundName, String symbol);
+
+    /**
+     * Get the funds with the given ids, in one query.
+     *
+     * @param idList the funds' ids, not empty
+     * @return the funds found, in no particular order
+     */
+    List<Fund> getFundListByIdList(Collection<Integer> idList);
 }
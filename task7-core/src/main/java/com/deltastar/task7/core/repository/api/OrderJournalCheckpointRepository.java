@@ -0,0 +1,60 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2015, Delta Star Team
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package com.deltastar.task7.core.repository.api;
+
+import com.deltastar.task7.core.repository.domain.OrderJournalCheckpoint;
+
+/**
+ * Interface for order journal checkpoint repository.
+ * <p>
+ * Delta Star Team
+ */
+public interface OrderJournalCheckpointRepository {
+
+    /**
+     * Get the checkpoint of an order journal.
+     *
+     * @param journalName the journal's name
+     * @return the checkpoint of the journal or null if its orders were never drained
+     */
+    OrderJournalCheckpoint getOrderJournalCheckpointByName(final String journalName);
+
+    /**
+     * Get the checkpoint of an order journal and lock it until the end of the transaction, so that a
+     * batch is never written twice by drainers running at the same time.
+     *
+     * @param journalName the journal's name
+     * @return the checkpoint of the journal or null if its orders were never drained
+     */
+    OrderJournalCheckpoint getOrderJournalCheckpointByNameForUpdate(final String journalName);
+
+    /**
+     * Create a new order journal checkpoint.
+     *
+     * @param orderJournalCheckpoint the checkpoint to create
+     * @return the created checkpoint
+     */
+    OrderJournalCheckpoint create(final OrderJournalCheckpoint orderJournalCheckpoint);
+}
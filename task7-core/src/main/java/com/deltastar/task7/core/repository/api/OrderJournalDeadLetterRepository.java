@@ -0,0 +1,53 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2015, Delta Star Team
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package com.deltastar.task7.core.repository.api;
+
+import com.deltastar.task7.core.repository.domain.OrderJournalDeadLetter;
+
+import java.util.List;
+
+/**
+ * Interface for order journal dead letter repository.
+ * <p>
+ * Delta Star Team
+ */
+public interface OrderJournalDeadLetterRepository {
+
+    /**
+     * Get the dead letters of an order journal, in sequence order.
+     *
+     * @param journalName the journal's name
+     * @return the orders of the journal which could not be drained
+     */
+    List<OrderJournalDeadLetter> getOrderJournalDeadLetterListByName(final String journalName);
+
+    /**
+     * Create a new order journal dead letter.
+     *
+     * @param orderJournalDeadLetter the dead letter to create
+     * @return the created dead letter
+     */
+    OrderJournalDeadLetter create(final OrderJournalDeadLetter orderJournalDeadLetter);
+}
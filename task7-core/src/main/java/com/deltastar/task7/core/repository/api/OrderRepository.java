@@ -0,0 +1,50 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2015, Delta Star Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.deltastar.task7.core.repository.api;
+
+import com.deltastar.task7.core.repository.domain.Position;
+import com.deltastar.task7.core.repository.domain.Transition;
+
+import java.util.List;
+
+/**
+ * Interface for the order repository, which writes the pending positions and transitions of many
+ * orders at once.
+ * <p>
+ * Delta Star Team
+ */
+public interface OrderRepository {
+
+    /**
+     * Insert pending orders with one JDBC batch for the positions and one for the transitions. The
+     * generated ids are set on the positions and the transitions, and every transition is linked to
+     * its position. The transitions keep their creation time, journaled orders have one, or all get
+     * the time of the database if they have none.
+     *
+     * @param positionList   the pending positions
+     * @param transitionList the pending transitions, the i-th one being the order of the i-th position
+     */
+    void createPendingOrders(List<Position> positionList, List<Transition> transitionList);
+}
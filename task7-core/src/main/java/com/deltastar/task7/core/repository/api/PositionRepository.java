@@ -53,6 +53,43 @@ public interface PositionRepository {
 
     Position getPossessedPositionByCustomerIdAndFundId(final int customerId, final int fundId);
 
+    /**
+     * Get the positions of one fund having the given status.
+     *
+     * @param fundId the fund's id
+     * @param status the position status
+     * @return the positions of the fund, oldest first
+     */
+    List<Position> getPositionListByFundIdAndStatus(final int fundId, final byte status);
+
+    /**
+     * Get the positions of one customer having the given status.
+     *
+     * @param customerId the customer's id
+     * @param status     the position status
+     * @return the positions of the customer
+     */
+    List<Position> getPositionListByCustomerIdAndStatus(final int customerId, final byte status);
+
+    /**
+     * Take shares out of the position a customer possesses in a fund, if it holds enough of them.
+     *
+     * @param customerId the customer's id
+     * @param fundId     the fund's id
+     * @param shares     the shares to take out
+     * @return true if the shares were taken out, false if the customer does not possess that many shares
+     */
+    boolean sellPossessedShares(final int customerId, final int fundId, final long shares);
+
+    /**
+     * Get the customers having a position of one fund with the given status, without loading the positions.
+     *
+     * @param fundId the fund's id
+     * @param status the position status
+     * @return the ids of the customers
+     */
+    List<Integer> getCustomerIdListByFundIdAndStatus(final int fundId, final byte status);
+
 
     /**
      * Create a new todo.
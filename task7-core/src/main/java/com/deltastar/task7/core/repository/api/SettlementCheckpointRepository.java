@@ -0,0 +1,70 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2015, Delta Star Team
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package com.deltastar.task7.core.repository.api;
+
+import com.deltastar.task7.core.repository.domain.SettlementCheckpoint;
+
+import java.util.List;
+
+/**
+ * Interface for settlement checkpoint repository.
+ * <p>
+ * Delta Star Team
+ */
+public interface SettlementCheckpointRepository {
+
+    /**
+     * Get settlement checkpoint by id and lock it until the end of the transaction, so that a fund is
+     * never settled twice by runs resumed at the same time.
+     *
+     * @param id the checkpoint's id
+     * @return the checkpoint having the given id or null if no checkpoint found with the given id
+     */
+    SettlementCheckpoint getSettlementCheckpointByIdForUpdate(final int id);
+
+    /**
+     * Get the checkpoints of a settlement run.
+     *
+     * @param runId the run's id
+     * @return the checkpoints of the run, in settlement order
+     */
+    List<SettlementCheckpoint> getSettlementCheckpointListByRunId(final int runId);
+
+    /**
+     * Create a new settlement checkpoint.
+     *
+     * @param settlementCheckpoint the checkpoint to create
+     * @return the created checkpoint
+     */
+    SettlementCheckpoint create(final SettlementCheckpoint settlementCheckpoint);
+
+    /**
+     * Update a settlement checkpoint.
+     *
+     * @param settlementCheckpoint the checkpoint to update
+     * @return the updated checkpoint
+     */
+    SettlementCheckpoint update(SettlementCheckpoint settlementCheckpoint);
+}
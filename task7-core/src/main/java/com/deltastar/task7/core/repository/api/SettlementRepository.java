@@ -0,0 +1,54 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2015, Delta Star Team
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package com.deltastar.task7.core.repository.api;
+
+/**
+ * Interface for the settlement repository.
+ * <p>
+ * Delta Star Team
+ */
+public interface SettlementRepository {
+
+    /**
+     * Create a writer which loads and merges every row through the entity manager.
+     *
+     * @return a new writer bound to the current transaction
+     */
+    SettlementWriter createEntityWriter();
+
+    /**
+     * Create a writer which buffers the writes and sends them as JDBC batches of the given size.
+     *
+     * @param batchSize the number of rows per batch
+     * @return a new writer bound to the current transaction
+     */
+    SettlementWriter createBatchWriter(final int batchSize);
+
+    /**
+     * Flush the pending changes of the persistence context and detach every entity, so that a long
+     * settlement does not keep all the rows it has read.
+     */
+    void flushAndClear();
+}
@@ -0,0 +1,66 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2015, Delta Star Team
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package com.deltastar.task7.core.repository.api;
+
+import com.deltastar.task7.core.repository.domain.SettlementRun;
+
+/**
+ * Interface for settlement run repository.
+ * <p>
+ * Delta Star Team
+ */
+public interface SettlementRunRepository {
+
+    /**
+     * Get settlement run by id.
+     *
+     * @param id the run's id
+     * @return the run having the given id or null if no run found with the given id
+     */
+    SettlementRun getSettlementRunById(final int id);
+
+    /**
+     * Get the last started settlement run.
+     *
+     * @return the last run or null if the transition day was never executed
+     */
+    SettlementRun getLatestSettlementRun();
+
+    /**
+     * Create a new settlement run.
+     *
+     * @param settlementRun the run to create
+     * @return the created run
+     */
+    SettlementRun create(final SettlementRun settlementRun);
+
+    /**
+     * Update a settlement run.
+     *
+     * @param settlementRun the run to update
+     * @return the updated run
+     */
+    SettlementRun update(SettlementRun settlementRun);
+}
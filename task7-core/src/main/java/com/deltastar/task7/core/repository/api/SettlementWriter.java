@@ -0,0 +1,88 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2015, Delta Star Team
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package com.deltastar.task7.core.repository.api;
+
+import java.util.List;
+
+/**
+ * Writes the outcome of settled orders. A writer belongs to one transaction and must be flushed
+ * before the transaction commits.
+ * <p>
+ * Delta Star Team
+ */
+public interface SettlementWriter {
+
+    /**
+     * Mark a transition as done.
+     *
+     * @param transitionId the transition's id
+     * @param amount       the settled amount of the transition
+     */
+    void settleTransition(final int transitionId, final long amount);
+
+    /**
+     * Mark transitions as done, keeping their amount.
+     *
+     * @param transitionIdList the transitions' ids
+     */
+    void settleTransitions(final List<Integer> transitionIdList);
+
+    /**
+     * Mark pending sell positions as sold.
+     *
+     * @param positionIdList the positions' ids
+     */
+    void sellPositions(final List<Integer> positionIdList);
+
+    /**
+     * Add bought shares to a position, which is then in possession.
+     *
+     * @param positionId the position's id
+     * @param shares     the bought shares
+     */
+    void addShares(final int positionId, final long shares);
+
+    /**
+     * Remove pending buy positions whose shares went to the position in possession.
+     *
+     * @param positionIdList the positions' ids
+     */
+    void removePositions(final List<Integer> positionIdList);
+
+    /**
+     * Apply cash movements to a customer.
+     *
+     * @param customerId        the customer's id
+     * @param cash              the cash to add
+     * @param cashToBeDeposited the pending deposit that is settled
+     * @param cashToBeChecked   the pending check that is settled
+     */
+    void updateCustomerCash(final int customerId, final long cash, final long cashToBeDeposited, final long cashToBeChecked);
+
+    /**
+     * Send every buffered write to the database.
+     */
+    void flush();
+}
@@ -25,7 +25,9 @@
 package com.deltastar.task7.core.repository.api;
 
 import com.deltastar.task7.core.repository.domain.Transition;
+import com.deltastar.task7.core.repository.domain.TransitionRequestKey;
 
+import java.sql.Timestamp;
 import java.util.List;
 
 /**
@@ -51,6 +53,23 @@ public interface TransitionRepository {
      */
     List<Transition> getTransitionListByCustomerId(final int customerId);
 
+    /**
+     * Get the request key a customer placed a transition with.
+     *
+     * @param customerId the customer's id
+     * @param requestKey the request key
+     * @return the request key or null if no transition was placed with the given key
+     */
+    TransitionRequestKey getRequestKey(final int customerId, final String requestKey);
+
+    /**
+     * Record the request key of a transition.
+     *
+     * @param transitionRequestKey the request key to record
+     * @return the recorded request key
+     */
+    TransitionRequestKey createRequestKey(final TransitionRequestKey transitionRequestKey);
+
 
     /**
      * Create a new todo.
@@ -77,5 +96,64 @@ public interface TransitionRepository {
 
     List<Transition> getPendingTransitionList();
 
+    /**
+     * Get the pending buys and sells of one fund stamped with the execute date, oldest first.
+     *
+     * @param fundId      the fund's id
+     * @param executeDate the execute date the transitions were stamped with
+     * @return the pending transitions of the fund
+     */
+    List<Transition> getPendingTransitionListByFundId(final int fundId, final Timestamp executeDate);
+
+    /**
+     * Get the pending transitions of the given types stamped with the execute date, oldest first.
+     *
+     * @param executeDate the execute date the transitions were stamped with
+     * @param types       the transition types
+     * @return the pending transitions of these types
+     */
+    List<Transition> getPendingTransitionListByType(final Timestamp executeDate, final byte... types);
+
+    /**
+     * Read the pending buys and sells of one fund stamped with the execute date, oldest first, fetching
+     * the given number of rows at a time.
+     *
+     * @param fundId      the fund's id
+     * @param executeDate the execute date the transitions were stamped with
+     * @param fetchSize   the number of rows fetched per round trip
+     * @return a cursor over the pending transitions of the fund
+     */
+    TransitionCursor scrollPendingTransitionListByFundId(final int fundId, final Timestamp executeDate,
+                                                         final int fetchSize);
+
+    /**
+     * Read the pending transitions of the given types stamped with the execute date, oldest first,
+     * fetching the given number of rows at a time.
+     *
+     * @param executeDate the execute date the transitions were stamped with
+     * @param fetchSize   the number of rows fetched per round trip
+     * @param types       the transition types
+     * @return a cursor over the pending transitions of these types
+     */
+    TransitionCursor scrollPendingTransitionListByType(final Timestamp executeDate, final int fetchSize,
+                                                       final byte... types);
+
+    /**
+     * Read the pending transitions of the given types, oldest first, fetching the given number of rows at a time.
+     *
+     * @param fetchSize the number of rows fetched per round trip
+     * @param types     the transition types
+     * @return a cursor over the pending transitions of these types
+     */
+    TransitionCursor scrollPendingTransitionListByType(final int fetchSize, final byte... types);
+
+    /**
+     * Set the execute date of every pending transition with a single update statement.
+     *
+     * @param executeDate the execute date
+     * @return the number of stamped transitions
+     */
+    int updatePendingTransitionExecuteDate(final Timestamp executeDate);
+
     List<Transition> getTransitionList();
 }
@@ -25,6 +25,7 @@
 package com.deltastar.task7.core.repository.api;
 
 import com.deltastar.task7.core.repository.domain.TransitionView;
+import com.deltastar.task7.core.repository.domain.TransitionViewKey;
 
 import java.util.List;
 
@@ -44,4 +45,23 @@ public interface TransitionViewRepository {
     List<TransitionView> getPendingTransitionList();
 
     List<TransitionView> getTransitionList();
+
+    /**
+     * Read a page of the transitions, newest first.
+     *
+     * @param before the key of the last transition of the previous page, null for the first page
+     * @param limit  the maximum number of transitions to read
+     * @return the transitions
+     */
+    List<TransitionView> getTransitionPage(final TransitionViewKey before, final int limit);
+
+    /**
+     * Read a page of the transitions of a customer, newest first.
+     *
+     * @param customerId the customer's id
+     * @param before     the key of the last transition of the previous page, null for the first page
+     * @param limit      the maximum number of transitions to read
+     * @return the transitions
+     */
+    List<TransitionView> getTransitionPageByCustomerId(final int customerId, final TransitionViewKey before, final int limit);
 }
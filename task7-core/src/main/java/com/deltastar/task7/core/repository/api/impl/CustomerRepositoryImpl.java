@@ -25,11 +25,14 @@
 package com.deltastar.task7.core.repository.api.impl;
 
 import com.deltastar.task7.core.repository.domain.Customer;
+import com.deltastar.task7.core.repository.domain.CustomerSummary;
+import com.deltastar.task7.core.repository.domain.SummaryKey;
 import com.deltastar.task7.core.repository.api.CustomerRepository;
 import org.springframework.stereotype.Repository;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
+import javax.persistence.Query;
 import javax.persistence.TypedQuery;
 import java.util.List;
 
@@ -99,4 +102,36 @@ public class CustomerRepositoryImpl implements CustomerRepository {
         query.setParameter("p_lastName", "%" + lastName + "%");
         return query.getResultList();
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    public boolean debitCash(int customerId, long amount) {
+        return executeCashUpdate("debitCustomerCash", customerId, amount);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public boolean reserveCashToBeChecked(int customerId, long amount) {
+        return executeCashUpdate("reserveCustomerCashToBeChecked", customerId, amount);
+    }
+
+    /**
+     * The balance is checked by the update itself, so concurrent orders of a customer cannot overdraw it.
+     */
+    private boolean executeCashUpdate(String queryName, int customerId, long amount) {
+        Query query = entityManager.createNamedQuery(queryName);
+        query.setParameter("p_id", customerId);
+        query.setParameter("p_amount", amount);
+        return query.executeUpdate() == 1;
+    }
+
+    @Override
+    public List<CustomerSummary> getCustomerSummaryPage(String keyword, String sortField, boolean descending,
+                                                        SummaryKey after, int limit) {
+        return SummaryPageQuery.create(entityManager, CustomerSummary.class, "Customer",
+                "new com.deltastar.task7.core.repository.domain.CustomerSummary(e.id, e.userName, e.firstName, e.lastName)",
+                keyword, sortField, descending, after, limit).getResultList();
+    }
 }
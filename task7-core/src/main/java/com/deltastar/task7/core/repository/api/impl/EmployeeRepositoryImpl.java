@@ -26,6 +26,8 @@ package com.deltastar.task7.core.repository.api.impl;
 
 import com.deltastar.task7.core.repository.api.EmployeeRepository;
 import com.deltastar.task7.core.repository.domain.Employee;
+import com.deltastar.task7.core.repository.domain.EmployeeSummary;
+import com.deltastar.task7.core.repository.domain.SummaryKey;
 import org.springframework.stereotype.Repository;
 
 import javax.persistence.EntityManager;
@@ -89,4 +91,12 @@ public class EmployeeRepositoryImpl implements EmployeeRepository {
     public Employee getEmployeeById(int employeeId) {
         return entityManager.find(Employee.class, employeeId);
     }
+
+    @Override
+    public List<EmployeeSummary> getEmployeeSummaryPage(String keyword, String sortField, boolean descending,
+                                                        SummaryKey after, int limit) {
+        return SummaryPageQuery.create(entityManager, EmployeeSummary.class, "Employee",
+                "new com.deltastar.task7.core.repository.domain.EmployeeSummary(e.id, e.userName, e.firstName, e.lastName)",
+                keyword, sortField, descending, after, limit).getResultList();
+    }
 }
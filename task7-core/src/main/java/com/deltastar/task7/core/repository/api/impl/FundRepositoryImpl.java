@@ -31,6 +31,7 @@ import org.springframework.stereotype.Repository;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 import javax.persistence.TypedQuery;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -103,4 +104,11 @@ public class FundRepositoryImpl implements FundRepository {
         query.setParameter("p_fundName", "%" + fundName + "%");
         return query.getResultList();
     }
+
+    @Override
+    public List<Fund> getFundListByIdList(Collection<Integer> idList) {
+        TypedQuery<Fund> query = entityManager.createNamedQuery("findFundByIdList", Fund.class);
+        query.setParameter("p_idList", idList);
+        return query.getResultList();
+    }
 }
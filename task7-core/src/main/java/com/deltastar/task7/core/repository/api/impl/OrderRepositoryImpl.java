@@ -0,0 +1,131 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2015, Delta Star Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.deltastar.task7.core.repository.api.impl;
+
+import com.deltastar.task7.core.repository.api.OrderRepository;
+import com.deltastar.task7.core.repository.domain.Position;
+import com.deltastar.task7.core.repository.domain.Transition;
+import org.hibernate.Session;
+import org.hibernate.jdbc.Work;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * Implementation of {@link OrderRepository} using JDBC batches on the connection of the current
+ * transaction. The entity manager cannot batch these inserts because the ids are generated by the
+ * database.
+ * <p>
+ * Delta Star Team
+ */
+@Repository
+public class OrderRepositoryImpl implements OrderRepository {
+
+    private static final String SQL_INSERT_POSITION =
+            "INSERT INTO Position (customerId, fundId, shares, status) VALUES (?, ?, ?, ?)";
+    private static final String SQL_INSERT_TRANSITION =
+            "INSERT INTO Transition (customerId, fundId, positionId, shares, type, amount, status) "
+                    + "VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final String SQL_INSERT_TRANSITION_WITH_CREATED_AT =
+            "INSERT INTO Transition (customerId, fundId, positionId, shares, type, amount, status, createdAt) "
+                    + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * {@inheritDoc}
+     */
+    public void createPendingOrders(final List<Position> positionList, final List<Transition> transitionList) {
+        if (positionList.size() != transitionList.size()) {
+            throw new IllegalArgumentException("Every pending order needs a position and a transition");
+        }
+        if (positionList.isEmpty()) {
+            return;
+        }
+        entityManager.unwrap(Session.class).doWork(new Work() {
+            @Override
+            public void execute(Connection connection) throws SQLException {
+                try (PreparedStatement statement = connection.prepareStatement(SQL_INSERT_POSITION,
+                        Statement.RETURN_GENERATED_KEYS)) {
+                    for (Position position : positionList) {
+                        statement.setInt(1, position.getCustomerId());
+                        statement.setInt(2, position.getFundId());
+                        statement.setLong(3, position.getShares());
+                        statement.setByte(4, position.getStatus());
+                        statement.addBatch();
+                    }
+                    statement.executeBatch();
+                    try (ResultSet keys = statement.getGeneratedKeys()) {
+                        for (int i = 0; i < positionList.size(); i++) {
+                            int positionId = nextKey(keys);
+                            positionList.get(i).setId(positionId);
+                            transitionList.get(i).setPositionId(positionId);
+                        }
+                    }
+                }
+
+                //the orders placed now get the time of the database, the journaled ones keep their own.
+                boolean withCreatedAt = transitionList.get(0).getCreatedAt() != null;
+                try (PreparedStatement statement = connection.prepareStatement(withCreatedAt
+                        ? SQL_INSERT_TRANSITION_WITH_CREATED_AT : SQL_INSERT_TRANSITION, Statement.RETURN_GENERATED_KEYS)) {
+                    for (Transition transition : transitionList) {
+                        statement.setInt(1, transition.getCustomerId());
+                        statement.setInt(2, transition.getFundId());
+                        statement.setInt(3, transition.getPositionId());
+                        statement.setLong(4, transition.getShares());
+                        statement.setByte(5, transition.getType());
+                        statement.setLong(6, transition.getAmount());
+                        statement.setByte(7, transition.getStatus());
+                        if (withCreatedAt) {
+                            statement.setTimestamp(8, transition.getCreatedAt());
+                        }
+                        statement.addBatch();
+                    }
+                    statement.executeBatch();
+                    try (ResultSet keys = statement.getGeneratedKeys()) {
+                        for (Transition transition : transitionList) {
+                            transition.setId(nextKey(keys));
+                        }
+                    }
+                }
+            }
+        });
+    }
+
+    private static int nextKey(ResultSet keys) throws SQLException {
+        if (!keys.next()) {
+            throw new SQLException("The driver did not return the generated key of every row");
+        }
+        return keys.getInt(1);
+    }
+}
@@ -31,6 +31,7 @@ import org.springframework.stereotype.Repository;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
+import javax.persistence.Query;
 import javax.persistence.TypedQuery;
 import java.util.List;
 
@@ -86,6 +87,40 @@ public class PositionRepositoryImpl implements PositionRepository {
         return tempResultList != null && tempResultList.size() > 0 ? tempResultList.get(0) : null;
     }
 
+    @Override
+    public List<Position> getPositionListByFundIdAndStatus(int fundId, byte status) {
+        TypedQuery<Position> query = entityManager.createNamedQuery("findPositionByFundIdAndStatus", Position.class);
+        query.setParameter("p_fundId", fundId);
+        query.setParameter("p_status", status);
+        return query.getResultList();
+    }
+
+    @Override
+    public List<Position> getPositionListByCustomerIdAndStatus(int customerId, byte status) {
+        TypedQuery<Position> query = entityManager.createNamedQuery("findPositionByCustomerIdAndStatus", Position.class);
+        query.setParameter("p_customerId", customerId);
+        query.setParameter("p_status", status);
+        return query.getResultList();
+    }
+
+    @Override
+    public boolean sellPossessedShares(int customerId, int fundId, long shares) {
+        Query query = entityManager.createNamedQuery("sellPossessedShares");
+        query.setParameter("p_customerId", customerId);
+        query.setParameter("p_fundId", fundId);
+        query.setParameter("p_status", CCConstants.POSITION_STATUS_IN_POSSESSION);
+        query.setParameter("p_shares", shares);
+        return query.executeUpdate() == 1;
+    }
+
+    @Override
+    public List<Integer> getCustomerIdListByFundIdAndStatus(int fundId, byte status) {
+        TypedQuery<Integer> query = entityManager.createNamedQuery("findPositionCustomerIdByFundIdAndStatus", Integer.class);
+        query.setParameter("p_fundId", fundId);
+        query.setParameter("p_status", status);
+        return query.getResultList();
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -0,0 +1,74 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2015, Delta Star Team
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package com.deltastar.task7.core.repository.api.impl;
+
+import com.deltastar.task7.core.repository.api.TransitionCursor;
+import com.deltastar.task7.core.repository.domain.Transition;
+import org.hibernate.ScrollableResults;
+
+import java.util.NoSuchElementException;
+
+/**
+ * {@link TransitionCursor} over Hibernate {@link ScrollableResults}.
+ * <p>
+ * Delta Star Team
+ */
+class ScrollableTransitionCursor implements TransitionCursor {
+
+    private final ScrollableResults scrollableResults;
+    private Transition next;
+
+    ScrollableTransitionCursor(ScrollableResults scrollableResults) {
+        this.scrollableResults = scrollableResults;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null && scrollableResults.next()) {
+            next = (Transition) scrollableResults.get(0);
+        }
+        return next != null;
+    }
+
+    @Override
+    public Transition next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Transition transition = next;
+        next = null;
+        return transition;
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void close() {
+        scrollableResults.close();
+    }
+}
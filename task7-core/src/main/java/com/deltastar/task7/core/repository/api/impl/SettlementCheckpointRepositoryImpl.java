@@ -0,0 +1,78 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2015, Delta Star Team
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package com.deltastar.task7.core.repository.api.impl;
+
+import com.deltastar.task7.core.repository.api.SettlementCheckpointRepository;
+import com.deltastar.task7.core.repository.domain.SettlementCheckpoint;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+import java.util.List;
+
+/**
+ * Implementation of {@link SettlementCheckpointRepository} using JPA.
+ * <p>
+ * Delta Star Team
+ */
+@Repository
+public class SettlementCheckpointRepositoryImpl implements SettlementCheckpointRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * {@inheritDoc}
+     */
+    public SettlementCheckpoint getSettlementCheckpointByIdForUpdate(final int id) {
+        return entityManager.find(SettlementCheckpoint.class, id, LockModeType.PESSIMISTIC_WRITE);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public List<SettlementCheckpoint> getSettlementCheckpointListByRunId(final int runId) {
+        TypedQuery<SettlementCheckpoint> query = entityManager.createNamedQuery("findSettlementCheckpointByRunId", SettlementCheckpoint.class);
+        query.setParameter("p_runId", runId);
+        return query.getResultList();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public SettlementCheckpoint create(final SettlementCheckpoint settlementCheckpoint) {
+        entityManager.persist(settlementCheckpoint);
+        return settlementCheckpoint;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public SettlementCheckpoint update(SettlementCheckpoint settlementCheckpoint) {
+        return entityManager.merge(settlementCheckpoint);
+    }
+}
@@ -0,0 +1,286 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2015, Delta Star Team
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package com.deltastar.task7.core.repository.api.impl;
+
+import com.deltastar.task7.core.repository.api.SettlementRepository;
+import com.deltastar.task7.core.repository.api.SettlementWriter;
+import com.deltastar.task7.core.repository.domain.Customer;
+import com.deltastar.task7.core.repository.domain.Position;
+import com.deltastar.task7.core.repository.domain.Transition;
+import com.deltastart.task7.core.constants.CCConstants;
+import org.hibernate.Session;
+import org.hibernate.jdbc.Work;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import javax.persistence.PersistenceContext;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Implementation of {@link SettlementRepository} using JPA and plain JDBC batches.
+ * <p>
+ * Delta Star Team
+ */
+@Repository
+public class SettlementRepositoryImpl implements SettlementRepository {
+
+    //updatedAt is written back unchanged, as the entity manager does, so that MySQL does not bump it.
+    //the versions of customers and positions are incremented, as the entity manager does.
+    private static final String SQL_SETTLE_TRANSITION =
+            "UPDATE Transition SET status = ?, amount = ?, updatedAt = updatedAt WHERE id = ?";
+    private static final String SQL_ADD_SHARES =
+            "UPDATE Position SET status = ?, shares = shares + ?, updatedAt = updatedAt, version = version + 1 WHERE id = ?";
+    private static final String SQL_UPDATE_CUSTOMER_CASH =
+            "UPDATE Customer SET cash = cash + ?, cashToBeDeposited = cashToBeDeposited - ?, "
+                    + "cashToBeChecked = cashToBeChecked - ?, updatedAt = updatedAt, version = version + 1 WHERE id = ?";
+    //the bulk statements are completed with the list of ids.
+    private static final String SQL_SETTLE_TRANSITIONS =
+            "UPDATE Transition SET status = " + CCConstants.TRAN_STATUS_DONE + ", updatedAt = updatedAt WHERE id IN ";
+    private static final String SQL_SELL_POSITIONS =
+            "UPDATE Position SET status = " + CCConstants.POSITION_STATUS_SOLD
+                    + ", updatedAt = updatedAt, version = version + 1 WHERE id IN ";
+    private static final String SQL_REMOVE_POSITIONS =
+            "DELETE FROM Position WHERE id IN ";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * {@inheritDoc}
+     */
+    public SettlementWriter createEntityWriter() {
+        return new EntitySettlementWriter();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public SettlementWriter createBatchWriter(final int batchSize) {
+        return new BatchSettlementWriter(batchSize);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void flushAndClear() {
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    /**
+     * Loads every row and merges it back, one statement per row.
+     */
+    private class EntitySettlementWriter implements SettlementWriter {
+
+        @Override
+        public void settleTransition(int transitionId, long amount) {
+            Transition transition = entityManager.find(Transition.class, transitionId);
+            transition.setAmount(amount);
+            transition.setStatus(CCConstants.TRAN_STATUS_DONE);
+            entityManager.merge(transition);
+        }
+
+        @Override
+        public void settleTransitions(List<Integer> transitionIdList) {
+            for (Integer transitionId : transitionIdList) {
+                Transition transition = entityManager.find(Transition.class, transitionId);
+                transition.setStatus(CCConstants.TRAN_STATUS_DONE);
+                entityManager.merge(transition);
+            }
+        }
+
+        @Override
+        public void sellPositions(List<Integer> positionIdList) {
+            for (Integer positionId : positionIdList) {
+                Position position = entityManager.find(Position.class, positionId);
+                position.setStatus(CCConstants.POSITION_STATUS_SOLD);
+                entityManager.merge(position);
+            }
+        }
+
+        @Override
+        public void addShares(int positionId, long shares) {
+            Position position = entityManager.find(Position.class, positionId);
+            position.setStatus(CCConstants.POSITION_STATUS_IN_POSSESSION);
+            position.setShares(position.getShares() + shares);
+            entityManager.merge(position);
+        }
+
+        @Override
+        public void removePositions(List<Integer> positionIdList) {
+            for (Integer positionId : positionIdList) {
+                entityManager.remove(entityManager.find(Position.class, positionId));
+            }
+        }
+
+        @Override
+        public void updateCustomerCash(int customerId, long cash, long cashToBeDeposited, long cashToBeChecked) {
+            //funds settled in parallel credit the same customers, the row is locked so no credit is lost.
+            Customer customer = entityManager.find(Customer.class, customerId, LockModeType.PESSIMISTIC_WRITE);
+            customer.setCash(customer.getCash() + cash);
+            customer.setCashToBeDeposited(customer.getCashToBeDeposited() - cashToBeDeposited);
+            customer.setCashToBeChecked(customer.getCashToBeChecked() - cashToBeChecked);
+            entityManager.merge(customer);
+        }
+
+        @Override
+        public void flush() {
+            //the entity manager flushes on commit.
+        }
+    }
+
+    /**
+     * Buffers the writes by statement and sends a statement as one JDBC batch every batchSize rows.
+     * The rows are updated relatively, so the entities do not need to be loaded. The status updates
+     * and deletes are buffered as ids and sent as one statement with an IN list every batchSize ids.
+     */
+    private class BatchSettlementWriter implements SettlementWriter {
+
+        private final int batchSize;
+        private final Map<String, List<long[]>> rowListBySql = new LinkedHashMap<>();
+        private final Map<String, List<Integer>> idListBySql = new LinkedHashMap<>();
+
+        private BatchSettlementWriter(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        @Override
+        public void settleTransition(int transitionId, long amount) {
+            add(SQL_SETTLE_TRANSITION, CCConstants.TRAN_STATUS_DONE, amount, transitionId);
+        }
+
+        @Override
+        public void settleTransitions(List<Integer> transitionIdList) {
+            addIds(SQL_SETTLE_TRANSITIONS, transitionIdList);
+        }
+
+        @Override
+        public void sellPositions(List<Integer> positionIdList) {
+            addIds(SQL_SELL_POSITIONS, positionIdList);
+        }
+
+        @Override
+        public void addShares(int positionId, long shares) {
+            add(SQL_ADD_SHARES, CCConstants.POSITION_STATUS_IN_POSSESSION, shares, positionId);
+        }
+
+        @Override
+        public void removePositions(List<Integer> positionIdList) {
+            addIds(SQL_REMOVE_POSITIONS, positionIdList);
+        }
+
+        @Override
+        public void updateCustomerCash(int customerId, long cash, long cashToBeDeposited, long cashToBeChecked) {
+            add(SQL_UPDATE_CUSTOMER_CASH, cash, cashToBeDeposited, cashToBeChecked, customerId);
+        }
+
+        @Override
+        public void flush() {
+            for (Map.Entry<String, List<long[]>> entry : rowListBySql.entrySet()) {
+                executeBatch(entry.getKey(), entry.getValue());
+            }
+            for (Map.Entry<String, List<Integer>> entry : idListBySql.entrySet()) {
+                executeIn(entry.getKey(), entry.getValue());
+            }
+        }
+
+        private void add(String sql, long... row) {
+            List<long[]> rowList = rowListBySql.get(sql);
+            if (rowList == null) {
+                rowList = new ArrayList<>(batchSize);
+                rowListBySql.put(sql, rowList);
+            }
+            rowList.add(row);
+            if (rowList.size() >= batchSize) {
+                executeBatch(sql, rowList);
+            }
+        }
+
+        private void addIds(String sql, List<Integer> idList) {
+            List<Integer> bufferedIdList = idListBySql.get(sql);
+            if (bufferedIdList == null) {
+                bufferedIdList = new ArrayList<>(batchSize);
+                idListBySql.put(sql, bufferedIdList);
+            }
+            for (Integer id : idList) {
+                bufferedIdList.add(id);
+                if (bufferedIdList.size() >= batchSize) {
+                    executeIn(sql, bufferedIdList);
+                }
+            }
+        }
+
+        private void executeIn(String sql, final List<Integer> idList) {
+            if (idList.isEmpty()) {
+                return;
+            }
+            StringBuilder builder = new StringBuilder(sql).append('(');
+            for (int i = 0; i < idList.size(); i++) {
+                builder.append(i == 0 ? "?" : ", ?");
+            }
+            final String inSql = builder.append(')').toString();
+            entityManager.unwrap(Session.class).doWork(new Work() {
+                @Override
+                public void execute(Connection connection) throws SQLException {
+                    try (PreparedStatement statement = connection.prepareStatement(inSql)) {
+                        for (int i = 0; i < idList.size(); i++) {
+                            statement.setInt(i + 1, idList.get(i));
+                        }
+                        statement.executeUpdate();
+                    }
+                }
+            });
+            idList.clear();
+        }
+
+        private void executeBatch(final String sql, final List<long[]> rowList) {
+            if (rowList.isEmpty()) {
+                return;
+            }
+            entityManager.unwrap(Session.class).doWork(new Work() {
+                @Override
+                public void execute(Connection connection) throws SQLException {
+                    try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                        for (long[] row : rowList) {
+                            for (int i = 0; i < row.length; i++) {
+                                statement.setLong(i + 1, row[i]);
+                            }
+                            statement.addBatch();
+                        }
+                        statement.executeBatch();
+                    }
+                }
+            });
+            rowList.clear();
+        }
+    }
+}
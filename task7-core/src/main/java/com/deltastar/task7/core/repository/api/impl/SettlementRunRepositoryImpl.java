@@ -0,0 +1,78 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2015, Delta Star Team
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package com.deltastar.task7.core.repository.api.impl;
+
+import com.deltastar.task7.core.repository.api.SettlementRunRepository;
+import com.deltastar.task7.core.repository.domain.SettlementRun;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+import java.util.List;
+
+/**
+ * Implementation of {@link SettlementRunRepository} using JPA.
+ * <p>
+ * Delta Star Team
+ */
+@Repository
+public class SettlementRunRepositoryImpl implements SettlementRunRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * {@inheritDoc}
+     */
+    public SettlementRun getSettlementRunById(final int id) {
+        return entityManager.find(SettlementRun.class, id);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public SettlementRun getLatestSettlementRun() {
+        TypedQuery<SettlementRun> query = entityManager.createNamedQuery("findLatestSettlementRun", SettlementRun.class);
+        query.setMaxResults(1);
+        List<SettlementRun> resultList = query.getResultList();
+        return resultList.isEmpty() ? null : resultList.get(0);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public SettlementRun create(final SettlementRun settlementRun) {
+        entityManager.persist(settlementRun);
+        return settlementRun;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public SettlementRun update(SettlementRun settlementRun) {
+        return entityManager.merge(settlementRun);
+    }
+}
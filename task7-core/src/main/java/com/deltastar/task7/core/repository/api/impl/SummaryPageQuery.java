@@ -0,0 +1,120 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2015, Delta Star Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.deltastar.task7.core.repository.api.impl;
+
+import com.deltastar.task7.core.repository.domain.SummaryKey;
+import com.deltastart.task7.core.constants.CCConstants;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Builds the query of a page of a list of customers or employees, sorted by one column and then by id,
+ * optionally filtered by the prefix of their user name, first name or last name. A page is read after
+ * the key of the last row of the previous page, its sort value and its id, instead of at an offset.
+ * <p>
+ * A null sort value comes before every other value in ascending order and after them in descending
+ * order. The order is explicit, HSQLDB sorts the nulls first in both orders. The seek handles a null on
+ * either side with an is null branch, since a comparison with null is never true.
+ * <p>
+ * Delta Star Team
+ */
+final class SummaryPageQuery {
+
+    private static final Set<String> SORT_FIELDS = new HashSet<>(Arrays.asList(CCConstants.SORT_BY_ID,
+            CCConstants.SORT_BY_USER_NAME, CCConstants.SORT_BY_FIRST_NAME, CCConstants.SORT_BY_LAST_NAME));
+
+    private SummaryPageQuery() {
+    }
+
+    /**
+     * @param entityManager the entity manager
+     * @param resultClass   the class of the projection
+     * @param entityName    the entity to list
+     * @param projection    the select clause, on the entity as e
+     * @param keyword       the prefix to filter by, null for every row
+     * @param sortField     one of the SORT_BY constants
+     * @param descending    whether the rows are sorted in descending order
+     * @param after         the key of the last row of the previous page, null for the first page
+     * @param limit         the maximum number of rows to read
+     * @return the query
+     */
+    static <T> TypedQuery<T> create(EntityManager entityManager, Class<T> resultClass, String entityName,
+                                    String projection, String keyword, String sortField, boolean descending,
+                                    SummaryKey after, int limit) {
+        if (!SORT_FIELDS.contains(sortField)) {
+            throw new IllegalArgumentException("Cannot sort by " + sortField);
+        }
+        String seek = descending ? "<" : ">";
+        String order = descending ? " desc" : " asc";
+
+        StringBuilder jpql = new StringBuilder("SELECT ").append(projection).append(" FROM ").append(entityName)
+                .append(" e where 1 = 1");
+        if (keyword != null) {
+            jpql.append(" and (e.userName like :p_keyword escape '!' or e.firstName like :p_keyword escape '!'")
+                    .append(" or e.lastName like :p_keyword escape '!')");
+        }
+        if (after != null) {
+            String column = "e." + sortField;
+            if (sortField.equals(CCConstants.SORT_BY_ID)) {
+                jpql.append(" and e.id ").append(seek).append(" :p_afterId");
+            } else if (after.getValue() == null) {
+                jpql.append(" and (").append(column).append(" is null and e.id ").append(seek).append(" :p_afterId");
+                if (!descending) {
+                    jpql.append(" or ").append(column).append(" is not null");
+                }
+                jpql.append(')');
+            } else {
+                jpql.append(" and (").append(column).append(' ').append(seek).append(" :p_afterValue or (")
+                        .append(column).append(" = :p_afterValue and e.id ").append(seek).append(" :p_afterId)");
+                if (descending) {
+                    jpql.append(" or ").append(column).append(" is null");
+                }
+                jpql.append(')');
+            }
+        }
+        jpql.append(" order by e.").append(sortField).append(order);
+        if (!sortField.equals(CCConstants.SORT_BY_ID)) {
+            jpql.append(descending ? " nulls last" : " nulls first").append(", e.id").append(order);
+        }
+
+        TypedQuery<T> query = entityManager.createQuery(jpql.toString(), resultClass);
+        if (keyword != null) {
+            query.setParameter("p_keyword", keyword.replace("!", "!!").replace("%", "!%").replace("_", "!_") + "%");
+        }
+        if (after != null) {
+            query.setParameter("p_afterId", after.getId());
+            if (!sortField.equals(CCConstants.SORT_BY_ID) && after.getValue() != null) {
+                query.setParameter("p_afterValue", after.getValue());
+            }
+        }
+        query.setMaxResults(limit);
+        return query;
+    }
+}
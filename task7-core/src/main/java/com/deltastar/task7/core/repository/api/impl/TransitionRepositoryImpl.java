@@ -25,13 +25,20 @@
 package com.deltastar.task7.core.repository.api.impl;
 
 import com.deltastar.task7.core.repository.domain.Transition;
+import com.deltastar.task7.core.repository.domain.TransitionRequestKey;
 import com.deltastart.task7.core.constants.CCConstants;
+import com.deltastar.task7.core.repository.api.TransitionCursor;
 import com.deltastar.task7.core.repository.api.TransitionRepository;
+import org.hibernate.ScrollMode;
+import org.hibernate.Session;
 import org.springframework.stereotype.Repository;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
+import javax.persistence.Query;
 import javax.persistence.TypedQuery;
+import java.sql.Timestamp;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -75,6 +82,74 @@ public class TransitionRepositoryImpl implements TransitionRepository {
         return query.getResultList();
     }
 
+    @Override
+    public List<Transition> getPendingTransitionListByFundId(final int fundId, final Timestamp executeDate) {
+        TypedQuery<Transition> query = entityManager.createNamedQuery("findTransitionByStatusAndExecuteDateAndFundId", Transition.class);
+        query.setParameter("p_status", CCConstants.TRAN_STATUS_PENDING);
+        query.setParameter("p_executeDate", executeDate);
+        query.setParameter("p_fundId", fundId);
+        return query.getResultList();
+    }
+
+    @Override
+    public List<Transition> getPendingTransitionListByType(final Timestamp executeDate, final byte... types) {
+        TypedQuery<Transition> query = entityManager.createNamedQuery("findTransitionByStatusAndExecuteDateAndTypes", Transition.class);
+        query.setParameter("p_status", CCConstants.TRAN_STATUS_PENDING);
+        query.setParameter("p_executeDate", executeDate);
+        query.setParameter("p_typeList", toTypeList(types));
+        return query.getResultList();
+    }
+
+    @Override
+    public TransitionCursor scrollPendingTransitionListByFundId(final int fundId, final Timestamp executeDate,
+                                                                final int fetchSize) {
+        org.hibernate.Query query = entityManager.unwrap(Session.class).getNamedQuery("findTransitionByStatusAndExecuteDateAndFundId");
+        query.setParameter("p_status", CCConstants.TRAN_STATUS_PENDING);
+        query.setParameter("p_executeDate", executeDate);
+        query.setParameter("p_fundId", fundId);
+        return scroll(query, fetchSize);
+    }
+
+    @Override
+    public TransitionCursor scrollPendingTransitionListByType(final Timestamp executeDate, final int fetchSize,
+                                                              final byte... types) {
+        org.hibernate.Query query = entityManager.unwrap(Session.class).getNamedQuery("findTransitionByStatusAndExecuteDateAndTypes");
+        query.setParameter("p_status", CCConstants.TRAN_STATUS_PENDING);
+        query.setParameter("p_executeDate", executeDate);
+        query.setParameterList("p_typeList", toTypeList(types));
+        return scroll(query, fetchSize);
+    }
+
+    @Override
+    public TransitionCursor scrollPendingTransitionListByType(final int fetchSize, final byte... types) {
+        org.hibernate.Query query = entityManager.unwrap(Session.class).getNamedQuery("findTransitionByStatusAndTypes");
+        query.setParameter("p_status", CCConstants.TRAN_STATUS_PENDING);
+        query.setParameterList("p_typeList", toTypeList(types));
+        return scroll(query, fetchSize);
+    }
+
+    private static TransitionCursor scroll(org.hibernate.Query query, int fetchSize) {
+        query.setFetchSize(fetchSize);
+        return new ScrollableTransitionCursor(query.scroll(ScrollMode.FORWARD_ONLY));
+    }
+
+    private static List<Byte> toTypeList(byte... types) {
+        List<Byte> typeList = new ArrayList<>(types.length);
+        for (byte type : types) {
+            typeList.add(type);
+        }
+        return typeList;
+    }
+
+    @Override
+    public int updatePendingTransitionExecuteDate(final Timestamp executeDate) {
+        //updatedAt is written back unchanged so that stamping does not count as an update of the transition.
+        Query query = entityManager.createNamedQuery("updateTransitionExecuteDateByStatus");
+        query.setParameter("p_executeDate", executeDate);
+        query.setParameter("p_status", CCConstants.TRAN_STATUS_PENDING);
+        return query.executeUpdate();
+    }
+
     @Override
     public List<Transition> getTransitionListByCustomerId(int customerId) {
         TypedQuery<Transition> query = entityManager.createNamedQuery("findTransitionByCustomerId", Transition.class);
@@ -83,6 +158,26 @@ public class TransitionRepositoryImpl implements TransitionRepository {
         return query.getResultList();
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    public TransitionRequestKey getRequestKey(final int customerId, final String requestKey) {
+        TypedQuery<TransitionRequestKey> query = entityManager.createNamedQuery(
+                "findTransitionRequestKeyByCustomerIdAndRequestKey", TransitionRequestKey.class);
+        query.setParameter("p_customerId", customerId);
+        query.setParameter("p_requestKey", requestKey);
+        List<TransitionRequestKey> requestKeyList = query.getResultList();
+        return requestKeyList.isEmpty() ? null : requestKeyList.get(0);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public TransitionRequestKey createRequestKey(final TransitionRequestKey transitionRequestKey) {
+        entityManager.persist(transitionRequestKey);
+        return transitionRequestKey;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -26,6 +26,7 @@ package com.deltastar.task7.core.repository.api.impl;
 
 import com.deltastar.task7.core.repository.api.TransitionViewRepository;
 import com.deltastar.task7.core.repository.domain.TransitionView;
+import com.deltastar.task7.core.repository.domain.TransitionViewKey;
 import com.deltastart.task7.core.constants.CCConstants;
 import org.springframework.stereotype.Repository;
 
@@ -72,4 +73,33 @@ public class TransitionViewRepositoryImpl implements TransitionViewRepository {
         return query.getResultList();
 
     }
+
+    @Override
+    public List<TransitionView> getTransitionPage(TransitionViewKey before, int limit) {
+        TypedQuery<TransitionView> query;
+        if (before == null) {
+            query = entityManager.createNamedQuery("findTransitionViewPage", TransitionView.class);
+        } else {
+            query = entityManager.createNamedQuery("findTransitionViewPageBefore", TransitionView.class);
+            query.setParameter("p_createdAt", before.getCreatedAt());
+            query.setParameter("p_id", before.getId());
+        }
+        query.setMaxResults(limit);
+        return query.getResultList();
+    }
+
+    @Override
+    public List<TransitionView> getTransitionPageByCustomerId(int customerId, TransitionViewKey before, int limit) {
+        TypedQuery<TransitionView> query;
+        if (before == null) {
+            query = entityManager.createNamedQuery("findTransitionViewPageByCustomerId", TransitionView.class);
+        } else {
+            query = entityManager.createNamedQuery("findTransitionViewPageByCustomerIdBefore", TransitionView.class);
+            query.setParameter("p_createdAt", before.getCreatedAt());
+            query.setParameter("p_id", before.getId());
+        }
+        query.setParameter("p_customerId", customerId);
+        query.setMaxResults(limit);
+        return query.getResultList();
+    }
 }
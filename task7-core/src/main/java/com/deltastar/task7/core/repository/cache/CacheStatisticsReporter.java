@@ -0,0 +1,126 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2015, Delta Star Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.deltastar.task7.core.repository.cache;
+
+import com.deltastar.task7.core.service.catalog.FundCatalog;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.SecondLevelCacheStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceUnit;
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Diagnostics of the caches, off by default. Once enabled, it turns the hibernate statistics on and
+ * logs the hits, misses and size of each second-level cache region and of the query cache, with the
+ * hits, misses and invalidations of the {@link FundCatalog}, every report interval.
+ * <p>
+ * Delta Star Team
+ */
+public class CacheStatisticsReporter {
+
+    private static final Log LOG = LogFactory.getLog(CacheStatisticsReporter.class);
+
+    @PersistenceUnit
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private FundCatalog fundCatalog;
+
+    private boolean enabled;
+    private long reportIntervalMillis;
+    private ScheduledExecutorService reportExecutorService;
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public void setReportIntervalMillis(long reportIntervalMillis) {
+        this.reportIntervalMillis = reportIntervalMillis;
+    }
+
+    public void init() {
+        getStatistics().setStatisticsEnabled(enabled);
+        if (!enabled || reportIntervalMillis <= 0) {
+            return;
+        }
+        reportExecutorService = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "cache-statistics-reporter");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        reportExecutorService.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                LOG.info(getReport());
+            }
+        }, reportIntervalMillis, reportIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void destroy() {
+        if (reportExecutorService != null) {
+            reportExecutorService.shutdownNow();
+        }
+    }
+
+    /**
+     * @return one line for the query cache, one for each region, in the order of their names, and one
+     * for the fund catalog
+     */
+    public String getReport() {
+        Statistics statistics = getStatistics();
+        StringBuilder report = new StringBuilder("Second-level cache statistics:");
+        report.append(String.format("%n  query cache: %d hits, %d misses, %d puts",
+                statistics.getQueryCacheHitCount(), statistics.getQueryCacheMissCount(),
+                statistics.getQueryCachePutCount()));
+
+        String[] regionNames = statistics.getSecondLevelCacheRegionNames();
+        Arrays.sort(regionNames);
+        for (String regionName : regionNames) {
+            SecondLevelCacheStatistics region = statistics.getSecondLevelCacheStatistics(regionName);
+            report.append(String.format("%n  %s: %d hits, %d misses, %d puts, %d entries",
+                    regionName, region.getHitCount(), region.getMissCount(), region.getPutCount(),
+                    region.getElementCountInMemory()));
+        }
+        report.append(String.format("%n  fund catalog: %d hits, %d misses, %d invalidations",
+                fundCatalog.getHitCount(), fundCatalog.getMissCount(), fundCatalog.getInvalidationCount()));
+        return report.toString();
+    }
+
+    private Statistics getStatistics() {
+        return entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+}
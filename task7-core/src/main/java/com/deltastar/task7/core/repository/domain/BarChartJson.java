@@ -0,0 +1,27 @@
+package com.deltastar.task7.core.repository.domain;
+
+/**
+ * A bar chart serialized as JSON, with the entity tag of the serialized chart so that a client which
+ * has it can revalidate it without downloading it again.
+ */
+public class BarChartJson {
+
+    private final String json;
+    private final String etag;
+
+    public BarChartJson(String json, String etag) {
+        this.json = json;
+        this.etag = etag;
+    }
+
+    public String getJson() {
+        return json;
+    }
+
+    /**
+     * @return the strong entity tag of the JSON, quoted as in an ETag header
+     */
+    public String getEtag() {
+        return etag;
+    }
+}
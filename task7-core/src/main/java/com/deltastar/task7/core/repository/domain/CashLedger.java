@@ -0,0 +1,72 @@
+package com.deltastar.task7.core.repository.domain;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Customer cash movements collected while settling, so that every customer row is written once at
+ * the end of a fund. A ledger is not thread safe: each fund fills its own ledger.
+ */
+public class CashLedger {
+
+    private final Map<Integer, Entry> entryByCustomerId = new HashMap<>();
+
+    public void addCash(int customerId, long amount) {
+        getOrCreate(customerId).cash += amount;
+    }
+
+    public void addCashToBeDeposited(int customerId, long amount) {
+        getOrCreate(customerId).cashToBeDeposited += amount;
+    }
+
+    public void addCashToBeChecked(int customerId, long amount) {
+        getOrCreate(customerId).cashToBeChecked += amount;
+    }
+
+    /**
+     * @return the ids of the customers with a movement, in ascending order so that customer rows are
+     * always locked in the same order
+     */
+    public List<Integer> getCustomerIdList() {
+        List<Integer> customerIdList = new ArrayList<>(entryByCustomerId.keySet());
+        Collections.sort(customerIdList);
+        return customerIdList;
+    }
+
+    public long getCash(int customerId) {
+        Entry entry = entryByCustomerId.get(customerId);
+        return entry == null ? 0 : entry.cash;
+    }
+
+    public long getCashToBeDeposited(int customerId) {
+        Entry entry = entryByCustomerId.get(customerId);
+        return entry == null ? 0 : entry.cashToBeDeposited;
+    }
+
+    public long getCashToBeChecked(int customerId) {
+        Entry entry = entryByCustomerId.get(customerId);
+        return entry == null ? 0 : entry.cashToBeChecked;
+    }
+
+    public boolean isEmpty() {
+        return entryByCustomerId.isEmpty();
+    }
+
+    private Entry getOrCreate(int customerId) {
+        Entry entry = entryByCustomerId.get(customerId);
+        if (entry == null) {
+            entry = new Entry();
+            entryByCustomerId.put(customerId, entry);
+        }
+        return entry;
+    }
+
+    private static class Entry {
+        private long cash;
+        private long cashToBeDeposited;
+        private long cashToBeChecked;
+    }
+}
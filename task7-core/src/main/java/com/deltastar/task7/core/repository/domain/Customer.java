@@ -15,7 +15,9 @@ import java.util.Random;
 @NamedQueries({
         @NamedQuery(name = "findCustomerByUserName", query = "SELECT c FROM Customer c where c.userName = :p_userName"),
         @NamedQuery(name = "findCustomerByKeyWords", query = "SELECT c FROM Customer c where c.userName like :p_userName or c.firstName like :p_firstName or c.lastName like :p_lastName"),
-        @NamedQuery(name = "findAllCustomer", query = "SELECT c FROM Customer c")
+        @NamedQuery(name = "findAllCustomer", query = "SELECT c FROM Customer c"),
+        @NamedQuery(name = "debitCustomerCash", query = "UPDATE Customer c set c.cash = c.cash - :p_amount, c.updatedAt = c.updatedAt, c.version = c.version + 1 where c.id = :p_id and c.cash >= :p_amount"),
+        @NamedQuery(name = "reserveCustomerCashToBeChecked", query = "UPDATE Customer c set c.cash = c.cash - :p_amount, c.cashToBeChecked = c.cashToBeChecked + :p_amount, c.updatedAt = c.updatedAt, c.version = c.version + 1 where c.id = :p_id and c.cash >= :p_amount")
 })
 public class Customer {
     private int id;
@@ -35,6 +37,7 @@ public class Customer {
     private Byte status;
     private Timestamp createdAt;
     private Timestamp updatedAt;
+    private int version;
 
     public Customer(String userName, String password, String firstName, String lastName, String addressLine1, String addressLine2, String city, String state, String zipcode) {
         this.userName = userName;
@@ -248,6 +251,16 @@ public class Customer {
         this.updatedAt = updatedAt;
     }
 
+    @Version
+    @Column(name = "version", nullable = false)
+    public int getVersion() {
+        return version;
+    }
+
+    public void setVersion(int version) {
+        this.version = version;
+    }
+
 
     public boolean checkPassword(String clearPassword) {
         return hash(clearPassword).equals(this.password);
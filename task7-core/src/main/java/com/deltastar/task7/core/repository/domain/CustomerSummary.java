@@ -0,0 +1,36 @@
+package com.deltastar.task7.core.repository.domain;
+
+/**
+ * The columns of a customer which the customer list shows, read by a projection query instead of the whole
+ * customer.
+ */
+public class CustomerSummary {
+
+    private final int id;
+    private final String userName;
+    private final String firstName;
+    private final String lastName;
+
+    public CustomerSummary(int id, String userName, String firstName, String lastName) {
+        this.id = id;
+        this.userName = userName;
+        this.firstName = firstName;
+        this.lastName = lastName;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getUserName() {
+        return userName;
+    }
+
+    public String getFirstName() {
+        return firstName;
+    }
+
+    public String getLastName() {
+        return lastName;
+    }
+}
@@ -1,5 +1,8 @@
 package com.deltastar.task7.core.repository.domain;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 import javax.persistence.*;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
@@ -7,6 +10,8 @@ import java.sql.Timestamp;
 import java.util.Random;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE, region = "employee")
 @NamedQueries({
         @NamedQuery(name = "findEmployeeByUserName", query = "SELECT e FROM Employee e where e.userName = :p_userName"),
         @NamedQuery(name = "findAllEmployee", query = "SELECT e FROM Employee e"),
@@ -1,6 +1,9 @@
 package com.deltastar.task7.core.repository.domain;
 
 import com.deltastart.task7.core.constants.Util;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.QueryHints;
 
 import javax.persistence.*;
 import java.sql.Timestamp;
@@ -9,11 +12,19 @@ import java.sql.Timestamp;
  * Created by tonythompson on 1/14/16.
  */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE, region = "fund")
 @NamedQueries({
-        @NamedQuery(name = "findAllFund", query = "SELECT f FROM Fund f"),
+        @NamedQuery(name = "findAllFund", query = "SELECT f FROM Fund f", hints = {
+                @QueryHint(name = QueryHints.CACHEABLE, value = "true"),
+                @QueryHint(name = QueryHints.CACHE_REGION, value = "fundQuery")}),
         @NamedQuery(name = "findFundByFundName", query = "SELECT f FROM Fund f where f.fundName = :p_fundName"),
         @NamedQuery(name = "findFundByFundNameOrSymbol", query = "SELECT f FROM Fund f where f.fundName like :p_fundName or f.symbol like :p_symbol"),
-        @NamedQuery(name = "findFundBySymbol", query = "SELECT f FROM Fund f where f.symbol= :p_symbol")
+        @NamedQuery(name = "findFundBySymbol", query = "SELECT f FROM Fund f where f.symbol= :p_symbol", hints = {
+                @QueryHint(name = QueryHints.CACHEABLE, value = "true"),
+                @QueryHint(name = QueryHints.CACHE_REGION, value = "fundQuery")}),
+        @NamedQuery(name = "findFundByIdList", query = "SELECT f FROM Fund f where f.id in :p_idList"),
+        @NamedQuery(name = "findFundCatalogVersion", query = "SELECT COUNT(f), MAX(f.id), SUM(f.version) FROM Fund f")
 
 })
 public class Fund {
@@ -26,6 +37,7 @@ public class Fund {
     private Timestamp lastTransitionDay;
     private Timestamp createdAt;
     private Timestamp updatedAt;
+    private int version;
 
     public Fund(String userName, String symbol, String comment) {
         this.fundName = userName;
@@ -135,4 +147,14 @@ public class Fund {
     public void setUpdatedAt(Timestamp updatedAt) {
         this.updatedAt = updatedAt;
     }
+
+    @Version
+    @Column(name = "version", nullable = false)
+    public int getVersion() {
+        return version;
+    }
+
+    public void setVersion(int version) {
+        this.version = version;
+    }
 }
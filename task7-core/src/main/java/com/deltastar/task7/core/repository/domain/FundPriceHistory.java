@@ -1,6 +1,8 @@
 package com.deltastar.task7.core.repository.domain;
 
 import com.deltastart.task7.core.constants.Util;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
 import java.sql.Timestamp;
@@ -9,6 +11,12 @@ import java.sql.Timestamp;
  * Created by tonythompson on 1/14/16.
  */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_ONLY, region = "fundPriceHistory")
+@NamedQueries({
+        @NamedQuery(name = "findPriceColumnsByFundId", query = "SELECT h.priceDate, h.price FROM FundPriceHistory h where h.fundId = :p_fundId and h.priceDate is not null order by h.priceDate"),
+        @NamedQuery(name = "findPriceColumns", query = "SELECT h.fundId, h.priceDate, h.price FROM FundPriceHistory h where h.priceDate is not null order by h.fundId, h.priceDate")
+})
 public class FundPriceHistory {
     private int id;
     private int fundId;
@@ -1,14 +1,29 @@
 package com.deltastar.task7.core.repository.domain;
 
 import com.deltastart.task7.core.constants.Util;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.Immutable;
+import org.hibernate.annotations.QueryHints;
+import org.hibernate.annotations.Synchronize;
 
 import javax.persistence.*;
 import java.sql.Timestamp;
 
 
+/**
+ * A price of a fund, with the fund's name. The view is read-only; its cached queries are invalidated
+ * by the writes of the tables it selects from.
+ */
 @Entity
+@Immutable
+@Synchronize({"FundPriceHistory", "Fund"})
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_ONLY, region = "fundPriceHistoryView")
 @NamedQueries({
-        @NamedQuery(name = "findFundPriceHistoryByFundId", query = "SELECT fphv FROM FundPriceHistoryView fphv where fphv.fundId = :p_fundId order by fphv.priceDate desc")
+        @NamedQuery(name = "findFundPriceHistoryByFundId", query = "SELECT fphv FROM FundPriceHistoryView fphv where fphv.fundId = :p_fundId order by fphv.priceDate desc", hints = {
+                @QueryHint(name = QueryHints.CACHEABLE, value = "true"),
+                @QueryHint(name = QueryHints.CACHE_REGION, value = "fundPriceHistoryQuery")})
 })
 public class FundPriceHistoryView {
     private int id;
@@ -0,0 +1,33 @@
+package com.deltastar.task7.core.repository.domain;
+
+import java.util.List;
+
+/**
+ * A page of rows read after a cursor instead of at an offset, so that any page is read in the same
+ * time whatever its position. The cursor of the next page is the key of the last row of this one.
+ */
+public class KeysetPage<T> {
+
+    private final List<T> items;
+    private final String nextCursor;
+
+    public KeysetPage(List<T> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    /**
+     * @return the cursor to read the next page with, or null if this page is the last one
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean isHasNext() {
+        return nextCursor != null;
+    }
+}
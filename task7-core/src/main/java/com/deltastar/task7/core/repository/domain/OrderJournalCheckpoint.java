@@ -0,0 +1,64 @@
+package com.deltastar.task7.core.repository.domain;
+
+import javax.persistence.*;
+import java.sql.Timestamp;
+
+/**
+ * Last journal sequence written to the database by the drainer of an order journal. The orders of a
+ * batch and the checkpoint are committed in the same transaction, so a replayed journal skips exactly
+ * the orders that were committed.
+ */
+@Entity
+public class OrderJournalCheckpoint {
+    private String journalName;
+    private long drainedSequence;
+    private Timestamp createdAt;
+    private Timestamp updatedAt;
+
+    public OrderJournalCheckpoint(String journalName) {
+        this.journalName = journalName;
+    }
+
+    public OrderJournalCheckpoint() {
+    }
+
+    @Id
+    @Column(name = "journalName", nullable = false)
+    public String getJournalName() {
+        return journalName;
+    }
+
+    public void setJournalName(String journalName) {
+        this.journalName = journalName;
+    }
+
+    @Basic
+    @Column(name = "drainedSequence", nullable = false)
+    public long getDrainedSequence() {
+        return drainedSequence;
+    }
+
+    public void setDrainedSequence(long drainedSequence) {
+        this.drainedSequence = drainedSequence;
+    }
+
+    @Basic
+    @Column(name = "createdAt", nullable = false)
+    public Timestamp getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Timestamp createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    @Basic
+    @Column(name = "updatedAt", nullable = false)
+    public Timestamp getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Timestamp updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -0,0 +1,168 @@
+package com.deltastar.task7.core.repository.domain;
+
+import com.deltastar.task7.core.journal.JournalEntry;
+
+import javax.persistence.*;
+import java.sql.Timestamp;
+
+/**
+ * A journaled order the drainer could not write to the database, even alone in its transaction.
+ * It is recorded with the failure and the checkpoint of its journal moves past it, so the orders
+ * behind it are drained; nothing of it is written otherwise.
+ */
+@Entity
+@NamedQueries({
+        @NamedQuery(name = "findOrderJournalDeadLetterByJournalName", query = "SELECT d FROM OrderJournalDeadLetter d where d.journalName = :p_journalName order by d.sequence asc")
+})
+public class OrderJournalDeadLetter {
+    private int id;
+    private String journalName;
+    private long sequence;
+    private int customerId;
+    private int fundId;
+    private byte type;
+    private long amount;
+    private long shares;
+    private String requestKey;
+    private Timestamp acceptedAt;
+    private String message;
+    private Timestamp createdAt;
+
+    public OrderJournalDeadLetter(String journalName, JournalEntry entry, String message) {
+        this.journalName = journalName;
+        this.sequence = entry.getSequence();
+        this.customerId = entry.getCustomerId();
+        this.fundId = entry.getFundId();
+        this.type = entry.getType();
+        this.amount = entry.getAmount();
+        this.shares = entry.getShares();
+        this.requestKey = entry.getRequestKey();
+        this.acceptedAt = new Timestamp(entry.getCreatedAt());
+        this.message = message;
+        this.createdAt = new Timestamp(System.currentTimeMillis());
+    }
+
+    public OrderJournalDeadLetter() {
+    }
+
+    @Id
+    @GeneratedValue
+    @Column(name = "id", nullable = false)
+    public int getId() {
+        return id;
+    }
+
+    public void setId(int id) {
+        this.id = id;
+    }
+
+    @Basic
+    @Column(name = "journalName", nullable = false, length = 64)
+    public String getJournalName() {
+        return journalName;
+    }
+
+    public void setJournalName(String journalName) {
+        this.journalName = journalName;
+    }
+
+    @Basic
+    @Column(name = "sequence", nullable = false)
+    public long getSequence() {
+        return sequence;
+    }
+
+    public void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+
+    @Basic
+    @Column(name = "customerId", nullable = false)
+    public int getCustomerId() {
+        return customerId;
+    }
+
+    public void setCustomerId(int customerId) {
+        this.customerId = customerId;
+    }
+
+    @Basic
+    @Column(name = "fundId", nullable = false)
+    public int getFundId() {
+        return fundId;
+    }
+
+    public void setFundId(int fundId) {
+        this.fundId = fundId;
+    }
+
+    @Basic
+    @Column(name = "type", nullable = false)
+    public byte getType() {
+        return type;
+    }
+
+    public void setType(byte type) {
+        this.type = type;
+    }
+
+    @Basic
+    @Column(name = "amount", nullable = false)
+    public long getAmount() {
+        return amount;
+    }
+
+    public void setAmount(long amount) {
+        this.amount = amount;
+    }
+
+    @Basic
+    @Column(name = "shares", nullable = false)
+    public long getShares() {
+        return shares;
+    }
+
+    public void setShares(long shares) {
+        this.shares = shares;
+    }
+
+    @Basic
+    @Column(name = "requestKey", nullable = true, length = 64)
+    public String getRequestKey() {
+        return requestKey;
+    }
+
+    public void setRequestKey(String requestKey) {
+        this.requestKey = requestKey;
+    }
+
+    @Basic
+    @Column(name = "acceptedAt", nullable = true)
+    public Timestamp getAcceptedAt() {
+        return acceptedAt;
+    }
+
+    public void setAcceptedAt(Timestamp acceptedAt) {
+        this.acceptedAt = acceptedAt;
+    }
+
+    @Basic
+    @Column(name = "message", nullable = true)
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    @Basic
+    @Column(name = "createdAt", nullable = true)
+    public Timestamp getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Timestamp createdAt) {
+        this.createdAt = createdAt;
+    }
+}
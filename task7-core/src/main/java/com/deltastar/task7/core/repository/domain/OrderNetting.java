@@ -0,0 +1,78 @@
+package com.deltastar.task7.core.repository.domain;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Settled orders of one fund aggregated before they are written: the bought shares of a customer go
+ * to its position in one write, and the settled transitions and positions are updated in bulk.
+ * A netting is not thread safe and is cleared once it has been written.
+ */
+public class OrderNetting {
+
+    private final Map<Integer, Purchase> purchaseByCustomerId = new LinkedHashMap<>();
+    private final List<Integer> settledTransitionIdList = new ArrayList<>();
+    private final List<Integer> soldPositionIdList = new ArrayList<>();
+
+    /**
+     * @param customerId the buyer
+     * @param positionId the pending position of the order
+     * @param shares     the shares bought by the order
+     */
+    public void addPurchase(int customerId, int positionId, long shares) {
+        Purchase purchase = purchaseByCustomerId.get(customerId);
+        if (purchase == null) {
+            purchase = new Purchase();
+            purchaseByCustomerId.put(customerId, purchase);
+        }
+        purchase.shares += shares;
+        purchase.pendingPositionIdList.add(positionId);
+    }
+
+    public void addSoldPosition(int positionId) {
+        soldPositionIdList.add(positionId);
+    }
+
+    /**
+     * @param transitionId a settled transition whose amount does not change
+     */
+    public void addSettledTransition(int transitionId) {
+        settledTransitionIdList.add(transitionId);
+    }
+
+    public List<Integer> getBuyerIdList() {
+        return new ArrayList<>(purchaseByCustomerId.keySet());
+    }
+
+    public long getBoughtShares(int customerId) {
+        return purchaseByCustomerId.get(customerId).shares;
+    }
+
+    /**
+     * @return the pending positions of the customer's orders, oldest first
+     */
+    public List<Integer> getPendingPositionIdList(int customerId) {
+        return purchaseByCustomerId.get(customerId).pendingPositionIdList;
+    }
+
+    public List<Integer> getSettledTransitionIdList() {
+        return settledTransitionIdList;
+    }
+
+    public List<Integer> getSoldPositionIdList() {
+        return soldPositionIdList;
+    }
+
+    public void clear() {
+        purchaseByCustomerId.clear();
+        settledTransitionIdList.clear();
+        soldPositionIdList.clear();
+    }
+
+    private static class Purchase {
+        private long shares;
+        private final List<Integer> pendingPositionIdList = new ArrayList<>();
+    }
+}
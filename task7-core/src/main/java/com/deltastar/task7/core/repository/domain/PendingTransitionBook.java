@@ -0,0 +1,75 @@
+package com.deltastar.task7.core.repository.domain;
+
+import com.deltastart.task7.core.constants.CCConstants;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The pending transitions of one transition day, grouped by fund and by type so that every group
+ * can be settled in a single pass. Each group keeps the creation order of its transitions.
+ */
+public class PendingTransitionBook {
+
+    private final List<Transition> transitionList;
+    private final List<Transition> depositList = new ArrayList<>();
+    private final List<Transition> requestCheckList = new ArrayList<>();
+    private final Map<Integer, List<Transition>> sellListByFundId = new HashMap<>();
+    private final Map<Integer, List<Transition>> buyListByFundId = new HashMap<>();
+
+    public PendingTransitionBook(List<Transition> pendingTransitionList) {
+        this.transitionList = pendingTransitionList;
+        for (Transition transition : pendingTransitionList) {
+            switch (transition.getType()) {
+                case CCConstants.TRAN_TYPE_DEPOSIT_CHECK:
+                    depositList.add(transition);
+                    break;
+                case CCConstants.TRAN_TYPE_SELL_FUND:
+                    getOrCreate(sellListByFundId, transition.getFundId()).add(transition);
+                    break;
+                case CCConstants.TRAN_TYPE_BUY_FUND:
+                    getOrCreate(buyListByFundId, transition.getFundId()).add(transition);
+                    break;
+                case CCConstants.TRAN_TYPE_REQUEST_CHECK:
+                    requestCheckList.add(transition);
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    private static List<Transition> getOrCreate(Map<Integer, List<Transition>> listByFundId, int fundId) {
+        List<Transition> list = listByFundId.get(fundId);
+        if (list == null) {
+            list = new ArrayList<>();
+            listByFundId.put(fundId, list);
+        }
+        return list;
+    }
+
+    public List<Transition> getDepositList() {
+        return depositList;
+    }
+
+    public List<Transition> getRequestCheckList() {
+        return requestCheckList;
+    }
+
+    public List<Transition> getSellList(int fundId) {
+        List<Transition> list = sellListByFundId.get(fundId);
+        return list == null ? Collections.<Transition>emptyList() : list;
+    }
+
+    public List<Transition> getBuyList(int fundId) {
+        List<Transition> list = buyListByFundId.get(fundId);
+        return list == null ? Collections.<Transition>emptyList() : list;
+    }
+
+    public int size() {
+        return transitionList.size();
+    }
+}
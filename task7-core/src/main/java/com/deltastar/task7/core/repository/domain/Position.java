@@ -11,7 +11,11 @@ import java.sql.Timestamp;
 @Entity
 @NamedQueries({
         @NamedQuery(name = "findPositionByCustomerId", query = "SELECT p FROM Position p where p.customerId = :p_customerId"),
-        @NamedQuery(name = "findPositionByCustomerIdAndFundId", query = "SELECT p FROM Position p where p.customerId = :p_customerId and p.fundId = :p_fundId and p.status = :p_status")
+        @NamedQuery(name = "findPositionByCustomerIdAndFundId", query = "SELECT p FROM Position p where p.customerId = :p_customerId and p.fundId = :p_fundId and p.status = :p_status"),
+        @NamedQuery(name = "findPositionByFundIdAndStatus", query = "SELECT p FROM Position p where p.fundId = :p_fundId and p.status = :p_status order by p.id asc"),
+        @NamedQuery(name = "findPositionByCustomerIdAndStatus", query = "SELECT p FROM Position p where p.customerId = :p_customerId and p.status = :p_status"),
+        @NamedQuery(name = "findPositionCustomerIdByFundIdAndStatus", query = "SELECT DISTINCT p.customerId FROM Position p where p.fundId = :p_fundId and p.status = :p_status"),
+        @NamedQuery(name = "sellPossessedShares", query = "UPDATE Position p set p.shares = p.shares - :p_shares, p.updatedAt = p.updatedAt, p.version = p.version + 1 where p.customerId = :p_customerId and p.fundId = :p_fundId and p.status = :p_status and p.shares >= :p_shares")
 })
 public class Position {
     private int id;
@@ -21,6 +25,7 @@ public class Position {
     private byte status;
     private Timestamp createdAt;
     private Timestamp updatedAt;
+    private int version;
 
     public Position(int fundId, int customerId, byte status) {
         this.fundId = fundId;
@@ -108,5 +113,15 @@ public class Position {
         this.updatedAt = updatedAt;
     }
 
+    @Version
+    @Column(name = "version", nullable = false)
+    public int getVersion() {
+        return version;
+    }
+
+    public void setVersion(int version) {
+        this.version = version;
+    }
+
 
 }
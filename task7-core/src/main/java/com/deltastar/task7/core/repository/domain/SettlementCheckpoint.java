@@ -0,0 +1,160 @@
+package com.deltastar.task7.core.repository.domain;
+
+import com.deltastart.task7.core.constants.CCConstants;
+import com.deltastart.task7.core.constants.Util;
+
+import javax.persistence.*;
+import java.sql.Timestamp;
+
+/**
+ * Progress of one fund in a {@link SettlementRun}. A fund is settled and its checkpoint marked as done
+ * in the same transaction, so a resumed run skips exactly the funds that were committed.
+ */
+@Entity
+@NamedQueries({
+        @NamedQuery(name = "findSettlementCheckpointByRunId", query = "SELECT c FROM SettlementCheckpoint c where c.runId = :p_runId order by c.id asc")
+})
+public class SettlementCheckpoint {
+    private int id;
+    private int runId;
+    private int fundId;
+    private long price;
+    private byte status;
+    private int transitionCount;
+    private Timestamp startedAt;
+    private Timestamp finishedAt;
+    private String message;
+    private Timestamp createdAt;
+    private Timestamp updatedAt;
+
+    @Id
+    @GeneratedValue
+    @Column(name = "id", nullable = false)
+    public int getId() {
+        return id;
+    }
+
+    public void setId(int id) {
+        this.id = id;
+    }
+
+    @Basic
+    @Column(name = "runId", nullable = false)
+    public int getRunId() {
+        return runId;
+    }
+
+    public void setRunId(int runId) {
+        this.runId = runId;
+    }
+
+    @Basic
+    @Column(name = "fundId", nullable = false)
+    public int getFundId() {
+        return fundId;
+    }
+
+    public void setFundId(int fundId) {
+        this.fundId = fundId;
+    }
+
+    @Basic
+    @Column(name = "price", nullable = true)
+    public long getPrice() {
+        return price;
+    }
+
+    public void setPrice(long price) {
+        this.price = price;
+    }
+
+    @Basic
+    @Column(name = "status", nullable = true)
+    public byte getStatus() {
+        return status;
+    }
+
+    public void setStatus(byte status) {
+        this.status = status;
+    }
+
+    @Basic
+    @Column(name = "transitionCount", nullable = true)
+    public int getTransitionCount() {
+        return transitionCount;
+    }
+
+    public void setTransitionCount(int transitionCount) {
+        this.transitionCount = transitionCount;
+    }
+
+    @Basic
+    @Column(name = "startedAt", nullable = true)
+    public Timestamp getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(Timestamp startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    @Basic
+    @Column(name = "finishedAt", nullable = true)
+    public Timestamp getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(Timestamp finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+
+    @Basic
+    @Column(name = "message", nullable = true)
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    @Basic
+    @Column(name = "createdAt", nullable = false)
+    public Timestamp getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Timestamp createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    @Basic
+    @Column(name = "updatedAt", nullable = false)
+    public Timestamp getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Timestamp updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    @Transient
+    public String getPriceForDisplay() {
+        return Util.cashFormatForDisplay(price);
+    }
+
+    @Transient
+    public long getDurationInMillis() {
+        return startedAt == null || finishedAt == null ? 0 : finishedAt.getTime() - startedAt.getTime();
+    }
+
+    @Transient
+    public String getDisplayStatus() {
+        return Util.getDisplayStatusForSettlement(status);
+    }
+
+    @Transient
+    public boolean isDone() {
+        return status == CCConstants.SETTLEMENT_STATUS_DONE;
+    }
+}
@@ -0,0 +1,160 @@
+package com.deltastar.task7.core.repository.domain;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Progress of a transition day job, as reported by the status endpoint. The job id is the id of the
+ * {@link SettlementRun}.
+ */
+public class SettlementJobStatus {
+
+    private int jobId;
+    private String executionDay;
+    private String status;
+    private boolean running;
+    private int fundCount;
+    private int settledFundCount;
+    private int failedFundCount;
+    private int transitionCount;
+    private long elapsedMillis;
+    private double transitionsPerSecond;
+    private String message;
+    private List<FundProgress> fundList = new ArrayList<>();
+
+    public int getJobId() {
+        return jobId;
+    }
+
+    public void setJobId(int jobId) {
+        this.jobId = jobId;
+    }
+
+    public String getExecutionDay() {
+        return executionDay;
+    }
+
+    public void setExecutionDay(String executionDay) {
+        this.executionDay = executionDay;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public void setRunning(boolean running) {
+        this.running = running;
+    }
+
+    public int getFundCount() {
+        return fundCount;
+    }
+
+    public void setFundCount(int fundCount) {
+        this.fundCount = fundCount;
+    }
+
+    public int getSettledFundCount() {
+        return settledFundCount;
+    }
+
+    public void setSettledFundCount(int settledFundCount) {
+        this.settledFundCount = settledFundCount;
+    }
+
+    public int getFailedFundCount() {
+        return failedFundCount;
+    }
+
+    public void setFailedFundCount(int failedFundCount) {
+        this.failedFundCount = failedFundCount;
+    }
+
+    public int getTransitionCount() {
+        return transitionCount;
+    }
+
+    public void setTransitionCount(int transitionCount) {
+        this.transitionCount = transitionCount;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public void setElapsedMillis(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public double getTransitionsPerSecond() {
+        return transitionsPerSecond;
+    }
+
+    public void setTransitionsPerSecond(double transitionsPerSecond) {
+        this.transitionsPerSecond = transitionsPerSecond;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public List<FundProgress> getFundList() {
+        return fundList;
+    }
+
+    public void setFundList(List<FundProgress> fundList) {
+        this.fundList = fundList;
+    }
+
+    /**
+     * Progress of one fund of the job.
+     */
+    public static class FundProgress {
+
+        private int fundId;
+        private String status;
+        private int transitionCount;
+        private long durationMillis;
+        private String message;
+
+        public FundProgress(SettlementCheckpoint checkpoint) {
+            this.fundId = checkpoint.getFundId();
+            this.status = checkpoint.getDisplayStatus();
+            this.transitionCount = checkpoint.getTransitionCount();
+            this.durationMillis = checkpoint.getDurationInMillis();
+            this.message = checkpoint.getMessage();
+        }
+
+        public int getFundId() {
+            return fundId;
+        }
+
+        public String getStatus() {
+            return status;
+        }
+
+        public int getTransitionCount() {
+            return transitionCount;
+        }
+
+        public long getDurationMillis() {
+            return durationMillis;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+    }
+}
@@ -0,0 +1,299 @@
+package com.deltastar.task7.core.repository.domain;
+
+import com.deltastart.task7.core.constants.Util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * What a transition day would settle with the given prices, computed without writing anything:
+ * the totals of the book, the totals of every priced fund and one page of per-customer totals,
+ * sorted by customer id.
+ */
+public class SettlementPreview {
+
+    private String executionDay;
+    private int transitionCount;
+    private int skippedTransitionCount;
+    private long cashCredited;
+    private long cashChecked;
+    private int positionCreatedCount;
+    private int customerCount;
+    private int page;
+    private int pageSize;
+    private List<FundPreview> fundList = new ArrayList<>();
+    private List<CustomerPreview> customerList = new ArrayList<>();
+
+    public String getExecutionDay() {
+        return executionDay;
+    }
+
+    public void setExecutionDay(String executionDay) {
+        this.executionDay = executionDay;
+    }
+
+    /**
+     * @return the number of transitions that would be settled
+     */
+    public int getTransitionCount() {
+        return transitionCount;
+    }
+
+    public void setTransitionCount(int transitionCount) {
+        this.transitionCount = transitionCount;
+    }
+
+    /**
+     * @return the number of orders of funds without a price, which would stay pending
+     */
+    public int getSkippedTransitionCount() {
+        return skippedTransitionCount;
+    }
+
+    public void setSkippedTransitionCount(int skippedTransitionCount) {
+        this.skippedTransitionCount = skippedTransitionCount;
+    }
+
+    /**
+     * @return the cash of the sales and deposits credited to the customers
+     */
+    public long getCashCredited() {
+        return cashCredited;
+    }
+
+    public void setCashCredited(long cashCredited) {
+        this.cashCredited = cashCredited;
+    }
+
+    public String getCashCreditedForDisplay() {
+        return Util.cashFormatForDisplay(cashCredited);
+    }
+
+    public long getCashChecked() {
+        return cashChecked;
+    }
+
+    public void setCashChecked(long cashChecked) {
+        this.cashChecked = cashChecked;
+    }
+
+    public String getCashCheckedForDisplay() {
+        return Util.cashFormatForDisplay(cashChecked);
+    }
+
+    /**
+     * @return the number of buys that would give a customer its first position in a fund
+     */
+    public int getPositionCreatedCount() {
+        return positionCreatedCount;
+    }
+
+    public void setPositionCreatedCount(int positionCreatedCount) {
+        this.positionCreatedCount = positionCreatedCount;
+    }
+
+    public int getCustomerCount() {
+        return customerCount;
+    }
+
+    public void setCustomerCount(int customerCount) {
+        this.customerCount = customerCount;
+    }
+
+    public int getPage() {
+        return page;
+    }
+
+    public void setPage(int page) {
+        this.page = page;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public void setPageSize(int pageSize) {
+        this.pageSize = pageSize;
+    }
+
+    public int getPageCount() {
+        return pageSize <= 0 || customerCount == 0 ? 1 : (customerCount + pageSize - 1) / pageSize;
+    }
+
+    public boolean isFirstPage() {
+        return page <= 0;
+    }
+
+    public boolean isLastPage() {
+        return page >= getPageCount() - 1;
+    }
+
+    public List<FundPreview> getFundList() {
+        return fundList;
+    }
+
+    public void setFundList(List<FundPreview> fundList) {
+        this.fundList = fundList;
+    }
+
+    public List<CustomerPreview> getCustomerList() {
+        return customerList;
+    }
+
+    public void setCustomerList(List<CustomerPreview> customerList) {
+        this.customerList = customerList;
+    }
+
+    /**
+     * Totals of one priced fund.
+     */
+    public static class FundPreview {
+
+        private final int fundId;
+        private final long price;
+        private int buyCount;
+        private int sellCount;
+        private long sharesBought;
+        private long sharesSold;
+        private long amountInvested;
+        private long cashCredited;
+        private int positionCreatedCount;
+
+        public FundPreview(int fundId, long price) {
+            this.fundId = fundId;
+            this.price = price;
+        }
+
+        public void addBuy(long amount, long shares, boolean positionCreated) {
+            buyCount++;
+            amountInvested += amount;
+            sharesBought += shares;
+            if (positionCreated) {
+                positionCreatedCount++;
+            }
+        }
+
+        public void addSell(long shares, long cash) {
+            sellCount++;
+            sharesSold += shares;
+            cashCredited += cash;
+        }
+
+        public int getFundId() {
+            return fundId;
+        }
+
+        public long getPrice() {
+            return price;
+        }
+
+        public String getPriceForDisplay() {
+            return Util.cashFormatForDisplay(price);
+        }
+
+        public int getBuyCount() {
+            return buyCount;
+        }
+
+        public int getSellCount() {
+            return sellCount;
+        }
+
+        public String getSharesBoughtForDisplay() {
+            return Util.formatCash(sharesBought);
+        }
+
+        public String getSharesSoldForDisplay() {
+            return Util.formatCash(sharesSold);
+        }
+
+        public String getAmountInvestedForDisplay() {
+            return Util.cashFormatForDisplay(amountInvested);
+        }
+
+        public String getCashCreditedForDisplay() {
+            return Util.cashFormatForDisplay(cashCredited);
+        }
+
+        public int getPositionCreatedCount() {
+            return positionCreatedCount;
+        }
+    }
+
+    /**
+     * Totals of one customer over every priced fund.
+     */
+    public static class CustomerPreview {
+
+        private final int customerId;
+        private int transitionCount;
+        private long amountInvested;
+        private long cashFromSales;
+        private long cashDeposited;
+        private long cashChecked;
+        private int positionCreatedCount;
+
+        public CustomerPreview(int customerId) {
+            this.customerId = customerId;
+        }
+
+        public void addBuy(long amount, boolean positionCreated) {
+            transitionCount++;
+            amountInvested += amount;
+            if (positionCreated) {
+                positionCreatedCount++;
+            }
+        }
+
+        public void addSell(long cash) {
+            transitionCount++;
+            cashFromSales += cash;
+        }
+
+        public void addDeposit(long amount) {
+            transitionCount++;
+            cashDeposited += amount;
+        }
+
+        public void addCheck(long amount) {
+            transitionCount++;
+            cashChecked += amount;
+        }
+
+        public int getCustomerId() {
+            return customerId;
+        }
+
+        public int getTransitionCount() {
+            return transitionCount;
+        }
+
+        public long getCashCredited() {
+            return cashFromSales + cashDeposited;
+        }
+
+        public String getAmountInvestedForDisplay() {
+            return Util.cashFormatForDisplay(amountInvested);
+        }
+
+        public String getCashFromSalesForDisplay() {
+            return Util.cashFormatForDisplay(cashFromSales);
+        }
+
+        public String getCashDepositedForDisplay() {
+            return Util.cashFormatForDisplay(cashDeposited);
+        }
+
+        public String getCashCheckedForDisplay() {
+            return Util.cashFormatForDisplay(cashChecked);
+        }
+
+        public long getCashChecked() {
+            return cashChecked;
+        }
+
+        public int getPositionCreatedCount() {
+            return positionCreatedCount;
+        }
+    }
+}
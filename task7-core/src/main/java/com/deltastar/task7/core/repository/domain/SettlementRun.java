@@ -0,0 +1,163 @@
+package com.deltastar.task7.core.repository.domain;
+
+import com.deltastart.task7.core.constants.CCConstants;
+import com.deltastart.task7.core.constants.Util;
+
+import javax.persistence.*;
+import java.sql.Timestamp;
+
+/**
+ * One execution of the transition day. Its progress is kept fund by fund in {@link SettlementCheckpoint}s.
+ */
+@Entity
+@NamedQueries({
+        @NamedQuery(name = "findLatestSettlementRun", query = "SELECT r FROM SettlementRun r order by r.id desc")
+})
+public class SettlementRun {
+    private int id;
+    private Timestamp executionDay;
+    private byte status;
+    private int fundCount;
+    private Timestamp startedAt;
+    private Timestamp finishedAt;
+    private String message;
+    private Timestamp createdAt;
+    private Timestamp updatedAt;
+    private int settledFundCount;
+    private int transitionCount;
+
+    @Id
+    @GeneratedValue
+    @Column(name = "id", nullable = false)
+    public int getId() {
+        return id;
+    }
+
+    public void setId(int id) {
+        this.id = id;
+    }
+
+    @Basic
+    @Column(name = "executionDay", nullable = true)
+    public Timestamp getExecutionDay() {
+        return executionDay;
+    }
+
+    public void setExecutionDay(Timestamp executionDay) {
+        this.executionDay = executionDay;
+    }
+
+    @Basic
+    @Column(name = "status", nullable = true)
+    public byte getStatus() {
+        return status;
+    }
+
+    public void setStatus(byte status) {
+        this.status = status;
+    }
+
+    @Basic
+    @Column(name = "fundCount", nullable = true)
+    public int getFundCount() {
+        return fundCount;
+    }
+
+    public void setFundCount(int fundCount) {
+        this.fundCount = fundCount;
+    }
+
+    @Basic
+    @Column(name = "startedAt", nullable = true)
+    public Timestamp getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(Timestamp startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    @Basic
+    @Column(name = "finishedAt", nullable = true)
+    public Timestamp getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(Timestamp finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+
+    @Basic
+    @Column(name = "message", nullable = true)
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    @Basic
+    @Column(name = "createdAt", nullable = false)
+    public Timestamp getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Timestamp createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    @Basic
+    @Column(name = "updatedAt", nullable = false)
+    public Timestamp getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Timestamp updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    /**
+     * @return the number of funds already settled, filled from the checkpoints of the run
+     */
+    @Transient
+    public int getSettledFundCount() {
+        return settledFundCount;
+    }
+
+    public void setSettledFundCount(int settledFundCount) {
+        this.settledFundCount = settledFundCount;
+    }
+
+    /**
+     * @return the number of transitions already settled, filled from the checkpoints of the run
+     */
+    @Transient
+    public int getTransitionCount() {
+        return transitionCount;
+    }
+
+    public void setTransitionCount(int transitionCount) {
+        this.transitionCount = transitionCount;
+    }
+
+    @Transient
+    public String getExecutionDayForDisplay() {
+        return Util.formatTime(executionDay);
+    }
+
+    @Transient
+    public String getDisplayStatus() {
+        return Util.getDisplayStatusForSettlement(status);
+    }
+
+    @Transient
+    public boolean isDone() {
+        return status == CCConstants.SETTLEMENT_STATUS_DONE;
+    }
+
+    @Transient
+    public boolean isRunning() {
+        return status == CCConstants.SETTLEMENT_STATUS_RUNNING;
+    }
+}
@@ -0,0 +1,62 @@
+package com.deltastar.task7.core.repository.domain;
+
+import com.deltastart.task7.core.constants.CCConstants;
+
+/**
+ * Position of a customer or an employee in a list sorted by one column, then by id: the value of the
+ * sort column and the id. A page of a list is read from the key of the last row of the previous page,
+ * so the page does not move if that row was renamed or deleted since.
+ */
+public class SummaryKey {
+
+    private final String value;
+    private final int id;
+
+    /**
+     * @param value the value of the sort column, null if it is null or if the list is sorted by id
+     * @param id    the id
+     */
+    public SummaryKey(String value, int id) {
+        this.value = value;
+        this.id = id;
+    }
+
+    public SummaryKey(String sortField, CustomerSummary customerSummary) {
+        this(getSortValue(sortField, customerSummary.getUserName(), customerSummary.getFirstName(),
+                customerSummary.getLastName()), customerSummary.getId());
+    }
+
+    public SummaryKey(String sortField, EmployeeSummary employeeSummary) {
+        this(getSortValue(sortField, employeeSummary.getUserName(), employeeSummary.getFirstName(),
+                employeeSummary.getLastName()), employeeSummary.getId());
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * @return the key as a cursor: the id, then a dot and the value of the sort column unless it is null
+     */
+    @Override
+    public String toString() {
+        return value == null ? String.valueOf(id) : id + "." + value;
+    }
+
+    private static String getSortValue(String sortField, String userName, String firstName, String lastName) {
+        switch (sortField) {
+            case CCConstants.SORT_BY_USER_NAME:
+                return userName;
+            case CCConstants.SORT_BY_FIRST_NAME:
+                return firstName;
+            case CCConstants.SORT_BY_LAST_NAME:
+                return lastName;
+            default:
+                return null;
+        }
+    }
+}
@@ -12,6 +12,10 @@ import java.sql.Timestamp;
 @NamedQueries({
         @NamedQuery(name = "findTransitionByCustomerId", query = "SELECT t FROM Transition t where t.customerId = :p_customerId"),
         @NamedQuery(name = "findTransitionByStatus", query = "SELECT t FROM Transition t where t.status = :p_status order by t.status asc, t.createdAt asc"),
+        @NamedQuery(name = "findTransitionByStatusAndExecuteDateAndFundId", query = "SELECT t FROM Transition t where t.status = :p_status and t.executeDate = :p_executeDate and t.fundId = :p_fundId order by t.createdAt asc, t.id asc"),
+        @NamedQuery(name = "findTransitionByStatusAndTypes", query = "SELECT t FROM Transition t where t.status = :p_status and t.type in :p_typeList order by t.createdAt asc"),
+        @NamedQuery(name = "findTransitionByStatusAndExecuteDateAndTypes", query = "SELECT t FROM Transition t where t.status = :p_status and t.executeDate = :p_executeDate and t.type in :p_typeList order by t.createdAt asc"),
+        @NamedQuery(name = "updateTransitionExecuteDateByStatus", query = "UPDATE Transition t set t.executeDate = :p_executeDate, t.updatedAt = t.updatedAt where t.status = :p_status"),
         @NamedQuery(name = "findAllTransition", query = "SELECT t FROM Transition t order by t.updatedAt desc")
 })
 public class Transition {
@@ -0,0 +1,82 @@
+package com.deltastar.task7.core.repository.domain;
+
+import javax.persistence.*;
+import java.sql.Timestamp;
+
+/**
+ * Request key a customer placed a transition with. A key is unique per customer, so a replayed
+ * request cannot place its order twice.
+ */
+@Entity
+@NamedQueries({
+        @NamedQuery(name = "findTransitionRequestKeyByCustomerIdAndRequestKey",
+                query = "SELECT k FROM TransitionRequestKey k where k.customerId = :p_customerId and k.requestKey = :p_requestKey")
+})
+public class TransitionRequestKey {
+    private int id;
+    private int customerId;
+    private String requestKey;
+    private int transitionId;
+    private Timestamp createdAt;
+
+    public TransitionRequestKey(int customerId, String requestKey, int transitionId) {
+        this.customerId = customerId;
+        this.requestKey = requestKey;
+        this.transitionId = transitionId;
+        this.createdAt = new Timestamp(System.currentTimeMillis());
+    }
+
+    public TransitionRequestKey() {
+    }
+
+    @Id
+    @GeneratedValue
+    @Column(name = "id", nullable = false)
+    public int getId() {
+        return id;
+    }
+
+    public void setId(int id) {
+        this.id = id;
+    }
+
+    @Basic
+    @Column(name = "customerId", nullable = false)
+    public int getCustomerId() {
+        return customerId;
+    }
+
+    public void setCustomerId(int customerId) {
+        this.customerId = customerId;
+    }
+
+    @Basic
+    @Column(name = "requestKey", nullable = false, length = 64)
+    public String getRequestKey() {
+        return requestKey;
+    }
+
+    public void setRequestKey(String requestKey) {
+        this.requestKey = requestKey;
+    }
+
+    @Basic
+    @Column(name = "transitionId", nullable = false)
+    public int getTransitionId() {
+        return transitionId;
+    }
+
+    public void setTransitionId(int transitionId) {
+        this.transitionId = transitionId;
+    }
+
+    @Basic
+    @Column(name = "createdAt", nullable = true)
+    public Timestamp getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Timestamp createdAt) {
+        this.createdAt = createdAt;
+    }
+}
@@ -10,7 +10,11 @@ import java.sql.Timestamp;
 @NamedQueries({
         @NamedQuery(name = "findTransitionViewByCustomerId", query = "SELECT tv FROM TransitionView tv where tv.customerId = :p_customerId order by tv.createdAt desc"),
         @NamedQuery(name = "findTransitionViewByStatus", query = "SELECT tv FROM TransitionView tv where tv.status = :p_status order by tv.status asc, tv.createdAt asc"),
-        @NamedQuery(name = "findAllTransitionView", query = "SELECT tv FROM TransitionView tv order by tv.createdAt desc")
+        @NamedQuery(name = "findAllTransitionView", query = "SELECT tv FROM TransitionView tv order by tv.createdAt desc"),
+        @NamedQuery(name = "findTransitionViewPage", query = "SELECT tv FROM TransitionView tv order by tv.createdAt desc, tv.id desc"),
+        @NamedQuery(name = "findTransitionViewPageBefore", query = "SELECT tv FROM TransitionView tv where tv.createdAt <= :p_createdAt and (tv.createdAt < :p_createdAt or tv.id < :p_id) order by tv.createdAt desc, tv.id desc"),
+        @NamedQuery(name = "findTransitionViewPageByCustomerId", query = "SELECT tv FROM TransitionView tv where tv.customerId = :p_customerId order by tv.createdAt desc, tv.id desc"),
+        @NamedQuery(name = "findTransitionViewPageByCustomerIdBefore", query = "SELECT tv FROM TransitionView tv where tv.customerId = :p_customerId and tv.createdAt <= :p_createdAt and (tv.createdAt < :p_createdAt or tv.id < :p_id) order by tv.createdAt desc, tv.id desc")
 })
 public class TransitionView {
     public static final String BUY = "Buy";
@@ -18,6 +22,7 @@ public class TransitionView {
     public static final String DEPOSIT = "Deposit";
     public static final String WITH_DRAW = "WithDraw";
     public static final String TO_BE_EXECUTED = "To be executed";
+    public static final String REJECTED = "Rejected";
     private int id;
     private int customerId;
     private long fundId;
@@ -181,6 +186,10 @@ public class TransitionView {
 
     @Transient
     public String getTime() {
+        //an order the journal acknowledged but could not cover when it was drained.
+        if (status != null && status == CCConstants.TRAN_STATUS_DONE_WITH_ERROR) {
+            return REJECTED;
+        }
         String result = Util.formatTime(getExecuteDate());
         if (Util.isEmpty(result)) {
             result = TO_BE_EXECUTED;
@@ -0,0 +1,41 @@
+package com.deltastar.task7.core.repository.domain;
+
+import java.sql.Timestamp;
+
+/**
+ * Position of a transition in the transition lists, newest first: by creation time, then by id for the
+ * transitions created at the same time. A page of a list is read from the key of the last transition of
+ * the previous page.
+ */
+public class TransitionViewKey {
+
+    private final Timestamp createdAt;
+    private final int id;
+
+    public TransitionViewKey(Timestamp createdAt, int id) {
+        this.createdAt = createdAt;
+        this.id = id;
+    }
+
+    public TransitionViewKey(TransitionView transitionView) {
+        this(transitionView.getCreatedAt(), transitionView.getId());
+    }
+
+    public Timestamp getCreatedAt() {
+        return createdAt;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * @return the key as a cursor: the seconds and the nanoseconds of the creation time, and the id
+     */
+    @Override
+    public String toString() {
+        //the milliseconds of the time are also in its nanoseconds
+        long seconds = (createdAt.getTime() - createdAt.getNanos() / 1000000) / 1000;
+        return seconds + "." + createdAt.getNanos() + "." + id;
+    }
+}
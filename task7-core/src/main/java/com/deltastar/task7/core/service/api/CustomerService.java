@@ -82,11 +82,56 @@ public interface CustomerService {
 
     Customer getCustomerById(int customerId) throws CfsException;
 
-    void buyFund(Customer customer, String fundId, String amount) throws CfsException;
+    /**
+     * Place a buy order. An order placed again with the same request key is not placed twice, the
+     * first one is returned as done.
+     *
+     * @param customer   the customer placing the order
+     * @param fundId     the fund to buy
+     * @param amount     the amount to buy
+     * @param requestKey the key the client sent with the order, or null if it sent none
+     * @throws CfsException if the input is invalid or the customer does not have enough cash
+     */
+    void buyFund(Customer customer, String fundId, String amount, String requestKey) throws CfsException;
 
-    void sellFund(Customer customer, String fundId, String shares) throws CfsException;
+    /**
+     * Place a sell order. An order placed again with the same request key is not placed twice, the
+     * first one is returned as done.
+     *
+     * @param customer   the customer placing the order
+     * @param fundId     the fund to sell
+     * @param shares     the shares to sell
+     * @param requestKey the key the client sent with the order, or null if it sent none
+     * @throws CfsException if the input is invalid or the customer does not have enough shares
+     */
+    void sellFund(Customer customer, String fundId, String shares, String requestKey) throws CfsException;
 
-    void requestCheck(Customer customer, String amount) throws CfsException;
+    /**
+     * Request a check. A request sent again with the same request key is not placed twice, the first
+     * one is returned as done.
+     *
+     * @param customer   the customer requesting the check
+     * @param amount     the amount of the check
+     * @param requestKey the key the client sent with the request, or null if it sent none
+     * @throws CfsException if the input is invalid or the customer does not have enough cash
+     */
+    void requestCheck(Customer customer, String amount, String requestKey) throws CfsException;
+
+    /**
+     * Place a basket of buys and sells in one transaction. The whole basket is checked against one
+     * read of the customer's positions before anything is written, the cash of all the buys is
+     * debited at once and the pending positions and transitions are inserted in batches.
+     *
+     * @param customer   the customer placing the basket
+     * @param fundIds    the funds of the basket
+     * @param buyAmounts the amount to buy of each fund, blank for no buy
+     * @param sellShares the shares to sell of each fund, blank for no sell
+     * @return the number of orders placed
+     * @throws CfsException if the basket is empty or too large, a fund does not exist, an amount is
+     *                      invalid or the customer does not have enough cash or shares
+     */
+    int submitBasket(Customer customer, String[] fundIds, String[] buyAmounts, String[] sellShares)
+            throws CfsException;
 
 
     List<PositionView> getPositionViewListByCustomerIdAndStatus(String customerId, String positionStatus) throws CfsException;
@@ -102,6 +147,18 @@ public interface CustomerService {
 
     List<TransitionView> getTransitionViewListByCustomerId(int customerId) throws CfsException;
 
+    /**
+     * Read a page of the transitions of a customer, newest first.
+     *
+     * @param customerId the customer's id
+     * @param cursor     the cursor of the page, from the previous page, empty for the first page
+     * @param pageSize   the number of transitions of the page, the default one if it is empty
+     * @return the page
+     * @throws CfsException if the cursor or the page size is not valid
+     */
+    KeysetPage<TransitionView> getTransitionViewPageByCustomerId(int customerId, String cursor, String pageSize)
+            throws CfsException;
+
     List<Fund> search(String keywords) throws CfsException;
 
     void updatePassword(int customerId, String newPassword);
@@ -111,4 +168,27 @@ public interface CustomerService {
     String generateBarChartData();
 
     String generateBarChartData(String fundId) throws CfsException;
+
+    /**
+     * @return the chart of the last price of every fund, or null if there is no fund
+     */
+    BarChartJson getBarChartJson();
+
+    /**
+     * @param fundId the fund's id
+     * @return the chart of the price history of the fund, or null if the fund has no price
+     * @throws CfsException if the fund id is not a number
+     */
+    BarChartJson getBarChartJson(String fundId) throws CfsException;
+
+    /**
+     * @param fundId   the fund's id
+     * @param points   the number of prices to show, the default one if it is empty
+     * @param fromDate the first day to show, MM/dd/yyyy, the first price of the fund if it is empty
+     * @param toDate   the last day to show, MM/dd/yyyy, the last price of the fund if it is empty
+     * @return the chart of the prices of the fund between the days, downsampled to the number of
+     * prices, or null if there is none
+     * @throws CfsException if the fund id, the number of prices or a day is not valid
+     */
+    BarChartJson getBarChartJson(String fundId, String points, String fromDate, String toDate) throws CfsException;
 }
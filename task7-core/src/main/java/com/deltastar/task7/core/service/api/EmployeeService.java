@@ -28,6 +28,8 @@ package com.deltastar.task7.core.service.api;
 import com.deltastar.task7.core.repository.domain.*;
 import com.deltastar.task7.core.service.exception.CfsException;
 
+import java.io.IOException;
+import java.io.Writer;
 import java.util.List;
 
 /**
@@ -72,6 +74,21 @@ public interface EmployeeService {
 
     List<Employee> getEmployeeList();
 
+    /**
+     * Read a page of the employee list, with only the columns it shows.
+     *
+     * @param keyword  the prefix of the user name, first name or last name of the employees, empty for
+     *                 every employee
+     * @param sort     the column to sort by: id, userName, firstName or lastName; id if it is empty
+     * @param order    asc or desc, asc if it is empty
+     * @param cursor   the cursor of the page, from the previous page, empty for the first page
+     * @param pageSize the number of employees of the page, the default one if it is empty
+     * @return the page
+     * @throws CfsException if the sort, the order, the cursor or the page size is not valid
+     */
+    KeysetPage<EmployeeSummary> getEmployeeSummaryPage(String keyword, String sort, String order, String cursor,
+                                                       String pageSize) throws CfsException;
+
     void depositCheck(String customerId, String amount) throws CfsException;
 
     void depositCheck(Customer customer, String amount) throws CfsException;
@@ -84,6 +101,21 @@ public interface EmployeeService {
 
     List<Customer> getCustomerList();
 
+    /**
+     * Read a page of the customer list, with only the columns it shows.
+     *
+     * @param keyword  the prefix of the user name, first name or last name of the customers, empty for
+     *                 every customer
+     * @param sort     the column to sort by: id, userName, firstName or lastName; id if it is empty
+     * @param order    asc or desc, asc if it is empty
+     * @param cursor   the cursor of the page, from the previous page, empty for the first page
+     * @param pageSize the number of customers of the page, the default one if it is empty
+     * @return the page
+     * @throws CfsException if the sort, the order, the cursor or the page size is not valid
+     */
+    KeysetPage<CustomerSummary> getCustomerSummaryPage(String keyword, String sort, String order, String cursor,
+                                                       String pageSize) throws CfsException;
+
     void updateCustomerPassword(String customerId, String password) throws CfsException;
 
     void updateCustomerProfile(String customerId, String userName, String firstName,
@@ -96,12 +128,49 @@ public interface EmployeeService {
 
     List<TransitionView> getTransitionViewList(String customerId) throws CfsException;
 
+    /**
+     * Read a page of the transitions of every customer, newest first.
+     *
+     * @param cursor   the cursor of the page, from the previous page, empty for the first page
+     * @param pageSize the number of transitions of the page, the default one if it is empty
+     * @return the page
+     * @throws CfsException if the cursor or the page size is not valid
+     */
+    KeysetPage<TransitionView> getTransitionViewPage(String cursor, String pageSize) throws CfsException;
+
+    /**
+     * Read a page of the transitions of a customer, newest first.
+     *
+     * @param customerId the customer's id
+     * @param cursor     the cursor of the page, from the previous page, empty for the first page
+     * @param pageSize   the number of transitions of the page, the default one if it is empty
+     * @return the page
+     * @throws CfsException if the customer id, the cursor or the page size is not valid
+     */
+    KeysetPage<TransitionView> getTransitionViewPageByCustomerId(String customerId, String cursor, String pageSize)
+            throws CfsException;
+
     List<Fund> getFundList();
 
     Fund getFundById(String fundID) throws CfsException;
 
     List<FundPriceHistoryView> getFundPriceHistoryViewList(String fundId) throws CfsException;
 
+    /**
+     * Read a page of the price history of a fund, newest price first.
+     *
+     * @param fundId   the fund's id
+     * @param fromDate the first day to read, MM/dd/yyyy, the first price of the fund if it is empty
+     * @param toDate   the last day to read, MM/dd/yyyy, the last price of the fund if it is empty
+     * @param cursor   the cursor of the page, the date of the last price of the previous page, empty for
+     *                 the first page
+     * @param limit    the number of prices of the page, the default one if it is empty
+     * @return the page
+     * @throws CfsException if the fund id, a day, the cursor or the limit is not valid
+     */
+    KeysetPage<FundPriceHistoryView> getFundPriceHistoryViewPage(String fundId, String fromDate, String toDate,
+                                                                 String cursor, String limit) throws CfsException;
+
     List<List<?>> search(String keywords) throws CfsException;
 
 
@@ -110,5 +179,51 @@ public interface EmployeeService {
     void createFundExample(String fundName, String symbol, String comment) throws CfsException;
 
 
-    void executeTransitionDay(String[] priceArray, String[] fundIdArray, String executionDay) throws CfsException;
+    /**
+     * Start the transition day in the background.
+     *
+     * @return the id of the transition day job, or 0 if no fund has a price
+     */
+    int executeTransitionDay(String[] priceArray, String[] fundIdArray, String executionDay) throws CfsException;
+
+    /**
+     * Compute what the transition day would settle with the given prices, without writing anything.
+     *
+     * @return one page of the preview, or null if no fund has a price
+     */
+    SettlementPreview previewTransitionDay(String[] priceArray, String[] fundIdArray, String executionDay, String page)
+            throws CfsException;
+
+    /**
+     * Resume an unfinished transition day in the background.
+     *
+     * @return the id of the transition day job
+     */
+    int resumeTransitionDay(String runId) throws CfsException;
+
+    String getTransitionDayJobStatusJson(String jobId) throws CfsException;
+
+    /**
+     * @param data   what to export, transitions, positions or fundPriceHistory
+     * @param format csv or json
+     * @return the name of the exported file
+     * @throws CfsException if the data or the format is not valid
+     */
+    String getExportFileName(String data, String format) throws CfsException;
+
+    /**
+     * Stream every row of the data to the writer, one row at a time.
+     *
+     * @param data   what to export, see {@link #getExportFileName(String, String)}
+     * @param format the format of the rows, see {@link #getExportFileName(String, String)}
+     * @param writer the writer the rows are written to, it is flushed but not closed
+     * @return the number of rows written
+     * @throws CfsException if the data or the format is not valid, nothing is written then
+     * @throws IOException  if the rows cannot be read or written
+     */
+    long export(String data, String format, Writer writer) throws CfsException, IOException;
+
+    SettlementRun getLatestSettlementRun();
+
+    List<SettlementCheckpoint> getSettlementCheckpointList(int runId);
 }
@@ -0,0 +1,154 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2015, Delta Star Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.deltastar.task7.core.service.api;
+
+import com.deltastar.task7.core.repository.domain.SettlementCheckpoint;
+import com.deltastar.task7.core.repository.domain.SettlementPreview;
+import com.deltastar.task7.core.repository.domain.SettlementRun;
+import com.deltastar.task7.core.service.exception.CfsException;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Transactional units of work of the transition day settlement. Every method runs in its own
+ * transaction unless it is called inside an existing one.
+ * <p>
+ * Delta Star Team
+ */
+public interface FundSettlementService {
+
+    /**
+     * Check that every fund exists and that the execution day is after its last transition day.
+     *
+     * @param priceByFundId the new price of each priced fund
+     * @param executionDay  the transition day
+     * @throws CfsException if a fund is unknown or the execution day is too early
+     */
+    void validateExecutionDay(Map<Integer, Long> priceByFundId, Timestamp executionDay) throws CfsException;
+
+    /**
+     * Compute what settling the pending book with the given prices would do, in a read-only
+     * transaction. The pending transitions are read through a cursor and nothing is written.
+     *
+     * @param priceByFundId the new price of each priced fund
+     * @param executionDay  the transition day
+     * @param page          the page of customers to return, from 0
+     * @param pageSize      the number of customers per page
+     * @return the preview of the settlement
+     */
+    SettlementPreview preview(Map<Integer, Long> priceByFundId, Timestamp executionDay, int page, int pageSize);
+
+    /**
+     * Stamp the pending transitions with the execution day and record a new run with a pending
+     * checkpoint for every priced fund and one for the deposits and check requests.
+     *
+     * @param priceByFundId the new price of each priced fund, in settlement order
+     * @param executionDay  the transition day
+     * @return the created run
+     */
+    SettlementRun createRun(Map<Integer, Long> priceByFundId, Timestamp executionDay);
+
+    /**
+     * Mark an unfinished run as running again. Only the transitions stamped when the run was created
+     * are settled, the ones placed since wait for the next run.
+     *
+     * @param runId the run's id
+     * @return the restarted run
+     * @throws CfsException if there is no unfinished run with this id
+     */
+    SettlementRun restartRun(int runId) throws CfsException;
+
+    /**
+     * Mark a checkpoint as running, unless it is already done.
+     *
+     * @param checkpointId the checkpoint's id
+     */
+    void startCheckpoint(int checkpointId);
+
+    /**
+     * Settle the fund of a checkpoint: post its price, settle its pending buys and sells, credit the
+     * sellers and mark the checkpoint as done. Does nothing if the checkpoint is already done.
+     *
+     * @param checkpointId the checkpoint's id
+     */
+    void settleFund(int checkpointId);
+
+    /**
+     * Settle the pending deposits and check requests and mark the checkpoint as done. Does nothing if
+     * the checkpoint is already done.
+     *
+     * @param checkpointId the checkpoint's id
+     */
+    void settleCash(int checkpointId);
+
+    /**
+     * Mark a checkpoint as failed.
+     *
+     * @param checkpointId the checkpoint's id
+     * @param message      the cause of the failure
+     */
+    void failCheckpoint(int checkpointId, String message);
+
+    /**
+     * Mark a run as done if all its checkpoints are done, as failed otherwise.
+     *
+     * @param runId the run's id
+     * @return the finished run
+     */
+    SettlementRun finishRun(int runId);
+
+    /**
+     * Mark a run as failed, whatever the state of its checkpoints.
+     *
+     * @param runId   the run's id
+     * @param message the cause of the failure
+     */
+    void failRun(int runId, String message);
+
+    /**
+     * Get the last run, with its progress.
+     *
+     * @return the last run or null if the transition day was never executed
+     */
+    SettlementRun getLatestRun();
+
+    /**
+     * Get a run, with its progress.
+     *
+     * @param runId the run's id
+     * @return the run or null if no run found with the given id
+     */
+    SettlementRun getRun(int runId);
+
+    /**
+     * Get the checkpoints of a run.
+     *
+     * @param runId the run's id
+     * @return the checkpoints of the run, in settlement order
+     */
+    List<SettlementCheckpoint> getCheckpointList(int runId);
+}
@@ -0,0 +1,72 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2015, Delta Star Team
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package com.deltastar.task7.core.service.api;
+
+import com.deltastar.task7.core.journal.JournalEntry;
+
+import java.util.List;
+
+/**
+ * Transactional units of work of the order journal drainer. Every method runs in its own
+ * transaction.
+ * <p>
+ * Delta Star Team
+ */
+public interface OrderJournalDrainService {
+
+    /**
+     * Get the last sequence of a journal written to the database, recording a checkpoint for the
+     * journal if it has none yet.
+     *
+     * @param journalName the journal's name
+     * @return the last drained sequence, 0 if the journal was never drained
+     */
+    long getDrainedSequence(String journalName);
+
+    /**
+     * Write a batch of journaled orders and advance the checkpoint of the journal in one transaction.
+     * The orders the checkpoint already covers and the orders whose request key is already recorded
+     * are skipped, so a batch can be replayed safely. The cash of a buy and the shares of a sell are
+     * taken by conditional updates; an order which cannot be covered any more is recorded as a
+     * transition done with error, which the customer sees rejected. Every transition keeps the time
+     * its order was accepted.
+     *
+     * @param journalName the journal's name
+     * @param entryList   the orders, in sequence order
+     * @return the last drained sequence after the batch
+     */
+    long drainBatch(String journalName, List<JournalEntry> entryList);
+
+    /**
+     * Record an order which cannot be drained as a dead letter and move the checkpoint of the journal
+     * past it in one transaction. Nothing else of the order is written.
+     *
+     * @param journalName the journal's name
+     * @param entry       the order, the next one after the checkpoint
+     * @param message     why the order cannot be drained
+     * @return the last drained sequence after the order
+     */
+    long deadLetter(String journalName, JournalEntry entry, String message);
+}
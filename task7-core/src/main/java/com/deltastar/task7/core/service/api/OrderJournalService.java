@@ -0,0 +1,79 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2015, Delta Star Team
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package com.deltastar.task7.core.service.api;
+
+import com.deltastar.task7.core.repository.domain.Customer;
+import com.deltastar.task7.core.service.exception.CfsException;
+
+/**
+ * Business interface for the order journal intake. An order is acknowledged as soon as it is synced
+ * to the local journal, and the journal is written to the database in batches in the background.
+ * <p>
+ * Delta Star Team
+ */
+public interface OrderJournalService {
+
+    /**
+     * @return true if buys and sells go through the journal
+     */
+    boolean isEnabled();
+
+    /**
+     * Accept a buy order into the journal. The cash of the customer, less the buys not drained yet,
+     * must cover the amount. An order accepted again with the same request key is not journaled
+     * twice, the first one stands.
+     *
+     * @param customer       the customer placing the order
+     * @param fundIdAsString the fund's id
+     * @param amountAsString the amount to buy
+     * @param requestKey     the key the client sent with the order, or null if it sent none
+     * @throws CfsException if the input is invalid, the customer does not have enough cash or the
+     *                      order could not be journaled
+     */
+    void buyFund(Customer customer, String fundIdAsString, String amountAsString, String requestKey)
+            throws CfsException;
+
+    /**
+     * Accept a sell order into the journal. The possessed shares of the customer, less the sells not
+     * drained yet, must cover the shares. An order accepted again with the same request key is not
+     * journaled twice, the first one stands.
+     *
+     * @param customer       the customer placing the order
+     * @param fundIdAsString the fund's id
+     * @param sharesAsString the shares to sell
+     * @param requestKey     the key the client sent with the order, or null if it sent none
+     * @throws CfsException if the input is invalid, the customer does not have enough shares or the
+     *                      order could not be journaled
+     */
+    void sellFund(Customer customer, String fundIdAsString, String sharesAsString, String requestKey)
+            throws CfsException;
+
+    /**
+     * Write the journaled orders which are not in the database yet, in batches.
+     *
+     * @return the number of orders written
+     */
+    int drain();
+}
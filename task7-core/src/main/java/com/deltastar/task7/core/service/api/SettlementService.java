@@ -0,0 +1,118 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2015, Delta Star Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.deltastar.task7.core.service.api;
+
+import com.deltastar.task7.core.repository.domain.SettlementCheckpoint;
+import com.deltastar.task7.core.repository.domain.SettlementJobStatus;
+import com.deltastar.task7.core.repository.domain.SettlementPreview;
+import com.deltastar.task7.core.repository.domain.SettlementRun;
+import com.deltastar.task7.core.service.exception.CfsException;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Business interface for the transition day settlement.
+ * <p>
+ * Delta Star Team
+ */
+public interface SettlementService {
+
+    /**
+     * Post the closing prices and settle every pending transition. Every fund is committed with its
+     * checkpoint, so a run that fails can be resumed where it stopped.
+     *
+     * @param priceByFundId the new price of each priced fund, in posting order
+     * @param executionDay  the transition day
+     * @throws CfsException if a fund does not exist, the day is not after its last transition day or
+     *                      a fund could not be settled
+     */
+    void executeTransitionDay(Map<Integer, Long> priceByFundId, Timestamp executionDay) throws CfsException;
+
+    /**
+     * Settle the funds of an unfinished run which are not done yet, with the prices of the run.
+     *
+     * @param runId the run's id
+     * @throws CfsException if there is no unfinished run with this id or a fund could not be settled
+     */
+    void resumeTransitionDay(int runId) throws CfsException;
+
+    /**
+     * Check the prices and compute what the transition day would settle, without writing anything.
+     * A preview can run while a transition day is running, it then reads what is still pending.
+     *
+     * @param priceByFundId the new price of each priced fund
+     * @param executionDay  the transition day
+     * @param page          the page of customers to return, from 0
+     * @return the preview of the settlement
+     * @throws CfsException if a fund does not exist or the day is not after its last transition day
+     */
+    SettlementPreview previewTransitionDay(Map<Integer, Long> priceByFundId, Timestamp executionDay, int page)
+            throws CfsException;
+
+    /**
+     * Check the prices, record a new run and settle it in the background.
+     *
+     * @param priceByFundId the new price of each priced fund, in posting order
+     * @param executionDay  the transition day
+     * @return the id of the job, which is the id of its run
+     * @throws CfsException if a fund does not exist, the day is not after its last transition day or
+     *                      another transition day is running
+     */
+    int submitTransitionDay(Map<Integer, Long> priceByFundId, Timestamp executionDay) throws CfsException;
+
+    /**
+     * Resume an unfinished run in the background.
+     *
+     * @param runId the run's id
+     * @return the id of the job, which is the id of its run
+     * @throws CfsException if there is no unfinished run with this id or another transition day is running
+     */
+    int submitResumeTransitionDay(int runId) throws CfsException;
+
+    /**
+     * Get the progress of a transition day job.
+     *
+     * @param jobId the job's id
+     * @return the status of the job or null if no job found with the given id
+     */
+    SettlementJobStatus getJobStatus(int jobId);
+
+    /**
+     * Get the last run, with its progress.
+     *
+     * @return the last run or null if the transition day was never executed
+     */
+    SettlementRun getLatestRun();
+
+    /**
+     * Get the checkpoints of a run.
+     *
+     * @param runId the run's id
+     * @return the checkpoints of the run, in settlement order
+     */
+    List<SettlementCheckpoint> getCheckpointList(int runId);
+}
@@ -27,15 +27,29 @@ package com.deltastar.task7.core.service.api.impl;
 import com.deltastar.task7.core.repository.api.*;
 import com.deltastar.task7.core.repository.domain.*;
 import com.deltastar.task7.core.service.api.CustomerService;
+import com.deltastar.task7.core.service.catalog.FundCatalog;
+import com.deltastar.task7.core.service.chart.BarChartCache;
 import com.deltastar.task7.core.service.exception.CfsException;
+import com.deltastar.task7.core.service.idempotency.DuplicateRequestKeyException;
+import com.deltastar.task7.core.service.idempotency.IdempotencyTable;
+import com.deltastar.task7.core.service.retry.RetryOnConflict;
 import com.deltastart.task7.core.constants.CCConstants;
 import com.deltastart.task7.core.constants.Util;
-import com.google.gson.Gson;
+import org.hibernate.exception.ConstraintViolationException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.PersistenceException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Implementation of the {@link CustomerService}.
@@ -51,8 +65,6 @@ public class CustomerServiceImpl implements CustomerService {
     @Autowired
     private FundRepository fundRepository;
     @Autowired
-    private FundPriceHistoryViewRepository fundPriceHistoryViewRepository;
-    @Autowired
     private PositionViewRepository positionViewRepository;
     @Autowired
     private PositionRepository positionRepository;
@@ -60,6 +72,14 @@ public class CustomerServiceImpl implements CustomerService {
     private TransitionRepository transitionRepository;
     @Autowired
     private TransitionViewRepository transitionViewRepository;
+    @Autowired
+    private OrderRepository orderRepository;
+    @Autowired
+    private IdempotencyTable idempotencyTable;
+    @Autowired
+    private FundCatalog fundCatalog;
+    @Autowired
+    private BarChartCache barChartCache;
 
     /**
      * {@inheritDoc}
@@ -122,9 +142,13 @@ public class CustomerServiceImpl implements CustomerService {
 
     @Override
     @Transactional
-    public void buyFund(Customer customer, String fundIdAsString, String amountAsString) throws CfsException {
-
-        customer = customerRepository.getCustomerByUserName(customer.getUserName());
+    @RetryOnConflict
+    public void buyFund(Customer customer, String fundIdAsString, String amountAsString, String requestKey)
+            throws CfsException {
+        RequestKeyClaim claim = claimRequestKey(customer.getId(), requestKey);
+        if (claim == null) {
+            return;
+        }
 
         int fundId;
         long amount;
@@ -139,19 +163,16 @@ public class CustomerServiceImpl implements CustomerService {
             throw new CfsException(CfsException.CODE_MAX_DEPOSITION);
         }
 
-        if (customer.getCash() < amount) {
-            throw new CfsException(CfsException.CODE_INSUFFICIENT_BALANCE);
-
-        }
-
-        customer.setCash(customer.getCash() - amount);
-        customerRepository.update(customer);
-
         Fund fund = fundRepository.getFundById(fundId);
         if (fund == null) {
             throw new CfsException(CfsException.CODE_INVALID_FUND_NAME);
         }
 
+        //the balance is checked and debited by a single update, without reading the customer first.
+        if (!customerRepository.debitCash(customer.getId(), amount)) {
+            throw new CfsException(CfsException.CODE_INSUFFICIENT_BALANCE);
+        }
+
 
         Position position = new Position(fund.getId(), customer.getId(), CCConstants.POSITION_STATUS_TO_BE_BOUGHT);
         positionRepository.create(position);
@@ -164,13 +185,20 @@ public class CustomerServiceImpl implements CustomerService {
         transition.setType(CCConstants.TRAN_TYPE_BUY_FUND);
         transition.setStatus(CCConstants.TRAN_STATUS_PENDING);
         transitionRepository.create(transition);
+        placeRequestKey(claim, transition);
 
 
     }
 
     @Override
     @Transactional
-    public void sellFund(Customer customer, String fundIdAsString, String sharesAsString) throws CfsException {
+    @RetryOnConflict
+    public void sellFund(Customer customer, String fundIdAsString, String sharesAsString, String requestKey)
+            throws CfsException {
+        RequestKeyClaim claim = claimRequestKey(customer.getId(), requestKey);
+        if (claim == null) {
+            return;
+        }
         customer = customerRepository.getCustomerByUserName(customer.getUserName());
 
         int fundId;
@@ -217,11 +245,17 @@ public class CustomerServiceImpl implements CustomerService {
         transition.setType(CCConstants.TRAN_TYPE_SELL_FUND);
         transition.setStatus(CCConstants.TRAN_STATUS_PENDING);
         transitionRepository.create(transition);
+        placeRequestKey(claim, transition);
     }
 
     @Override
     @Transactional
-    public void requestCheck(Customer customer, String amountAsString) throws CfsException {
+    @RetryOnConflict
+    public void requestCheck(Customer customer, String amountAsString, String requestKey) throws CfsException {
+        RequestKeyClaim claim = claimRequestKey(customer.getId(), requestKey);
+        if (claim == null) {
+            return;
+        }
 
         long amount;
         try {
@@ -233,9 +267,8 @@ public class CustomerServiceImpl implements CustomerService {
         if (!Util.isValidTransactionAmount(amount)) {
             throw new CfsException(CfsException.CODE_MAX_DEPOSITION);
         }
-        if (customer.getCash() < amount) {
+        if (!customerRepository.reserveCashToBeChecked(customer.getId(), amount)) {
             throw new CfsException(CfsException.CODE_INSUFFICIENT_BALANCE);
-
         }
 
         Transition transition = new Transition();
@@ -244,11 +277,177 @@ public class CustomerServiceImpl implements CustomerService {
         transition.setType(CCConstants.TRAN_TYPE_REQUEST_CHECK);
         transition.setStatus(CCConstants.TRAN_STATUS_PENDING);
         transitionRepository.create(transition);
+        placeRequestKey(claim, transition);
 
-        customer.setCashToBeChecked(customer.getCashToBeChecked() + amount);
-        customer.setCash(customer.getCash() - amount);
-        customerRepository.update(customer);
+    }
+
+    @Override
+    @Transactional
+    @RetryOnConflict
+    public int submitBasket(Customer customer, String[] fundIds, String[] buyAmounts, String[] sellShares)
+            throws CfsException {
+        if (fundIds == null || buyAmounts == null || sellShares == null
+                || buyAmounts.length != fundIds.length || sellShares.length != fundIds.length) {
+            throw new CfsException(CfsException.CODE_INVALID_INPUT_DATA);
+        }
+
+        //every order is parsed and checked before anything is written.
+        List<Position> positionList = new ArrayList<>();
+        List<Transition> transitionList = new ArrayList<>();
+        Set<Integer> fundIdSet = new HashSet<>();
+        Map<Integer, Long> sellSharesByFundId = new LinkedHashMap<>();
+        long totalAmount = 0;
+        for (int i = 0; i < fundIds.length; i++) {
+            boolean buy = !isBlank(buyAmounts[i]);
+            boolean sell = !isBlank(sellShares[i]);
+            if (!buy && !sell) {
+                continue;
+            }
+
+            int fundId;
+            long amount = 0;
+            long shares = 0;
+            try {
+                fundId = Integer.valueOf(fundIds[i]);
+                if (buy) {
+                    amount = Util.formatToLong(buyAmounts[i].trim());
+                }
+                if (sell) {
+                    shares = Util.formatToLong(sellShares[i].trim());
+                }
+            } catch (NumberFormatException e) {
+                throw new CfsException(CfsException.CODE_INVALID_INPUT_DATA);
+            }
+            if ((buy && !Util.isValidTransactionAmount(amount)) || (sell && !Util.isValidTransactionAmount(shares))) {
+                throw new CfsException(CfsException.CODE_MAX_DEPOSITION);
+            }
+
+            fundIdSet.add(fundId);
+            if (buy) {
+                totalAmount += amount;
+                addPendingOrder(positionList, transitionList, customer.getId(), fundId,
+                        CCConstants.TRAN_TYPE_BUY_FUND, amount, 0);
+            }
+            if (sell) {
+                Long fundShares = sellSharesByFundId.get(fundId);
+                sellSharesByFundId.put(fundId, fundShares == null ? shares : fundShares + shares);
+                addPendingOrder(positionList, transitionList, customer.getId(), fundId,
+                        CCConstants.TRAN_TYPE_SELL_FUND, 0, shares);
+            }
+        }
+        if (positionList.isEmpty() || positionList.size() > CCConstants.MAX_BASKET_SIZE) {
+            throw new CfsException(CfsException.CODE_INVALID_BASKET);
+        }
+        if (fundRepository.getFundListByIdList(fundIdSet).size() != fundIdSet.size()) {
+            throw new CfsException(CfsException.CODE_INVALID_FUND_ID);
+        }
+
+        Map<Integer, Position> possessedPositionByFundId = new HashMap<>();
+        if (!sellSharesByFundId.isEmpty()) {
+            for (Position position : positionRepository.getPositionListByCustomerIdAndStatus(customer.getId(),
+                    CCConstants.POSITION_STATUS_IN_POSSESSION)) {
+                possessedPositionByFundId.put(position.getFundId(), position);
+            }
+        }
+        for (Map.Entry<Integer, Long> entry : sellSharesByFundId.entrySet()) {
+            Position position = possessedPositionByFundId.get(entry.getKey());
+            if (position == null || position.getShares() < entry.getValue()) {
+                throw new CfsException(CfsException.CODE_INSUFFICIENT_SHARES);
+            }
+        }
+
+        if (totalAmount > 0 && !customerRepository.debitCash(customer.getId(), totalAmount)) {
+            throw new CfsException(CfsException.CODE_INSUFFICIENT_BALANCE);
+        }
+        //the possessed positions are managed, they are written with a version check at commit.
+        for (Map.Entry<Integer, Long> entry : sellSharesByFundId.entrySet()) {
+            Position position = possessedPositionByFundId.get(entry.getKey());
+            position.setShares(position.getShares() - entry.getValue());
+        }
+        orderRepository.createPendingOrders(positionList, transitionList);
+        return positionList.size();
+    }
+
+    /**
+     * Claim the request key of an order in the idempotency table, then in the database if the table
+     * does not know it. The key is kept only if the order is placed and its transaction commits.
+     *
+     * @return the claim, or null if an order was already placed with this key
+     */
+    private RequestKeyClaim claimRequestKey(int customerId, String requestKey) throws CfsException {
+        if (isBlank(requestKey)) {
+            return new RequestKeyClaim(null, null);
+        }
+        requestKey = requestKey.trim();
+        if (requestKey.length() > CCConstants.MAX_REQUEST_KEY_LENGTH) {
+            throw new CfsException(CfsException.CODE_INVALID_INPUT_DATA);
+        }
+
+        IdempotencyTable.Claim claim;
+        try {
+            claim = idempotencyTable.claim(customerId + ":" + requestKey);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the request " + requestKey, e);
+        }
+        if (claim == null) {
+            return null;
+        }
+        try {
+            if (transitionRepository.getRequestKey(customerId, requestKey) != null) {
+                claim.complete();
+                return null;
+            }
+            RequestKeyClaim requestKeyClaim = new RequestKeyClaim(requestKey, claim);
+            TransactionSynchronizationManager.registerSynchronization(requestKeyClaim);
+            return requestKeyClaim;
+        } catch (RuntimeException e) {
+            //the claim is not bound to the transaction yet, nothing else would give it up.
+            claim.release();
+            throw e;
+        }
+    }
 
+    /**
+     * Record the request key of a placed order. A concurrent order with the same key on another node
+     * fails the unique key of the customer's request keys, the order rolls back and is retried as a
+     * replay of the other one.
+     */
+    private void placeRequestKey(RequestKeyClaim claim, Transition transition) {
+        if (claim.getRequestKey() != null) {
+            try {
+                //the id of the key is generated by the database, so the key is inserted at once.
+                transitionRepository.createRequestKey(new TransitionRequestKey(transition.getCustomerId(),
+                        claim.getRequestKey(), transition.getId()));
+            } catch (PersistenceException e) {
+                if (e.getCause() instanceof ConstraintViolationException) {
+                    throw new DuplicateRequestKeyException(claim.getRequestKey(), e);
+                }
+                throw e;
+            }
+        }
+        claim.setPlaced();
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.trim().isEmpty();
+    }
+
+    private static void addPendingOrder(List<Position> positionList, List<Transition> transitionList, int customerId,
+                                        int fundId, byte type, long amount, long shares) {
+        Position position = new Position(fundId, customerId, type == CCConstants.TRAN_TYPE_BUY_FUND
+                ? CCConstants.POSITION_STATUS_TO_BE_BOUGHT : CCConstants.POSITION_STATUS_TO_BE_SOLD);
+        position.setShares(shares);
+        positionList.add(position);
+
+        Transition transition = new Transition();
+        transition.setCustomerId(customerId);
+        transition.setFundId(fundId);
+        transition.setShares(shares);
+        transition.setAmount(amount);
+        transition.setType(type);
+        transition.setStatus(CCConstants.TRAN_STATUS_PENDING);
+        transitionList.add(transition);
     }
 
     @Override
@@ -262,6 +461,15 @@ public class CustomerServiceImpl implements CustomerService {
         return transitionViewRepository.getTransitionListByCustomerId(customerId);
     }
 
+    @Override
+    public KeysetPage<TransitionView> getTransitionViewPageByCustomerId(int customerId, String cursor,
+                                                                        String pageSizeAsString) throws CfsException {
+        int pageSize = Util.formatPageSize(pageSizeAsString);
+        TransitionViewKey before = Util.formatToTransitionViewKey(cursor);
+        //one more transition tells whether there is a next page
+        return Util.toTransitionViewPage(transitionViewRepository.getTransitionPageByCustomerId(customerId, before, pageSize + 1), pageSize);
+    }
+
     @Override
     public List<PositionView> getPositionViewListByCustomerIdAndStatus(String customerIdAsString, String positionStatusAsString) throws CfsException {
         int customerId = Util.formatToInteger(customerIdAsString);
@@ -276,13 +484,13 @@ public class CustomerServiceImpl implements CustomerService {
 
     @Override
     public List<Fund> getFundList() {
-        return fundRepository.findAllFund();
+        return fundCatalog.getFundList();
     }
 
     @Override
     public Fund getFundById(String fundIdAsString) throws CfsException {
         int fundId = Util.formatToInteger(fundIdAsString);
-        Fund fund = fundRepository.getFundById(fundId);
+        Fund fund = fundCatalog.getFundById(fundId);
         if (fund == null) {
             throw new CfsException(CfsException.CODE_INVALID_FUND_ID);
         }
@@ -298,6 +506,7 @@ public class CustomerServiceImpl implements CustomerService {
     }
 
     @Override
+    @RetryOnConflict
     public void updatePassword(int customerId, String newPassword) {
 
         Customer customer = customerRepository.findCustomerById(customerId);
@@ -314,76 +523,76 @@ public class CustomerServiceImpl implements CustomerService {
 
 
     @Override
-    public String generateBarChartData(String fundIdAsString) throws CfsException {
-        int fundId = Util.formatToInteger(fundIdAsString);
-        List<FundPriceHistoryView> fundPriceHistoryViewList = fundPriceHistoryViewRepository.getFundPriceHistoryViewListById(fundId);
+    public BarChartJson getBarChartJson() {
+        return barChartCache.getFundListChart();
+    }
 
-        if (Util.isEmptyList(fundPriceHistoryViewList)) {
-            return null;
+    @Override
+    public BarChartJson getBarChartJson(String fundIdAsString) throws CfsException {
+        return barChartCache.getFundPriceChart(Util.formatToInteger(fundIdAsString));
+    }
+
+    @Override
+    public BarChartJson getBarChartJson(String fundIdAsString, String pointsAsString, String fromDate, String toDate)
+            throws CfsException {
+        int fundId = Util.formatToInteger(fundIdAsString);
+        int points = 0;
+        if (!Util.isEmpty(pointsAsString)) {
+            points = Util.formatToInteger(pointsAsString.trim());
+            if (points <= 0) {
+                throw new CfsException(CfsException.CODE_INVALID_INPUT_DATA);
+            }
         }
-        String[] labelArray = new String[fundPriceHistoryViewList.size()];
-        for (int i = 0; i < fundPriceHistoryViewList.size(); i++) {
-            labelArray[i] = Util.formatTime(fundPriceHistoryViewList.get(i).getPriceDate());
+        long from = Util.formatWindowStart(fromDate);
+        long to = Util.formatWindowEnd(toDate);
+        if (from > to) {
+            throw new CfsException(CfsException.CODE_INVALID_DATE);
         }
+        return barChartCache.getFundPriceChart(fundId, points, from, to);
+    }
 
-
-        DataSet[] dataSetArray = new DataSet[1];
-        dataSetArray[0] = constructDataSetForFundPrice(fundPriceHistoryViewList);
-
-
-        BarChartData barChartData = new BarChartData();
-        barChartData.setDatasets(dataSetArray);
-        barChartData.setLabels(labelArray);
-
-        String result = new Gson().toJson(barChartData);
-        System.out.println("generateBarChartData:" + result);
-        return result;
+    @Override
+    public String generateBarChartData(String fundIdAsString) throws CfsException {
+        BarChartJson barChartJson = getBarChartJson(fundIdAsString);
+        return barChartJson == null ? null : barChartJson.getJson();
     }
 
     @Override
     public String generateBarChartData() {
+        BarChartJson barChartJson = getBarChartJson();
+        return barChartJson == null ? null : barChartJson.getJson();
+    }
 
-        List<Fund> fundList = fundRepository.findAllFund();
-
-        if (Util.isEmptyList(fundList)) {
-            return null;
-        }
-        String[] labelArray = new String[fundList.size()];
-        for (int i = 0; i < fundList.size(); i++) {
-            labelArray[i] = fundList.get(i).getFundName();
-        }
-
-
-        DataSet[] dataSetArray = new DataSet[1];
-        dataSetArray[0] = constructDataSet(fundList);
+    /**
+     * The request key of an order, completed in the idempotency table once the order is committed
+     * and released otherwise.
+     */
+    private static class RequestKeyClaim extends TransactionSynchronizationAdapter {
 
+        private final String requestKey;
+        private final IdempotencyTable.Claim claim;
+        private boolean placed;
 
-        BarChartData barChartData = new BarChartData();
-        barChartData.setDatasets(dataSetArray);
-        barChartData.setLabels(labelArray);
+        private RequestKeyClaim(String requestKey, IdempotencyTable.Claim claim) {
+            this.requestKey = requestKey;
+            this.claim = claim;
+        }
 
-        String result = new Gson().toJson(barChartData);
-        System.out.println("generateBarChartData:" + result);
-        return result;
-    }
+        private String getRequestKey() {
+            return requestKey;
+        }
 
-    private DataSet constructDataSet(List<Fund> fundList) {
-        DataSet dataSet = new DataSet();
-        double[] data = new double[fundList.size()];
-        for (int i = 0; i < fundList.size(); i++) {
-            data[i] = fundList.get(i).getLastPrice() / 1000.0;
+        private void setPlaced() {
+            placed = true;
         }
-        dataSet.setData(data);
-        return dataSet;
-    }
 
-    private DataSet constructDataSetForFundPrice(List<FundPriceHistoryView>  fundList) {
-        DataSet dataSet = new DataSet();
-        double[] data = new double[fundList.size()];
-        for (int i = 0; i < fundList.size(); i++) {
-            data[i] = fundList.get(i).getPrice() / 1000.0;
+        @Override
+        public void afterCompletion(int status) {
+            if (placed && status == STATUS_COMMITTED) {
+                claim.complete();
+            } else {
+                claim.release();
+            }
         }
-        dataSet.setData(data);
-        return dataSet;
     }
 }
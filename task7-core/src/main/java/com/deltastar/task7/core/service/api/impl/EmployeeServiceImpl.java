@@ -27,17 +27,29 @@ package com.deltastar.task7.core.service.api.impl;
 import com.deltastar.task7.core.repository.api.*;
 import com.deltastar.task7.core.repository.domain.*;
 import com.deltastar.task7.core.service.api.EmployeeService;
+import com.deltastar.task7.core.service.api.SettlementService;
+import com.deltastar.task7.core.service.catalog.FundCatalog;
 import com.deltastar.task7.core.service.exception.CfsException;
+import com.deltastar.task7.core.service.export.DataExporter;
+import com.deltastar.task7.core.service.retry.RetryOnConflict;
+import com.deltastar.task7.core.timeseries.PriceHistoryStore;
+import com.deltastar.task7.core.timeseries.PriceSeries;
 import com.deltastart.task7.core.constants.CCConstants;
 import com.deltastart.task7.core.constants.Util;
+import com.google.gson.Gson;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.Writer;
 import java.sql.Timestamp;
 import java.text.MessageFormat;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.ResourceBundle;
 
 /**
@@ -56,15 +68,17 @@ public class EmployeeServiceImpl implements EmployeeService {
     @Autowired
     private FundRepository fundRepository;
     @Autowired
-    private PositionRepository positionRepository;
-    @Autowired
     private TransitionRepository transitionRepository;
     @Autowired
     private TransitionViewRepository transitionViewRepository;
     @Autowired
-    private FundPriceHistoryRepository fundPriceHistoryRepository;
+    private SettlementService settlementService;
+    @Autowired
+    private FundCatalog fundCatalog;
+    @Autowired
+    private PriceHistoryStore priceHistoryStore;
     @Autowired
-    private FundPriceHistoryViewRepository fundPriceHistoryViewRepository;
+    private DataExporter dataExporter;
 
     /**
      * {@inheritDoc}
@@ -111,84 +125,54 @@ public class EmployeeServiceImpl implements EmployeeService {
         return employeeRepository.getEmployeeList();
     }
 
-
-    private void updateLastPriceForFund(Integer fundId, long price) {
-        Fund fund = fundRepository.getFundById(fundId);
-        fund.setLastPrice(price);
-        fundRepository.update(fund);
+    @Override
+    public KeysetPage<EmployeeSummary> getEmployeeSummaryPage(String keyword, String sort, String order, String cursor,
+                                                              String pageSizeAsString) throws CfsException {
+        int pageSize = Util.formatPageSize(pageSizeAsString);
+        //one more employee tells whether there is a next page
+        String sortField = formatSortField(sort);
+        List<EmployeeSummary> employeeSummaryList = employeeRepository.getEmployeeSummaryPage(formatKeyword(keyword),
+                sortField, formatDescending(order), Util.formatToSummaryKey(cursor), pageSize + 1);
+        if (employeeSummaryList.size() <= pageSize) {
+            return new KeysetPage<>(employeeSummaryList, null);
+        }
+        List<EmployeeSummary> items = employeeSummaryList.subList(0, pageSize);
+        return new KeysetPage<>(items, new SummaryKey(sortField, items.get(pageSize - 1)).toString());
     }
 
-    private void doRequestCheck(Transition transition) {
-
-        transition.setType(CCConstants.TRAN_TYPE_REQUEST_CHECK);
-        transition.setStatus(CCConstants.TRAN_STATUS_DONE);
-//        transition.setExecuteDate(new Timestamp(System.currentTimeMillis()));
-        transitionRepository.update(transition);
-
-
-        Customer customer = customerRepository.findCustomerById(transition.getCustomerId());
-        customer.setCashToBeChecked(customer.getCashToBeChecked() - transition.getAmount());
-        customerRepository.update(customer);
+    private static String formatKeyword(String keyword) {
+        return Util.isEmpty(keyword) ? null : keyword.trim();
     }
 
-    private void doBuyFund(Transition transition, long price) {
-        long shares = Util.getShares(transition.getAmount(), price);
-        //FIXME overflow decimal three digit.
-        Position possessedPosition = positionRepository.getPossessedPositionByCustomerIdAndFundId(transition.getCustomerId(), transition.getFundId());
-        if (possessedPosition == null) {
-            possessedPosition = positionRepository.getPositionById(transition.getPositionId());
-            possessedPosition.setStatus(CCConstants.POSITION_STATUS_IN_POSSESSION);
-        } else {
-            Position pendingPosition = positionRepository.getPositionById(transition.getPositionId());
-            positionRepository.remove(pendingPosition);
+    private static String formatSortField(String sort) throws CfsException {
+        if (Util.isEmpty(sort)) {
+            return CCConstants.SORT_BY_ID;
+        }
+        switch (sort.trim()) {
+            case CCConstants.SORT_BY_ID:
+            case CCConstants.SORT_BY_USER_NAME:
+            case CCConstants.SORT_BY_FIRST_NAME:
+            case CCConstants.SORT_BY_LAST_NAME:
+                return sort.trim();
+            default:
+                throw new CfsException(CfsException.CODE_INVALID_INPUT_DATA);
         }
-
-        possessedPosition.setShares(possessedPosition.getShares() + shares);
-        positionRepository.update(possessedPosition);
-
-        transition.setStatus(CCConstants.TRAN_STATUS_DONE);
-//        transition.setExecuteDate(new Timestamp(System.currentTimeMillis()));
-        transitionRepository.update(transition);
-
     }
 
-    private void doSellFund(Transition transition, long price) {
-
-        long cash = Util.formatCash(price, transition.getShares());
-
-
-        Customer customer = customerRepository.findCustomerById(transition.getCustomerId());
-        customer.setCash(customer.getCash() + cash);
-        customerRepository.update(customer);
-
-
-        Position pendingPosition = positionRepository.getPositionById(transition.getPositionId());
-        pendingPosition.setStatus(CCConstants.POSITION_STATUS_SOLD);
-        positionRepository.update(pendingPosition);
-
-        transition.setAmount(cash);
-        transition.setStatus(CCConstants.TRAN_STATUS_DONE);
-//        transition.setExecuteDate(new Timestamp(System.currentTimeMillis()));
-        transitionRepository.update(transition);
-
+    private static boolean formatDescending(String order) throws CfsException {
+        if (Util.isEmpty(order) || order.trim().equals("asc")) {
+            return false;
+        }
+        if (order.trim().equals("desc")) {
+            return true;
+        }
+        throw new CfsException(CfsException.CODE_INVALID_INPUT_DATA);
     }
 
-    private void doDeposit(Transition transition) {
-
-        Customer customer = customerRepository.findCustomerById(transition.getCustomerId());
-        customer.setCash(customer.getCash() + transition.getAmount());
-        customer.setCashToBeDeposited(customer.getCashToBeDeposited() - transition.getAmount());
-        customerRepository.update(customer);
-
-
-        transition.setStatus(CCConstants.TRAN_STATUS_DONE);
-//        transition.setExecuteDate(new Timestamp(System.currentTimeMillis()));
-        transitionRepository.update(transition);
-
-    }
 
     @Override
     @Transactional
+    @RetryOnConflict
     public void depositCheck(String customerIdAsString, String amountAsString) throws CfsException {
 
         int customerId = Util.formatToInteger(customerIdAsString);
@@ -278,6 +262,22 @@ public class EmployeeServiceImpl implements EmployeeService {
     }
 
     @Override
+    public KeysetPage<CustomerSummary> getCustomerSummaryPage(String keyword, String sort, String order, String cursor,
+                                                              String pageSizeAsString) throws CfsException {
+        int pageSize = Util.formatPageSize(pageSizeAsString);
+        //one more customer tells whether there is a next page
+        String sortField = formatSortField(sort);
+        List<CustomerSummary> customerSummaryList = customerRepository.getCustomerSummaryPage(formatKeyword(keyword),
+                sortField, formatDescending(order), Util.formatToSummaryKey(cursor), pageSize + 1);
+        if (customerSummaryList.size() <= pageSize) {
+            return new KeysetPage<>(customerSummaryList, null);
+        }
+        List<CustomerSummary> items = customerSummaryList.subList(0, pageSize);
+        return new KeysetPage<>(items, new SummaryKey(sortField, items.get(pageSize - 1)).toString());
+    }
+
+    @Override
+    @RetryOnConflict
     public void updateCustomerPassword(String customerIdAsString, String password) throws CfsException {
         int customerId = Util.formatToInteger(customerIdAsString);
         Customer customer = customerRepository.findCustomerById(customerId);
@@ -288,6 +288,7 @@ public class EmployeeServiceImpl implements EmployeeService {
     }
 
     @Override
+    @RetryOnConflict
     public void updateCustomerProfile(String customerIdAsString, String userName, String firstName, String lastName, String addressLine1, String addressLine2, String city, String state, String zipcode) throws CfsException {
 
         int customerId = Util.formatToInteger(customerIdAsString);
@@ -329,15 +330,32 @@ public class EmployeeServiceImpl implements EmployeeService {
         return transitionViewRepository.getTransitionListByCustomerId(customerId);
     }
 
+    @Override
+    public KeysetPage<TransitionView> getTransitionViewPage(String cursor, String pageSizeAsString) throws CfsException {
+        int pageSize = Util.formatPageSize(pageSizeAsString);
+        TransitionViewKey before = Util.formatToTransitionViewKey(cursor);
+        //one more transition tells whether there is a next page
+        return Util.toTransitionViewPage(transitionViewRepository.getTransitionPage(before, pageSize + 1), pageSize);
+    }
+
+    @Override
+    public KeysetPage<TransitionView> getTransitionViewPageByCustomerId(String customerIdAsString, String cursor,
+                                                                        String pageSizeAsString) throws CfsException {
+        int customerId = Util.formatToInteger(customerIdAsString);
+        int pageSize = Util.formatPageSize(pageSizeAsString);
+        TransitionViewKey before = Util.formatToTransitionViewKey(cursor);
+        return Util.toTransitionViewPage(transitionViewRepository.getTransitionPageByCustomerId(customerId, before, pageSize + 1), pageSize);
+    }
+
     @Override
     public List<Fund> getFundList() {
-        return fundRepository.findAllFund();
+        return fundCatalog.getFundList();
     }
 
     public Fund getFundById(String fundIdAsString) throws CfsException {
 
         int fundId = Util.formatToInteger(fundIdAsString);
-        Fund result = fundRepository.getFundById(fundId);
+        Fund result = fundCatalog.getFundById(fundId);
 
         if (result == null) {
             throw new CfsException(CfsException.CODE_INVALID_FUND_ID);
@@ -349,7 +367,58 @@ public class EmployeeServiceImpl implements EmployeeService {
     @Override
     public List<FundPriceHistoryView> getFundPriceHistoryViewList(String fundIdAsString) throws CfsException {
         int fundId = Util.formatToInteger(fundIdAsString);
-        return fundPriceHistoryViewRepository.getFundPriceHistoryViewListById(fundId);
+        PriceSeries series = priceHistoryStore.getSeries(fundId);
+        Fund fund = fundCatalog.getFundById(fundId);
+
+        //the newest price comes first
+        List<FundPriceHistoryView> fundPriceHistoryViewList = new ArrayList<>(series.size());
+        for (int i = series.size() - 1; i >= 0; i--) {
+            fundPriceHistoryViewList.add(toFundPriceHistoryView(fundId, fund, series, i));
+        }
+        return fundPriceHistoryViewList;
+    }
+
+    @Override
+    public KeysetPage<FundPriceHistoryView> getFundPriceHistoryViewPage(String fundIdAsString, String fromDate,
+                                                                        String toDate, String cursor,
+                                                                        String limitAsString) throws CfsException {
+        int fundId = Util.formatToInteger(fundIdAsString);
+        int limit = Util.formatPageSize(limitAsString);
+        long from = Util.formatWindowStart(fromDate);
+        long to = Util.formatWindowEnd(toDate);
+        if (from > to) {
+            throw new CfsException(CfsException.CODE_INVALID_DATE);
+        }
+        PriceSeries series = priceHistoryStore.getSeries(fundId);
+        Fund fund = fundCatalog.getFundById(fundId);
+
+        //the page ends before the cursor, the date of the last price of the previous page. A fund has one
+        //price a date, which the unique key of FundPriceHistory keeps, so the date alone is the key of the page.
+        int first = series.indexOnOrAfter(from);
+        int end = series.indexAfter(to);
+        if (!Util.isEmpty(cursor)) {
+            try {
+                end = Math.min(end, series.indexOnOrAfter(Long.parseLong(cursor.trim())));
+            } catch (NumberFormatException e) {
+                throw new CfsException(CfsException.CODE_INVALID_INPUT_DATA);
+            }
+        }
+        int start = Math.max(first, end - limit);
+
+        List<FundPriceHistoryView> fundPriceHistoryViewList = new ArrayList<>(Math.max(0, end - start));
+        for (int i = end - 1; i >= start; i--) {
+            fundPriceHistoryViewList.add(toFundPriceHistoryView(fundId, fund, series, i));
+        }
+        return new KeysetPage<>(fundPriceHistoryViewList, start > first ? String.valueOf(series.getDate(start)) : null);
+    }
+
+    private static FundPriceHistoryView toFundPriceHistoryView(int fundId, Fund fund, PriceSeries series, int index) {
+        FundPriceHistoryView fundPriceHistoryView = new FundPriceHistoryView();
+        fundPriceHistoryView.setFundId(fundId);
+        fundPriceHistoryView.setFundName(fund == null ? null : fund.getFundName());
+        fundPriceHistoryView.setPrice(series.getPrice(index));
+        fundPriceHistoryView.setPriceDate(new Timestamp(series.getDate(index)));
+        return fundPriceHistoryView;
     }
 
     @Override
@@ -368,10 +437,37 @@ public class EmployeeServiceImpl implements EmployeeService {
         return result;
     }
 
-    @Transactional
+    //the settlement manages its own transactions.
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     @Override
-    public void executeTransitionDay(String[] priceArray, String[] fundIdArray, String executionDay) throws CfsException {
+    public int executeTransitionDay(String[] priceArray, String[] fundIdArray, String executionDay) throws CfsException {
+
+        Map<Integer, Long> priceByFundId = getPriceByFundId(priceArray, fundIdArray);
+
+        if (priceByFundId.isEmpty()) {
+            return 0;
+        }
+        return settlementService.submitTransitionDay(priceByFundId, Util.formatTimeStamp(executionDay));
+    }
+
+    //the preview only reads, in its own read-only transaction.
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @Override
+    public SettlementPreview previewTransitionDay(String[] priceArray, String[] fundIdArray, String executionDay,
+                                                  String page) throws CfsException {
+
+        Map<Integer, Long> priceByFundId = getPriceByFundId(priceArray, fundIdArray);
+
+        if (priceByFundId.isEmpty()) {
+            return null;
+        }
+        return settlementService.previewTransitionDay(priceByFundId, Util.formatTimeStamp(executionDay),
+                Util.isEmpty(page) ? 0 : Util.formatToInteger(page));
+    }
+
+    private Map<Integer, Long> getPriceByFundId(String[] priceArray, String[] fundIdArray) throws CfsException {
 
+        Map<Integer, Long> priceByFundId = new LinkedHashMap<>();
 
         for (int i = 0; i < priceArray.length; i++) {
 
@@ -384,60 +480,57 @@ public class EmployeeServiceImpl implements EmployeeService {
                 }
 
                 int fundId = Util.formatToInteger(fundIdArray[i]);
-                Timestamp timestamp = Util.formatTimeStamp(executionDay);
-
-                Fund fund = fundRepository.getFundById(fundId);
-                if (fund.getLastTransitionDay() != null && !fund.getLastTransitionDay().before(timestamp)) {
-                    throw new CfsException(CfsException.CODE_INVALID_EXECUTION_DATE,
-                            MessageFormat.format(ResourceBundle.getBundle("cfs").getString("invalid.execution.date"),
-                                    Util.formatTime(fund.getLastTransitionDay())));
+                //a fund gets one price per transition day.
+                if (priceByFundId.put(fundId, price) != null) {
+                    throw new CfsException(CfsException.CODE_INVALID_FUND_ID, MessageFormat.format(
+                            ResourceBundle.getBundle("cfs").getString("duplicate.fund.price"), String.valueOf(fundId)));
                 }
 
-                fund.setLastTransitionDay(timestamp);
-                fundRepository.update(fund);
-
-                FundPriceHistory fundPriceHistory = new FundPriceHistory();
-                fundPriceHistory.setFundId(fundId);
-                fundPriceHistory.setPrice(price);
-                fundPriceHistory.setPriceDate(timestamp);
-                fundPriceHistoryRepository.create(fundPriceHistory);
-                updateLastPriceForFund(fundId, price);
-
-
-                List<Transition> pendingTransitionList = transitionRepository.getPendingTransitionList();
-
-                for (Transition transition : pendingTransitionList) {
-                    transition.setExecuteDate(timestamp);
-                    switch (transition.getType()) {
-                        case CCConstants.TRAN_TYPE_DEPOSIT_CHECK:
-                            doDeposit(transition);
-                            break;
-                        case CCConstants.TRAN_TYPE_SELL_FUND:
-                            if (fundId == transition.getFundId()) {
-                                doSellFund(transition, price);
-                            }
-                            break;
-                        case CCConstants.TRAN_TYPE_BUY_FUND:
-                            if (fundId == transition.getFundId()) {
-                                doBuyFund(transition, price);
-                            }
-                            break;
-                        case CCConstants.TRAN_TYPE_REQUEST_CHECK:
-                            doRequestCheck(transition);
-                            break;
-                        default:
-                            break;
-                    }
-
-                }
+            }
+        }
+        return priceByFundId;
+    }
 
+    //the settlement manages its own transactions.
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @Override
+    public int resumeTransitionDay(String runId) throws CfsException {
+        return settlementService.submitResumeTransitionDay(Util.formatToInteger(runId));
+    }
 
-            } else {
-                System.out.println("fundList :" + fundIdArray[i]);
-            }
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @Override
+    public String getTransitionDayJobStatusJson(String jobId) throws CfsException {
+        SettlementJobStatus jobStatus = settlementService.getJobStatus(Util.formatToInteger(jobId));
+        if (jobStatus == null) {
+            throw new CfsException(CfsException.CODE_INVALID_SETTLEMENT_RUN);
         }
+        return new Gson().toJson(jobStatus);
+    }
 
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @Override
+    public String getExportFileName(String data, String format) throws CfsException {
+        return dataExporter.getFileName(data, format);
+    }
+
+    //the export streams from its own connection, it must not hold a transaction open while it writes.
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @Override
+    public long export(String data, String format, Writer writer) throws CfsException, IOException {
+        return dataExporter.export(data, format, writer);
+    }
 
+    @Transactional(readOnly = true)
+    @Override
+    public SettlementRun getLatestSettlementRun() {
+        return settlementService.getLatestRun();
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public List<SettlementCheckpoint> getSettlementCheckpointList(int runId) {
+        return settlementService.getCheckpointList(runId);
     }
 
     @Override
@@ -448,6 +541,7 @@ public class EmployeeServiceImpl implements EmployeeService {
         Fund fund = new Fund(fundName.trim(), symbol.trim(), comment.trim());
         try {
             fundRepository.create(fund);
+            fundCatalog.invalidateAfterCommit();
         } catch (Exception e) {
             e.printStackTrace();
             throw new CfsException(e.getMessage());
@@ -27,6 +27,7 @@ package com.deltastar.task7.core.service.api.impl;
 import com.deltastar.task7.core.repository.domain.Fund;
 import com.deltastar.task7.core.repository.api.FundRepository;
 import com.deltastar.task7.core.service.api.FundService;
+import com.deltastar.task7.core.service.catalog.FundCatalog;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -44,12 +45,15 @@ public class FundServiceImpl implements FundService {
 
     @Autowired
     private FundRepository fundRepository;
+    @Autowired
+    private FundCatalog fundCatalog;
 
     /**
      * {@inheritDoc}
      */
     @Transactional
     public Fund create(final Fund fund) {
+        fundCatalog.invalidateAfterCommit();
         return fundRepository.create(fund);
     }
 
@@ -58,6 +62,7 @@ public class FundServiceImpl implements FundService {
      */
     @Transactional
     public Fund update(Fund fund) {
+        fundCatalog.invalidateAfterCommit();
         return fundRepository.update(fund);
     }
 
@@ -67,6 +72,7 @@ public class FundServiceImpl implements FundService {
     @Transactional
     public void remove(final Fund fund) {
         fundRepository.remove(fund);
+        fundCatalog.invalidateAfterCommit();
     }
 
     /**
@@ -78,7 +84,7 @@ public class FundServiceImpl implements FundService {
     }
 
     public List<Fund> getFundList() {
-        return fundRepository.findAllFund();
+        return fundCatalog.getFundList();
     }
 
 }
@@ -0,0 +1,631 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2015, Delta Star Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.deltastar.task7.core.service.api.impl;
+
+import com.deltastar.task7.core.repository.api.*;
+import com.deltastar.task7.core.repository.domain.*;
+import com.deltastar.task7.core.service.api.FundSettlementService;
+import com.deltastar.task7.core.service.catalog.FundCatalog;
+import com.deltastar.task7.core.service.exception.CfsException;
+import com.deltastar.task7.core.service.retry.RetryOnConflict;
+import com.deltastar.task7.core.timeseries.PriceHistoryStore;
+import com.deltastart.task7.core.constants.CCConstants;
+import com.deltastart.task7.core.constants.Money;
+import com.deltastart.task7.core.constants.Util;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.ResourceBundle;
+import java.util.Set;
+
+/**
+ * Implementation of the {@link FundSettlementService}.
+ * <p>
+ * Sells and deposits only record their cash in a {@link CashLedger}; the customers are written once,
+ * sorted by id, at the end of the fund. Buys only record their shares in an {@link OrderNetting}; the
+ * shares of a customer go to its position in one write, and the settled transitions and positions
+ * are updated in bulk. The settled rows go through a {@link SettlementWriter}:
+ * the entity write mode merges every row, the batch write mode sends them as JDBC batches. The list
+ * read mode loads the pending orders at once, the stream read mode reads them through a cursor and
+ * clears the persistence context after every chunk.
+ * <p>
+ * Delta Star Team
+ */
+@Service
+@Transactional
+public class FundSettlementServiceImpl implements FundSettlementService {
+
+    public static final String WRITE_MODE_ENTITY = "entity";
+    public static final String WRITE_MODE_BATCH = "batch";
+    public static final String READ_MODE_LIST = "list";
+    public static final String READ_MODE_STREAM = "stream";
+
+    private static final int MESSAGE_MAX_LENGTH = 255;
+
+    @Autowired
+    private FundRepository fundRepository;
+    @Autowired
+    private PositionRepository positionRepository;
+    @Autowired
+    private TransitionRepository transitionRepository;
+    @Autowired
+    private FundPriceHistoryRepository fundPriceHistoryRepository;
+    @Autowired
+    private SettlementRepository settlementRepository;
+    @Autowired
+    private SettlementRunRepository settlementRunRepository;
+    @Autowired
+    private SettlementCheckpointRepository settlementCheckpointRepository;
+    @Autowired
+    private FundCatalog fundCatalog;
+    @Autowired
+    private PriceHistoryStore priceHistoryStore;
+
+    private String writeMode = WRITE_MODE_ENTITY;
+    private int batchSize = 500;
+    private String readMode = READ_MODE_LIST;
+    private int chunkSize = 1000;
+
+    public void setWriteMode(String writeMode) {
+        this.writeMode = writeMode;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public void setReadMode(String readMode) {
+        this.readMode = readMode;
+    }
+
+    public void setChunkSize(int chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Transactional(readOnly = true)
+    public void validateExecutionDay(Map<Integer, Long> priceByFundId, Timestamp executionDay) throws CfsException {
+        for (Integer fundId : priceByFundId.keySet()) {
+            Fund fund = fundRepository.getFundById(fundId);
+            if (fund == null) {
+                throw new CfsException(CfsException.CODE_INVALID_FUND_ID);
+            }
+            if (fund.getLastTransitionDay() != null && !fund.getLastTransitionDay().before(executionDay)) {
+                throw new CfsException(CfsException.CODE_INVALID_EXECUTION_DATE,
+                        MessageFormat.format(ResourceBundle.getBundle("cfs").getString("invalid.execution.date"),
+                                Util.formatTime(fund.getLastTransitionDay())));
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Transactional(readOnly = true)
+    public SettlementPreview preview(Map<Integer, Long> priceByFundId, Timestamp executionDay, int page, int pageSize) {
+        Map<Integer, SettlementPreview.FundPreview> fundPreviewByFundId = new LinkedHashMap<>();
+        //the customers holding a position in each fund, so that a buy can tell whether it creates one.
+        Map<Integer, Set<Integer>> holderIdSetByFundId = new HashMap<>();
+        for (Map.Entry<Integer, Long> entry : priceByFundId.entrySet()) {
+            fundPreviewByFundId.put(entry.getKey(), new SettlementPreview.FundPreview(entry.getKey(), entry.getValue()));
+            holderIdSetByFundId.put(entry.getKey(), new HashSet<>(positionRepository.getCustomerIdListByFundIdAndStatus(
+                    entry.getKey(), CCConstants.POSITION_STATUS_IN_POSSESSION)));
+        }
+
+        SettlementPreview preview = new SettlementPreview();
+        Map<Integer, SettlementPreview.CustomerPreview> customerPreviewByCustomerId = new HashMap<>();
+        int readCount = 0;
+        try (TransitionCursor cursor = transitionRepository.scrollPendingTransitionListByType(chunkSize,
+                CCConstants.TRAN_TYPE_SELL_FUND, CCConstants.TRAN_TYPE_BUY_FUND,
+                CCConstants.TRAN_TYPE_DEPOSIT_CHECK, CCConstants.TRAN_TYPE_REQUEST_CHECK)) {
+            while (cursor.hasNext()) {
+                previewTransition(cursor.next(), preview, fundPreviewByFundId, holderIdSetByFundId,
+                        customerPreviewByCustomerId);
+                if (++readCount % chunkSize == 0) {
+                    settlementRepository.flushAndClear();
+                }
+            }
+        }
+
+        List<Integer> customerIdList = new ArrayList<>(customerPreviewByCustomerId.keySet());
+        Collections.sort(customerIdList);
+        preview.setExecutionDay(Util.formatTime(executionDay));
+        preview.setFundList(new ArrayList<>(fundPreviewByFundId.values()));
+        preview.setCustomerCount(customerIdList.size());
+        preview.setPageSize(pageSize);
+        preview.setPage(Math.max(0, Math.min(page, preview.getPageCount() - 1)));
+        int from = preview.getPage() * pageSize;
+        for (Integer customerId : customerIdList.subList(from, Math.min(from + pageSize, customerIdList.size()))) {
+            preview.getCustomerList().add(customerPreviewByCustomerId.get(customerId));
+        }
+        return preview;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public SettlementRun createRun(Map<Integer, Long> priceByFundId, Timestamp executionDay) {
+        //every pending transition gets the execution day, including orders of funds without a price.
+        //the funds only settle the transitions stamped here, the ones placed later wait for the next run.
+        transitionRepository.updatePendingTransitionExecuteDate(executionDay);
+
+        SettlementRun run = new SettlementRun();
+        run.setExecutionDay(executionDay);
+        run.setStatus(CCConstants.SETTLEMENT_STATUS_RUNNING);
+        run.setFundCount(priceByFundId.size());
+        run.setStartedAt(now());
+        settlementRunRepository.create(run);
+
+        for (Map.Entry<Integer, Long> entry : priceByFundId.entrySet()) {
+            createCheckpoint(run.getId(), entry.getKey(), entry.getValue());
+        }
+        createCheckpoint(run.getId(), CCConstants.SETTLEMENT_CASH_FUND_ID, 0);
+        return run;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public SettlementRun restartRun(int runId) throws CfsException {
+        SettlementRun run = settlementRunRepository.getSettlementRunById(runId);
+        if (run == null || run.getStatus() == CCConstants.SETTLEMENT_STATUS_DONE) {
+            throw new CfsException(CfsException.CODE_INVALID_SETTLEMENT_RUN);
+        }
+        run.setStatus(CCConstants.SETTLEMENT_STATUS_RUNNING);
+        run.setFinishedAt(null);
+        run.setMessage(null);
+        return settlementRunRepository.update(run);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void startCheckpoint(int checkpointId) {
+        SettlementCheckpoint checkpoint = settlementCheckpointRepository.getSettlementCheckpointByIdForUpdate(checkpointId);
+        if (checkpoint.getStatus() == CCConstants.SETTLEMENT_STATUS_DONE) {
+            return;
+        }
+        checkpoint.setStatus(CCConstants.SETTLEMENT_STATUS_RUNNING);
+        checkpoint.setStartedAt(now());
+        checkpoint.setFinishedAt(null);
+        checkpoint.setMessage(null);
+        settlementCheckpointRepository.update(checkpoint);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @RetryOnConflict
+    public void settleFund(int checkpointId) {
+        SettlementCheckpoint checkpoint = settlementCheckpointRepository.getSettlementCheckpointByIdForUpdate(checkpointId);
+        if (checkpoint.getStatus() == CCConstants.SETTLEMENT_STATUS_DONE) {
+            return;
+        }
+        Timestamp executionDay = settlementRunRepository.getSettlementRunById(checkpoint.getRunId()).getExecutionDay();
+
+        SettlementWriter writer = createWriter();
+        CashLedger ledger = new CashLedger();
+        int transitionCount = settleFund(checkpoint.getFundId(), checkpoint.getPrice(), executionDay, ledger, writer);
+        applyCash(ledger, writer);
+        writer.flush();
+
+        completeCheckpoint(checkpoint, transitionCount);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @RetryOnConflict
+    public void settleCash(int checkpointId) {
+        SettlementCheckpoint checkpoint = settlementCheckpointRepository.getSettlementCheckpointByIdForUpdate(checkpointId);
+        if (checkpoint.getStatus() == CCConstants.SETTLEMENT_STATUS_DONE) {
+            return;
+        }
+        Timestamp executionDay = settlementRunRepository.getSettlementRunById(checkpoint.getRunId()).getExecutionDay();
+
+        SettlementWriter writer = createWriter();
+        CashLedger ledger = new CashLedger();
+        int transitionCount = settleCash(executionDay, ledger, writer);
+        applyCash(ledger, writer);
+        writer.flush();
+
+        completeCheckpoint(checkpoint, transitionCount);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void failCheckpoint(int checkpointId, String message) {
+        SettlementCheckpoint checkpoint = settlementCheckpointRepository.getSettlementCheckpointByIdForUpdate(checkpointId);
+        checkpoint.setStatus(CCConstants.SETTLEMENT_STATUS_FAILED);
+        checkpoint.setFinishedAt(now());
+        checkpoint.setMessage(truncate(message));
+        settlementCheckpointRepository.update(checkpoint);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public SettlementRun finishRun(int runId) {
+        SettlementRun run = settlementRunRepository.getSettlementRunById(runId);
+        List<Integer> unfinishedFundIdList = new ArrayList<>();
+        for (SettlementCheckpoint checkpoint : settlementCheckpointRepository.getSettlementCheckpointListByRunId(runId)) {
+            if (checkpoint.getStatus() != CCConstants.SETTLEMENT_STATUS_DONE) {
+                unfinishedFundIdList.add(checkpoint.getFundId());
+            }
+        }
+        if (unfinishedFundIdList.isEmpty()) {
+            run.setStatus(CCConstants.SETTLEMENT_STATUS_DONE);
+            run.setMessage(null);
+        } else {
+            run.setStatus(CCConstants.SETTLEMENT_STATUS_FAILED);
+            run.setMessage(truncate(MessageFormat.format(
+                    ResourceBundle.getBundle("cfs").getString("settlement.failed"), unfinishedFundIdList)));
+        }
+        run.setFinishedAt(now());
+        return settlementRunRepository.update(run);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void failRun(int runId, String message) {
+        SettlementRun run = settlementRunRepository.getSettlementRunById(runId);
+        run.setStatus(CCConstants.SETTLEMENT_STATUS_FAILED);
+        run.setFinishedAt(now());
+        run.setMessage(truncate(message));
+        settlementRunRepository.update(run);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Transactional(readOnly = true)
+    public SettlementRun getLatestRun() {
+        return fillProgress(settlementRunRepository.getLatestSettlementRun());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Transactional(readOnly = true)
+    public SettlementRun getRun(int runId) {
+        return fillProgress(settlementRunRepository.getSettlementRunById(runId));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Transactional(readOnly = true)
+    public List<SettlementCheckpoint> getCheckpointList(int runId) {
+        return settlementCheckpointRepository.getSettlementCheckpointListByRunId(runId);
+    }
+
+    private SettlementRun fillProgress(SettlementRun run) {
+        if (run == null) {
+            return null;
+        }
+        int settledFundCount = 0;
+        int transitionCount = 0;
+        for (SettlementCheckpoint checkpoint : settlementCheckpointRepository.getSettlementCheckpointListByRunId(run.getId())) {
+            if (checkpoint.getStatus() == CCConstants.SETTLEMENT_STATUS_DONE) {
+                if (checkpoint.getFundId() != CCConstants.SETTLEMENT_CASH_FUND_ID) {
+                    settledFundCount++;
+                }
+                transitionCount += checkpoint.getTransitionCount();
+            }
+        }
+        run.setSettledFundCount(settledFundCount);
+        run.setTransitionCount(transitionCount);
+        return run;
+    }
+
+    private void createCheckpoint(int runId, int fundId, long price) {
+        SettlementCheckpoint checkpoint = new SettlementCheckpoint();
+        checkpoint.setRunId(runId);
+        checkpoint.setFundId(fundId);
+        checkpoint.setPrice(price);
+        checkpoint.setStatus(CCConstants.SETTLEMENT_STATUS_PENDING);
+        settlementCheckpointRepository.create(checkpoint);
+    }
+
+    private void completeCheckpoint(SettlementCheckpoint checkpoint, int transitionCount) {
+        checkpoint.setStatus(CCConstants.SETTLEMENT_STATUS_DONE);
+        checkpoint.setTransitionCount(transitionCount);
+        if (checkpoint.getStartedAt() == null) {
+            checkpoint.setStartedAt(now());
+        }
+        checkpoint.setFinishedAt(now());
+        checkpoint.setMessage(null);
+        settlementCheckpointRepository.update(checkpoint);
+    }
+
+    private static Timestamp now() {
+        return new Timestamp(System.currentTimeMillis());
+    }
+
+    private static String truncate(String message) {
+        return message == null || message.length() <= MESSAGE_MAX_LENGTH ? message : message.substring(0, MESSAGE_MAX_LENGTH);
+    }
+
+    private boolean isStreaming() {
+        return READ_MODE_STREAM.equals(readMode);
+    }
+
+    private SettlementWriter createWriter() {
+        if (WRITE_MODE_BATCH.equals(writeMode)) {
+            return settlementRepository.createBatchWriter(batchSize);
+        }
+        return settlementRepository.createEntityWriter();
+    }
+
+    /**
+     * Settle the orders of a fund stamped with the execution day, loaded at once or, when streaming,
+     * read from a cursor.
+     *
+     * @return the number of settled orders
+     */
+    private int settleFund(int fundId, long price, Timestamp executionDay, CashLedger ledger, SettlementWriter writer) {
+        postPrice(fundRepository.getFundById(fundId), price, executionDay);
+
+        //one query for the positions already held, instead of one per order.
+        Map<Integer, Integer> possessedPositionIdByCustomerId = new HashMap<>();
+        for (Position position : positionRepository.getPositionListByFundIdAndStatus(fundId, CCConstants.POSITION_STATUS_IN_POSSESSION)) {
+            if (!possessedPositionIdByCustomerId.containsKey(position.getCustomerId())) {
+                possessedPositionIdByCustomerId.put(position.getCustomerId(), position.getId());
+            }
+        }
+
+        OrderNetting netting = new OrderNetting();
+        int count = 0;
+        if (isStreaming()) {
+            try (TransitionCursor cursor = transitionRepository.scrollPendingTransitionListByFundId(fundId, executionDay,
+                    chunkSize)) {
+                while (cursor.hasNext()) {
+                    Transition transition = cursor.next();
+                    if (transition.getType() == CCConstants.TRAN_TYPE_SELL_FUND) {
+                        doSellFund(transition, price, ledger, netting, writer);
+                    } else if (transition.getType() == CCConstants.TRAN_TYPE_BUY_FUND) {
+                        doBuyFund(transition, price, netting);
+                    }
+                    if (++count % chunkSize == 0) {
+                        applyNetting(netting, possessedPositionIdByCustomerId, writer);
+                        endChunk(writer);
+                    }
+                }
+            }
+        } else {
+            PendingTransitionBook book = new PendingTransitionBook(transitionRepository.getPendingTransitionListByFundId(
+                    fundId, executionDay));
+            for (Transition transition : book.getSellList(fundId)) {
+                doSellFund(transition, price, ledger, netting, writer);
+            }
+            for (Transition transition : book.getBuyList(fundId)) {
+                doBuyFund(transition, price, netting);
+            }
+            count = book.size();
+        }
+        applyNetting(netting, possessedPositionIdByCustomerId, writer);
+        return count;
+    }
+
+    /**
+     * Settle the deposits and the check requests stamped with the execution day, loaded at once or,
+     * when streaming, read from a cursor.
+     *
+     * @return the number of settled transitions
+     */
+    private int settleCash(Timestamp executionDay, CashLedger ledger, SettlementWriter writer) {
+        Map<Integer, Integer> noPositionIdByCustomerId = Collections.emptyMap();
+        OrderNetting netting = new OrderNetting();
+        int count = 0;
+        if (isStreaming()) {
+            try (TransitionCursor cursor = transitionRepository.scrollPendingTransitionListByType(executionDay,
+                    chunkSize, CCConstants.TRAN_TYPE_DEPOSIT_CHECK, CCConstants.TRAN_TYPE_REQUEST_CHECK)) {
+                while (cursor.hasNext()) {
+                    Transition transition = cursor.next();
+                    if (transition.getType() == CCConstants.TRAN_TYPE_DEPOSIT_CHECK) {
+                        doDeposit(transition, ledger, netting);
+                    } else {
+                        doRequestCheck(transition, ledger, netting);
+                    }
+                    if (++count % chunkSize == 0) {
+                        applyNetting(netting, noPositionIdByCustomerId, writer);
+                        endChunk(writer);
+                    }
+                }
+            }
+        } else {
+            PendingTransitionBook book = new PendingTransitionBook(transitionRepository.getPendingTransitionListByType(
+                    executionDay, CCConstants.TRAN_TYPE_DEPOSIT_CHECK, CCConstants.TRAN_TYPE_REQUEST_CHECK));
+            for (Transition transition : book.getDepositList()) {
+                doDeposit(transition, ledger, netting);
+            }
+            for (Transition transition : book.getRequestCheckList()) {
+                doRequestCheck(transition, ledger, netting);
+            }
+            count = book.size();
+        }
+        applyNetting(netting, noPositionIdByCustomerId, writer);
+        return count;
+    }
+
+    private void applyCash(CashLedger ledger, SettlementWriter writer) {
+        int count = 0;
+        for (Integer customerId : ledger.getCustomerIdList()) {
+            writer.updateCustomerCash(customerId, ledger.getCash(customerId),
+                    ledger.getCashToBeDeposited(customerId), ledger.getCashToBeChecked(customerId));
+            if (isStreaming() && ++count % chunkSize == 0) {
+                endChunk(writer);
+            }
+        }
+    }
+
+    /**
+     * Write the netted orders: the shares bought by a customer are added to its position in one
+     * write, its first pending buy position becoming the position in possession if it has none, and
+     * the other pending buy positions are removed. The netting is then cleared.
+     */
+    private void applyNetting(OrderNetting netting, Map<Integer, Integer> possessedPositionIdByCustomerId,
+                              SettlementWriter writer) {
+        List<Integer> removedPositionIdList = new ArrayList<>();
+        for (Integer customerId : netting.getBuyerIdList()) {
+            List<Integer> pendingPositionIdList = netting.getPendingPositionIdList(customerId);
+            Integer possessedPositionId = possessedPositionIdByCustomerId.get(customerId);
+            if (possessedPositionId == null) {
+                possessedPositionId = pendingPositionIdList.get(0);
+                possessedPositionIdByCustomerId.put(customerId, possessedPositionId);
+                removedPositionIdList.addAll(pendingPositionIdList.subList(1, pendingPositionIdList.size()));
+            } else {
+                removedPositionIdList.addAll(pendingPositionIdList);
+            }
+            writer.addShares(possessedPositionId, netting.getBoughtShares(customerId));
+        }
+        writer.removePositions(removedPositionIdList);
+        writer.sellPositions(netting.getSoldPositionIdList());
+        writer.settleTransitions(netting.getSettledTransitionIdList());
+        netting.clear();
+    }
+
+    /**
+     * Write out and forget what has been read, every chunkSize transitions, so a streaming settlement
+     * keeps the same memory whatever the size of the book.
+     */
+    private void endChunk(SettlementWriter writer) {
+        writer.flush();
+        settlementRepository.flushAndClear();
+    }
+
+    /**
+     * Add one pending transition to the preview with the same arithmetic as the settlement. Orders
+     * of funds without a price are only counted as skipped.
+     */
+    private void previewTransition(Transition transition, SettlementPreview preview,
+                                   Map<Integer, SettlementPreview.FundPreview> fundPreviewByFundId,
+                                   Map<Integer, Set<Integer>> holderIdSetByFundId,
+                                   Map<Integer, SettlementPreview.CustomerPreview> customerPreviewByCustomerId) {
+        byte type = transition.getType();
+        boolean order = type == CCConstants.TRAN_TYPE_SELL_FUND || type == CCConstants.TRAN_TYPE_BUY_FUND;
+        SettlementPreview.FundPreview fundPreview = fundPreviewByFundId.get(transition.getFundId());
+        if (order && fundPreview == null) {
+            preview.setSkippedTransitionCount(preview.getSkippedTransitionCount() + 1);
+            return;
+        }
+        SettlementPreview.CustomerPreview customerPreview = customerPreviewByCustomerId.get(transition.getCustomerId());
+        if (customerPreview == null) {
+            customerPreview = new SettlementPreview.CustomerPreview(transition.getCustomerId());
+            customerPreviewByCustomerId.put(transition.getCustomerId(), customerPreview);
+        }
+        long price = order ? fundPreview.getPrice() : 0;
+        switch (type) {
+            case CCConstants.TRAN_TYPE_SELL_FUND:
+                long cash = Money.getCash(transition.getShares(), price);
+                fundPreview.addSell(transition.getShares(), cash);
+                customerPreview.addSell(cash);
+                preview.setCashCredited(preview.getCashCredited() + cash);
+                break;
+            case CCConstants.TRAN_TYPE_BUY_FUND:
+                long shares = Money.getShares(transition.getAmount(), price);
+                boolean positionCreated = holderIdSetByFundId.get(transition.getFundId()).add(transition.getCustomerId());
+                fundPreview.addBuy(transition.getAmount(), shares, positionCreated);
+                customerPreview.addBuy(transition.getAmount(), positionCreated);
+                if (positionCreated) {
+                    preview.setPositionCreatedCount(preview.getPositionCreatedCount() + 1);
+                }
+                break;
+            case CCConstants.TRAN_TYPE_DEPOSIT_CHECK:
+                customerPreview.addDeposit(transition.getAmount());
+                preview.setCashCredited(preview.getCashCredited() + transition.getAmount());
+                break;
+            default:
+                customerPreview.addCheck(transition.getAmount());
+                preview.setCashChecked(preview.getCashChecked() + transition.getAmount());
+                break;
+        }
+        preview.setTransitionCount(preview.getTransitionCount() + 1);
+    }
+
+    private void postPrice(Fund fund, long price, Timestamp executionDay) {
+        fund.setLastTransitionDay(executionDay);
+        fund.setLastPrice(price);
+        fundRepository.update(fund);
+        fundCatalog.invalidateAfterCommit();
+
+        FundPriceHistory fundPriceHistory = new FundPriceHistory();
+        fundPriceHistory.setFundId(fund.getId());
+        fundPriceHistory.setPrice(price);
+        fundPriceHistory.setPriceDate(executionDay);
+        fundPriceHistoryRepository.create(fundPriceHistory);
+        priceHistoryStore.appendAfterCommit(fund.getId(), executionDay, price);
+    }
+
+    private void doRequestCheck(Transition transition, CashLedger ledger, OrderNetting netting) {
+
+        netting.addSettledTransition(transition.getId());
+
+        ledger.addCashToBeChecked(transition.getCustomerId(), transition.getAmount());
+    }
+
+    private void doBuyFund(Transition transition, long price, OrderNetting netting) {
+        //every order is rounded on its own before the shares of the customer are summed.
+        long shares = Money.getShares(transition.getAmount(), price);
+        netting.addPurchase(transition.getCustomerId(), transition.getPositionId(), shares);
+
+        netting.addSettledTransition(transition.getId());
+    }
+
+    private void doSellFund(Transition transition, long price, CashLedger ledger, OrderNetting netting,
+                            SettlementWriter writer) {
+
+        long cash = Money.getCash(transition.getShares(), price);
+
+        ledger.addCash(transition.getCustomerId(), cash);
+
+        netting.addSoldPosition(transition.getPositionId());
+
+        writer.settleTransition(transition.getId(), cash);
+    }
+
+    private void doDeposit(Transition transition, CashLedger ledger, OrderNetting netting) {
+
+        ledger.addCash(transition.getCustomerId(), transition.getAmount());
+        ledger.addCashToBeDeposited(transition.getCustomerId(), transition.getAmount());
+
+        netting.addSettledTransition(transition.getId());
+    }
+}
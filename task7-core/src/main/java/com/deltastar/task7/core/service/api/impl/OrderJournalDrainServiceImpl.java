@@ -0,0 +1,182 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2015, Delta Star Team
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package com.deltastar.task7.core.service.api.impl;
+
+import com.deltastar.task7.core.journal.JournalEntry;
+import com.deltastar.task7.core.repository.api.CustomerRepository;
+import com.deltastar.task7.core.repository.api.OrderJournalCheckpointRepository;
+import com.deltastar.task7.core.repository.api.OrderJournalDeadLetterRepository;
+import com.deltastar.task7.core.repository.api.OrderRepository;
+import com.deltastar.task7.core.repository.api.PositionRepository;
+import com.deltastar.task7.core.repository.api.TransitionRepository;
+import com.deltastar.task7.core.repository.domain.OrderJournalCheckpoint;
+import com.deltastar.task7.core.repository.domain.OrderJournalDeadLetter;
+import com.deltastar.task7.core.repository.domain.Position;
+import com.deltastar.task7.core.repository.domain.Transition;
+import com.deltastar.task7.core.repository.domain.TransitionRequestKey;
+import com.deltastar.task7.core.service.api.OrderJournalDrainService;
+import com.deltastart.task7.core.constants.CCConstants;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Implementation of the {@link OrderJournalDrainService}.
+ * <p>
+ * The checkpoint of the journal is locked first, so two drainers of the same journal write a batch
+ * one after the other and the second one skips it. The pending positions and transitions of a batch
+ * are inserted as JDBC batches. The request key of an order is recorded with its transition in the
+ * same transaction; an order whose key is already recorded was placed before and is skipped. A
+ * transition keeps the time its order was accepted by the journal, not the time it was drained.
+ * <p>
+ * Delta Star Team
+ */
+@Service
+@Transactional
+public class OrderJournalDrainServiceImpl implements OrderJournalDrainService {
+
+    private static final int MESSAGE_MAX_LENGTH = 255;
+
+    @Autowired
+    private OrderJournalCheckpointRepository orderJournalCheckpointRepository;
+    @Autowired
+    private OrderJournalDeadLetterRepository orderJournalDeadLetterRepository;
+    @Autowired
+    private CustomerRepository customerRepository;
+    @Autowired
+    private PositionRepository positionRepository;
+    @Autowired
+    private TransitionRepository transitionRepository;
+    @Autowired
+    private OrderRepository orderRepository;
+
+    /**
+     * {@inheritDoc}
+     */
+    public long getDrainedSequence(String journalName) {
+        OrderJournalCheckpoint checkpoint = orderJournalCheckpointRepository.getOrderJournalCheckpointByName(journalName);
+        if (checkpoint == null) {
+            checkpoint = orderJournalCheckpointRepository.create(new OrderJournalCheckpoint(journalName));
+        }
+        return checkpoint.getDrainedSequence();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public long drainBatch(String journalName, List<JournalEntry> entryList) {
+        OrderJournalCheckpoint checkpoint = getCheckpointForUpdate(journalName);
+
+        List<Position> positionList = new ArrayList<>();
+        List<Transition> transitionList = new ArrayList<>();
+        List<String> requestKeyList = new ArrayList<>();
+        Set<String> claimedRequestKeySet = new HashSet<>();
+        for (JournalEntry entry : entryList) {
+            if (entry.getSequence() <= checkpoint.getDrainedSequence()) {
+                continue;
+            }
+            String requestKey = entry.getRequestKey();
+            if (requestKey != null && (!claimedRequestKeySet.add(entry.getCustomerId() + ":" + requestKey)
+                    || transitionRepository.getRequestKey(entry.getCustomerId(), requestKey) != null)) {
+                continue;
+            }
+            boolean buy = entry.getType() == CCConstants.TRAN_TYPE_BUY_FUND;
+
+            Transition transition = new Transition();
+            transition.setCustomerId(entry.getCustomerId());
+            transition.setFundId(entry.getFundId());
+            transition.setAmount(entry.getAmount());
+            transition.setShares(entry.getShares());
+            transition.setType(entry.getType());
+            transition.setCreatedAt(new Timestamp(entry.getCreatedAt()));
+
+            //the journal checked the order against the database when it was accepted, but a concurrent
+            //order of the customer may have been written since.
+            boolean covered = buy ? customerRepository.debitCash(entry.getCustomerId(), entry.getAmount())
+                    : positionRepository.sellPossessedShares(entry.getCustomerId(), entry.getFundId(), entry.getShares());
+            if (!covered) {
+                //the customer sees the order rejected in its transitions, and a replay of it is rejected too.
+                transition.setStatus(CCConstants.TRAN_STATUS_DONE_WITH_ERROR);
+                transitionRepository.create(transition);
+                createRequestKey(transition, requestKey);
+                continue;
+            }
+
+            Position position = new Position(entry.getFundId(), entry.getCustomerId(),
+                    buy ? CCConstants.POSITION_STATUS_TO_BE_BOUGHT : CCConstants.POSITION_STATUS_TO_BE_SOLD);
+            position.setShares(entry.getShares());
+            positionList.add(position);
+            transition.setStatus(CCConstants.TRAN_STATUS_PENDING);
+            transitionList.add(transition);
+            requestKeyList.add(requestKey);
+        }
+        orderRepository.createPendingOrders(positionList, transitionList);
+        for (int i = 0; i < transitionList.size(); i++) {
+            createRequestKey(transitionList.get(i), requestKeyList.get(i));
+        }
+
+        if (!entryList.isEmpty()) {
+            long lastSequence = entryList.get(entryList.size() - 1).getSequence();
+            checkpoint.setDrainedSequence(Math.max(checkpoint.getDrainedSequence(), lastSequence));
+        }
+        return checkpoint.getDrainedSequence();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public long deadLetter(String journalName, JournalEntry entry, String message) {
+        OrderJournalCheckpoint checkpoint = getCheckpointForUpdate(journalName);
+        if (entry.getSequence() > checkpoint.getDrainedSequence()) {
+            orderJournalDeadLetterRepository.create(new OrderJournalDeadLetter(journalName, entry,
+                    message == null || message.length() <= MESSAGE_MAX_LENGTH ? message
+                            : message.substring(0, MESSAGE_MAX_LENGTH)));
+            checkpoint.setDrainedSequence(entry.getSequence());
+        }
+        return checkpoint.getDrainedSequence();
+    }
+
+    private OrderJournalCheckpoint getCheckpointForUpdate(String journalName) {
+        OrderJournalCheckpoint checkpoint =
+                orderJournalCheckpointRepository.getOrderJournalCheckpointByNameForUpdate(journalName);
+        if (checkpoint == null) {
+            checkpoint = orderJournalCheckpointRepository.create(new OrderJournalCheckpoint(journalName));
+        }
+        return checkpoint;
+    }
+
+    private void createRequestKey(Transition transition, String requestKey) {
+        if (requestKey != null) {
+            transitionRepository.createRequestKey(
+                    new TransitionRequestKey(transition.getCustomerId(), requestKey, transition.getId()));
+        }
+    }
+}
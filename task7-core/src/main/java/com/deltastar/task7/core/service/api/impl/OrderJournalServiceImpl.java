@@ -0,0 +1,438 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2015, Delta Star Team
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package com.deltastar.task7.core.service.api.impl;
+
+import com.deltastar.task7.core.journal.JournalEntry;
+import com.deltastar.task7.core.journal.OrderJournal;
+import com.deltastar.task7.core.repository.api.CustomerRepository;
+import com.deltastar.task7.core.repository.api.PositionRepository;
+import com.deltastar.task7.core.repository.api.TransitionRepository;
+import com.deltastar.task7.core.repository.domain.Customer;
+import com.deltastar.task7.core.repository.domain.Position;
+import com.deltastar.task7.core.repository.domain.TransitionRequestKey;
+import com.deltastar.task7.core.service.api.OrderJournalDrainService;
+import com.deltastar.task7.core.service.api.OrderJournalService;
+import com.deltastar.task7.core.service.catalog.FundCatalog;
+import com.deltastar.task7.core.service.exception.CfsException;
+import com.deltastart.task7.core.constants.CCConstants;
+import com.deltastart.task7.core.constants.Util;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Implementation of the {@link OrderJournalService}.
+ * <p>
+ * An order is checked against the database like a direct order, less what the orders of the
+ * customer which are not drained yet have reserved, then appended to the {@link OrderJournal} and
+ * acknowledged once synced. A drainer thread writes the synced orders to the database in batches,
+ * each batch in one transaction with the checkpoint of the journal. When the application starts,
+ * the orders after the checkpoint are reserved again and drained, so nothing is lost or written
+ * twice across a restart. The request key of an order is journaled with it; a replay is dropped while
+ * the key is journaled and not drained yet, then by the key recorded with the drained transition, and
+ * rejected if the drained order was rejected.
+ * <p>
+ * A batch which fails maxDrainAttempts times in a row is drained one order per transaction, and an
+ * order which still fails is recorded as a dead letter, so it does not hold up the orders behind it.
+ * <p>
+ * Delta Star Team
+ */
+@Service
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class OrderJournalServiceImpl implements OrderJournalService {
+
+    private static final Log LOG = LogFactory.getLog(OrderJournalServiceImpl.class);
+
+    @Autowired
+    private OrderJournalDrainService orderJournalDrainService;
+    @Autowired
+    private CustomerRepository customerRepository;
+    @Autowired
+    private FundCatalog fundCatalog;
+    @Autowired
+    private PositionRepository positionRepository;
+    @Autowired
+    private TransitionRepository transitionRepository;
+
+    private boolean enabled;
+    private String directory = "journal";
+    private String journalName = "cfs";
+    private int segmentSize = 16 * 1024 * 1024;
+    private int batchSize = 500;
+    private long drainIntervalMillis = 100;
+    private int maxDrainAttempts = 10;
+    private OrderJournal journal;
+    private ScheduledExecutorService drainExecutorService;
+    private long drainedSequence;
+    private int failedDrainCount;
+
+    //the cash of the buys and the shares of the sells which are journaled but not drained yet.
+    private final Object reservationLock = new Object();
+    private final Map<Integer, Long> reservedCashByCustomerId = new HashMap<>();
+    private final Map<Long, Long> reservedSharesByPositionKey = new HashMap<>();
+    private final Set<String> journaledRequestKeySet = new HashSet<>();
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public void setDirectory(String directory) {
+        this.directory = directory;
+    }
+
+    public void setJournalName(String journalName) {
+        this.journalName = journalName;
+    }
+
+    public void setSegmentSize(int segmentSize) {
+        this.segmentSize = segmentSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public void setDrainIntervalMillis(long drainIntervalMillis) {
+        this.drainIntervalMillis = drainIntervalMillis;
+    }
+
+    public void setMaxDrainAttempts(int maxDrainAttempts) {
+        this.maxDrainAttempts = maxDrainAttempts;
+    }
+
+    public void init() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        drainedSequence = orderJournalDrainService.getDrainedSequence(journalName);
+        journal = new OrderJournal(new File(directory), journalName, segmentSize);
+        journal.open(drainedSequence);
+
+        //the orders left by the previous run are reserved again until they are drained.
+        long sequence = drainedSequence;
+        List<JournalEntry> entryList;
+        while (!(entryList = journal.read(sequence, batchSize)).isEmpty()) {
+            for (JournalEntry entry : entryList) {
+                reserve(entry, Long.MAX_VALUE);
+                claimRequestKey(entry);
+                sequence = entry.getSequence();
+            }
+        }
+
+        drainExecutorService = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "order-journal-drainer");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        drainExecutorService.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    drain();
+                } catch (RuntimeException e) {
+                    //the batch was rolled back, it is drained again on the next run.
+                    LOG.error("Cannot drain the order journal " + journalName, e);
+                }
+            }
+        }, 0, drainIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void destroy() throws InterruptedException {
+        if (journal == null) {
+            return;
+        }
+        drainExecutorService.shutdown();
+        drainExecutorService.awaitTermination(drainIntervalMillis * 10, TimeUnit.MILLISECONDS);
+        journal.close();
+        drain();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void buyFund(Customer customer, String fundIdAsString, String amountAsString, String requestKey)
+            throws CfsException {
+        int fundId;
+        long amount;
+        try {
+            fundId = Integer.valueOf(fundIdAsString);
+            amount = Util.formatToLong(amountAsString);
+        } catch (NumberFormatException e) {
+            throw new CfsException(CfsException.CODE_INVALID_INPUT_DATA);
+        }
+        if (!Util.isValidTransactionAmount(amount)) {
+            throw new CfsException(CfsException.CODE_MAX_DEPOSITION);
+        }
+        if (fundCatalog.getFundById(fundId) == null) {
+            throw new CfsException(CfsException.CODE_INVALID_FUND_NAME);
+        }
+
+        Customer currentCustomer = customerRepository.findCustomerById(customer.getId());
+        append(new JournalEntry(0, customer.getId(), fundId, CCConstants.TRAN_TYPE_BUY_FUND, amount, 0, 0,
+                getRequestKey(requestKey)), currentCustomer.getCash(), CfsException.CODE_INSUFFICIENT_BALANCE);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void sellFund(Customer customer, String fundIdAsString, String sharesAsString, String requestKey)
+            throws CfsException {
+        int fundId;
+        long shares;
+        try {
+            fundId = Integer.valueOf(fundIdAsString);
+            shares = Util.formatToLong(sharesAsString);
+        } catch (NumberFormatException e) {
+            throw new CfsException(CfsException.CODE_INVALID_INPUT_DATA);
+        }
+        if (!Util.isValidTransactionAmount(shares)) {
+            throw new CfsException(CfsException.CODE_MAX_DEPOSITION);
+        }
+        if (fundCatalog.getFundById(fundId) == null) {
+            throw new CfsException(CfsException.CODE_INVALID_FUND_ID);
+        }
+
+        Position position = positionRepository.getPossessedPositionByCustomerIdAndFundId(customer.getId(), fundId);
+        append(new JournalEntry(0, customer.getId(), fundId, CCConstants.TRAN_TYPE_SELL_FUND, 0, shares, 0,
+                getRequestKey(requestKey)), position == null ? 0 : position.getShares(),
+                CfsException.CODE_INSUFFICIENT_SHARES);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public synchronized int drain() {
+        if (journal == null) {
+            return 0;
+        }
+        int drainedCount = 0;
+        List<JournalEntry> entryList;
+        while (!(entryList = journal.read(drainedSequence, batchSize)).isEmpty()) {
+            try {
+                drained(entryList, orderJournalDrainService.drainBatch(journalName, entryList));
+                failedDrainCount = 0;
+            } catch (RuntimeException e) {
+                //the batch was rolled back, it is drained again until it fails too many times in a row.
+                if (++failedDrainCount < maxDrainAttempts) {
+                    throw e;
+                }
+                LOG.error("Cannot drain a batch of the order journal " + journalName
+                        + ", draining its orders one by one", e);
+                failedDrainCount = 0;
+                drainOneByOne(entryList);
+            }
+            drainedCount += entryList.size();
+        }
+        return drainedCount;
+    }
+
+    /**
+     * Drain every order of a batch in its own transaction, recording the orders which still fail as
+     * dead letters.
+     */
+    private void drainOneByOne(List<JournalEntry> entryList) {
+        for (JournalEntry entry : entryList) {
+            List<JournalEntry> singletonList = Collections.singletonList(entry);
+            try {
+                drained(singletonList, orderJournalDrainService.drainBatch(journalName, singletonList));
+            } catch (RuntimeException e) {
+                LOG.error("Cannot drain the order " + entry.getSequence() + " of the order journal " + journalName
+                        + ", recording it as a dead letter", e);
+                drained(singletonList, orderJournalDrainService.deadLetter(journalName, entry, e.toString()));
+            }
+        }
+    }
+
+    /**
+     * Forget the reservations and the request keys of drained orders and release the journal up to
+     * the checkpoint.
+     */
+    private void drained(List<JournalEntry> entryList, long sequence) {
+        drainedSequence = sequence;
+        for (JournalEntry entry : entryList) {
+            unreserve(entry);
+            releaseRequestKey(entry);
+        }
+        journal.release(drainedSequence);
+    }
+
+    /**
+     * Reserve the order against what the customer has in the database, then journal it. An order
+     * whose request key is journaled or drained already is dropped, or rejected if the drained order
+     * was rejected.
+     *
+     * @param order     the order to journal, its sequence is assigned by the journal
+     * @param available the cash or the shares of the customer in the database
+     * @param errorCode the error if the customer does not have enough
+     */
+    private void append(JournalEntry order, long available, int errorCode) throws CfsException {
+        if (journal == null) {
+            throw new CfsException(CfsException.CODE_ORDER_JOURNAL_FAILED);
+        }
+        if (order.getRequestKey() != null) {
+            if (isRequestKeyJournaled(order)) {
+                return;
+            }
+            TransitionRequestKey drainedRequestKey =
+                    transitionRepository.getRequestKey(order.getCustomerId(), order.getRequestKey());
+            if (drainedRequestKey != null) {
+                //the order was drained, a replay gets its outcome.
+                if (transitionRepository.getTransitionById(drainedRequestKey.getTransitionId()).getStatus()
+                        == CCConstants.TRAN_STATUS_DONE_WITH_ERROR) {
+                    throw new CfsException(errorCode);
+                }
+                return;
+            }
+            if (!claimRequestKey(order)) {
+                return;
+            }
+        }
+        if (!reserve(order, available)) {
+            releaseRequestKey(order);
+            throw new CfsException(errorCode);
+        }
+        try {
+            journal.append(order.getCustomerId(), order.getFundId(), order.getType(), order.getAmount(),
+                    order.getShares(), order.getRequestKey());
+        } catch (IOException e) {
+            LOG.error("Cannot append an order to the journal " + journalName, e);
+            unreserve(order);
+            releaseRequestKey(order);
+            throw new CfsException(CfsException.CODE_ORDER_JOURNAL_FAILED);
+        }
+    }
+
+    private boolean isRequestKeyJournaled(JournalEntry entry) {
+        synchronized (reservationLock) {
+            return journaledRequestKeySet.contains(getClaimKey(entry));
+        }
+    }
+
+    /**
+     * @return false if the request key of the order is journaled already
+     */
+    private boolean claimRequestKey(JournalEntry entry) {
+        if (entry.getRequestKey() == null) {
+            return true;
+        }
+        synchronized (reservationLock) {
+            return journaledRequestKeySet.add(getClaimKey(entry));
+        }
+    }
+
+    private void releaseRequestKey(JournalEntry entry) {
+        if (entry.getRequestKey() != null) {
+            synchronized (reservationLock) {
+                journaledRequestKeySet.remove(getClaimKey(entry));
+            }
+        }
+    }
+
+    private boolean reserve(JournalEntry entry, long available) {
+        synchronized (reservationLock) {
+            if (entry.getType() == CCConstants.TRAN_TYPE_BUY_FUND) {
+                return reserve(reservedCashByCustomerId, entry.getCustomerId(), entry.getAmount(), available);
+            }
+            return reserve(reservedSharesByPositionKey, getPositionKey(entry), entry.getShares(), available);
+        }
+    }
+
+    private void unreserve(JournalEntry entry) {
+        synchronized (reservationLock) {
+            if (entry.getType() == CCConstants.TRAN_TYPE_BUY_FUND) {
+                unreserve(reservedCashByCustomerId, entry.getCustomerId(), entry.getAmount());
+            } else {
+                unreserve(reservedSharesByPositionKey, getPositionKey(entry), entry.getShares());
+            }
+        }
+    }
+
+    private static <K> boolean reserve(Map<K, Long> reservedByKey, K key, long value, long available) {
+        Long reserved = reservedByKey.get(key);
+        long total = reserved == null ? value : reserved + value;
+        if (total > available) {
+            return false;
+        }
+        reservedByKey.put(key, total);
+        return true;
+    }
+
+    private static <K> void unreserve(Map<K, Long> reservedByKey, K key, long value) {
+        Long reserved = reservedByKey.get(key);
+        if (reserved == null || reserved <= value) {
+            reservedByKey.remove(key);
+        } else {
+            reservedByKey.put(key, reserved - value);
+        }
+    }
+
+    /**
+     * @return the trimmed request key, or null if it is blank
+     */
+    private static String getRequestKey(String requestKey) throws CfsException {
+        if (requestKey == null || requestKey.trim().isEmpty()) {
+            return null;
+        }
+        requestKey = requestKey.trim();
+        if (requestKey.length() > CCConstants.MAX_REQUEST_KEY_LENGTH) {
+            throw new CfsException(CfsException.CODE_INVALID_INPUT_DATA);
+        }
+        return requestKey;
+    }
+
+    private static String getClaimKey(JournalEntry entry) {
+        return entry.getCustomerId() + ":" + entry.getRequestKey();
+    }
+
+    private static long getPositionKey(JournalEntry entry) {
+        return ((long) entry.getCustomerId() << 32) | (entry.getFundId() & 0xffffffffL);
+    }
+}
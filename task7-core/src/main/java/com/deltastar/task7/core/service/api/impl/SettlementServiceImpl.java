@@ -0,0 +1,386 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2015, Delta Star Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.deltastar.task7.core.service.api.impl;
+
+import com.deltastar.task7.core.repository.domain.SettlementCheckpoint;
+import com.deltastar.task7.core.repository.domain.SettlementJobStatus;
+import com.deltastar.task7.core.repository.domain.SettlementPreview;
+import com.deltastar.task7.core.repository.domain.SettlementRun;
+import com.deltastar.task7.core.service.api.FundSettlementService;
+import com.deltastar.task7.core.service.api.SettlementService;
+import com.deltastar.task7.core.service.exception.CfsException;
+import com.deltastart.task7.core.constants.CCConstants;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Implementation of the {@link SettlementService}.
+ * <p>
+ * Every run is recorded with a checkpoint per fund. Each fund is settled in its own transaction,
+ * one after the other in serial mode or on a bounded pool of workers in parallel mode, and its
+ * checkpoint is marked as done in the same transaction. The deposits and the check requests are
+ * settled last. A fund that fails is rolled back on its own and stays pending, and resuming the run
+ * settles only the checkpoints that are not done.
+ * <p>
+ * Only one transition day runs at a time. A submitted run is settled on a dedicated job thread and
+ * its progress is read back from its checkpoints. Customers keep trading while it runs: a run settles
+ * only the transitions it stamped when it was created, the ones placed since wait for the next run.
+ * <p>
+ * Delta Star Team
+ */
+@Service
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class SettlementServiceImpl implements SettlementService {
+
+    public static final String MODE_SERIAL = "serial";
+    public static final String MODE_PARALLEL = "parallel";
+
+    private static final Log LOG = LogFactory.getLog(SettlementServiceImpl.class);
+
+    @Autowired
+    private FundSettlementService fundSettlementService;
+
+    private String mode = MODE_SERIAL;
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+    private int previewPageSize = 50;
+    private ExecutorService executorService;
+    private ExecutorService jobExecutorService;
+    private final AtomicBoolean jobRunning = new AtomicBoolean();
+    private volatile int runningJobId;
+
+    public void setMode(String mode) {
+        this.mode = mode;
+    }
+
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    public void setPreviewPageSize(int previewPageSize) {
+        this.previewPageSize = previewPageSize;
+    }
+
+    public void init() {
+        jobExecutorService = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "transition-day");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        if (MODE_PARALLEL.equals(mode)) {
+            executorService = Executors.newFixedThreadPool(parallelism, new ThreadFactory() {
+                private final AtomicInteger threadCount = new AtomicInteger();
+
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "settlement-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+    }
+
+    public void destroy() {
+        jobExecutorService.shutdown();
+        if (executorService != null) {
+            executorService.shutdown();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void executeTransitionDay(Map<Integer, Long> priceByFundId, Timestamp executionDay) throws CfsException {
+        acquireJob();
+        try {
+            fundSettlementService.validateExecutionDay(priceByFundId, executionDay);
+
+            execute(fundSettlementService.createRun(priceByFundId, executionDay));
+        } finally {
+            jobRunning.set(false);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void resumeTransitionDay(int runId) throws CfsException {
+        acquireJob();
+        try {
+            execute(fundSettlementService.restartRun(runId));
+        } finally {
+            jobRunning.set(false);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public SettlementPreview previewTransitionDay(Map<Integer, Long> priceByFundId, Timestamp executionDay, int page)
+            throws CfsException {
+        fundSettlementService.validateExecutionDay(priceByFundId, executionDay);
+
+        return fundSettlementService.preview(priceByFundId, executionDay, page, previewPageSize);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int submitTransitionDay(Map<Integer, Long> priceByFundId, Timestamp executionDay) throws CfsException {
+        acquireJob();
+        boolean submitted = false;
+        try {
+            fundSettlementService.validateExecutionDay(priceByFundId, executionDay);
+
+            int jobId = submit(fundSettlementService.createRun(priceByFundId, executionDay));
+            submitted = true;
+            return jobId;
+        } finally {
+            if (!submitted) {
+                jobRunning.set(false);
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int submitResumeTransitionDay(int runId) throws CfsException {
+        acquireJob();
+        boolean submitted = false;
+        try {
+            int jobId = submit(fundSettlementService.restartRun(runId));
+            submitted = true;
+            return jobId;
+        } finally {
+            if (!submitted) {
+                jobRunning.set(false);
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public SettlementJobStatus getJobStatus(int jobId) {
+        SettlementRun run = fundSettlementService.getRun(jobId);
+        if (run == null) {
+            return null;
+        }
+        SettlementJobStatus jobStatus = new SettlementJobStatus();
+        jobStatus.setJobId(run.getId());
+        jobStatus.setExecutionDay(run.getExecutionDayForDisplay());
+        jobStatus.setStatus(run.getDisplayStatus());
+        jobStatus.setRunning(jobRunning.get() && runningJobId == run.getId());
+        jobStatus.setFundCount(run.getFundCount());
+        jobStatus.setSettledFundCount(run.getSettledFundCount());
+        jobStatus.setTransitionCount(run.getTransitionCount());
+        jobStatus.setMessage(run.getMessage());
+
+        int failedFundCount = 0;
+        for (SettlementCheckpoint checkpoint : fundSettlementService.getCheckpointList(run.getId())) {
+            if (checkpoint.getStatus() == CCConstants.SETTLEMENT_STATUS_FAILED) {
+                failedFundCount++;
+            }
+            jobStatus.getFundList().add(new SettlementJobStatus.FundProgress(checkpoint));
+        }
+        jobStatus.setFailedFundCount(failedFundCount);
+
+        if (run.getStartedAt() != null) {
+            long end = run.getFinishedAt() == null ? System.currentTimeMillis() : run.getFinishedAt().getTime();
+            long elapsedMillis = Math.max(0, end - run.getStartedAt().getTime());
+            jobStatus.setElapsedMillis(elapsedMillis);
+            if (elapsedMillis > 0) {
+                jobStatus.setTransitionsPerSecond(run.getTransitionCount() * 1000.0 / elapsedMillis);
+            }
+        }
+        return jobStatus;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public SettlementRun getLatestRun() {
+        return fundSettlementService.getLatestRun();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public List<SettlementCheckpoint> getCheckpointList(int runId) {
+        return fundSettlementService.getCheckpointList(runId);
+    }
+
+    private void acquireJob() throws CfsException {
+        if (!jobRunning.compareAndSet(false, true)) {
+            throw new CfsException(CfsException.CODE_SETTLEMENT_RUNNING);
+        }
+    }
+
+    /**
+     * Settle the run on the job thread, which releases the job when it is done. Nobody waits for the
+     * job, so its failure is recorded in the run, which the status endpoint reports, and logged.
+     */
+    private int submit(final SettlementRun run) {
+        runningJobId = run.getId();
+        jobExecutorService.submit(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    execute(run);
+                } catch (CfsException e) {
+                    //finishRun already recorded the funds which are not settled.
+                    LOG.warn("Transition day job " + run.getId() + " failed: " + e.getMessage());
+                } catch (RuntimeException e) {
+                    LOG.error("Transition day job " + run.getId() + " failed", e);
+                    failRun(run.getId(), e);
+                } finally {
+                    jobRunning.set(false);
+                }
+            }
+        });
+        return run.getId();
+    }
+
+    private void execute(SettlementRun run) throws CfsException {
+        List<SettlementCheckpoint> fundCheckpointList = new ArrayList<>();
+        SettlementCheckpoint cashCheckpoint = null;
+        for (SettlementCheckpoint checkpoint : fundSettlementService.getCheckpointList(run.getId())) {
+            if (checkpoint.getStatus() == CCConstants.SETTLEMENT_STATUS_DONE) {
+                continue;
+            }
+            if (checkpoint.getFundId() == CCConstants.SETTLEMENT_CASH_FUND_ID) {
+                cashCheckpoint = checkpoint;
+            } else {
+                fundCheckpointList.add(checkpoint);
+            }
+        }
+
+        if (executorService == null) {
+            //a serial run stops at the first failure and is resumed from there.
+            for (SettlementCheckpoint checkpoint : fundCheckpointList) {
+                if (!settle(checkpoint)) {
+                    break;
+                }
+            }
+        } else {
+            settleInParallel(fundCheckpointList);
+        }
+        //deposits and check requests do not depend on the funds.
+        if (cashCheckpoint != null) {
+            settle(cashCheckpoint);
+        }
+
+        SettlementRun finishedRun = fundSettlementService.finishRun(run.getId());
+        if (finishedRun.getStatus() != CCConstants.SETTLEMENT_STATUS_DONE) {
+            throw new CfsException(CfsException.CODE_SETTLEMENT_FAILED, finishedRun.getMessage());
+        }
+    }
+
+    private void settleInParallel(List<SettlementCheckpoint> checkpointList) {
+        List<Future<Boolean>> futureList = new ArrayList<>(checkpointList.size());
+        for (final SettlementCheckpoint checkpoint : checkpointList) {
+            futureList.add(executorService.submit(new Callable<Boolean>() {
+                @Override
+                public Boolean call() {
+                    return settle(checkpoint);
+                }
+            }));
+        }
+        for (Future<Boolean> future : futureList) {
+            try {
+                getUninterruptibly(future);
+            } catch (ExecutionException e) {
+                //settle records the failures of a fund, only an error escapes it.
+                LOG.error("Fund settlement worker failed", e.getCause());
+            }
+        }
+    }
+
+    /**
+     * Settle one checkpoint in its own transaction and record the failure if it rolled back.
+     *
+     * @return true if the checkpoint is done
+     */
+    private boolean settle(SettlementCheckpoint checkpoint) {
+        try {
+            fundSettlementService.startCheckpoint(checkpoint.getId());
+            if (checkpoint.getFundId() == CCConstants.SETTLEMENT_CASH_FUND_ID) {
+                fundSettlementService.settleCash(checkpoint.getId());
+            } else {
+                fundSettlementService.settleFund(checkpoint.getId());
+            }
+            return true;
+        } catch (RuntimeException e) {
+            LOG.error("Settlement of fund " + checkpoint.getFundId() + " failed in run " + checkpoint.getRunId(), e);
+            fundSettlementService.failCheckpoint(checkpoint.getId(), getMessage(e));
+            return false;
+        }
+    }
+
+    private void failRun(int runId, RuntimeException cause) {
+        try {
+            fundSettlementService.failRun(runId, getMessage(cause));
+        } catch (RuntimeException e) {
+            LOG.error("Transition day job " + runId + " could not be marked as failed", e);
+        }
+    }
+
+    private static String getMessage(RuntimeException e) {
+        return e.getMessage() == null ? e.toString() : e.getMessage();
+    }
+
+    private static <T> T getUninterruptibly(Future<T> future) throws ExecutionException {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return future.get();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
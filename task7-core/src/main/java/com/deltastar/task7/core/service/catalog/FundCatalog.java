@@ -0,0 +1,218 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2015, Delta Star Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.deltastar.task7.core.service.catalog;
+
+import com.deltastar.task7.core.repository.domain.Fund;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.CacheRetrieveMode;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceUnit;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Read-through cache of the fund catalog. The whole catalog is loaded on the first read after an
+ * invalidation and served from memory until a fund is created or priced again.
+ * <p>
+ * A node only knows about the funds it writes itself, so the catalog is also checked against the
+ * database every checkIntervalMillis: the number of funds, their highest id and the sum of their
+ * versions change whenever a fund is created or priced on any node, and the catalog is loaded again
+ * if they did. The chart of the last prices follows the catalog, it is rebuilt with it.
+ * <p>
+ * The catalog is loaded with its own entity manager, outside of the caller's transaction, so the
+ * cached funds are never managed and always read what is committed. They are shared between the
+ * callers and must not be modified.
+ * <p>
+ * Delta Star Team
+ */
+public class FundCatalog {
+
+    @PersistenceUnit
+    private EntityManagerFactory entityManagerFactory;
+
+    private volatile Snapshot snapshot;
+    private long generation;
+    private long checkIntervalMillis = 1000;
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong invalidationCount = new AtomicLong();
+
+    /**
+     * @param checkIntervalMillis the time a loaded catalog is served before it is checked against the
+     *                            database again, 0 to check it on every read
+     */
+    public void setCheckIntervalMillis(long checkIntervalMillis) {
+        this.checkIntervalMillis = checkIntervalMillis;
+    }
+
+    /**
+     * @return every fund, in the order of the database. The same list is returned until the catalog is
+     * invalidated.
+     */
+    public List<Fund> getFundList() {
+        return getSnapshot().fundList;
+    }
+
+    /**
+     * @param fundId the fund's id
+     * @return the fund or null if no fund found with the given id
+     */
+    public Fund getFundById(int fundId) {
+        return getSnapshot().fundById.get(fundId);
+    }
+
+    /**
+     * Drop the catalog once the current transaction commits, or now if there is none. A fund which
+     * is created or priced must call this in the transaction which writes it.
+     */
+    public void invalidateAfterCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            invalidate();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                invalidate();
+            }
+        });
+    }
+
+    /**
+     * Drop the catalog, the next read loads it again.
+     */
+    public synchronized void invalidate() {
+        generation++;
+        snapshot = null;
+        invalidationCount.incrementAndGet();
+    }
+
+    /**
+     * @return the number of reads served from memory
+     */
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * @return the number of reads which loaded the catalog
+     */
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * @return the number of times the catalog was dropped, by this node or because another node changed
+     * it
+     */
+    public long getInvalidationCount() {
+        return invalidationCount.get();
+    }
+
+    private Snapshot getSnapshot() {
+        Snapshot current = snapshot;
+        if (current != null && isCurrent(current)) {
+            hitCount.incrementAndGet();
+            return current;
+        }
+        missCount.incrementAndGet();
+
+        long loadedGeneration;
+        synchronized (this) {
+            loadedGeneration = generation;
+        }
+        Snapshot loaded = load();
+        synchronized (this) {
+            // a catalog read before an invalidation may miss the fund that caused it
+            if (generation == loadedGeneration && snapshot == current) {
+                snapshot = loaded;
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * @return true if the snapshot was checked less than checkIntervalMillis ago, or if the database
+     * did not change since it was loaded
+     */
+    private boolean isCurrent(Snapshot current) {
+        long now = System.currentTimeMillis();
+        if (now < current.checkedAt + checkIntervalMillis) {
+            return true;
+        }
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            if (!current.version.equals(loadVersion(entityManager))) {
+                invalidationCount.incrementAndGet();
+                return false;
+            }
+        } finally {
+            entityManager.close();
+        }
+        current.checkedAt = now;
+        return true;
+    }
+
+    private Snapshot load() {
+        long now = System.currentTimeMillis();
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            //the version is read first, a fund written in between is loaded again on the next check.
+            List<Object> version = loadVersion(entityManager);
+            //the cached funds may be stale if another node wrote them, they are read from the database.
+            List<Fund> fundList = entityManager.createNamedQuery("findAllFund", Fund.class)
+                    .setHint("javax.persistence.cache.retrieveMode", CacheRetrieveMode.BYPASS)
+                    .getResultList();
+            return new Snapshot(version, fundList, now);
+        } finally {
+            entityManager.close();
+        }
+    }
+
+    private static List<Object> loadVersion(EntityManager entityManager) {
+        return Arrays.asList(entityManager.createNamedQuery("findFundCatalogVersion", Object[].class).getSingleResult());
+    }
+
+    private static class Snapshot {
+
+        private final List<Object> version;
+        private final List<Fund> fundList;
+        private final Map<Integer, Fund> fundById;
+        private volatile long checkedAt;
+
+        private Snapshot(List<Object> version, List<Fund> fundList, long checkedAt) {
+            this.version = version;
+            this.checkedAt = checkedAt;
+            this.fundList = Collections.unmodifiableList(new ArrayList<>(fundList));
+            this.fundById = new HashMap<>(fundList.size() * 2);
+            for (Fund fund : fundList) {
+                fundById.put(fund.getId(), fund);
+            }
+        }
+    }
+}
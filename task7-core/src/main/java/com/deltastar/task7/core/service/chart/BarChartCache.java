@@ -0,0 +1,208 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2015, Delta Star Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.deltastar.task7.core.service.chart;
+
+import com.deltastar.task7.core.repository.domain.BarChartData;
+import com.deltastar.task7.core.repository.domain.BarChartJson;
+import com.deltastar.task7.core.repository.domain.DataSet;
+import com.deltastar.task7.core.repository.domain.Fund;
+import com.deltastar.task7.core.service.catalog.FundCatalog;
+import com.deltastar.task7.core.timeseries.Downsampler;
+import com.deltastar.task7.core.timeseries.PriceHistoryStore;
+import com.deltastar.task7.core.timeseries.PriceSeries;
+import com.deltastart.task7.core.constants.Util;
+import com.google.gson.Gson;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The serialized bar charts of the funds. A chart is built and serialized once, with its entity tag,
+ * and served again until its data changes: the price chart of a fund until the fund's last price
+ * date changes, the chart of the last prices until the fund catalog changes. Both change only when a
+ * transition day posts a price or a fund is created.
+ * <p>
+ * A price chart shows at most a bounded number of prices, the price history is downsampled to it so
+ * that the size of the chart does not grow with the history. Only the chart of the whole history with
+ * the default number of prices is kept, the chart of a date window is built on each request.
+ * <p>
+ * Delta Star Team
+ */
+public class BarChartCache {
+
+    private static final Gson GSON = new Gson();
+
+    @Autowired
+    private FundCatalog fundCatalog;
+    @Autowired
+    private PriceHistoryStore priceHistoryStore;
+
+    private final ConcurrentMap<Integer, Entry> entryByFundId = new ConcurrentHashMap<>();
+    private volatile Entry fundListEntry;
+    private int defaultPoints = 200;
+    private int maxPoints = 1000;
+
+    /**
+     * @return the chart of the last price of every fund, or null if there is no fund
+     */
+    public BarChartJson getFundListChart() {
+        List<Fund> fundList = fundCatalog.getFundList();
+        Entry entry = fundListEntry;
+        //the catalog returns the same list until it changes
+        if (entry == null || entry.source != fundList) {
+            entry = new Entry(fundList, Long.MIN_VALUE, fundList.isEmpty() ? null : serialize(buildFundListChart(fundList)));
+            fundListEntry = entry;
+        }
+        return entry.chart;
+    }
+
+    /**
+     * @param fundId the fund's id
+     * @return the chart of the whole price history of the fund with the default number of prices, or
+     * null if the fund has no price
+     */
+    public BarChartJson getFundPriceChart(int fundId) {
+        PriceSeries series = priceHistoryStore.getSeries(fundId);
+        if (series.size() == 0) {
+            return null;
+        }
+        Entry entry = entryByFundId.get(fundId);
+        if (entry == null || entry.lastPriceDate != series.getLastDate()) {
+            entry = new Entry(null, series.getLastDate(), serialize(buildFundPriceChart(series, 0, series.size(), defaultPoints)));
+            entryByFundId.put(fundId, entry);
+        }
+        return entry.chart;
+    }
+
+    /**
+     * @param fundId   the fund's id
+     * @param points   the number of prices to show, the default one if it is 0; it is brought within
+     *                 MIN_THRESHOLD of the downsampler and the maximum number of prices
+     * @param fromDate the date of the first price to show in milliseconds, Long.MIN_VALUE for the first
+     *                 price of the fund
+     * @param toDate   the date of the last price to show in milliseconds, Long.MAX_VALUE for the last
+     *                 price of the fund
+     * @return the chart of the prices of the fund between the dates, or null if there is none
+     */
+    public BarChartJson getFundPriceChart(int fundId, int points, long fromDate, long toDate) {
+        if (points == 0 && fromDate == Long.MIN_VALUE && toDate == Long.MAX_VALUE) {
+            return getFundPriceChart(fundId);
+        }
+        PriceSeries series = priceHistoryStore.getSeries(fundId);
+        int from = series.indexOnOrAfter(fromDate);
+        int to = series.indexAfter(toDate);
+        if (from >= to) {
+            return null;
+        }
+        int threshold = points == 0 ? defaultPoints : Math.max(Downsampler.MIN_THRESHOLD, Math.min(points, maxPoints));
+        return serialize(buildFundPriceChart(series, from, to, threshold));
+    }
+
+    /**
+     * @param defaultPoints the number of prices of a chart which does not ask for one
+     */
+    public void setDefaultPoints(int defaultPoints) {
+        if (defaultPoints < Downsampler.MIN_THRESHOLD) {
+            throw new IllegalArgumentException("A chart shows at least " + Downsampler.MIN_THRESHOLD + " prices");
+        }
+        this.defaultPoints = defaultPoints;
+    }
+
+    /**
+     * @param maxPoints the largest number of prices a chart may ask for
+     */
+    public void setMaxPoints(int maxPoints) {
+        if (maxPoints < Downsampler.MIN_THRESHOLD) {
+            throw new IllegalArgumentException("A chart shows at least " + Downsampler.MIN_THRESHOLD + " prices");
+        }
+        this.maxPoints = maxPoints;
+    }
+
+    private static BarChartData buildFundListChart(List<Fund> fundList) {
+        String[] labelArray = new String[fundList.size()];
+        double[] data = new double[fundList.size()];
+        for (int i = 0; i < fundList.size(); i++) {
+            labelArray[i] = fundList.get(i).getFundName();
+            data[i] = fundList.get(i).getLastPrice() / 1000.0;
+        }
+        return buildChart(labelArray, data);
+    }
+
+    private static BarChartData buildFundPriceChart(PriceSeries series, int from, int to, int threshold) {
+        int[] indexes = Downsampler.largestTriangleThreeBuckets(series, from, to, threshold);
+        //the newest price comes first
+        String[] labelArray = new String[indexes.length];
+        double[] data = new double[indexes.length];
+        for (int i = 0; i < indexes.length; i++) {
+            int index = indexes[indexes.length - 1 - i];
+            labelArray[i] = Util.formatTime(new Date(series.getDate(index)));
+            data[i] = series.getPrice(index) / 1000.0;
+        }
+        return buildChart(labelArray, data);
+    }
+
+    private static BarChartData buildChart(String[] labelArray, double[] data) {
+        DataSet dataSet = new DataSet();
+        dataSet.setData(data);
+        BarChartData barChartData = new BarChartData();
+        barChartData.setDatasets(new DataSet[]{dataSet});
+        barChartData.setLabels(labelArray);
+        return barChartData;
+    }
+
+    private static BarChartJson serialize(BarChartData barChartData) {
+        String json = GSON.toJson(barChartData);
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5").digest(json.getBytes(StandardCharsets.UTF_8));
+            StringBuilder etag = new StringBuilder(2 + digest.length * 2).append('"');
+            for (byte b : digest) {
+                etag.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            }
+            return new BarChartJson(json, etag.append('"').toString());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 is not supported", e);
+        }
+    }
+
+    private static class Entry {
+
+        private final List<Fund> source;
+        private final long lastPriceDate;
+        private final BarChartJson chart;
+
+        private Entry(List<Fund> source, long lastPriceDate, BarChartJson chart) {
+            this.source = source;
+            this.lastPriceDate = lastPriceDate;
+            this.chart = chart;
+        }
+    }
+}
@@ -39,6 +39,13 @@ public class CfsException extends Exception {
     public static final int CODE_INVALID_CUSTOMER_USERNAME = 27;
     public static final int CODE_MAX_DEPOSITION = 28;
     public static final int CODE_INVALID_EMPLOYEE_UPDATE_CUSTOMER_PASSWORD = 29;
+    public static final int CODE_SETTLEMENT_FAILED = 30;
+    public static final int CODE_INVALID_SETTLEMENT_RUN = 31;
+    public static final int CODE_SETTLEMENT_RUNNING = 32;
+    public static final int CODE_INVALID_BASKET = 33;
+    public static final int CODE_ORDER_JOURNAL_FAILED = 34;
+    public static final int CODE_TOO_MANY_REQUESTS = 35;
+    public static final int CODE_REQUEST_IN_PROGRESS = 36;
 
 
 
@@ -128,6 +135,20 @@ public class CfsException extends Exception {
                 return ResourceBundle.getBundle("cfs").getString("max.deposition");
             case CODE_INVALID_EMPLOYEE_UPDATE_CUSTOMER_PASSWORD:
                 return ResourceBundle.getBundle("cfs").getString("employee.change.password.invalid");
+            case CODE_SETTLEMENT_FAILED:
+                return ResourceBundle.getBundle("cfs").getString("settlement.failed");
+            case CODE_INVALID_SETTLEMENT_RUN:
+                return ResourceBundle.getBundle("cfs").getString("invalid.settlement.run");
+            case CODE_SETTLEMENT_RUNNING:
+                return ResourceBundle.getBundle("cfs").getString("settlement.running");
+            case CODE_INVALID_BASKET:
+                return ResourceBundle.getBundle("cfs").getString("invalid.basket");
+            case CODE_ORDER_JOURNAL_FAILED:
+                return ResourceBundle.getBundle("cfs").getString("order.journal.failed");
+            case CODE_TOO_MANY_REQUESTS:
+                return ResourceBundle.getBundle("cfs").getString("too.many.requests");
+            case CODE_REQUEST_IN_PROGRESS:
+                return ResourceBundle.getBundle("cfs").getString("request.in.progress");
             default:
                 return null;
         }
@@ -0,0 +1,272 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2015, Delta Star Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.deltastar.task7.core.service.export;
+
+import com.deltastar.task7.core.service.exception.CfsException;
+import com.deltastart.task7.core.constants.CCConstants;
+import com.deltastart.task7.core.constants.Money;
+import com.google.gson.stream.JsonWriter;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.sql.*;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Exports the transitions, the positions and the price history of the funds as CSV or JSON. The rows
+ * are read from a forward-only, read-only cursor which fetches a bounded number of rows per round trip,
+ * and each row is written as soon as it is read, so an export holds one row in memory whatever the
+ * number of rows.
+ * <p>
+ * The amounts, the shares and the prices are stored in thousandths, they are written as decimals with
+ * {@link Money#SCALE} fraction digits, as the pages show them, and without a grouping separator.
+ * <p>
+ * Delta Star Team
+ */
+public class DataExporter {
+
+    private static final Set<String> SCALED_COLUMN_SET = new HashSet<>(Arrays.asList("shares", "amount",
+            "lastPrice", "price"));
+    private static final Export TRANSITION_EXPORT = new Export("TransitionView", "id",
+            "id", "customerId", "displayName", "fundId", "fundName", "positionId", "executeDate", "shares", "type",
+            "amount", "status", "createdAt", "updatedAt");
+    private static final Export POSITION_EXPORT = new Export("PositionView", "id",
+            "id", "customerId", "userName", "fundId", "fundName", "shares", "lastPrice", "amount", "status",
+            "createdAt", "updatedAt");
+    private static final Export FUND_PRICE_HISTORY_EXPORT = new Export("FundPriceHistory", "fundId, priceDate, id",
+            "id", "fundId", "priceDate", "price", "status", "createdAt", "updatedAt");
+
+    @Autowired
+    private DataSource dataSource;
+
+    private int fetchSize = 1000;
+
+    public void setFetchSize(int fetchSize) {
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * @param data   what to export, {@link CCConstants#EXPORT_TRANSITIONS}, {@link CCConstants#EXPORT_POSITIONS} or
+     *               {@link CCConstants#EXPORT_FUND_PRICE_HISTORY}
+     * @param format {@link CCConstants#EXPORT_FORMAT_CSV} or {@link CCConstants#EXPORT_FORMAT_JSON}
+     * @return the name of the exported file
+     * @throws CfsException if the data or the format is not valid
+     */
+    public String getFileName(String data, String format) throws CfsException {
+        getExport(data);
+        return data + "." + getFormat(format);
+    }
+
+    /**
+     * Write every row of the data to the writer. The writer is flushed but not closed.
+     *
+     * @param data   what to export, see {@link #getFileName(String, String)}
+     * @param format the format of the rows, see {@link #getFileName(String, String)}
+     * @param writer the writer the rows are written to
+     * @return the number of rows written
+     * @throws CfsException if the data or the format is not valid, nothing is written then
+     * @throws IOException  if the rows cannot be read or written, the rows written so far are incomplete
+     */
+    public long export(String data, String format, Writer writer) throws CfsException, IOException {
+        Export export = getExport(data);
+        RowWriter rowWriter = CCConstants.EXPORT_FORMAT_CSV.equals(getFormat(format))
+                ? new CsvRowWriter(writer) : new JsonRowWriter(writer);
+
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(export.sql, ResultSet.TYPE_FORWARD_ONLY,
+                     ResultSet.CONCUR_READ_ONLY)) {
+            statement.setFetchSize(fetchSize);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                Object[] values = new Object[export.columns.length];
+
+                rowWriter.begin(export.columns);
+                long count = 0;
+                while (resultSet.next()) {
+                    for (int i = 0; i < values.length; i++) {
+                        values[i] = export.scaled[i]
+                                ? getScaledValue(resultSet, i + 1) : resultSet.getObject(i + 1);
+                    }
+                    rowWriter.write(values);
+                    count++;
+                }
+                rowWriter.end();
+                writer.flush();
+                return count;
+            }
+        } catch (SQLException e) {
+            throw new IOException("Cannot export " + data, e);
+        }
+    }
+
+    private static BigDecimal getScaledValue(ResultSet resultSet, int columnIndex) throws SQLException {
+        long value = resultSet.getLong(columnIndex);
+        return resultSet.wasNull() ? null : BigDecimal.valueOf(value, Money.SCALE);
+    }
+
+    private Export getExport(String data) throws CfsException {
+        if (CCConstants.EXPORT_TRANSITIONS.equals(data)) {
+            return TRANSITION_EXPORT;
+        }
+        if (CCConstants.EXPORT_POSITIONS.equals(data)) {
+            return POSITION_EXPORT;
+        }
+        if (CCConstants.EXPORT_FUND_PRICE_HISTORY.equals(data)) {
+            return FUND_PRICE_HISTORY_EXPORT;
+        }
+        throw new CfsException(CfsException.CODE_INVALID_INPUT_DATA);
+    }
+
+    private String getFormat(String format) throws CfsException {
+        if (CCConstants.EXPORT_FORMAT_CSV.equals(format) || CCConstants.EXPORT_FORMAT_JSON.equals(format)) {
+            return format;
+        }
+        throw new CfsException(CfsException.CODE_INVALID_INPUT_DATA);
+    }
+
+    /**
+     * The columns of an export and the query which reads them. The columns are named here rather than
+     * read from the result set, whose labels depend on the database.
+     */
+    private static class Export {
+
+        private final String[] columns;
+        private final boolean[] scaled;
+        private final String sql;
+
+        private Export(String table, String orderBy, String... columns) {
+            this.columns = columns;
+            this.scaled = new boolean[columns.length];
+            for (int i = 0; i < columns.length; i++) {
+                scaled[i] = SCALED_COLUMN_SET.contains(columns[i]);
+            }
+            StringBuilder builder = new StringBuilder("SELECT ");
+            for (int i = 0; i < columns.length; i++) {
+                builder.append(i > 0 ? ", " : "").append(columns[i]);
+            }
+            this.sql = builder.append(" FROM ").append(table).append(" ORDER BY ").append(orderBy).toString();
+        }
+    }
+
+    private interface RowWriter {
+
+        void begin(String[] columns) throws IOException;
+
+        void write(Object[] values) throws IOException;
+
+        void end() throws IOException;
+    }
+
+    /**
+     * One line of header and one line per row, the values are quoted as RFC 4180 does.
+     */
+    private static class CsvRowWriter implements RowWriter {
+
+        private final Writer writer;
+
+        private CsvRowWriter(Writer writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        public void begin(String[] columns) throws IOException {
+            write(columns);
+        }
+
+        @Override
+        public void write(Object[] values) throws IOException {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                if (values[i] instanceof BigDecimal) {
+                    writer.write(((BigDecimal) values[i]).toPlainString());
+                } else if (values[i] != null) {
+                    writeValue(values[i].toString());
+                }
+            }
+            writer.write("\r\n");
+        }
+
+        @Override
+        public void end() {
+        }
+
+        private void writeValue(String value) throws IOException {
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0
+                    && value.indexOf('\r') < 0) {
+                writer.write(value);
+                return;
+            }
+            writer.write('"');
+            writer.write(value.replace("\"", "\"\""));
+            writer.write('"');
+        }
+    }
+
+    /**
+     * An array with one object per row, keyed by the column names.
+     */
+    private static class JsonRowWriter implements RowWriter {
+
+        private final JsonWriter jsonWriter;
+        private String[] columns;
+
+        private JsonRowWriter(Writer writer) {
+            this.jsonWriter = new JsonWriter(writer);
+        }
+
+        @Override
+        public void begin(String[] columns) throws IOException {
+            this.columns = columns;
+            jsonWriter.beginArray();
+        }
+
+        @Override
+        public void write(Object[] values) throws IOException {
+            jsonWriter.beginObject();
+            for (int i = 0; i < values.length; i++) {
+                jsonWriter.name(columns[i]);
+                if (values[i] == null) {
+                    jsonWriter.nullValue();
+                } else if (values[i] instanceof Number) {
+                    jsonWriter.value((Number) values[i]);
+                } else {
+                    jsonWriter.value(values[i].toString());
+                }
+            }
+            jsonWriter.endObject();
+        }
+
+        @Override
+        public void end() throws IOException {
+            jsonWriter.endArray();
+        }
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2015, Delta Star Team
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package com.deltastar.task7.core.service.idempotency;
+
+import com.deltastar.task7.core.service.exception.CfsException;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded in-memory table of the request keys whose request was done recently. A request claims its
+ * key before it runs; a second request with the same key waits while the first one runs, then either
+ * replays it if it was done or runs itself if it was released. A done key expires after a while and
+ * the oldest done keys are dropped when the table is full, after which only the unique key of the
+ * database stops a replay. A claimed key is never dropped while its request runs, so a table full of
+ * running requests rejects new claims. The caller holds its transaction while it waits, so a request
+ * waits for a while only, then it is rejected.
+ * <p>
+ * Delta Star Team
+ */
+public class IdempotencyTable {
+
+    private final Map<String, Claim> claimByKey = new LinkedHashMap<>();
+    private int maxSize = 100000;
+    private long expiryMillis = 10 * 60 * 1000;
+    private long maxWaitMillis = 5000;
+
+    public void setMaxSize(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    public void setExpiryMillis(long expiryMillis) {
+        this.expiryMillis = expiryMillis;
+    }
+
+    public void setMaxWaitMillis(long maxWaitMillis) {
+        this.maxWaitMillis = maxWaitMillis;
+    }
+
+    /**
+     * Claim a request key, waiting up to maxWaitMillis while another request holds it.
+     *
+     * @param key the request key
+     * @return the claim of the key, or null if a request with this key is already done
+     * @throws CfsException         if the table is full of running requests or the request holding
+     *                              the key is still running after the wait
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public synchronized Claim claim(String key) throws CfsException, InterruptedException {
+        long now = System.currentTimeMillis();
+        long deadline = now + maxWaitMillis;
+        Claim claim = claimByKey.get(key);
+        while (claim != null && !claim.done) {
+            if (now >= deadline) {
+                throw new CfsException(CfsException.CODE_REQUEST_IN_PROGRESS);
+            }
+            wait(deadline - now);
+            now = System.currentTimeMillis();
+            claim = claimByKey.get(key);
+        }
+        if (claim != null && claim.expiresAt > now) {
+            return null;
+        }
+
+        removeExpired(now);
+        claimByKey.remove(key);
+        if (claimByKey.size() >= maxSize && !removeOldestDone()) {
+            throw new CfsException(CfsException.CODE_TOO_MANY_REQUESTS);
+        }
+        claim = new Claim(key);
+        claimByKey.put(key, claim);
+        return claim;
+    }
+
+    /**
+     * Forget the done keys, once the request keys of the database are deleted. The running requests
+     * keep their keys.
+     */
+    public synchronized void clear() {
+        Iterator<Claim> iterator = claimByKey.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().done) {
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * @return the number of keys in the table
+     */
+    public synchronized int size() {
+        return claimByKey.size();
+    }
+
+    private synchronized void complete(Claim claim) {
+        if (claimByKey.get(claim.key) == claim) {
+            claim.done = true;
+            claim.expiresAt = System.currentTimeMillis() + expiryMillis;
+            notifyAll();
+        }
+    }
+
+    private synchronized void release(Claim claim) {
+        if (claimByKey.get(claim.key) == claim) {
+            claimByKey.remove(claim.key);
+            notifyAll();
+        }
+    }
+
+    /**
+     * Remove the done keys which expired, from the oldest claim until a key which did not.
+     */
+    private void removeExpired(long now) {
+        Iterator<Claim> iterator = claimByKey.values().iterator();
+        while (iterator.hasNext()) {
+            Claim claim = iterator.next();
+            if (!claim.done || claim.expiresAt > now) {
+                break;
+            }
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Remove the oldest done key, the running ones are skipped.
+     *
+     * @return false if every key in the table is running
+     */
+    private boolean removeOldestDone() {
+        Iterator<Claim> iterator = claimByKey.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().done) {
+                iterator.remove();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A request key held by one request until it is done or released.
+     */
+    public final class Claim {
+
+        private final String key;
+        private boolean done;
+        private long expiresAt;
+
+        private Claim(String key) {
+            this.key = key;
+        }
+
+        /**
+         * Record the request as done, the later requests with this key replay it.
+         */
+        public void complete() {
+            IdempotencyTable.this.complete(this);
+        }
+
+        /**
+         * Give the key up without doing the request, the next request with this key runs.
+         */
+        public void release() {
+            IdempotencyTable.this.release(this);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2015, Delta Star Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.deltastar.task7.core.timeseries;
+
+/**
+ * Downsamples a price series with the largest triangle three buckets algorithm: the first and the
+ * last prices are kept, the prices between them are split in buckets and the price of each bucket
+ * which makes the largest triangle with the price kept before it and the average of the next bucket
+ * is kept. The peaks and the troughs of the series survive, so a chart of the kept prices has the
+ * shape of the chart of all of them.
+ * <p>
+ * Delta Star Team
+ */
+public final class Downsampler {
+
+    /**
+     * The smallest number of prices a series is downsampled to: the first, the last and one between.
+     */
+    public static final int MIN_THRESHOLD = 3;
+
+    private Downsampler() {
+    }
+
+    /**
+     * @param series    the series
+     * @param from      the index of the first price to downsample
+     * @param to        the index after the last price to downsample
+     * @param threshold the number of prices to keep, at least MIN_THRESHOLD
+     * @return the indexes of the kept prices, in increasing order; every index if there are no more
+     * prices than the threshold
+     */
+    public static int[] largestTriangleThreeBuckets(PriceSeries series, int from, int to, int threshold) {
+        if (from < 0 || to > series.size() || from > to) {
+            throw new IndexOutOfBoundsException("Prices " + from + " to " + to + " of " + series.size() + " prices");
+        }
+        if (threshold < MIN_THRESHOLD) {
+            throw new IllegalArgumentException("The threshold " + threshold + " is less than " + MIN_THRESHOLD);
+        }
+        int count = to - from;
+        if (count <= threshold) {
+            int[] indexes = new int[count];
+            for (int i = 0; i < count; i++) {
+                indexes[i] = from + i;
+            }
+            return indexes;
+        }
+
+        //dates are taken from the first one so that they keep their precision as doubles
+        long origin = series.getDate(from);
+        int[] indexes = new int[threshold];
+        indexes[0] = from;
+        double bucketSize = (double) (count - 2) / (threshold - 2);
+        int kept = from;
+        for (int bucket = 0; bucket < threshold - 2; bucket++) {
+            int nextStart = from + (int) ((bucket + 1) * bucketSize) + 1;
+            int nextEnd = Math.min(from + (int) ((bucket + 2) * bucketSize) + 1, to);
+            double averageDate = 0;
+            double averagePrice = 0;
+            for (int i = nextStart; i < nextEnd; i++) {
+                averageDate += series.getDate(i) - origin;
+                averagePrice += series.getPrice(i);
+            }
+            averageDate /= nextEnd - nextStart;
+            averagePrice /= nextEnd - nextStart;
+
+            double keptDate = series.getDate(kept) - origin;
+            double keptPrice = series.getPrice(kept);
+            int start = from + (int) (bucket * bucketSize) + 1;
+            int end = nextStart;
+            double largestArea = -1;
+            int largest = start;
+            for (int i = start; i < end; i++) {
+                //twice the area of the triangle, the factor does not change which one is the largest
+                double area = Math.abs((keptDate - averageDate) * (series.getPrice(i) - keptPrice)
+                        - (keptDate - (series.getDate(i) - origin)) * (averagePrice - keptPrice));
+                if (area > largestArea) {
+                    largestArea = area;
+                    largest = i;
+                }
+            }
+            indexes[bucket + 1] = largest;
+            kept = largest;
+        }
+        indexes[threshold - 1] = to - 1;
+        return indexes;
+    }
+}
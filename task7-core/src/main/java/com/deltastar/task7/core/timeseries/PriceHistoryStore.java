@@ -0,0 +1,183 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2015, Delta Star Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.deltastar.task7.core.timeseries;
+
+import com.deltastar.task7.core.service.catalog.FundCatalog;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceUnit;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The price history of every fund, kept in memory as one {@link PriceSeries} per fund. The series are
+ * loaded at startup, or on the first read of a fund, and the transition day appends each new price once
+ * it is committed. Reading a series takes no lock and allocates nothing.
+ * <p>
+ * Series are loaded with their own entity manager, outside of the caller's transaction, so they always
+ * read what is committed. Loads and appends are serialized, so a price committed while its fund loads
+ * is either read by the load or appended after it.
+ * <p>
+ * Delta Star Team
+ */
+public class PriceHistoryStore {
+
+    @PersistenceUnit
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private FundCatalog fundCatalog;
+
+    private final ConcurrentMap<Integer, PriceSeries> seriesByFundId = new ConcurrentHashMap<>();
+    private boolean preload = true;
+    private int fetchSize = 1000;
+
+    public void setPreload(boolean preload) {
+        this.preload = preload;
+    }
+
+    public void setFetchSize(int fetchSize) {
+        this.fetchSize = fetchSize;
+    }
+
+    public void init() {
+        if (preload) {
+            loadAll();
+        }
+    }
+
+    /**
+     * @param fundId the fund's id
+     * @return the prices of the fund in date order, empty if the fund has no price or does not exist
+     */
+    public PriceSeries getSeries(int fundId) {
+        PriceSeries series = seriesByFundId.get(fundId);
+        return series != null ? series : load(fundId);
+    }
+
+    /**
+     * Append a price to its fund's series once the current transaction commits, or now if there is none.
+     * The price which posts it must be written in this transaction.
+     *
+     * @param fundId    the fund's id
+     * @param priceDate the date of the price, after the last one of the fund
+     * @param price     the price
+     */
+    public void appendAfterCommit(final int fundId, final Timestamp priceDate, final long price) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            append(fundId, priceDate.getTime(), price);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                append(fundId, priceDate.getTime(), price);
+            }
+        });
+    }
+
+    /**
+     * Drop every series, they are loaded again when they are read.
+     */
+    public synchronized void clear() {
+        seriesByFundId.clear();
+    }
+
+    private synchronized void append(int fundId, long date, long price) {
+        PriceSeries series = seriesByFundId.get(fundId);
+        //a fund which is not loaded yet reads the price when it loads, and a load already read it if the date is not after its last one.
+        if (series != null && date > series.getLastDate()) {
+            seriesByFundId.put(fundId, series.append(date, price));
+        }
+    }
+
+    private synchronized PriceSeries load(int fundId) {
+        PriceSeries series = seriesByFundId.get(fundId);
+        if (series != null) {
+            return series;
+        }
+        if (fundCatalog.getFundById(fundId) == null) {
+            return PriceSeries.EMPTY;
+        }
+
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            List<Object[]> rowList = entityManager.createNamedQuery("findPriceColumnsByFundId", Object[].class)
+                    .setParameter("p_fundId", fundId)
+                    .getResultList();
+            PriceSeries.Builder builder = new PriceSeries.Builder();
+            for (Object[] row : rowList) {
+                builder.add(((Timestamp) row[0]).getTime(), ((Number) row[1]).longValue());
+            }
+            series = builder.build();
+        } finally {
+            entityManager.close();
+        }
+        seriesByFundId.put(fundId, series);
+        return series;
+    }
+
+    private synchronized void loadAll() {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            org.hibernate.Query query = entityManager.unwrap(Session.class).getNamedQuery("findPriceColumns");
+            query.setFetchSize(fetchSize);
+            query.setReadOnly(true);
+            ScrollableResults results = query.scroll(ScrollMode.FORWARD_ONLY);
+            try {
+                int fundId = 0;
+                PriceSeries.Builder builder = null;
+                while (results.next()) {
+                    Object[] row = results.get();
+                    int rowFundId = ((Number) row[0]).intValue();
+                    if (builder == null || rowFundId != fundId) {
+                        if (builder != null) {
+                            seriesByFundId.put(fundId, builder.build());
+                        }
+                        fundId = rowFundId;
+                        builder = new PriceSeries.Builder();
+                    }
+                    builder.add(((Timestamp) row[1]).getTime(), ((Number) row[2]).longValue());
+                }
+                if (builder != null) {
+                    seriesByFundId.put(fundId, builder.build());
+                }
+            } finally {
+                results.close();
+            }
+        } finally {
+            entityManager.close();
+        }
+    }
+}
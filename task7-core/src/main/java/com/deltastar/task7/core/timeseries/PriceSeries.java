@@ -0,0 +1,168 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2015, Delta Star Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.deltastar.task7.core.timeseries;
+
+import java.util.Arrays;
+
+/**
+ * The prices of one fund in columns: parallel arrays of price dates, in milliseconds and strictly
+ * increasing, and of prices. A series never changes once it is built; appending a price returns a new
+ * series which shares the arrays of the old one while they have room, so the readers of the old series
+ * still see exactly its prices.
+ * <p>
+ * Delta Star Team
+ */
+public final class PriceSeries {
+
+    public static final PriceSeries EMPTY = new PriceSeries(new long[0], new long[0], 0);
+
+    private final long[] dates;
+    private final long[] prices;
+    private final int size;
+
+    private PriceSeries(long[] dates, long[] prices, int size) {
+        this.dates = dates;
+        this.prices = prices;
+        this.size = size;
+    }
+
+    /**
+     * @return the number of prices
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param index the index of the price, from 0 for the oldest one
+     * @return the date of the price in milliseconds
+     */
+    public long getDate(int index) {
+        checkIndex(index);
+        return dates[index];
+    }
+
+    /**
+     * @param index the index of the price, from 0 for the oldest one
+     * @return the price
+     */
+    public long getPrice(int index) {
+        checkIndex(index);
+        return prices[index];
+    }
+
+    /**
+     * @return the date of the last price in milliseconds, or Long.MIN_VALUE if there is none
+     */
+    public long getLastDate() {
+        return size == 0 ? Long.MIN_VALUE : dates[size - 1];
+    }
+
+    /**
+     * @param date a date in milliseconds
+     * @return the index of the first price on or after the date, size() if there is none
+     */
+    public int indexOnOrAfter(long date) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (dates[middle] < date) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @param date a date in milliseconds
+     * @return the index of the first price after the date, size() if there is none
+     */
+    public int indexAfter(long date) {
+        return date == Long.MAX_VALUE ? size : indexOnOrAfter(date + 1);
+    }
+
+    /**
+     * Append a price. Only the latest series of a fund may be appended to, by one writer at a time.
+     *
+     * @param date  the date of the price in milliseconds, after the last one
+     * @param price the price
+     * @return the series with the new price
+     */
+    public PriceSeries append(long date, long price) {
+        if (date <= getLastDate()) {
+            throw new IllegalArgumentException("The price of " + date + " is not after the last price of " + getLastDate());
+        }
+        long[] newDates = dates;
+        long[] newPrices = prices;
+        if (size == dates.length) {
+            int capacity = Math.max(16, size + (size >> 1));
+            newDates = Arrays.copyOf(dates, capacity);
+            newPrices = Arrays.copyOf(prices, capacity);
+        }
+        newDates[size] = date;
+        newPrices[size] = price;
+        return new PriceSeries(newDates, newPrices, size + 1);
+    }
+
+    /**
+     * Builds a series from prices which are read in date order.
+     */
+    static final class Builder {
+
+        private long[] dates = new long[64];
+        private long[] prices = new long[64];
+        private int size;
+
+        /**
+         * Add a price, a price which is not after the previous one is skipped.
+         */
+        void add(long date, long price) {
+            if (size > 0 && date <= dates[size - 1]) {
+                return;
+            }
+            if (size == dates.length) {
+                dates = Arrays.copyOf(dates, size * 2);
+                prices = Arrays.copyOf(prices, size * 2);
+            }
+            dates[size] = date;
+            prices[size] = price;
+            size++;
+        }
+
+        PriceSeries build() {
+            return size == 0 ? EMPTY : new PriceSeries(dates, prices, size);
+        }
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " of " + size + " prices");
+        }
+    }
+}
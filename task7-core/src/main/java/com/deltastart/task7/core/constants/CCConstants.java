@@ -47,6 +47,14 @@ public class CCConstants {
     public static final byte POSITION_STATUS_TO_BE_SOLD = 2;
     public static final byte POSITION_STATUS_SOLD = 3;
 
+
+    public static final byte SETTLEMENT_STATUS_PENDING = 0;
+    public static final byte SETTLEMENT_STATUS_RUNNING = 1;
+    public static final byte SETTLEMENT_STATUS_DONE = 2;
+    public static final byte SETTLEMENT_STATUS_FAILED = 3;
+    //fund id of the checkpoint settling the deposits and the check requests, like their transitions.
+    public static final int SETTLEMENT_CASH_FUND_ID = 0;
+
     public static final String EMPLOYEE_SUPER_ADMIN_USER_NAME = "jeff";
     public static final String HINT_SUCCESS = "success";
     public static final int EMPLOYEE_TYPE_SUPER_ADMIN = 1;
@@ -54,4 +62,19 @@ public class CCConstants {
     public static final String INVALID_NUMBER = "Invalid number";
     public static final long MAX_DEPOSITION_AMOUNT = 1000000000 * 1000L;
     public static final long MIN_DEPOSITION_AMOUNT = 1;
+    public static final int MAX_BASKET_SIZE = 100;
+    public static final int MAX_REQUEST_KEY_LENGTH = 64;
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 500;
+    //columns the customer and employee lists can be sorted by
+    public static final String SORT_BY_ID = "id";
+    public static final String SORT_BY_USER_NAME = "userName";
+    public static final String SORT_BY_FIRST_NAME = "firstName";
+    public static final String SORT_BY_LAST_NAME = "lastName";
+    //data and formats the employees can export
+    public static final String EXPORT_TRANSITIONS = "transitions";
+    public static final String EXPORT_POSITIONS = "positions";
+    public static final String EXPORT_FUND_PRICE_HISTORY = "fundPriceHistory";
+    public static final String EXPORT_FORMAT_CSV = "csv";
+    public static final String EXPORT_FORMAT_JSON = "json";
 }
@@ -0,0 +1,286 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2015, Delta Star Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.deltastart.task7.core.constants;
+
+import java.math.RoundingMode;
+
+/**
+ * Exact fixed-point arithmetic for cash, prices and shares, which are all stored as longs with
+ * {@link #SCALE} implied fraction digits. Intermediate products are kept on 128 bits, so nothing
+ * goes through a double, and every division is rounded with an explicit {@link RoundingMode}.
+ * No method allocates.
+ * <p>
+ * Delta Star Team
+ */
+public final class Money {
+
+    /**
+     * Number of fraction digits of cash, prices and shares.
+     */
+    public static final int SCALE = 3;
+
+    /**
+     * The value of 1 in fixed-point.
+     */
+    public static final long ONE = 1000L;
+
+    private static final long LOW_MASK = 0xFFFFFFFFL;
+
+    private Money() {
+    }
+
+    /**
+     * Shares bought with an amount of cash at a price, rounded half up.
+     *
+     * @param amount the cash amount
+     * @param price  the price of one share
+     * @return amount / price
+     */
+    public static long getShares(long amount, long price) {
+        return mulDiv(amount, ONE, price, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * Cash paid for shares at a price, rounded half up.
+     *
+     * @param shares the shares
+     * @param price  the price of one share
+     * @return shares * price
+     */
+    public static long getCash(long shares, long price) {
+        return mulDiv(shares, price, ONE, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * Compute a * b / c with a 128-bit intermediate product.
+     *
+     * @param a            the multiplicand
+     * @param b            the multiplier
+     * @param c            the divisor
+     * @param roundingMode how the quotient is rounded
+     * @return the rounded quotient
+     * @throws ArithmeticException if c is 0, the quotient does not fit in a long or the rounding mode
+     *                             is {@link RoundingMode#UNNECESSARY} and the quotient is not exact
+     */
+    public static long mulDiv(long a, long b, long c, RoundingMode roundingMode) {
+        if (c == 0) {
+            throw new ArithmeticException("/ by zero");
+        }
+        if (a == Long.MIN_VALUE || b == Long.MIN_VALUE || c == Long.MIN_VALUE) {
+            throw new ArithmeticException("long overflow");
+        }
+        boolean negative = (a < 0) ^ (b < 0) ^ (c < 0);
+        long x = Math.abs(a);
+        long y = Math.abs(b);
+        long divisor = Math.abs(c);
+
+        long quotient;
+        long remainder;
+        if (((x | y) >>> 31) == 0) {
+            //both factors fit on 31 bits, so does their product on 63 bits.
+            long product = x * y;
+            quotient = product / divisor;
+            remainder = product % divisor;
+        } else {
+            long x1 = x >>> 32;
+            long x0 = x & LOW_MASK;
+            long y1 = y >>> 32;
+            long y0 = y & LOW_MASK;
+            long p00 = x0 * y0;
+            long p01 = x0 * y1;
+            long p10 = x1 * y0;
+            long middle = (p00 >>> 32) + (p01 & LOW_MASK) + (p10 & LOW_MASK);
+            long low = (middle << 32) | (p00 & LOW_MASK);
+            long high = x1 * y1 + (p01 >>> 32) + (p10 >>> 32) + (middle >>> 32);
+
+            if (high == 0 && low >= 0) {
+                quotient = low / divisor;
+                remainder = low % divisor;
+            } else {
+                if (high >= divisor) {
+                    throw new ArithmeticException("long overflow");
+                }
+                //shift-subtract division of the 128-bit product, the remainder stays below the divisor.
+                quotient = 0;
+                remainder = high;
+                for (int i = 63; i >= 0; i--) {
+                    remainder = (remainder << 1) | ((low >>> i) & 1);
+                    quotient <<= 1;
+                    if (remainder < 0 || remainder >= divisor) {
+                        remainder -= divisor;
+                        quotient |= 1;
+                    }
+                }
+                if (quotient < 0) {
+                    throw new ArithmeticException("long overflow");
+                }
+            }
+        }
+
+        if (remainder != 0 && roundAwayFromZero(quotient, remainder, divisor, negative, roundingMode)) {
+            quotient++;
+        }
+        return negative ? -quotient : quotient;
+    }
+
+    private static boolean roundAwayFromZero(long quotient, long remainder, long divisor, boolean negative,
+                                             RoundingMode roundingMode) {
+        //remainder and divisor - remainder are compared instead of 2 * remainder and divisor, which may overflow.
+        long rest = divisor - remainder;
+        switch (roundingMode) {
+            case UP:
+                return true;
+            case DOWN:
+                return false;
+            case CEILING:
+                return !negative;
+            case FLOOR:
+                return negative;
+            case HALF_UP:
+                return remainder >= rest;
+            case HALF_DOWN:
+                return remainder > rest;
+            case HALF_EVEN:
+                return remainder > rest || (remainder == rest && (quotient & 1) == 1);
+            default:
+                throw new ArithmeticException("Rounding necessary");
+        }
+    }
+
+    /**
+     * Parse a decimal number such as "-1234.5678" into fixed-point, rounding the digits after
+     * {@link #SCALE} fraction digits.
+     *
+     * @param text         the decimal number, with an optional sign
+     * @param roundingMode how the extra fraction digits are rounded
+     * @return the fixed-point value
+     * @throws NumberFormatException if the text is not a decimal number or does not fit in a long
+     */
+    public static long parse(String text, RoundingMode roundingMode) {
+        if (text == null) {
+            throw new NumberFormatException("null");
+        }
+        int end = text.length();
+        int index = 0;
+        while (index < end && Character.isWhitespace(text.charAt(index))) {
+            index++;
+        }
+        while (end > index && Character.isWhitespace(text.charAt(end - 1))) {
+            end--;
+        }
+        boolean negative = false;
+        if (index < end && (text.charAt(index) == '-' || text.charAt(index) == '+')) {
+            negative = text.charAt(index) == '-';
+            index++;
+        }
+
+        //the magnitude is accumulated negatively, which covers Long.MIN_VALUE.
+        long value = 0;
+        int digitCount = 0;
+        int fractionDigitCount = -1;
+        int firstDroppedDigit = -1;
+        boolean droppedNonZero = false;
+        for (; index < end; index++) {
+            char character = text.charAt(index);
+            if (character == '.' && fractionDigitCount < 0) {
+                fractionDigitCount = 0;
+            } else if (character >= '0' && character <= '9') {
+                int digit = character - '0';
+                digitCount++;
+                if (fractionDigitCount >= SCALE) {
+                    if (firstDroppedDigit < 0) {
+                        firstDroppedDigit = digit;
+                    } else if (digit != 0) {
+                        droppedNonZero = true;
+                    }
+                    continue;
+                }
+                if (fractionDigitCount >= 0) {
+                    fractionDigitCount++;
+                }
+                value = appendDigit(value, digit, text);
+            } else {
+                throw new NumberFormatException("For input string: \"" + text + "\"");
+            }
+        }
+        if (digitCount == 0) {
+            throw new NumberFormatException("For input string: \"" + text + "\"");
+        }
+        for (int i = Math.max(fractionDigitCount, 0); i < SCALE; i++) {
+            value = appendDigit(value, 0, text);
+        }
+
+        if (firstDroppedDigit > 0 || droppedNonZero) {
+            boolean half = firstDroppedDigit == 5 && !droppedNonZero;
+            boolean aboveHalf = firstDroppedDigit > 5 || (firstDroppedDigit == 5 && droppedNonZero);
+            boolean up;
+            switch (roundingMode) {
+                case UP:
+                    up = true;
+                    break;
+                case DOWN:
+                    up = false;
+                    break;
+                case CEILING:
+                    up = !negative;
+                    break;
+                case FLOOR:
+                    up = negative;
+                    break;
+                case HALF_UP:
+                    up = aboveHalf || half;
+                    break;
+                case HALF_DOWN:
+                    up = aboveHalf;
+                    break;
+                case HALF_EVEN:
+                    up = aboveHalf || (half && (value & 1) != 0);
+                    break;
+                default:
+                    throw new ArithmeticException("Rounding necessary");
+            }
+            if (up) {
+                if (value == Long.MIN_VALUE) {
+                    throw new NumberFormatException("For input string: \"" + text + "\"");
+                }
+                value--;
+            }
+        }
+        if (!negative) {
+            if (value == Long.MIN_VALUE) {
+                throw new NumberFormatException("For input string: \"" + text + "\"");
+            }
+            return -value;
+        }
+        return value;
+    }
+
+    private static long appendDigit(long negativeValue, int digit, String text) {
+        if (negativeValue < (Long.MIN_VALUE + digit) / 10) {
+            throw new NumberFormatException("For input string: \"" + text + "\"");
+        }
+        return negativeValue * 10 - digit;
+    }
+}
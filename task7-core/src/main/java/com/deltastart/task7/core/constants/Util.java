@@ -25,8 +25,13 @@
 package com.deltastart.task7.core.constants;
 
 import com.deltastar.task7.core.repository.domain.Customer;
+import com.deltastar.task7.core.repository.domain.KeysetPage;
+import com.deltastar.task7.core.repository.domain.SummaryKey;
+import com.deltastar.task7.core.repository.domain.TransitionView;
+import com.deltastar.task7.core.repository.domain.TransitionViewKey;
 import com.deltastar.task7.core.service.exception.CfsException;
 
+import java.math.RoundingMode;
 import java.sql.Timestamp;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
@@ -41,6 +46,8 @@ import java.util.List;
 public class Util {
 
 
+    private static final long ONE_DAY_MILLIS = 24L * 60 * 60 * 1000;
+
     private static final SimpleDateFormat monthDayYearformatter = new SimpleDateFormat(
             "MMMMM dd, yyyy");
 
@@ -87,6 +94,18 @@ public class Util {
         }
     }
 
+    public static String getDisplayStatusForSettlement(byte status) {
+        if (status == CCConstants.SETTLEMENT_STATUS_RUNNING) {
+            return "Running";
+        } else if (status == CCConstants.SETTLEMENT_STATUS_DONE) {
+            return "Done";
+        } else if (status == CCConstants.SETTLEMENT_STATUS_FAILED) {
+            return "Failed";
+        } else {
+            return "Pending";
+        }
+    }
+
     public static String formatCash(long cash) {
         return formatCash(cash, false);
 
@@ -104,14 +123,14 @@ public class Util {
 
     public static long formatToLong(String amountAsString) throws CfsException {
         try {
-            return Math.round(Double.valueOf(amountAsString) * 1000L);
+            return Money.parse(amountAsString, RoundingMode.HALF_UP);
         } catch (NumberFormatException e) {
             throw new CfsException(CfsException.CODE_INVALID_INPUT_DATA);
         }
     }
 
     public static long formatCash(long shares, long price) {
-        return Math.round(shares * price / 1000.0);
+        return Money.getCash(shares, price);
     }
 
 
@@ -132,7 +151,7 @@ public class Util {
     }
 
     public static long getShares(long amount, long price) {
-        return Math.round(amount * 1000.0 / price);
+        return Money.getShares(amount, price);
     }
 
     public static Timestamp formatTimeStamp(String executionDay) throws CfsException {
@@ -146,6 +165,90 @@ public class Util {
         }
     }
 
+    /**
+     * @param day a day, MM/dd/yyyy, or empty
+     * @return the first millisecond of the day, Long.MIN_VALUE if it is empty
+     */
+    public static long formatWindowStart(String day) throws CfsException {
+        return isEmpty(day) ? Long.MIN_VALUE : formatTimeStamp(day.trim()).getTime();
+    }
+
+    /**
+     * @param day a day, MM/dd/yyyy, or empty
+     * @return the last millisecond of the day, Long.MAX_VALUE if it is empty
+     */
+    public static long formatWindowEnd(String day) throws CfsException {
+        return isEmpty(day) ? Long.MAX_VALUE : formatTimeStamp(day.trim()).getTime() + ONE_DAY_MILLIS - 1;
+    }
+
+    /**
+     * @param pageSizeAsString the number of rows of a page, or empty
+     * @return the number of rows, DEFAULT_PAGE_SIZE if it is empty and at most MAX_PAGE_SIZE
+     */
+    public static int formatPageSize(String pageSizeAsString) throws CfsException {
+        if (isEmpty(pageSizeAsString)) {
+            return CCConstants.DEFAULT_PAGE_SIZE;
+        }
+        int pageSize = formatToInteger(pageSizeAsString.trim());
+        if (pageSize <= 0) {
+            throw new CfsException(CfsException.CODE_INVALID_INPUT_DATA);
+        }
+        return Math.min(pageSize, CCConstants.MAX_PAGE_SIZE);
+    }
+
+    /**
+     * @param cursor the cursor of a page of transitions, as made by TransitionViewKey, or empty
+     * @return the key of the last transition of the previous page, null if the cursor is empty
+     */
+    public static TransitionViewKey formatToTransitionViewKey(String cursor) throws CfsException {
+        if (isEmpty(cursor)) {
+            return null;
+        }
+        String[] parts = cursor.trim().split("\\.");
+        if (parts.length != 3) {
+            throw new CfsException(CfsException.CODE_INVALID_INPUT_DATA);
+        }
+        try {
+            Timestamp createdAt = new Timestamp(Long.parseLong(parts[0]) * 1000);
+            createdAt.setNanos(Integer.parseInt(parts[1]));
+            return new TransitionViewKey(createdAt, Integer.parseInt(parts[2]));
+        } catch (IllegalArgumentException e) {
+            throw new CfsException(CfsException.CODE_INVALID_INPUT_DATA);
+        }
+    }
+
+    /**
+     * @param cursor the cursor of a page of customers or employees, as made by SummaryKey, or empty
+     * @return the key of the last row of the previous page, null if the cursor is empty
+     */
+    public static SummaryKey formatToSummaryKey(String cursor) throws CfsException {
+        if (isEmpty(cursor)) {
+            return null;
+        }
+        //the value may hold dots, only the first one ends the id
+        int dot = cursor.indexOf('.');
+        try {
+            return dot < 0 ? new SummaryKey(null, Integer.parseInt(cursor.trim()))
+                    : new SummaryKey(cursor.substring(dot + 1), Integer.parseInt(cursor.substring(0, dot).trim()));
+        } catch (NumberFormatException e) {
+            throw new CfsException(CfsException.CODE_INVALID_INPUT_DATA);
+        }
+    }
+
+    /**
+     * @param transitionViewList the transitions read for a page, one more than the page holds if there is
+     *                           a next page
+     * @param pageSize           the number of transitions of the page
+     * @return the page
+     */
+    public static KeysetPage<TransitionView> toTransitionViewPage(List<TransitionView> transitionViewList, int pageSize) {
+        if (transitionViewList.size() <= pageSize) {
+            return new KeysetPage<>(transitionViewList, null);
+        }
+        List<TransitionView> items = transitionViewList.subList(0, pageSize);
+        return new KeysetPage<>(items, new TransitionViewKey(items.get(pageSize - 1)).toString());
+    }
+
     public static String getCurrentDay() {
         DateFormat df = new SimpleDateFormat("MM/dd/yyyy");
         Date today = new Date();
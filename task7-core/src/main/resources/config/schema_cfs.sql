@@ -34,7 +34,10 @@ CREATE TABLE IF NOT EXISTS Customer (
   status            TINYINT                           DEFAULT 0,
   createdAt         TIMESTAMP                         DEFAULT CURRENT_TIMESTAMP,
   updatedAt         TIMESTAMP                         DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
-  UNIQUE KEY userNameUniqueKey (`userName`)
+  version           INT                               DEFAULT 0 NOT NULL,
+  UNIQUE KEY userNameUniqueKey (`userName`),
+  KEY firstNameKey (`firstName`),
+  KEY lastNameKey (`lastName`)
 );
 
 CREATE TABLE IF NOT EXISTS Fund (
@@ -47,6 +50,7 @@ CREATE TABLE IF NOT EXISTS Fund (
   status            TINYINT                           DEFAULT 0,
   createdAt         TIMESTAMP                         DEFAULT CURRENT_TIMESTAMP,
   updatedAt         TIMESTAMP                         DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+  version           INT                               DEFAULT 0 NOT NULL,
   UNIQUE KEY fundNameUniqueKey (`fundName`)
 );
 
@@ -58,6 +62,7 @@ CREATE TABLE IF NOT EXISTS FundPriceHistory (
   status    TINYINT                        DEFAULT 0,
   createdAt TIMESTAMP                      DEFAULT CURRENT_TIMESTAMP,
   updatedAt TIMESTAMP                      DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+  UNIQUE KEY fundIdPriceDateUniqueKey (`fundId`, `priceDate`),
   FOREIGN KEY (fundId) REFERENCES Fund (id)
 );
 
@@ -69,6 +74,7 @@ CREATE TABLE IF NOT EXISTS Position (
   status     TINYINT                  DEFAULT 0,
   createdAt  TIMESTAMP                DEFAULT CURRENT_TIMESTAMP,
   updatedAt  TIMESTAMP                DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+  version    INT                      DEFAULT 0 NOT NULL,
   FOREIGN KEY (fundId) REFERENCES Fund (id),
   FOREIGN KEY (customerId) REFERENCES Customer (id)
 );
@@ -85,9 +91,73 @@ CREATE TABLE IF NOT EXISTS Transition (
   status      TINYINT                        DEFAULT 0,
   createdAt   TIMESTAMP                      DEFAULT CURRENT_TIMESTAMP,
   updatedAt   TIMESTAMP                      DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+  KEY createdAtIdKey (`createdAt`, `id`),
+  KEY customerIdCreatedAtIdKey (`customerId`, `createdAt`, `id`),
+  KEY statusFundIdCreatedAtKey (`status`, `fundId`, `createdAt`, `id`),
   FOREIGN KEY (customerId) REFERENCES Customer (id)
 );
 
+CREATE TABLE IF NOT EXISTS TransitionRequestKey (
+  id           INT         NOT NULL PRIMARY KEY AUTO_INCREMENT,
+  customerId   INT         NOT NULL,
+  requestKey   VARCHAR(64) NOT NULL,
+  transitionId INT         NOT NULL,
+  createdAt    TIMESTAMP                      DEFAULT CURRENT_TIMESTAMP,
+  UNIQUE KEY customerRequestKeyUniqueKey (`customerId`, `requestKey`),
+  FOREIGN KEY (transitionId) REFERENCES Transition (id)
+);
+
+CREATE TABLE IF NOT EXISTS SettlementRun (
+  id           INT       NOT NULL PRIMARY KEY AUTO_INCREMENT,
+  executionDay TIMESTAMP NULL,
+  status       TINYINT                        DEFAULT 0,
+  fundCount    INT                            DEFAULT 0,
+  startedAt    TIMESTAMP NULL,
+  finishedAt   TIMESTAMP NULL,
+  message      VARCHAR(255)                   DEFAULT NULL,
+  createdAt    TIMESTAMP                      DEFAULT CURRENT_TIMESTAMP,
+  updatedAt    TIMESTAMP                      DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+);
+
+CREATE TABLE IF NOT EXISTS SettlementCheckpoint (
+  id              INT       NOT NULL PRIMARY KEY AUTO_INCREMENT,
+  runId           INT       NOT NULL,
+  fundId          INT       NOT NULL,
+  price           BIGINT                         DEFAULT 0,
+  status          TINYINT                        DEFAULT 0,
+  transitionCount INT                            DEFAULT 0,
+  startedAt       TIMESTAMP NULL,
+  finishedAt      TIMESTAMP NULL,
+  message         VARCHAR(255)                   DEFAULT NULL,
+  createdAt       TIMESTAMP                      DEFAULT CURRENT_TIMESTAMP,
+  updatedAt       TIMESTAMP                      DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+  UNIQUE KEY runFundUniqueKey (`runId`, `fundId`),
+  FOREIGN KEY (runId) REFERENCES SettlementRun (id)
+);
+
+CREATE TABLE IF NOT EXISTS OrderJournalCheckpoint (
+  journalName     VARCHAR(64) NOT NULL PRIMARY KEY,
+  drainedSequence BIGINT                         DEFAULT 0,
+  createdAt       TIMESTAMP                      DEFAULT CURRENT_TIMESTAMP,
+  updatedAt       TIMESTAMP                      DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+);
+
+CREATE TABLE IF NOT EXISTS OrderJournalDeadLetter (
+  id          INT          NOT NULL PRIMARY KEY AUTO_INCREMENT,
+  journalName VARCHAR(64)  NOT NULL,
+  sequence    BIGINT       NOT NULL,
+  customerId  INT          NOT NULL,
+  fundId      INT          NOT NULL,
+  type        TINYINT      NOT NULL,
+  amount      BIGINT       NOT NULL,
+  shares      BIGINT       NOT NULL,
+  requestKey  VARCHAR(64)  NULL,
+  acceptedAt  TIMESTAMP    NULL,
+  message     VARCHAR(255) NULL,
+  createdAt   TIMESTAMP                      DEFAULT CURRENT_TIMESTAMP,
+  UNIQUE KEY journalNameSequenceUniqueKey (`journalName`, `sequence`)
+);
+
 
 CREATE OR REPLACE VIEW TransitionView AS
   SELECT
@@ -0,0 +1,210 @@
+CREATE TABLE Employee (
+  id        INT GENERATED BY DEFAULT AS IDENTITY (START WITH 1) PRIMARY KEY,
+  userName  VARCHAR(32) NOT NULL,
+  password  VARCHAR(256) DEFAULT NULL,
+  salt      INT          DEFAULT 0,
+  firstName VARCHAR(32) NOT NULL,
+  lastName  VARCHAR(32) NOT NULL,
+  type      TINYINT      DEFAULT 0,
+  status    TINYINT      DEFAULT 0,
+  createdAt TIMESTAMP    DEFAULT CURRENT_TIMESTAMP,
+  updatedAt TIMESTAMP    DEFAULT CURRENT_TIMESTAMP,
+  CONSTRAINT employeeUserNameUniqueKey UNIQUE (userName)
+);
+
+INSERT INTO Employee (userName, password, salt, firstName, lastName, type, status)
+VALUES ('jeff', 'teamnine', 0, 'Jeffrey', 'Eppinger', 1, 0);
+
+CREATE TABLE Customer (
+  id                INT GENERATED BY DEFAULT AS IDENTITY (START WITH 1) PRIMARY KEY,
+  userName          VARCHAR(32)  NOT NULL,
+  firstName         VARCHAR(32)  NOT NULL,
+  lastName          VARCHAR(32)  NOT NULL,
+  addressLine1      VARCHAR(256) NOT NULL,
+  city              VARCHAR(256) NOT NULL,
+  state             VARCHAR(32)  NOT NULL,
+  zipcode           VARCHAR(32)  NOT NULL,
+  salt              INT          DEFAULT 0,
+  password          VARCHAR(256) DEFAULT NULL,
+  addressLine2      VARCHAR(256) DEFAULT NULL,
+  cash              BIGINT       DEFAULT 0,
+  cashToBeDeposited BIGINT       DEFAULT 0,
+  cashToBeChecked   BIGINT       DEFAULT 0,
+  status            TINYINT      DEFAULT 0,
+  createdAt         TIMESTAMP    DEFAULT CURRENT_TIMESTAMP,
+  updatedAt         TIMESTAMP    DEFAULT CURRENT_TIMESTAMP,
+  version           INT          DEFAULT 0 NOT NULL,
+  CONSTRAINT customerUserNameUniqueKey UNIQUE (userName)
+);
+
+CREATE INDEX customerFirstNameIndex ON Customer (firstName, id);
+
+CREATE INDEX customerLastNameIndex ON Customer (lastName, id);
+
+CREATE TABLE Fund (
+  id                INT GENERATED BY DEFAULT AS IDENTITY (START WITH 1) PRIMARY KEY,
+  fundName          VARCHAR(256) NOT NULL,
+  lastTransitionDay TIMESTAMP    NULL,
+  symbol            VARCHAR(256) DEFAULT NULL,
+  comment           VARCHAR(512) DEFAULT NULL,
+  lastPrice         BIGINT       DEFAULT 0,
+  status            TINYINT      DEFAULT 0,
+  createdAt         TIMESTAMP    DEFAULT CURRENT_TIMESTAMP,
+  updatedAt         TIMESTAMP    DEFAULT CURRENT_TIMESTAMP,
+  version           INT          DEFAULT 0 NOT NULL,
+  CONSTRAINT fundNameUniqueKey UNIQUE (fundName)
+);
+
+CREATE TABLE FundPriceHistory (
+  id        INT GENERATED BY DEFAULT AS IDENTITY (START WITH 1) PRIMARY KEY,
+  fundId    INT       NOT NULL,
+  price     INT       DEFAULT 0,
+  priceDate TIMESTAMP NULL,
+  status    TINYINT   DEFAULT 0,
+  createdAt TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+  updatedAt TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+  CONSTRAINT fundIdPriceDateUniqueKey UNIQUE (fundId, priceDate),
+  FOREIGN KEY (fundId) REFERENCES Fund (id)
+);
+
+CREATE TABLE Position (
+  id         INT GENERATED BY DEFAULT AS IDENTITY (START WITH 1) PRIMARY KEY,
+  customerId INT       NOT NULL,
+  fundId     INT       NOT NULL,
+  shares     BIGINT    DEFAULT 0,
+  status     TINYINT   DEFAULT 0,
+  createdAt  TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+  updatedAt  TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+  version    INT       DEFAULT 0 NOT NULL,
+  FOREIGN KEY (fundId) REFERENCES Fund (id),
+  FOREIGN KEY (customerId) REFERENCES Customer (id)
+);
+
+CREATE TABLE Transition (
+  id          INT GENERATED BY DEFAULT AS IDENTITY (START WITH 1) PRIMARY KEY,
+  customerId  INT       NOT NULL,
+  fundId      INT       NULL,
+  positionId  INT       NULL,
+  executeDate TIMESTAMP NULL,
+  shares      BIGINT    DEFAULT 0,
+  type        TINYINT   DEFAULT 0,
+  amount      BIGINT    DEFAULT 0,
+  status      TINYINT   DEFAULT 0,
+  createdAt   TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+  updatedAt   TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+  FOREIGN KEY (customerId) REFERENCES Customer (id)
+);
+
+CREATE INDEX createdAtIdIndex ON Transition (createdAt, id);
+
+CREATE INDEX customerIdCreatedAtIdIndex ON Transition (customerId, createdAt, id);
+
+CREATE INDEX statusFundIdCreatedAtIndex ON Transition (status, fundId, createdAt, id);
+
+CREATE TABLE TransitionRequestKey (
+  id           INT GENERATED BY DEFAULT AS IDENTITY (START WITH 1) PRIMARY KEY,
+  customerId   INT         NOT NULL,
+  requestKey   VARCHAR(64) NOT NULL,
+  transitionId INT         NOT NULL,
+  createdAt    TIMESTAMP   DEFAULT CURRENT_TIMESTAMP,
+  CONSTRAINT customerRequestKeyUniqueKey UNIQUE (customerId, requestKey),
+  FOREIGN KEY (transitionId) REFERENCES Transition (id)
+);
+
+CREATE TABLE SettlementRun (
+  id           INT GENERATED BY DEFAULT AS IDENTITY (START WITH 1) PRIMARY KEY,
+  executionDay TIMESTAMP    NULL,
+  status       TINYINT      DEFAULT 0,
+  fundCount    INT          DEFAULT 0,
+  startedAt    TIMESTAMP    NULL,
+  finishedAt   TIMESTAMP    NULL,
+  message      VARCHAR(255) DEFAULT NULL,
+  createdAt    TIMESTAMP    DEFAULT CURRENT_TIMESTAMP,
+  updatedAt    TIMESTAMP    DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE TABLE SettlementCheckpoint (
+  id              INT GENERATED BY DEFAULT AS IDENTITY (START WITH 1) PRIMARY KEY,
+  runId           INT          NOT NULL,
+  fundId          INT          NOT NULL,
+  price           BIGINT       DEFAULT 0,
+  status          TINYINT      DEFAULT 0,
+  transitionCount INT          DEFAULT 0,
+  startedAt       TIMESTAMP    NULL,
+  finishedAt      TIMESTAMP    NULL,
+  message         VARCHAR(255) DEFAULT NULL,
+  createdAt       TIMESTAMP    DEFAULT CURRENT_TIMESTAMP,
+  updatedAt       TIMESTAMP    DEFAULT CURRENT_TIMESTAMP,
+  CONSTRAINT runFundUniqueKey UNIQUE (runId, fundId),
+  FOREIGN KEY (runId) REFERENCES SettlementRun (id)
+);
+
+CREATE TABLE OrderJournalCheckpoint (
+  journalName     VARCHAR(64) NOT NULL PRIMARY KEY,
+  drainedSequence BIGINT      DEFAULT 0,
+  createdAt       TIMESTAMP   DEFAULT CURRENT_TIMESTAMP,
+  updatedAt       TIMESTAMP   DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE TABLE OrderJournalDeadLetter (
+  id          INT GENERATED BY DEFAULT AS IDENTITY (START WITH 1) PRIMARY KEY,
+  journalName VARCHAR(64)  NOT NULL,
+  sequence    BIGINT       NOT NULL,
+  customerId  INT          NOT NULL,
+  fundId      INT          NOT NULL,
+  type        TINYINT      NOT NULL,
+  amount      BIGINT       NOT NULL,
+  shares      BIGINT       NOT NULL,
+  requestKey  VARCHAR(64)  NULL,
+  acceptedAt  TIMESTAMP    NULL,
+  message     VARCHAR(255) NULL,
+  createdAt   TIMESTAMP    DEFAULT CURRENT_TIMESTAMP,
+  CONSTRAINT journalNameSequenceUniqueKey UNIQUE (journalName, sequence)
+);
+
+CREATE VIEW TransitionView AS
+  SELECT
+    t.id,
+    t.customerId,
+    t.fundId,
+    t.positionId,
+    t.executeDate,
+    t.shares,
+    t.type,
+    t.amount,
+    t.status,
+    t.createdAt,
+    t.updatedAt,
+    f.fundName,
+    CONCAT(c.firstName, ' ', c.lastName) AS displayName
+  FROM Transition AS t
+    LEFT JOIN Fund AS f ON f.id = t.fundId
+    LEFT JOIN Customer AS c ON c.id = t.customerId;
+
+CREATE VIEW FundPriceHistoryView AS
+  SELECT
+    fph.id,
+    fph.fundId,
+    fph.price,
+    fph.priceDate,
+    f.fundName
+  FROM FundPriceHistory AS fph
+    LEFT JOIN Fund AS f ON f.id = fph.fundId;
+
+CREATE VIEW PositionView AS
+  SELECT
+    p.id,
+    p.customerId,
+    p.fundId,
+    p.shares,
+    p.status,
+    p.createdAt,
+    p.updatedAt,
+    f.fundName,
+    f.lastPrice,
+    t.amount,
+    c.userName
+  FROM Position AS p
+    LEFT JOIN Fund AS f ON f.id = p.fundId
+    LEFT JOIN Transition AS t ON t.positionId = p.id
+    LEFT JOIN Customer AS c ON c.id = p.customerId;
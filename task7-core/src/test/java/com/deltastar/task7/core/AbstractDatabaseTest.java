@@ -0,0 +1,119 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2015, Delta Star Team
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package com.deltastar.task7.core;
+
+import com.deltastar.task7.core.repository.domain.Customer;
+import com.deltastar.task7.core.repository.domain.Fund;
+import com.deltastar.task7.core.service.api.CustomerService;
+import com.deltastar.task7.core.service.api.FundService;
+import com.deltastar.task7.core.service.catalog.FundCatalog;
+import com.deltastar.task7.core.service.exception.CfsException;
+import com.deltastar.task7.core.service.idempotency.IdempotencyTable;
+import com.deltastar.task7.core.timeseries.PriceHistoryStore;
+import com.deltastart.task7.core.constants.Util;
+import org.hibernate.SessionFactory;
+import org.junit.Before;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+
+/**
+ * Base of the tests which run the services against the embedded HSQL database of the test context.
+ * Every test starts from empty tables, empty caches and no request keys.
+ * <p>
+ * Delta Star Team
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(locations = {"classpath:META-INF/spring/test-context.xml"})
+public abstract class AbstractDatabaseTest {
+
+    @Autowired
+    private DataSource dataSource;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private FundCatalog fundCatalog;
+    @Autowired
+    private PriceHistoryStore priceHistoryStore;
+    @Autowired
+    private IdempotencyTable idempotencyTable;
+    @Autowired
+    protected CustomerService customerService;
+    @Autowired
+    protected FundService fundService;
+
+    protected JdbcTemplate jdbcTemplate;
+    private int customerCount;
+
+    @Before
+    public void resetDatabase() {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("TRUNCATE SCHEMA PUBLIC RESTART IDENTITY AND COMMIT NO CHECK");
+        entityManagerFactory.getCache().evictAll();
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictQueryRegions();
+        fundCatalog.invalidate();
+        priceHistoryStore.clear();
+        idempotencyTable.clear();
+        customerCount = 0;
+    }
+
+    /**
+     * @param userName the customer's user name
+     * @param cash     the cash of the customer, as typed by a user
+     */
+    protected Customer createCustomer(String userName, String cash) throws CfsException {
+        Customer customer = new Customer(userName, "password", "First " + userName, "Last " + userName,
+                "5000 Forbes Avenue", null, "Pittsburgh", "PA", "15213");
+        //the customer ids are not generated by the entity.
+        customer.setId(++customerCount);
+        customer.setCash(Util.formatToLong(cash));
+        return customerService.create(customer);
+    }
+
+    protected Fund createFund(String fundName, String symbol) {
+        return fundService.create(new Fund(fundName, symbol, "Fund " + symbol));
+    }
+
+    /**
+     * @param day a day, MM/dd/yyyy
+     */
+    protected static Timestamp day(String day) throws CfsException {
+        return Util.formatTimeStamp(day);
+    }
+
+    protected static long money(String amount) throws CfsException {
+        return Util.formatToLong(amount);
+    }
+
+    protected long queryForLong(String sql, Object... args) {
+        return jdbcTemplate.queryForObject(sql, Long.class, args);
+    }
+}
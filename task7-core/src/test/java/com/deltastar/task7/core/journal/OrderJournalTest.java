@@ -0,0 +1,188 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2015, Delta Star Team
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package com.deltastar.task7.core.journal;
+
+import com.deltastart.task7.core.constants.CCConstants;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class OrderJournalTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private OrderJournal journal;
+
+    @After
+    public void tearDown() {
+        if (journal != null) {
+            journal.close();
+        }
+    }
+
+    @Test
+    public void testReadsTheOrdersBackAfterAReopen() throws Exception {
+        journal = open(4, 0);
+        for (int i = 1; i <= 3; i++) {
+            assertEquals(i, append(i).getSequence());
+        }
+        journal.close();
+
+        journal = open(4, 1);
+        List<JournalEntry> entryList = journal.read(1, 10);
+        assertEquals(2, entryList.size());
+        assertEntry(entryList.get(0), 2);
+        assertEntry(entryList.get(1), 3);
+        assertEquals(4, append(4).getSequence());
+    }
+
+    @Test
+    public void testDropsATornRecordAndTheRecordsAfterIt() throws Exception {
+        journal = open(4, 0);
+        for (int i = 1; i <= 3; i++) {
+            append(i);
+        }
+        journal.close();
+
+        //the second record is torn, its content no longer matches its CRC.
+        File segmentFile = getSegmentFiles()[0];
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(segmentFile, "rw")) {
+            randomAccessFile.seek(OrderJournal.RECORD_SIZE + 20);
+            randomAccessFile.write(0x7f);
+        }
+
+        journal = open(4, 0);
+        List<JournalEntry> entryList = journal.read(0, 10);
+        assertEquals(1, entryList.size());
+        assertEntry(entryList.get(0), 1);
+        assertEquals(2, append(5).getSequence());
+    }
+
+    @Test
+    public void testRotatesTheSegmentsAndWritesOverTheDrainedOnes() throws Exception {
+        journal = open(2, 0);
+        for (int i = 1; i <= 5; i++) {
+            append(i);
+        }
+        assertEquals(3, getSegmentFiles().length);
+        assertEquals(5, journal.read(0, 10).size());
+
+        //the two full segments are drained and kept to be written over by the next segments.
+        journal.release(4);
+        assertEquals(3, getSegmentFiles().length);
+        assertEquals(1, journal.read(0, 10).size());
+        for (int i = 6; i <= 9; i++) {
+            append(i);
+        }
+        assertEquals(3, getSegmentFiles().length);
+        List<JournalEntry> entryList = journal.read(4, 10);
+        assertEquals(5, entryList.size());
+        for (int i = 0; i < entryList.size(); i++) {
+            assertEntry(entryList.get(i), 5 + i);
+        }
+        journal.close();
+
+        //the records of the previous use of a segment are not read again.
+        journal = open(2, 4);
+        entryList = journal.read(0, 10);
+        assertEquals(5, entryList.size());
+        assertEntry(entryList.get(0), 5);
+        assertEntry(entryList.get(4), 9);
+    }
+
+    @Test
+    public void testDeletesTheDrainedSegmentsWhenOpened() throws Exception {
+        journal = open(2, 0);
+        for (int i = 1; i <= 5; i++) {
+            append(i);
+        }
+        journal.close();
+
+        journal = open(2, 4);
+        //the segment of the fifth order and the new one.
+        assertEquals(2, getSegmentFiles().length);
+        List<JournalEntry> entryList = journal.read(0, 10);
+        assertEquals(1, entryList.size());
+        assertEntry(entryList.get(0), 5);
+    }
+
+    @Test
+    public void testFailsWhenAnOrderWhichIsNotDrainedIsMissing() throws Exception {
+        journal = open(2, 0);
+        for (int i = 1; i <= 5; i++) {
+            append(i);
+        }
+        journal.close();
+        journal = null;
+
+        if (!getSegmentFiles()[1].delete()) {
+            fail();
+        }
+        try {
+            open(2, 1);
+            fail();
+        } catch (IOException e) {
+            //the orders 3 and 4 are lost.
+        }
+    }
+
+    private OrderJournal open(int recordsPerSegment, long drainedSequence) throws IOException {
+        OrderJournal orderJournal = new OrderJournal(temporaryFolder.getRoot(), "test",
+                recordsPerSegment * OrderJournal.RECORD_SIZE);
+        orderJournal.open(drainedSequence);
+        return orderJournal;
+    }
+
+    private JournalEntry append(int order) throws IOException {
+        return journal.append(order, 100 + order, CCConstants.TRAN_TYPE_BUY_FUND, order * 1000L, 0,
+                order % 2 == 0 ? null : "request-" + order);
+    }
+
+    private static void assertEntry(JournalEntry entry, int order) {
+        assertEquals(order, entry.getSequence());
+        assertEquals(order, entry.getCustomerId());
+        assertEquals(100 + order, entry.getFundId());
+        assertEquals(CCConstants.TRAN_TYPE_BUY_FUND, entry.getType());
+        assertEquals(order * 1000L, entry.getAmount());
+        assertEquals(order % 2 == 0 ? null : "request-" + order, entry.getRequestKey());
+    }
+
+    private File[] getSegmentFiles() {
+        File[] files = temporaryFolder.getRoot().listFiles();
+        Arrays.sort(files);
+        return files;
+    }
+}
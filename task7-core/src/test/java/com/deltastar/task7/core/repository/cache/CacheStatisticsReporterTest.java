@@ -0,0 +1,57 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2015, Delta Star Team
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package com.deltastar.task7.core.repository.cache;
+
+import com.deltastar.task7.core.AbstractDatabaseTest;
+import com.deltastar.task7.core.repository.domain.Fund;
+import com.deltastar.task7.core.service.catalog.FundCatalog;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import static org.junit.Assert.assertTrue;
+
+public class CacheStatisticsReporterTest extends AbstractDatabaseTest {
+
+    @Autowired
+    private CacheStatisticsReporter cacheStatisticsReporter;
+    @Autowired
+    private FundCatalog fundCatalog;
+
+    @Test
+    public void testReportsTheFundCatalog() throws Exception {
+        Fund fund = createFund("Alpha Fund", "ALPH");
+        long hitCount = fundCatalog.getHitCount();
+        long missCount = fundCatalog.getMissCount();
+        long invalidationCount = fundCatalog.getInvalidationCount();
+
+        fundCatalog.getFundById(fund.getId());
+        fundCatalog.getFundList();
+        fundCatalog.invalidate();
+
+        String report = cacheStatisticsReporter.getReport();
+        assertTrue(report, report.contains(String.format("fund catalog: %d hits, %d misses, %d invalidations",
+                hitCount + 1, missCount + 1, invalidationCount + 1)));
+    }
+}
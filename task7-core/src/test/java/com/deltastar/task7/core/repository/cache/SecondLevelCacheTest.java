@@ -0,0 +1,121 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2015, Delta Star Team
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package com.deltastar.task7.core.repository.cache;
+
+import com.deltastar.task7.core.AbstractDatabaseTest;
+import com.deltastar.task7.core.repository.api.FundPriceHistoryViewRepository;
+import com.deltastar.task7.core.repository.api.FundRepository;
+import com.deltastar.task7.core.repository.domain.Fund;
+import com.deltastar.task7.core.repository.domain.FundPriceHistoryView;
+import com.deltastar.task7.core.service.api.SettlementService;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import javax.persistence.Cache;
+import javax.persistence.EntityManagerFactory;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SecondLevelCacheTest extends AbstractDatabaseTest {
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private FundRepository fundRepository;
+    @Autowired
+    private FundPriceHistoryViewRepository fundPriceHistoryViewRepository;
+    @Autowired
+    private SettlementService settlementService;
+
+    private Statistics statistics;
+    private Cache cache;
+    private Fund fund;
+
+    @Before
+    public void setUp() throws Exception {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        cache = entityManagerFactory.getCache();
+        fund = createFund("Alpha Fund", "ALPH");
+        settlementService.executeTransitionDay(Collections.singletonMap(fund.getId(), money("10.00")),
+                day("01/05/2015"));
+    }
+
+    @Test
+    public void testFundUpdateEvictsTheCachedFundAndQueries() throws Exception {
+        fundRepository.getFundById(fund.getId());
+        assertTrue(cache.contains(Fund.class, fund.getId()));
+        assertCachedQuery("Alpha Fund");
+
+        Fund updatedFund = fundRepository.getFundById(fund.getId());
+        updatedFund.setFundName("Alpha Growth Fund");
+        fundService.update(updatedFund);
+
+        assertFalse(cache.contains(Fund.class, fund.getId()));
+        assertEquals("Alpha Growth Fund", fundRepository.getFundById(fund.getId()).getFundName());
+        //the view selects from the fund, its cached query is dropped with the fund's.
+        long missCount = statistics.getQueryCacheMissCount();
+        assertEquals("Alpha Growth Fund", fundRepository.getFundBySymbol("ALPH").getFundName());
+        List<FundPriceHistoryView> viewList = fundPriceHistoryViewRepository.getFundPriceHistoryViewListById(fund.getId());
+        assertEquals(missCount + 2, statistics.getQueryCacheMissCount());
+        assertEquals("Alpha Growth Fund", viewList.get(0).getFundName());
+        assertCachedQuery("Alpha Growth Fund");
+    }
+
+    @Test
+    public void testPostedPriceEvictsTheCachedViewQuery() throws Exception {
+        assertCachedQuery("Alpha Fund");
+
+        settlementService.executeTransitionDay(Collections.singletonMap(fund.getId(), money("11.00")),
+                day("01/06/2015"));
+
+        long missCount = statistics.getQueryCacheMissCount();
+        List<FundPriceHistoryView> viewList = fundPriceHistoryViewRepository.getFundPriceHistoryViewListById(fund.getId());
+        assertEquals(missCount + 1, statistics.getQueryCacheMissCount());
+        assertEquals(2, viewList.size());
+        assertEquals(money("11.00"), viewList.get(0).getPrice());
+        assertEquals(money("10.00"), viewList.get(1).getPrice());
+    }
+
+    /**
+     * Read the fund and its prices twice, the second reads are served by the query cache.
+     */
+    private void assertCachedQuery(String fundName) {
+        fundRepository.getFundBySymbol("ALPH");
+        fundPriceHistoryViewRepository.getFundPriceHistoryViewListById(fund.getId());
+        long hitCount = statistics.getQueryCacheHitCount();
+        assertEquals(fundName, fundRepository.getFundBySymbol("ALPH").getFundName());
+        List<FundPriceHistoryView> viewList = fundPriceHistoryViewRepository.getFundPriceHistoryViewListById(fund.getId());
+        assertEquals(hitCount + 2, statistics.getQueryCacheHitCount());
+        assertEquals(fundName, viewList.get(0).getFundName());
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2015, Delta Star Team
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package com.deltastar.task7.core.repository.domain;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class OrderNettingTest {
+
+    @Test
+    public void testSumsTheSharesOfACustomer() {
+        OrderNetting netting = new OrderNetting();
+        netting.addPurchase(7, 70, 1429);
+        netting.addPurchase(3, 30, 500);
+        netting.addPurchase(7, 71, 2857);
+
+        assertEquals(Arrays.asList(7, 3), netting.getBuyerIdList());
+        assertEquals(4286, netting.getBoughtShares(7));
+        assertEquals(500, netting.getBoughtShares(3));
+        assertEquals(Arrays.asList(70, 71), netting.getPendingPositionIdList(7));
+    }
+
+    @Test
+    public void testKeepsTheSettledRowsInOrder() {
+        OrderNetting netting = new OrderNetting();
+        netting.addSettledTransition(5);
+        netting.addSoldPosition(50);
+        netting.addSettledTransition(4);
+
+        assertEquals(Arrays.asList(5, 4), netting.getSettledTransitionIdList());
+        assertEquals(Collections.singletonList(50), netting.getSoldPositionIdList());
+    }
+
+    @Test
+    public void testClearForgetsEverything() {
+        OrderNetting netting = new OrderNetting();
+        netting.addPurchase(7, 70, 1429);
+        netting.addSettledTransition(5);
+        netting.addSoldPosition(50);
+        netting.clear();
+
+        assertTrue(netting.getBuyerIdList().isEmpty());
+        assertTrue(netting.getSettledTransitionIdList().isEmpty());
+        assertTrue(netting.getSoldPositionIdList().isEmpty());
+
+        netting.addPurchase(7, 72, 100);
+        assertEquals(100, netting.getBoughtShares(7));
+        assertEquals(Collections.singletonList(72), netting.getPendingPositionIdList(7));
+    }
+}
@@ -0,0 +1,264 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2015, Delta Star Team
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package com.deltastar.task7.core.service;
+
+import com.deltastar.task7.core.AbstractDatabaseTest;
+import com.deltastar.task7.core.repository.api.TransitionRepository;
+import com.deltastar.task7.core.repository.domain.Customer;
+import com.deltastar.task7.core.repository.domain.Fund;
+import com.deltastar.task7.core.service.exception.CfsException;
+import com.deltastart.task7.core.constants.CCConstants;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.aop.framework.Advised;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class CustomerServiceTest extends AbstractDatabaseTest {
+
+    @Autowired
+    private TransitionRepository transitionRepository;
+
+    private Fund fund;
+    private Customer alice;
+
+    @Before
+    public void setUp() throws Exception {
+        fund = createFund("Alpha Fund", "ALPH");
+        alice = createCustomer("alice", "100.00");
+    }
+
+    @Test
+    public void testBuyWithoutEnoughCashWritesNothing() throws Exception {
+        try {
+            customerService.buyFund(alice, String.valueOf(fund.getId()), "100.01", null);
+            fail();
+        } catch (CfsException e) {
+            assertEquals(CfsException.CODE_INSUFFICIENT_BALANCE, e.getCode());
+        }
+        assertEquals(money("100.00"), getCash(alice));
+        assertEquals(0, queryForLong("SELECT COUNT(*) FROM Transition"));
+        assertEquals(0, queryForLong("SELECT COUNT(*) FROM Position"));
+
+        customerService.buyFund(alice, String.valueOf(fund.getId()), "100.00", null);
+        assertEquals(0, getCash(alice));
+    }
+
+    @Test
+    public void testOrderReplayedWithTheSameRequestKeyIsPlacedOnce() throws Exception {
+        customerService.buyFund(alice, String.valueOf(fund.getId()), "30.00", "first");
+        customerService.buyFund(alice, String.valueOf(fund.getId()), "30.00", "first");
+        customerService.requestCheck(alice, "20.00", "second");
+        customerService.requestCheck(alice, "20.00", "second");
+
+        assertEquals(money("50.00"), getCash(alice));
+        assertEquals(2, queryForLong("SELECT COUNT(*) FROM Transition"));
+        assertEquals(2, queryForLong("SELECT COUNT(*) FROM TransitionRequestKey"));
+    }
+
+    @Test
+    public void testOrderPlacedWithAKeyAnotherNodeIsPlacingReplaysIt() throws Exception {
+        //the other node placed its order with the key, and committed it once this node had looked the key up.
+        customerService.buyFund(alice, String.valueOf(fund.getId()), "30.00", "other");
+        jdbcTemplate.update("UPDATE TransitionRequestKey SET requestKey = 'first'");
+
+        Object customerServiceTarget = ((Advised) customerService).getTargetSource().getTarget();
+        ReflectionTestUtils.setField(customerServiceTarget, "transitionRepository", missFirstRequestKey());
+        try {
+            customerService.buyFund(alice, String.valueOf(fund.getId()), "30.00", "first");
+        } finally {
+            ReflectionTestUtils.setField(customerServiceTarget, "transitionRepository", transitionRepository);
+        }
+
+        assertEquals(money("70.00"), getCash(alice));
+        assertEquals(1, queryForLong("SELECT COUNT(*) FROM Transition"));
+        assertEquals(1, queryForLong("SELECT COUNT(*) FROM Position"));
+    }
+
+    @Test
+    public void testFailedOrderGivesItsRequestKeyUp() throws Exception {
+        try {
+            customerService.buyFund(alice, String.valueOf(fund.getId()), "100.01", "first");
+            fail();
+        } catch (CfsException e) {
+            assertEquals(CfsException.CODE_INSUFFICIENT_BALANCE, e.getCode());
+        }
+        customerService.buyFund(alice, String.valueOf(fund.getId()), "100.00", "first");
+
+        assertEquals(0, getCash(alice));
+        assertEquals(1, queryForLong("SELECT COUNT(*) FROM Transition"));
+    }
+
+    @Test
+    public void testConcurrentOrdersCannotOverdraw() throws Exception {
+        //a stale customer, as held by a session, does not matter: the balance is checked by the update.
+        final Customer staleAlice = customerService.getCustomerById(alice.getId());
+        int orderCount = 10;
+        final CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executorService = Executors.newFixedThreadPool(orderCount);
+        List<Future<Boolean>> futureList = new ArrayList<>();
+        try {
+            for (int i = 0; i < orderCount; i++) {
+                final boolean buy = i % 2 == 0;
+                futureList.add(executorService.submit(new Callable<Boolean>() {
+                    @Override
+                    public Boolean call() throws Exception {
+                        start.await();
+                        try {
+                            if (buy) {
+                                customerService.buyFund(staleAlice, String.valueOf(fund.getId()), "30.00", null);
+                            } else {
+                                customerService.requestCheck(staleAlice, "30.00", null);
+                            }
+                            return true;
+                        } catch (CfsException e) {
+                            assertEquals(CfsException.CODE_INSUFFICIENT_BALANCE, e.getCode());
+                            return false;
+                        }
+                    }
+                }));
+            }
+            start.countDown();
+            int placedCount = 0;
+            for (Future<Boolean> future : futureList) {
+                if (future.get()) {
+                    placedCount++;
+                }
+            }
+            assertEquals(3, placedCount);
+        } finally {
+            executorService.shutdown();
+        }
+        assertEquals(money("10.00"), getCash(alice));
+        assertEquals(3, queryForLong("SELECT COUNT(*) FROM Transition WHERE status = ?", CCConstants.TRAN_STATUS_PENDING));
+        assertEquals(money("90.00"), queryForLong("SELECT SUM(amount) FROM Transition"));
+    }
+
+    @Test
+    public void testBasketWithAnUnknownFundWritesNothing() throws Exception {
+        assertBasketRejected(CfsException.CODE_INVALID_FUND_ID, new String[]{String.valueOf(fund.getId()), "999"},
+                new String[]{"10.00", "10.00"}, new String[]{"", ""});
+    }
+
+    @Test
+    public void testBasketWithoutEnoughSharesWritesNothing() throws Exception {
+        possess(alice, fund, "2.000");
+        assertBasketRejected(CfsException.CODE_INSUFFICIENT_SHARES, new String[]{String.valueOf(fund.getId()),
+                String.valueOf(fund.getId())}, new String[]{"10.00", ""}, new String[]{"1.500", "1.000"});
+        assertEquals(money("2.000"), getPossessedShares(alice, fund));
+    }
+
+    @Test
+    public void testBasketWithoutEnoughCashWritesNothing() throws Exception {
+        Fund otherFund = createFund("Beta Fund", "BETA");
+        assertBasketRejected(CfsException.CODE_INSUFFICIENT_BALANCE, new String[]{String.valueOf(fund.getId()),
+                String.valueOf(otherFund.getId())}, new String[]{"60.00", "40.01"}, new String[]{"", ""});
+    }
+
+    @Test
+    public void testBasketWritesEveryOrder() throws Exception {
+        Fund otherFund = createFund("Beta Fund", "BETA");
+        possess(alice, otherFund, "2.000");
+        int orderCount = customerService.submitBasket(alice, new String[]{String.valueOf(fund.getId()),
+                String.valueOf(otherFund.getId()), String.valueOf(fund.getId())},
+                new String[]{"60.00", "", " "}, new String[]{"", "1.500", ""});
+
+        assertEquals(2, orderCount);
+        assertEquals(money("40.00"), getCash(alice));
+        assertEquals(money("0.500"), getPossessedShares(alice, otherFund));
+        assertEquals(1, queryForLong("SELECT COUNT(*) FROM Transition WHERE fundId = ? AND type = ?"
+                + " AND amount = ?", fund.getId(), CCConstants.TRAN_TYPE_BUY_FUND, money("60.00")));
+        assertEquals(1, queryForLong("SELECT COUNT(*) FROM Transition WHERE fundId = ? AND type = ?"
+                + " AND shares = ?", otherFund.getId(), CCConstants.TRAN_TYPE_SELL_FUND, money("1.500")));
+        assertEquals(2, queryForLong("SELECT COUNT(*) FROM Position WHERE status <> ?",
+                CCConstants.POSITION_STATUS_IN_POSSESSION));
+    }
+
+    private void assertBasketRejected(int code, String[] fundIds, String[] buyAmounts, String[] sellShares)
+            throws Exception {
+        long positionCount = queryForLong("SELECT COUNT(*) FROM Position");
+        try {
+            customerService.submitBasket(alice, fundIds, buyAmounts, sellShares);
+            fail();
+        } catch (CfsException e) {
+            assertEquals(code, e.getCode());
+        }
+        assertEquals(money("100.00"), getCash(alice));
+        assertEquals(0, queryForLong("SELECT COUNT(*) FROM Transition"));
+        assertEquals(positionCount, queryForLong("SELECT COUNT(*) FROM Position"));
+    }
+
+    /**
+     * @return the transition repository, except that the first request key looked up is not found
+     */
+    private TransitionRepository missFirstRequestKey() {
+        return (TransitionRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{TransitionRepository.class}, new InvocationHandler() {
+                    private boolean missed;
+
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                        if (method.getName().equals("getRequestKey") && !missed) {
+                            missed = true;
+                            return null;
+                        }
+                        try {
+                            return method.invoke(transitionRepository, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    }
+                });
+    }
+
+    private void possess(Customer customer, Fund fund, String shares) throws CfsException {
+        jdbcTemplate.update("INSERT INTO Position (customerId, fundId, shares, status) VALUES (?, ?, ?, ?)",
+                customer.getId(), fund.getId(), money(shares), CCConstants.POSITION_STATUS_IN_POSSESSION);
+    }
+
+    private long getPossessedShares(Customer customer, Fund fund) {
+        return queryForLong("SELECT shares FROM Position WHERE customerId = ? AND fundId = ? AND status = ?",
+                customer.getId(), fund.getId(), CCConstants.POSITION_STATUS_IN_POSSESSION);
+    }
+
+    private long getCash(Customer customer) {
+        return queryForLong("SELECT cash FROM Customer WHERE id = ?", customer.getId());
+    }
+}
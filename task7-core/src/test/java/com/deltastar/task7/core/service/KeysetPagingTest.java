@@ -0,0 +1,213 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2015, Delta Star Team
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package com.deltastar.task7.core.service;
+
+import com.deltastar.task7.core.AbstractDatabaseTest;
+import com.deltastar.task7.core.repository.domain.Customer;
+import com.deltastar.task7.core.repository.domain.CustomerSummary;
+import com.deltastar.task7.core.repository.domain.Fund;
+import com.deltastar.task7.core.repository.domain.FundPriceHistoryView;
+import com.deltastar.task7.core.repository.domain.KeysetPage;
+import com.deltastar.task7.core.repository.domain.TransitionView;
+import com.deltastar.task7.core.service.api.EmployeeService;
+import com.deltastar.task7.core.service.api.SettlementService;
+import com.deltastart.task7.core.constants.CCConstants;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class KeysetPagingTest extends AbstractDatabaseTest {
+
+    @Autowired
+    private EmployeeService employeeService;
+    @Autowired
+    private SettlementService settlementService;
+
+    @Test
+    public void testPagesThePriceHistoryWithoutSkippingAPrice() throws Exception {
+        Fund fund = createFund("Alpha Fund", "ALPH");
+        for (int day = 5; day <= 9; day++) {
+            settlementService.executeTransitionDay(Collections.singletonMap(fund.getId(), money(day + ".00")),
+                    day("01/0" + day + "/2015"));
+        }
+
+        List<Long> priceList = new ArrayList<>();
+        String cursor = null;
+        int pageCount = 0;
+        do {
+            KeysetPage<FundPriceHistoryView> page = employeeService.getFundPriceHistoryViewPage(
+                    String.valueOf(fund.getId()), "01/06/2015", "", cursor, "2");
+            for (FundPriceHistoryView fundPriceHistoryView : page.getItems()) {
+                priceList.add(fundPriceHistoryView.getPrice());
+            }
+            cursor = page.getNextCursor();
+            pageCount++;
+        } while (cursor != null);
+
+        assertEquals(2, pageCount);
+        assertEquals(4, priceList.size());
+        for (int i = 0; i < priceList.size(); i++) {
+            assertEquals(money((9 - i) + ".00"), (long) priceList.get(i));
+        }
+    }
+
+    @Test
+    public void testPagesTheTransitionsAcrossCreatedAtTies() throws Exception {
+        Customer alice = createCustomer("alice", "100.00");
+        Customer bob = createCustomer("bob", "100.00");
+        Fund fund = createFund("Alpha Fund", "ALPH");
+        //the transitions of one instant are split by the page boundaries, the id breaks the ties.
+        String[] createdAts = {"2015-01-05 10:00:00", "2015-01-05 10:00:00.000001", "2015-01-05 10:00:00",
+                "2015-01-05 10:00:00.000001", "2015-01-05 10:00:00", "2015-01-06 09:00:00", "2015-01-05 10:00:00"};
+        for (int i = 0; i < createdAts.length; i++) {
+            jdbcTemplate.update("INSERT INTO Transition (customerId, fundId, positionId, type, amount, status, createdAt)"
+                            + " VALUES (?, ?, 0, ?, ?, ?, ?)", i % 3 == 2 ? bob.getId() : alice.getId(), fund.getId(),
+                    CCConstants.TRAN_TYPE_BUY_FUND, money((i + 1) + ".00"), CCConstants.TRAN_STATUS_PENDING,
+                    Timestamp.valueOf(createdAts[i]));
+        }
+
+        List<Integer> transitionIdList = new ArrayList<>();
+        String cursor = null;
+        do {
+            KeysetPage<TransitionView> page = employeeService.getTransitionViewPage(cursor, "2");
+            cursor = addTransitionIds(transitionIdList, page);
+        } while (cursor != null);
+        assertEquals(jdbcTemplate.queryForList("SELECT id FROM Transition ORDER BY createdAt DESC, id DESC",
+                Integer.class), transitionIdList);
+
+        transitionIdList.clear();
+        do {
+            KeysetPage<TransitionView> page = customerService.getTransitionViewPageByCustomerId(alice.getId(), cursor, "2");
+            cursor = addTransitionIds(transitionIdList, page);
+        } while (cursor != null);
+        assertEquals(jdbcTemplate.queryForList("SELECT id FROM Transition WHERE customerId = ?"
+                + " ORDER BY createdAt DESC, id DESC", Integer.class, alice.getId()), transitionIdList);
+    }
+
+    @Test
+    public void testPagesTheCustomersAcrossNullSortValues() throws Exception {
+        String[] firstNames = {"Bea", null, "Al", null, "Bea"};
+        for (int i = 0; i < firstNames.length; i++) {
+            createCustomer("customer" + i, "0.00");
+        }
+        //the schema does not allow a null name, an older table may hold some.
+        jdbcTemplate.execute("ALTER TABLE Customer ALTER COLUMN firstName SET NULL");
+        try {
+            for (int i = 0; i < firstNames.length; i++) {
+                jdbcTemplate.update("UPDATE Customer SET firstName = ? WHERE id = ?", firstNames[i], i + 1);
+            }
+
+            assertEquals(Arrays.asList(2, 4, 3, 1, 5), getCustomerIds("asc"));
+            assertEquals(Arrays.asList(5, 1, 3, 4, 2), getCustomerIds("desc"));
+        } finally {
+            jdbcTemplate.update("UPDATE Customer SET firstName = '' WHERE firstName IS NULL");
+            jdbcTemplate.execute("ALTER TABLE Customer ALTER COLUMN firstName SET NOT NULL");
+        }
+    }
+
+    @Test
+    public void testPagesTheCustomersPastARenamedOrDeletedRow() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            createCustomer("customer." + i, "0.00");
+        }
+
+        KeysetPage<CustomerSummary> page = employeeService.getCustomerSummaryPage("", CCConstants.SORT_BY_USER_NAME,
+                "asc", null, "2");
+        assertEquals("2.customer.1", page.getNextCursor());
+        //the last row of the page moves to the end of the list, the next page still starts after its old name.
+        jdbcTemplate.update("UPDATE Customer SET userName = 'zed' WHERE id = 2");
+        page = employeeService.getCustomerSummaryPage("", CCConstants.SORT_BY_USER_NAME, "asc", page.getNextCursor(), "2");
+        assertEquals(Arrays.asList(3, 4), getIds(page));
+
+        jdbcTemplate.update("DELETE FROM Customer WHERE id = 4");
+        page = employeeService.getCustomerSummaryPage("", CCConstants.SORT_BY_USER_NAME, "asc", page.getNextCursor(), "2");
+        assertEquals(Arrays.asList(5, 2), getIds(page));
+        assertFalse(page.isHasNext());
+    }
+
+    @Test
+    public void testAFundHasOnePriceADate() throws Exception {
+        Fund fund = createFund("Alpha Fund", "ALPH");
+        settlementService.executeTransitionDay(Collections.singletonMap(fund.getId(), money("10.00")),
+                day("01/05/2015"));
+        try {
+            jdbcTemplate.update("INSERT INTO FundPriceHistory (fundId, price, priceDate) VALUES (?, ?, ?)",
+                    fund.getId(), money("11.00"), day("01/05/2015"));
+            fail();
+        } catch (DataIntegrityViolationException e) {
+            assertEquals(1, queryForLong("SELECT COUNT(*) FROM FundPriceHistory"));
+        }
+        assertFalse(employeeService.getFundPriceHistoryViewPage(String.valueOf(fund.getId()), "", "", null, "1")
+                .isHasNext());
+    }
+
+    /**
+     * Read the customers sorted by first name, two by two.
+     */
+    private List<Integer> getCustomerIds(String order) throws Exception {
+        List<Integer> customerIdList = new ArrayList<>();
+        String cursor = null;
+        do {
+            KeysetPage<CustomerSummary> page = employeeService.getCustomerSummaryPage("", CCConstants.SORT_BY_FIRST_NAME,
+                    order, cursor, "2");
+            assertTrue(page.getItems().size() <= 2);
+            for (CustomerSummary customerSummary : page.getItems()) {
+                customerIdList.add(customerSummary.getId());
+            }
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        return customerIdList;
+    }
+
+    private static List<Integer> getIds(KeysetPage<CustomerSummary> page) {
+        List<Integer> idList = new ArrayList<>();
+        for (CustomerSummary customerSummary : page.getItems()) {
+            idList.add(customerSummary.getId());
+        }
+        return idList;
+    }
+
+    /**
+     * @return the cursor of the next page
+     */
+    private static String addTransitionIds(List<Integer> transitionIdList, KeysetPage<TransitionView> page) {
+        assertTrue(page.getItems().size() <= 2);
+        for (TransitionView transitionView : page.getItems()) {
+            transitionIdList.add(transitionView.getId());
+        }
+        return page.getNextCursor();
+    }
+}
@@ -0,0 +1,247 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2015, Delta Star Team
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package com.deltastar.task7.core.service;
+
+import com.deltastar.task7.core.AbstractDatabaseTest;
+import com.deltastar.task7.core.journal.JournalEntry;
+import com.deltastar.task7.core.journal.OrderJournal;
+import com.deltastar.task7.core.repository.api.OrderJournalDeadLetterRepository;
+import com.deltastar.task7.core.repository.domain.Customer;
+import com.deltastar.task7.core.repository.domain.Fund;
+import com.deltastar.task7.core.repository.domain.OrderJournalDeadLetter;
+import com.deltastar.task7.core.repository.domain.TransitionView;
+import com.deltastar.task7.core.service.api.OrderJournalDrainService;
+import com.deltastar.task7.core.service.api.impl.OrderJournalServiceImpl;
+import com.deltastar.task7.core.service.exception.CfsException;
+import com.deltastart.task7.core.constants.CCConstants;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationContext;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class OrderJournalServiceTest extends AbstractDatabaseTest {
+
+    private static final String JOURNAL_NAME = "test";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Autowired
+    private ApplicationContext applicationContext;
+    @Autowired
+    private OrderJournalDrainService orderJournalDrainService;
+    @Autowired
+    private OrderJournalDeadLetterRepository orderJournalDeadLetterRepository;
+
+    private Fund fund;
+    private Customer alice;
+
+    @Before
+    public void setUp() throws Exception {
+        fund = createFund("Alpha Fund", "ALPH");
+        alice = createCustomer("alice", "100.00");
+    }
+
+    @Test
+    public void testReplaysTheJournalFromItsCheckpointWithoutDoubleInserts() throws Exception {
+        OrderJournal journal = new OrderJournal(temporaryFolder.getRoot(), JOURNAL_NAME, 4096);
+        journal.open(orderJournalDrainService.getDrainedSequence(JOURNAL_NAME));
+        for (int i = 1; i <= 3; i++) {
+            journal.append(alice.getId(), fund.getId(), CCConstants.TRAN_TYPE_BUY_FUND, money(i + "0.00"), 0, null);
+        }
+
+        assertEquals(2, orderJournalDrainService.drainBatch(JOURNAL_NAME, journal.read(0, 2)));
+        assertDrained(2, "70.00");
+
+        //a batch drained again, by a second drainer or after a failed release, is skipped.
+        assertEquals(2, orderJournalDrainService.drainBatch(JOURNAL_NAME, journal.read(0, 2)));
+        assertDrained(2, "70.00");
+
+        //the application stops before the last order is drained, the next one drains only that order.
+        journal.close();
+        startOrderJournalService().destroy();
+
+        assertDrained(3, "40.00");
+        assertEquals(3, orderJournalDrainService.getDrainedSequence(JOURNAL_NAME));
+        for (int i = 1; i <= 3; i++) {
+            assertEquals(1, queryForLong("SELECT COUNT(*) FROM Transition WHERE amount = ?", money(i + "0.00")));
+        }
+    }
+
+    @Test
+    public void testDrainsAnOrderJournaledTwiceWithTheSameRequestKeyOnce() throws Exception {
+        OrderJournal journal = new OrderJournal(temporaryFolder.getRoot(), JOURNAL_NAME, 4096);
+        journal.open(orderJournalDrainService.getDrainedSequence(JOURNAL_NAME));
+        journal.append(alice.getId(), fund.getId(), CCConstants.TRAN_TYPE_BUY_FUND, money("10.00"), 0, "first");
+        journal.append(alice.getId(), fund.getId(), CCConstants.TRAN_TYPE_BUY_FUND, money("10.00"), 0, "first");
+        journal.append(alice.getId(), fund.getId(), CCConstants.TRAN_TYPE_BUY_FUND, money("20.00"), 0, "second");
+        assertEquals(3, orderJournalDrainService.drainBatch(JOURNAL_NAME, journal.read(0, 10)));
+        assertDrained(2, "70.00");
+
+        //a replay journaled after the first order was drained.
+        journal.append(alice.getId(), fund.getId(), CCConstants.TRAN_TYPE_BUY_FUND, money("10.00"), 0, "first");
+        assertEquals(4, orderJournalDrainService.drainBatch(JOURNAL_NAME, journal.read(3, 10)));
+        assertDrained(2, "70.00");
+        assertEquals(2, queryForLong("SELECT COUNT(*) FROM TransitionRequestKey k JOIN Transition t"
+                + " ON t.id = k.transitionId WHERE k.customerId = ?", alice.getId()));
+        journal.close();
+    }
+
+    @Test
+    public void testDropsAReplayedOrder() throws Exception {
+        OrderJournalServiceImpl orderJournalService = startOrderJournalService();
+        try {
+            orderJournalService.buyFund(alice, String.valueOf(fund.getId()), "10.00", "first");
+            orderJournalService.buyFund(alice, String.valueOf(fund.getId()), "10.00", "first");
+            //the replay does not reserve the cash a second time.
+            orderJournalService.buyFund(alice, String.valueOf(fund.getId()), "90.00", "second");
+        } finally {
+            orderJournalService.destroy();
+        }
+        assertDrained(2, "0.00");
+
+        //the journal is drained, the request key recorded with the transition drops the replay.
+        orderJournalService = startOrderJournalService();
+        try {
+            orderJournalService.buyFund(alice, String.valueOf(fund.getId()), "10.00", "first");
+        } finally {
+            orderJournalService.destroy();
+        }
+        assertDrained(2, "0.00");
+    }
+
+    @Test
+    public void testKeepsTheTimeAnOrderWasAccepted() throws Exception {
+        OrderJournal journal = new OrderJournal(temporaryFolder.getRoot(), JOURNAL_NAME, 4096);
+        journal.open(orderJournalDrainService.getDrainedSequence(JOURNAL_NAME));
+        journal.append(alice.getId(), fund.getId(), CCConstants.TRAN_TYPE_BUY_FUND, money("10.00"), 0, null);
+        journal.append(alice.getId(), fund.getId(), CCConstants.TRAN_TYPE_BUY_FUND, money("200.00"), 0, null);
+        List<JournalEntry> entryList = journal.read(0, 10);
+        Thread.sleep(50);
+
+        orderJournalDrainService.drainBatch(JOURNAL_NAME, entryList);
+
+        assertEquals(entryList.get(0).getCreatedAt(), getCreatedAt(money("10.00")));
+        assertEquals(entryList.get(1).getCreatedAt(), getCreatedAt(money("200.00")));
+        journal.close();
+    }
+
+    @Test
+    public void testShowsAnUncoveredOrderRejectedToTheCustomer() throws Exception {
+        OrderJournal journal = new OrderJournal(temporaryFolder.getRoot(), JOURNAL_NAME, 4096);
+        journal.open(orderJournalDrainService.getDrainedSequence(JOURNAL_NAME));
+        //accepted against the reservations of another node, which did not know of the cash spent here.
+        jdbcTemplate.update("UPDATE Customer SET cash = ? WHERE id = ?", money("5.00"), alice.getId());
+        journal.append(alice.getId(), fund.getId(), CCConstants.TRAN_TYPE_BUY_FUND, money("10.00"), 0, "first");
+        orderJournalDrainService.drainBatch(JOURNAL_NAME, journal.read(0, 10));
+        journal.close();
+
+        List<TransitionView> transitionViewList = customerService.getTransitionViewListByCustomerId(alice.getId());
+        assertEquals(1, transitionViewList.size());
+        assertEquals(TransitionView.REJECTED, transitionViewList.get(0).getTime());
+        assertEquals(money("5.00"), queryForLong("SELECT cash FROM Customer WHERE id = ?", alice.getId()));
+
+        //a replay of the order gets the rejection.
+        OrderJournalServiceImpl orderJournalService = startOrderJournalService();
+        try {
+            orderJournalService.buyFund(alice, String.valueOf(fund.getId()), "10.00", "first");
+            fail();
+        } catch (CfsException e) {
+            assertEquals(CfsException.CODE_INSUFFICIENT_BALANCE, e.getCode());
+        } finally {
+            orderJournalService.destroy();
+        }
+    }
+
+    @Test
+    public void testRecordsAnOrderWhichCannotBeDrainedAsADeadLetter() throws Exception {
+        OrderJournal journal = new OrderJournal(temporaryFolder.getRoot(), JOURNAL_NAME, 4096);
+        journal.open(orderJournalDrainService.getDrainedSequence(JOURNAL_NAME));
+        journal.append(alice.getId(), fund.getId(), CCConstants.TRAN_TYPE_BUY_FUND, money("10.00"), 0, null);
+        //the customer does not exist, the order fails every time it is written.
+        journal.append(alice.getId() + 1, fund.getId(), CCConstants.TRAN_TYPE_BUY_FUND, money("10.00"), 0, null);
+        journal.append(alice.getId(), fund.getId(), CCConstants.TRAN_TYPE_BUY_FUND, money("20.00"), 0, null);
+        journal.close();
+
+        OrderJournalServiceImpl orderJournalService = new OrderJournalServiceImpl();
+        applicationContext.getAutowireCapableBeanFactory().autowireBean(orderJournalService);
+        orderJournalService.setEnabled(true);
+        orderJournalService.setDirectory(temporaryFolder.getRoot().getPath());
+        orderJournalService.setJournalName(JOURNAL_NAME);
+        orderJournalService.setDrainIntervalMillis(10);
+        orderJournalService.setMaxDrainAttempts(3);
+        orderJournalService.init();
+        try {
+            long deadline = System.currentTimeMillis() + 10000;
+            while (orderJournalDrainService.getDrainedSequence(JOURNAL_NAME) < 3) {
+                assertTrue(System.currentTimeMillis() < deadline);
+                Thread.sleep(10);
+            }
+        } finally {
+            orderJournalService.destroy();
+        }
+
+        //the orders behind it are drained.
+        assertDrained(2, "70.00");
+        List<OrderJournalDeadLetter> deadLetterList =
+                orderJournalDeadLetterRepository.getOrderJournalDeadLetterListByName(JOURNAL_NAME);
+        assertEquals(1, deadLetterList.size());
+        assertEquals(2, deadLetterList.get(0).getSequence());
+        assertEquals(alice.getId() + 1, deadLetterList.get(0).getCustomerId());
+        assertEquals(money("10.00"), deadLetterList.get(0).getAmount());
+    }
+
+    private OrderJournalServiceImpl startOrderJournalService() throws Exception {
+        OrderJournalServiceImpl orderJournalService = new OrderJournalServiceImpl();
+        applicationContext.getAutowireCapableBeanFactory().autowireBean(orderJournalService);
+        orderJournalService.setEnabled(true);
+        orderJournalService.setDirectory(temporaryFolder.getRoot().getPath());
+        orderJournalService.setJournalName(JOURNAL_NAME);
+        orderJournalService.init();
+        return orderJournalService;
+    }
+
+    private long getCreatedAt(long amount) {
+        return jdbcTemplate.queryForObject("SELECT createdAt FROM Transition WHERE amount = ?", Timestamp.class,
+                amount).getTime();
+    }
+
+    private void assertDrained(int transitionCount, String cash) throws Exception {
+        assertEquals(transitionCount, queryForLong("SELECT COUNT(*) FROM Transition WHERE status = ?",
+                CCConstants.TRAN_STATUS_PENDING));
+        assertEquals(transitionCount, queryForLong("SELECT COUNT(*) FROM Position WHERE status = ?",
+                CCConstants.POSITION_STATUS_TO_BE_BOUGHT));
+        assertEquals(money(cash), queryForLong("SELECT cash FROM Customer WHERE id = ?", alice.getId()));
+    }
+}
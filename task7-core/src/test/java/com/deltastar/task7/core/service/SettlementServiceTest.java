@@ -0,0 +1,525 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2015, Delta Star Team
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package com.deltastar.task7.core.service;
+
+import com.deltastar.task7.core.AbstractDatabaseTest;
+import com.deltastar.task7.core.repository.domain.Customer;
+import com.deltastar.task7.core.repository.domain.Fund;
+import com.deltastar.task7.core.repository.domain.SettlementCheckpoint;
+import com.deltastar.task7.core.repository.domain.SettlementPreview;
+import com.deltastar.task7.core.repository.domain.SettlementRun;
+import com.deltastar.task7.core.service.api.EmployeeService;
+import com.deltastar.task7.core.service.api.FundSettlementService;
+import com.deltastar.task7.core.service.api.SettlementService;
+import com.deltastar.task7.core.service.api.impl.FundSettlementServiceImpl;
+import com.deltastar.task7.core.service.api.impl.SettlementServiceImpl;
+import com.deltastar.task7.core.service.exception.CfsException;
+import com.deltastart.task7.core.constants.CCConstants;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.aop.framework.Advised;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class SettlementServiceTest extends AbstractDatabaseTest {
+
+    @Autowired
+    private SettlementService settlementService;
+    @Autowired
+    private EmployeeService employeeService;
+    @Autowired
+    private FundSettlementService fundSettlementService;
+
+    private FundSettlementServiceImpl fundSettlementServiceTarget;
+    private Map<String, Object> settingByName;
+    private Fund fundA;
+    private Fund fundB;
+    private Customer alice;
+    private Customer bob;
+
+    @Before
+    public void setUp() throws Exception {
+        fundSettlementServiceTarget = (FundSettlementServiceImpl) ((Advised) fundSettlementService).getTargetSource().getTarget();
+        settingByName = new LinkedHashMap<>();
+        for (String name : new String[]{"writeMode", "batchSize", "readMode", "chunkSize"}) {
+            settingByName.put(name, ReflectionTestUtils.getField(fundSettlementServiceTarget, name));
+        }
+        createFundsAndCustomers();
+    }
+
+    @After
+    public void tearDown() {
+        for (Map.Entry<String, Object> entry : settingByName.entrySet()) {
+            ReflectionTestUtils.setField(fundSettlementServiceTarget, entry.getKey(), entry.getValue());
+        }
+    }
+
+    private void createFundsAndCustomers() throws CfsException {
+        fundA = createFund("Alpha Fund", "ALPH");
+        fundB = createFund("Beta Fund", "BETA");
+        alice = createCustomer("alice", "1000.00");
+        bob = createCustomer("bob", "500.00");
+    }
+
+    @Test
+    public void testSettlesEveryOrderOfTheDay() throws Exception {
+        customerService.buyFund(alice, String.valueOf(fundA.getId()), "100.00", null);
+        customerService.buyFund(bob, String.valueOf(fundB.getId()), "50.00", null);
+        employeeService.depositCheck(String.valueOf(bob.getId()), "20.00");
+        customerService.requestCheck(alice, "30.00", null);
+
+        settlementService.executeTransitionDay(prices(fundA, "10.00", fundB, "5.00"), day("01/05/2015"));
+
+        assertEquals(money("870.00"), getCash(alice));
+        assertEquals(money("470.00"), getCash(bob));
+        assertEquals(0, queryForLong("SELECT SUM(cashToBeDeposited) + SUM(cashToBeChecked) FROM Customer"));
+        assertEquals(money("10.000"), getPossessedShares(alice, fundA));
+        assertEquals(money("10.000"), getPossessedShares(bob, fundB));
+        assertEquals(0, getPendingTransitionCount());
+        assertEquals(money("10.00"), queryForLong("SELECT lastPrice FROM Fund WHERE id = ?", fundA.getId()));
+        assertEquals(2, queryForLong("SELECT COUNT(*) FROM FundPriceHistory"));
+
+        customerService.sellFund(alice, String.valueOf(fundA.getId()), "4.000", null);
+        settlementService.executeTransitionDay(prices(fundA, "12.50"), day("01/06/2015"));
+
+        assertEquals(money("920.00"), getCash(alice));
+        assertEquals(money("6.000"), getPossessedShares(alice, fundA));
+        assertEquals(0, getPendingTransitionCount());
+    }
+
+    @Test
+    public void testRejectsAFundPricedTwice() throws Exception {
+        customerService.buyFund(alice, String.valueOf(fundA.getId()), "100.00", null);
+        String fundId = String.valueOf(fundA.getId());
+        try {
+            employeeService.executeTransitionDay(new String[]{"10.00", "11.00"}, new String[]{fundId, fundId}, "01/05/2015");
+            fail();
+        } catch (CfsException e) {
+            assertEquals(CfsException.CODE_INVALID_FUND_ID, e.getCode());
+        }
+        assertEquals(0, queryForLong("SELECT COUNT(*) FROM SettlementRun"));
+        assertEquals(1, getPendingTransitionCount());
+    }
+
+    @Test
+    public void testNetsTheBuysOfACustomerIntoOnePosition() throws Exception {
+        String a = String.valueOf(fundA.getId());
+        customerService.buyFund(alice, a, "10.00", null);
+        customerService.buyFund(alice, a, "20.00", null);
+        customerService.buyFund(alice, a, "30.00", null);
+        settlementService.executeTransitionDay(prices(fundA, "7.00"), day("01/05/2015"));
+
+        //each order is rounded on its own: 1.429 + 2.857 + 4.286.
+        assertEquals(money("8.572"), getPossessedShares(alice, fundA));
+        assertEquals(1, getPositionCount(alice, fundA));
+        assertEquals(0, getPendingTransitionCount());
+
+        customerService.buyFund(alice, a, "14.00", null);
+        customerService.buyFund(alice, a, "7.00", null);
+        settlementService.executeTransitionDay(prices(fundA, "7.00"), day("01/06/2015"));
+
+        //the buys of the next day go to the position already held.
+        assertEquals(money("11.572"), getPossessedShares(alice, fundA));
+        assertEquals(1, getPositionCount(alice, fundA));
+        assertEquals(0, getPendingTransitionCount());
+    }
+
+    @Test
+    public void testPreviewMatchesTheSettlement() throws Exception {
+        String a = String.valueOf(fundA.getId());
+        String b = String.valueOf(fundB.getId());
+        customerService.buyFund(alice, a, "100.00", null);
+        customerService.buyFund(bob, b, "50.00", null);
+        settlementService.executeTransitionDay(prices(fundA, "10.00", fundB, "5.00"), day("01/05/2015"));
+
+        Fund fundC = createFund("Gamma Fund", "GAMA");
+        customerService.sellFund(alice, a, "5.000", null);
+        customerService.buyFund(alice, b, "15.00", null);
+        customerService.buyFund(bob, a, "10.00", null);
+        customerService.buyFund(bob, String.valueOf(fundC.getId()), "10.00", null);
+        employeeService.depositCheck(String.valueOf(bob.getId()), "5.00");
+        customerService.requestCheck(alice, "10.00", null);
+        Map<Integer, Long> priceByFundId = prices(fundA, "7.50", fundB, "2.90");
+        List<String> stateBefore = getSettledState();
+        long aliceCash = getCash(alice);
+        long bobCash = getCash(bob);
+        long positionCount = queryForLong("SELECT COUNT(*) FROM Position WHERE status = ?",
+                CCConstants.POSITION_STATUS_IN_POSSESSION);
+
+        SettlementPreview preview = settlementService.previewTransitionDay(priceByFundId, day("01/06/2015"), 0);
+
+        //the preview writes nothing.
+        assertEquals(stateBefore, getSettledState());
+        assertEquals(1, queryForLong("SELECT COUNT(*) FROM SettlementRun"));
+        assertEquals(money("10.00"), queryForLong("SELECT lastPrice FROM Fund WHERE id = ?", fundA.getId()));
+
+        settlementService.executeTransitionDay(priceByFundId, day("01/06/2015"));
+
+        assertEquals(5, preview.getTransitionCount());
+        //the order of the fund without a price stays pending.
+        assertEquals(1, preview.getSkippedTransitionCount());
+        assertEquals(1, getPendingTransitionCount());
+        assertEquals(2, preview.getCustomerCount());
+        assertEquals((getCash(alice) - aliceCash) + (getCash(bob) - bobCash), preview.getCashCredited());
+        assertEquals(money("10.00"), preview.getCashChecked());
+        assertEquals(0, queryForLong("SELECT SUM(cashToBeChecked) FROM Customer"));
+        assertEquals(queryForLong("SELECT COUNT(*) FROM Position WHERE status = ?",
+                CCConstants.POSITION_STATUS_IN_POSSESSION) - positionCount, preview.getPositionCreatedCount());
+        assertEquals(2, preview.getPositionCreatedCount());
+        for (SettlementPreview.CustomerPreview customerPreview : preview.getCustomerList()) {
+            long cashBefore = customerPreview.getCustomerId() == alice.getId() ? aliceCash : bobCash;
+            assertEquals(queryForLong("SELECT cash FROM Customer WHERE id = ?", customerPreview.getCustomerId())
+                    - cashBefore, customerPreview.getCashCredited());
+        }
+    }
+
+    @Test
+    public void testSettlesFundsInParallel() throws Exception {
+        Fund fundC = createFund("Gamma Fund", "GAMA");
+        Fund fundD = createFund("Delta Fund", "DELT");
+        Fund[] funds = {fundA, fundB, fundC, fundD};
+        for (Fund fund : funds) {
+            customerService.buyFund(alice, String.valueOf(fund.getId()), "100.00", null);
+            customerService.buyFund(bob, String.valueOf(fund.getId()), "50.00", null);
+        }
+
+        SettlementServiceImpl parallelSettlementService = createParallelSettlementService(4);
+        try {
+            parallelSettlementService.executeTransitionDay(prices(fundA, "10.00", fundB, "10.00", fundC, "10.00",
+                    fundD, "10.00"), day("01/05/2015"));
+            for (Fund fund : funds) {
+                assertEquals(money("10.000"), getPossessedShares(alice, fund));
+                assertEquals(money("5.000"), getPossessedShares(bob, fund));
+                customerService.sellFund(alice, String.valueOf(fund.getId()), "2.000", null);
+                customerService.sellFund(bob, String.valueOf(fund.getId()), "2.000", null);
+            }
+
+            //every fund credits the same two customers at the same time.
+            parallelSettlementService.executeTransitionDay(prices(fundA, "20.00", fundB, "20.00", fundC, "20.00",
+                    fundD, "20.00"), day("01/06/2015"));
+        } finally {
+            parallelSettlementService.destroy();
+        }
+
+        assertEquals(money("760.00"), getCash(alice));
+        assertEquals(money("460.00"), getCash(bob));
+        for (Fund fund : funds) {
+            assertEquals(money("8.000"), getPossessedShares(alice, fund));
+            assertEquals(money("3.000"), getPossessedShares(bob, fund));
+        }
+        assertEquals(0, getPendingTransitionCount());
+        assertEquals(0, queryForLong("SELECT COUNT(*) FROM SettlementCheckpoint WHERE status <> ?",
+                CCConstants.SETTLEMENT_STATUS_DONE));
+    }
+
+    @Test
+    public void testResumesAFailedRunFromItsCheckpoints() throws Exception {
+        customerService.buyFund(alice, String.valueOf(fundA.getId()), "100.00", null);
+        customerService.buyFund(bob, String.valueOf(fundB.getId()), "50.00", null);
+        employeeService.depositCheck(String.valueOf(bob.getId()), "20.00");
+
+        SettlementServiceImpl failingSettlementService = new SettlementServiceImpl();
+        ReflectionTestUtils.setField(failingSettlementService, "fundSettlementService",
+                failOnceSettlingFund(fundB.getId()));
+        failingSettlementService.init();
+        try {
+            try {
+                failingSettlementService.executeTransitionDay(prices(fundA, "10.00", fundB, "5.00"), day("01/05/2015"));
+                fail();
+            } catch (CfsException e) {
+                assertEquals(CfsException.CODE_SETTLEMENT_FAILED, e.getCode());
+            }
+            int runId = settlementService.getLatestRun().getId();
+            assertEquals(CCConstants.SETTLEMENT_STATUS_FAILED, settlementService.getLatestRun().getStatus());
+            //the fund settled before the failure and the cash are committed, the failed fund is untouched.
+            assertEquals(money("10.000"), getPossessedShares(alice, fundA));
+            assertEquals(0, getPossessedShares(bob, fundB));
+            assertEquals(money("470.00"), getCash(bob));
+            assertEquals(1, getPendingTransitionCount());
+            assertEquals(CCConstants.SETTLEMENT_STATUS_FAILED, queryForLong(
+                    "SELECT status FROM SettlementCheckpoint WHERE runId = ? AND fundId = ?", runId, fundB.getId()));
+
+            failingSettlementService.resumeTransitionDay(runId);
+
+            assertEquals(CCConstants.SETTLEMENT_STATUS_DONE, settlementService.getLatestRun().getStatus());
+            assertEquals(runId, settlementService.getLatestRun().getId());
+        } finally {
+            failingSettlementService.destroy();
+        }
+        //the resumed run settles only the failed fund, nothing is settled twice.
+        assertEquals(money("10.000"), getPossessedShares(alice, fundA));
+        assertEquals(money("10.000"), getPossessedShares(bob, fundB));
+        assertEquals(money("470.00"), getCash(bob));
+        assertEquals(0, getPendingTransitionCount());
+        assertEquals(1, queryForLong("SELECT COUNT(*) FROM FundPriceHistory WHERE fundId = ?", fundA.getId()));
+        assertEquals(1, queryForLong("SELECT COUNT(*) FROM FundPriceHistory WHERE fundId = ?", fundB.getId()));
+    }
+
+    @Test
+    public void testOrdersPlacedDuringARunWaitForTheNextRun() throws Exception {
+        customerService.buyFund(alice, String.valueOf(fundA.getId()), "100.00", null);
+        SettlementRun run = fundSettlementService.createRun(prices(fundA, "10.00"), day("01/05/2015"));
+
+        //placed after the run stamped the book, before its fund and its cash are settled, and resumed.
+        customerService.buyFund(bob, String.valueOf(fundA.getId()), "50.00", null);
+        employeeService.depositCheck(String.valueOf(bob.getId()), "20.00");
+        fundSettlementService.restartRun(run.getId());
+        for (SettlementCheckpoint checkpoint : fundSettlementService.getCheckpointList(run.getId())) {
+            if (checkpoint.getFundId() == CCConstants.SETTLEMENT_CASH_FUND_ID) {
+                fundSettlementService.settleCash(checkpoint.getId());
+            } else {
+                fundSettlementService.settleFund(checkpoint.getId());
+            }
+        }
+        assertEquals(CCConstants.SETTLEMENT_STATUS_DONE, fundSettlementService.finishRun(run.getId()).getStatus());
+
+        assertEquals(money("10.000"), getPossessedShares(alice, fundA));
+        assertEquals(0, getPossessedShares(bob, fundA));
+        assertEquals(money("450.00"), getCash(bob));
+        assertEquals(2, queryForLong("SELECT COUNT(*) FROM Transition WHERE status = ? AND executeDate IS NULL",
+                CCConstants.TRAN_STATUS_PENDING));
+
+        settlementService.executeTransitionDay(prices(fundA, "5.00"), day("01/06/2015"));
+
+        assertEquals(money("10.000"), getPossessedShares(bob, fundA));
+        assertEquals(money("470.00"), getCash(bob));
+        assertEquals(0, getPendingTransitionCount());
+    }
+
+    @Test
+    public void testOrdersPlacedWhileASubmittedRunSettlesWaitForTheNextRun() throws Exception {
+        customerService.buyFund(alice, String.valueOf(fundA.getId()), "100.00", null);
+        CountDownLatch settling = new CountDownLatch(1);
+        CountDownLatch placed = new CountDownLatch(1);
+        SettlementServiceImpl blockingSettlementService = new SettlementServiceImpl();
+        ReflectionTestUtils.setField(blockingSettlementService, "fundSettlementService",
+                waitBeforeSettling(settling, placed));
+        blockingSettlementService.init();
+        try {
+            int jobId = blockingSettlementService.submitTransitionDay(prices(fundA, "10.00"), day("01/05/2015"));
+            assertTrue(settling.await(10, TimeUnit.SECONDS));
+            //customers keep trading while the job settles.
+            customerService.buyFund(bob, String.valueOf(fundA.getId()), "50.00", null);
+            customerService.requestCheck(bob, "20.00", null);
+            placed.countDown();
+            long deadline = System.currentTimeMillis() + 10000;
+            while (blockingSettlementService.getJobStatus(jobId).isRunning()) {
+                assertTrue(System.currentTimeMillis() < deadline);
+                Thread.sleep(10);
+            }
+            assertEquals(CCConstants.SETTLEMENT_STATUS_DONE, settlementService.getLatestRun().getStatus());
+        } finally {
+            placed.countDown();
+            blockingSettlementService.destroy();
+        }
+
+        assertEquals(money("10.000"), getPossessedShares(alice, fundA));
+        assertEquals(0, getPossessedShares(bob, fundA));
+        assertEquals(money("20.00"), queryForLong("SELECT cashToBeChecked FROM Customer WHERE id = ?", bob.getId()));
+        assertEquals(2, getPendingTransitionCount());
+
+        settlementService.executeTransitionDay(prices(fundA, "5.00"), day("01/06/2015"));
+
+        assertEquals(money("10.000"), getPossessedShares(bob, fundA));
+        assertEquals(0, queryForLong("SELECT cashToBeChecked FROM Customer WHERE id = ?", bob.getId()));
+        assertEquals(0, getPendingTransitionCount());
+    }
+
+    /**
+     * @return the fund settlement service, except that the settlement of a fund or of the cash first
+     * signals the test and waits until it has placed its orders
+     */
+    private FundSettlementService waitBeforeSettling(final CountDownLatch settling, final CountDownLatch placed) {
+        return (FundSettlementService) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{FundSettlementService.class}, new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                        if (method.getName().equals("settleFund") || method.getName().equals("settleCash")) {
+                            settling.countDown();
+                            placed.await(10, TimeUnit.SECONDS);
+                        }
+                        try {
+                            return method.invoke(fundSettlementService, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    }
+                });
+    }
+
+    /**
+     * @return the fund settlement service, except that the first settlement of the fund fails before
+     * anything is written
+     */
+    private FundSettlementService failOnceSettlingFund(final int fundId) {
+        return (FundSettlementService) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{FundSettlementService.class}, new InvocationHandler() {
+                    private boolean failed;
+
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                        if (!failed && method.getName().equals("settleFund") && queryForLong(
+                                "SELECT fundId FROM SettlementCheckpoint WHERE id = ?", args[0]) == fundId) {
+                            failed = true;
+                            throw new IllegalStateException("settlement of fund " + fundId + " failed");
+                        }
+                        try {
+                            return method.invoke(fundSettlementService, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    }
+                });
+    }
+
+    @Test
+    public void testBatchWriteModeSettlesLikeEntityMode() throws Exception {
+        fundSettlementServiceTarget.setWriteMode(FundSettlementServiceImpl.WRITE_MODE_ENTITY);
+        List<String> entityState = settleTwoDays();
+
+        resetDatabase();
+        createFundsAndCustomers();
+        fundSettlementServiceTarget.setWriteMode(FundSettlementServiceImpl.WRITE_MODE_BATCH);
+        //batches smaller than the book, so that it is sent in several of them.
+        fundSettlementServiceTarget.setBatchSize(2);
+        assertEquals(entityState, settleTwoDays());
+    }
+
+    @Test
+    public void testStreamReadModeSettlesLikeListMode() throws Exception {
+        fundSettlementServiceTarget.setReadMode(FundSettlementServiceImpl.READ_MODE_LIST);
+        List<String> listState = settleTwoDays();
+
+        for (String writeMode : new String[]{FundSettlementServiceImpl.WRITE_MODE_ENTITY,
+                FundSettlementServiceImpl.WRITE_MODE_BATCH}) {
+            resetDatabase();
+            createFundsAndCustomers();
+            fundSettlementServiceTarget.setWriteMode(writeMode);
+            fundSettlementServiceTarget.setReadMode(FundSettlementServiceImpl.READ_MODE_STREAM);
+            //chunks smaller than the orders of a fund, so that a customer's orders span several chunks.
+            fundSettlementServiceTarget.setChunkSize(2);
+            assertEquals(writeMode, listState, settleTwoDays());
+        }
+    }
+
+    /**
+     * Settle two days of buys, sells, deposits and check requests of two customers in two funds,
+     * several orders of a customer in the same fund among them.
+     *
+     * @return the customers, positions and transitions once they are settled
+     */
+    private List<String> settleTwoDays() throws CfsException {
+        String a = String.valueOf(fundA.getId());
+        String b = String.valueOf(fundB.getId());
+        customerService.buyFund(alice, a, "100.00", null);
+        customerService.buyFund(alice, a, "50.00", null);
+        customerService.buyFund(alice, b, "30.00", null);
+        customerService.buyFund(bob, a, "25.00", null);
+        customerService.buyFund(bob, b, "25.00", null);
+        customerService.buyFund(bob, b, "10.00", null);
+        employeeService.depositCheck(String.valueOf(alice.getId()), "20.00");
+        customerService.requestCheck(bob, "10.00", null);
+        settlementService.executeTransitionDay(prices(fundA, "7.00", fundB, "3.00"), day("01/05/2015"));
+
+        customerService.sellFund(alice, a, "5.000", null);
+        customerService.sellFund(alice, a, "2.500", null);
+        customerService.sellFund(bob, b, "1.000", null);
+        customerService.buyFund(bob, a, "10.00", null);
+        customerService.buyFund(alice, b, "15.00", null);
+        employeeService.depositCheck(String.valueOf(bob.getId()), "5.00");
+        settlementService.executeTransitionDay(prices(fundA, "7.50", fundB, "2.90"), day("01/06/2015"));
+
+        assertEquals(0, getPendingTransitionCount());
+        //100 / 7 + 50 / 7 rounded order by order, less the shares sold.
+        assertEquals(money("13.929"), getPossessedShares(alice, fundA));
+        assertEquals(money("881.25"), getCash(alice));
+        return getSettledState();
+    }
+
+    private List<String> getSettledState() {
+        List<String> state = new ArrayList<>();
+        addRows(state, "SELECT id, cash, cashToBeDeposited, cashToBeChecked FROM Customer ORDER BY id");
+        addRows(state, "SELECT customerId, fundId, status, shares FROM Position ORDER BY customerId, fundId, status, shares");
+        addRows(state, "SELECT id, customerId, fundId, type, status, amount, shares, executeDate FROM Transition ORDER BY id");
+        return state;
+    }
+
+    private void addRows(List<String> state, String sql) {
+        for (Map<String, Object> row : jdbcTemplate.queryForList(sql)) {
+            state.add(row.toString());
+        }
+    }
+
+    private SettlementServiceImpl createParallelSettlementService(int parallelism) {
+        SettlementServiceImpl parallelSettlementService = new SettlementServiceImpl();
+        ReflectionTestUtils.setField(parallelSettlementService, "fundSettlementService", fundSettlementService);
+        parallelSettlementService.setMode(SettlementServiceImpl.MODE_PARALLEL);
+        parallelSettlementService.setParallelism(parallelism);
+        parallelSettlementService.init();
+        return parallelSettlementService;
+    }
+
+    private static Map<Integer, Long> prices(Object... fundAndPrice) throws CfsException {
+        Map<Integer, Long> priceByFundId = new LinkedHashMap<>();
+        for (int i = 0; i < fundAndPrice.length; i += 2) {
+            priceByFundId.put(((Fund) fundAndPrice[i]).getId(), money((String) fundAndPrice[i + 1]));
+        }
+        return priceByFundId;
+    }
+
+    private long getCash(Customer customer) {
+        return queryForLong("SELECT cash FROM Customer WHERE id = ?", customer.getId());
+    }
+
+    private long getPossessedShares(Customer customer, Fund fund) {
+        return queryForLong("SELECT COALESCE(SUM(shares), 0) FROM Position WHERE customerId = ? AND fundId = ? AND status = ?",
+                customer.getId(), fund.getId(), CCConstants.POSITION_STATUS_IN_POSSESSION);
+    }
+
+    private long getPositionCount(Customer customer, Fund fund) {
+        return queryForLong("SELECT COUNT(*) FROM Position WHERE customerId = ? AND fundId = ?",
+                customer.getId(), fund.getId());
+    }
+
+    private long getPendingTransitionCount() {
+        return queryForLong("SELECT COUNT(*) FROM Transition WHERE status = ?", CCConstants.TRAN_STATUS_PENDING);
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2015, Delta Star Team
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package com.deltastar.task7.core.service.catalog;
+
+import com.deltastar.task7.core.AbstractDatabaseTest;
+import com.deltastar.task7.core.repository.domain.BarChartJson;
+import com.deltastar.task7.core.repository.domain.Fund;
+import com.deltastar.task7.core.service.chart.BarChartCache;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+
+public class FundCatalogTest extends AbstractDatabaseTest {
+
+    @Autowired
+    private FundCatalog fundCatalog;
+    @Autowired
+    private BarChartCache barChartCache;
+
+    private Object checkIntervalMillis;
+    private Fund fund;
+
+    @Before
+    public void setUp() throws Exception {
+        checkIntervalMillis = ReflectionTestUtils.getField(fundCatalog, "checkIntervalMillis");
+        fund = createFund("Alpha Fund", "ALPH");
+    }
+
+    @After
+    public void tearDown() {
+        ReflectionTestUtils.setField(fundCatalog, "checkIntervalMillis", checkIntervalMillis);
+    }
+
+    @Test
+    public void testServesTheCatalogFromMemoryUntilItIsChecked() throws Exception {
+        fundCatalog.setCheckIntervalMillis(60000);
+        BarChartJson chart = barChartCache.getFundListChart();
+        priceOnAnotherNode(fund, "12.50");
+
+        assertEquals(0, fundCatalog.getFundById(fund.getId()).getLastPrice());
+        assertSame(chart, barChartCache.getFundListChart());
+    }
+
+    @Test
+    public void testLoadsTheFundsWrittenByAnotherNode() throws Exception {
+        fundCatalog.setCheckIntervalMillis(0);
+        BarChartJson chart = barChartCache.getFundListChart();
+        long invalidationCount = fundCatalog.getInvalidationCount();
+
+        priceOnAnotherNode(fund, "12.50");
+        assertEquals(money("12.50"), fundCatalog.getFundById(fund.getId()).getLastPrice());
+        assertFalse(chart.getEtag().equals(barChartCache.getFundListChart().getEtag()));
+
+        jdbcTemplate.update("INSERT INTO Fund (fundName, symbol, lastPrice) VALUES ('Beta Fund', 'BETA', 0)");
+        assertEquals(2, fundCatalog.getFundList().size());
+        assertEquals(invalidationCount + 2, fundCatalog.getInvalidationCount());
+    }
+
+    private void priceOnAnotherNode(Fund fund, String price) throws Exception {
+        jdbcTemplate.update("UPDATE Fund SET lastPrice = ?, version = version + 1 WHERE id = ?", money(price), fund.getId());
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2015, Delta Star Team
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package com.deltastar.task7.core.service.export;
+
+import com.deltastar.task7.core.AbstractDatabaseTest;
+import com.deltastar.task7.core.repository.domain.Fund;
+import com.deltastart.task7.core.constants.CCConstants;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.io.StringWriter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class DataExporterTest extends AbstractDatabaseTest {
+
+    @Autowired
+    private DataExporter dataExporter;
+
+    @Test
+    public void testWritesThePricesAsDecimals() throws Exception {
+        Fund fund = createFund("Alpha Fund", "ALPH");
+        postPrice(fund, "1234.567", "01/05/2015");
+        postPrice(fund, "10.5", "01/06/2015");
+
+        StringWriter csv = new StringWriter();
+        assertEquals(2, dataExporter.export(CCConstants.EXPORT_FUND_PRICE_HISTORY, CCConstants.EXPORT_FORMAT_CSV, csv));
+        String[] lines = csv.toString().split("\r\n");
+        assertEquals("id,fundId,priceDate,price,status,createdAt,updatedAt", lines[0]);
+        assertEquals("1234.567", lines[1].split(",")[3]);
+        assertEquals("10.500", lines[2].split(",")[3]);
+
+        StringWriter json = new StringWriter();
+        dataExporter.export(CCConstants.EXPORT_FUND_PRICE_HISTORY, CCConstants.EXPORT_FORMAT_JSON, json);
+        assertTrue(json.toString(), json.toString().contains("\"price\":1234.567"));
+        assertTrue(json.toString(), json.toString().contains("\"price\":10.500"));
+    }
+
+    private void postPrice(Fund fund, String price, String priceDate) throws Exception {
+        jdbcTemplate.update("INSERT INTO FundPriceHistory (fundId, price, priceDate) VALUES (?, ?, ?)",
+                fund.getId(), money(price), day(priceDate));
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2015, Delta Star Team
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package com.deltastar.task7.core.service.idempotency;
+
+import com.deltastar.task7.core.service.exception.CfsException;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+public class IdempotencyTableTest {
+
+    private IdempotencyTable idempotencyTable;
+
+    @Before
+    public void setUp() {
+        idempotencyTable = new IdempotencyTable();
+        idempotencyTable.setMaxSize(2);
+    }
+
+    @Test
+    public void testReplaysADoneKeyAndRunsAReleasedOne() throws Exception {
+        idempotencyTable.claim("done").complete();
+        idempotencyTable.claim("released").release();
+
+        assertNull(idempotencyTable.claim("done"));
+        assertNotNull(idempotencyTable.claim("released"));
+    }
+
+    @Test
+    public void testDropsTheOldestDoneKeyWhenFull() throws Exception {
+        IdempotencyTable.Claim running = idempotencyTable.claim("running");
+        idempotencyTable.claim("done").complete();
+        idempotencyTable.claim("new").complete();
+        assertEquals(2, idempotencyTable.size());
+
+        //the done key was dropped instead of the running one, so it runs again.
+        assertNotNull(idempotencyTable.claim("done"));
+        running.complete();
+        assertNull(idempotencyTable.claim("running"));
+    }
+
+    @Test
+    public void testRejectsAClaimWhenFullOfRunningKeys() throws Exception {
+        idempotencyTable.claim("first");
+        IdempotencyTable.Claim second = idempotencyTable.claim("second");
+        try {
+            idempotencyTable.claim("third");
+            fail();
+        } catch (CfsException e) {
+            assertEquals(CfsException.CODE_TOO_MANY_REQUESTS, e.getCode());
+        }
+
+        second.release();
+        assertNotNull(idempotencyTable.claim("third"));
+    }
+
+    @Test
+    public void testRejectsAClaimWhileTheKeyIsStillRunningAfterTheWait() throws Exception {
+        idempotencyTable.setMaxWaitMillis(50);
+        IdempotencyTable.Claim running = idempotencyTable.claim("running");
+        try {
+            idempotencyTable.claim("running");
+            fail();
+        } catch (CfsException e) {
+            assertEquals(CfsException.CODE_REQUEST_IN_PROGRESS, e.getCode());
+        }
+
+        running.complete();
+        assertNull(idempotencyTable.claim("running"));
+    }
+}
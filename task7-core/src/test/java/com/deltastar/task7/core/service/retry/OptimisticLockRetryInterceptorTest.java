@@ -0,0 +1,134 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2015, Delta Star Team
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package com.deltastar.task7.core.service.retry;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.OptimisticLockException;
+import javax.persistence.PersistenceException;
+import java.util.concurrent.Callable;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class OptimisticLockRetryInterceptorTest {
+
+    private OptimisticLockRetryInterceptor interceptor;
+
+    @Before
+    public void setUp() {
+        interceptor = new OptimisticLockRetryInterceptor();
+        interceptor.setMaxAttempts(3);
+        interceptor.setInitialBackoffMillis(1);
+        interceptor.setMaxBackoffMillis(2);
+    }
+
+    @Test
+    public void testRetriesAConflictUntilItSucceeds() throws Exception {
+        FailingCall call = new FailingCall(2, new OptimisticLockException());
+        assertEquals("done", proxy(call).call());
+        assertEquals(3, call.attemptCount);
+    }
+
+    @Test
+    public void testRetriesAWrappedConflict() throws Exception {
+        FailingCall call = new FailingCall(1, new PersistenceException(
+                new ObjectOptimisticLockingFailureException(Object.class, 1)));
+        assertEquals("done", proxy(call).call());
+        assertEquals(2, call.attemptCount);
+    }
+
+    @Test
+    public void testGivesUpAfterTheMaximumNumberOfAttempts() throws Exception {
+        FailingCall call = new FailingCall(3, new OptimisticLockException());
+        try {
+            proxy(call).call();
+            fail();
+        } catch (OptimisticLockException e) {
+            assertEquals(3, call.attemptCount);
+        }
+    }
+
+    @Test
+    public void testDoesNotRetryOtherFailures() throws Exception {
+        FailingCall call = new FailingCall(1, new IllegalStateException());
+        try {
+            proxy(call).call();
+            fail();
+        } catch (IllegalStateException e) {
+            assertEquals(1, call.attemptCount);
+        }
+    }
+
+    @Test
+    public void testDoesNotRetryInsideAnExistingTransaction() throws Exception {
+        FailingCall call = new FailingCall(1, new OptimisticLockException());
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        try {
+            proxy(call).call();
+            fail();
+        } catch (OptimisticLockException e) {
+            assertEquals(1, call.attemptCount);
+        } finally {
+            TransactionSynchronizationManager.setActualTransactionActive(false);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Callable<String> proxy(Callable<String> target) {
+        ProxyFactory proxyFactory = new ProxyFactory(target);
+        proxyFactory.addInterface(Callable.class);
+        proxyFactory.addAdvice(interceptor);
+        return (Callable<String>) proxyFactory.getProxy();
+    }
+
+    /**
+     * Fails the first attempts with the given exception, then succeeds.
+     */
+    private static class FailingCall implements Callable<String> {
+
+        private final int failureCount;
+        private final RuntimeException failure;
+        private int attemptCount;
+
+        private FailingCall(int failureCount, RuntimeException failure) {
+            this.failureCount = failureCount;
+            this.failure = failure;
+        }
+
+        @Override
+        public String call() {
+            attemptCount++;
+            if (attemptCount <= failureCount) {
+                throw failure;
+            }
+            return "done";
+        }
+    }
+}
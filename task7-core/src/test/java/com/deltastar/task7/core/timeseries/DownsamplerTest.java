@@ -0,0 +1,96 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2015, Delta Star Team
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package com.deltastar.task7.core.timeseries;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class DownsamplerTest {
+
+    private static final long DAY = 24L * 60 * 60 * 1000;
+
+    @Test
+    public void testKeepsEveryPriceUnderTheThreshold() {
+        PriceSeries series = series(10, 20, 30, 40);
+        assertArrayEquals(new int[]{0, 1, 2, 3}, Downsampler.largestTriangleThreeBuckets(series, 0, 4, 10));
+        assertArrayEquals(new int[]{1, 2}, Downsampler.largestTriangleThreeBuckets(series, 1, 3, 3));
+        assertEquals(0, Downsampler.largestTriangleThreeBuckets(series, 2, 2, 3).length);
+    }
+
+    @Test
+    public void testKeepsTheFirstAndTheLastPrices() {
+        long[] prices = new long[1000];
+        for (int i = 0; i < prices.length; i++) {
+            prices[i] = 1000 + (i * 37) % 101;
+        }
+        PriceSeries series = series(prices);
+        int[] indexes = Downsampler.largestTriangleThreeBuckets(series, 100, 900, 50);
+        assertEquals(50, indexes.length);
+        assertEquals(100, indexes[0]);
+        assertEquals(899, indexes[49]);
+        for (int i = 1; i < indexes.length; i++) {
+            assertTrue(indexes[i] > indexes[i - 1]);
+        }
+    }
+
+    @Test
+    public void testKeepsThePeaks() {
+        //a flat series with one spike up and one spike down
+        long[] prices = new long[500];
+        for (int i = 0; i < prices.length; i++) {
+            prices[i] = 1000;
+        }
+        prices[123] = 5000;
+        prices[321] = 10;
+        int[] indexes = Downsampler.largestTriangleThreeBuckets(series(prices), 0, prices.length, 20);
+        assertTrue(contains(indexes, 123));
+        assertTrue(contains(indexes, 321));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsASmallThreshold() {
+        Downsampler.largestTriangleThreeBuckets(series(1, 2, 3, 4), 0, 4, 2);
+    }
+
+    private static PriceSeries series(long... prices) {
+        PriceSeries.Builder builder = new PriceSeries.Builder();
+        for (int i = 0; i < prices.length; i++) {
+            builder.add(i * DAY, prices[i]);
+        }
+        return builder.build();
+    }
+
+    private static boolean contains(int[] indexes, int index) {
+        for (int i : indexes) {
+            if (i == index) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * The MIT License
+ *
+ *  Copyright (c) 2015, Delta Star Team
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package com.deltastart.task7.core.constants;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class MoneyTest {
+
+    @Test
+    public void testGetShares() {
+        //100.000 at 3.000 a share
+        assertEquals(33333, Money.getShares(100000, 3000));
+        //200.000 at 3.000 a share
+        assertEquals(66667, Money.getShares(200000, 3000));
+        assertEquals(1000, Money.getShares(12345, 12345));
+    }
+
+    @Test
+    public void testGetCash() {
+        //1.500 shares at 2.001
+        assertEquals(3002, Money.getCash(1500, 2001));
+        assertEquals(0, Money.getCash(0, 2001));
+    }
+
+    @Test
+    public void testGetCashOfLargeAmounts() {
+        //the product does not fit in a long, the quotient does.
+        long shares = 1000000000L * Money.ONE;
+        long price = 123456L * Money.ONE + 987;
+        BigDecimal expected = new BigDecimal(BigInteger.valueOf(shares).multiply(BigInteger.valueOf(price)))
+                .divide(BigDecimal.valueOf(Money.ONE), 0, RoundingMode.HALF_UP);
+        assertEquals(expected.longValueExact(), Money.getCash(shares, price));
+    }
+
+    @Test
+    public void testMulDivAgainstBigDecimal() {
+        Random random = new Random(42);
+        RoundingMode[] roundingModes = {RoundingMode.UP, RoundingMode.DOWN, RoundingMode.CEILING, RoundingMode.FLOOR,
+                RoundingMode.HALF_UP, RoundingMode.HALF_DOWN, RoundingMode.HALF_EVEN};
+        for (int i = 0; i < 100000; i++) {
+            long a = random.nextLong() >> random.nextInt(64);
+            long b = random.nextLong() >> random.nextInt(64);
+            long c = random.nextLong() >> random.nextInt(64);
+            if (c == 0) {
+                continue;
+            }
+            RoundingMode roundingMode = roundingModes[i % roundingModes.length];
+            BigDecimal expected = new BigDecimal(BigInteger.valueOf(a).multiply(BigInteger.valueOf(b)))
+                    .divide(BigDecimal.valueOf(c), 0, roundingMode);
+            if (expected.toBigIntegerExact().bitLength() < 64) {
+                assertEquals(a + " * " + b + " / " + c + " " + roundingMode, expected.longValueExact(),
+                        Money.mulDiv(a, b, c, roundingMode));
+            } else {
+                try {
+                    Money.mulDiv(a, b, c, roundingMode);
+                    fail(a + " * " + b + " / " + c + " should overflow");
+                } catch (ArithmeticException e) {
+                    //expected
+                }
+            }
+        }
+    }
+
+    @Test(expected = ArithmeticException.class)
+    public void testMulDivUnnecessaryRounding() {
+        Money.mulDiv(10, 1, 3, RoundingMode.UNNECESSARY);
+    }
+
+    @Test
+    public void testParse() {
+        assertEquals(1000, Money.parse("1", RoundingMode.HALF_UP));
+        assertEquals(1500, Money.parse(" 1.5 ", RoundingMode.HALF_UP));
+        assertEquals(-1235, Money.parse("-1.2345", RoundingMode.HALF_UP));
+        assertEquals(-1234, Money.parse("-1.2345", RoundingMode.HALF_EVEN));
+        assertEquals(1235, Money.parse("1.23451", RoundingMode.HALF_EVEN));
+        assertEquals(500, Money.parse(".5", RoundingMode.HALF_UP));
+        assertEquals(12000, Money.parse("+12.", RoundingMode.HALF_UP));
+        assertEquals(Long.MAX_VALUE, Money.parse("9223372036854775.807", RoundingMode.HALF_UP));
+        assertEquals(Long.MIN_VALUE, Money.parse("-9223372036854775.808", RoundingMode.HALF_UP));
+    }
+
+    @Test
+    public void testParseInvalid() {
+        String[] invalidTexts = {"", ".", "-", "1.2.3", "1e3", "abc", "9223372036854775.808", "1,000"};
+        for (String text : invalidTexts) {
+            try {
+                Money.parse(text, RoundingMode.HALF_UP);
+                fail(text + " should not parse");
+            } catch (NumberFormatException e) {
+                //expected
+            }
+        }
+    }
+}
@@ -25,25 +25,43 @@
 package com.deltastar.task7.web.servlet.customer;
 
 import com.deltastar.task7.core.service.api.CustomerService;
+import com.deltastar.task7.core.service.api.OrderJournalService;
 import com.deltastar.task7.web.servlet.BaseHttpServlet;
 import org.springframework.context.ApplicationContext;
 import org.springframework.web.context.support.WebApplicationContextUtils;
 
 import javax.servlet.ServletConfig;
 import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import java.util.UUID;
 
 public abstract class BaseCustomerServlet extends BaseHttpServlet {
 
+    public static final String KEY_REQUEST_KEY = "requestKey";
+
     private CustomerService customerService;
+    private OrderJournalService orderJournalService;
 
     @Override
     public void init(ServletConfig servletConfig) throws ServletException {
         super.init(servletConfig);
         ApplicationContext applicationContext = WebApplicationContextUtils.getWebApplicationContext(servletConfig.getServletContext());
         customerService = applicationContext.getBean(CustomerService.class);
+        orderJournalService = applicationContext.getBean(OrderJournalService.class);
     }
 
     public CustomerService getCustomerService() {
         return customerService;
     }
+
+    public OrderJournalService getOrderJournalService() {
+        return orderJournalService;
+    }
+
+    /**
+     * Give the rendered order form a new request key, so that submitting it twice places one order.
+     */
+    protected void setNewRequestKey(HttpServletRequest request) {
+        request.setAttribute(KEY_REQUEST_KEY, UUID.randomUUID().toString());
+    }
 }
@@ -27,7 +27,6 @@ package com.deltastar.task7.web.servlet.customer;
 import com.deltastar.task7.core.repository.domain.Fund;
 import com.deltastar.task7.core.service.exception.CfsException;
 import com.deltastar.task7.web.util.Views;
-import com.deltastart.task7.core.constants.Util;
 
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServletRequest;
@@ -47,13 +46,19 @@ public class CustomViewFundPriceHistoryServlet extends BaseCustomerServlet {
     protected String performDoGet(HttpServletRequest request, HttpServletResponse response) {
 
         String fundId = request.getParameter("fundId");
+        String points = request.getParameter("points");
+        String from = request.getParameter("from");
+        String to = request.getParameter("to");
+        request.setAttribute("points", points);
+        request.setAttribute("from", from);
+        request.setAttribute("to", to);
 
         try {
             Fund fund = getCustomerService().getFundById(fundId);
             request.setAttribute("fundName", fund.getFundName());
-            String data = getCustomerService().generateBarChartData(fundId);
-            if (!Util.isEmpty(data)) {
-                request.setAttribute("barChartData", data);
+            //the chart itself is loaded by the page from /customer/chartData
+            if (getCustomerService().getBarChartJson(fundId, points, from, to) != null) {
+                request.setAttribute("barChartFundId", fund.getId());
             }
         } catch (CfsException e) {
             getCustomErrorList().add(e.getMessage());
@@ -51,6 +51,7 @@ public abstract class CustomerBaseBuyOrSellFundServlet extends BaseCustomerServl
         } catch (CfsException e) {
             getCustomErrorList().add(e.getMessage());
         }
+        setNewRequestKey(request);
         return getFundView();
     }
 
@@ -61,7 +62,9 @@ public abstract class CustomerBaseBuyOrSellFundServlet extends BaseCustomerServl
 
         String fundId = request.getParameter("fundId");
         String amountInString = request.getParameter("amount");
+        String requestKey = request.getParameter(KEY_REQUEST_KEY);
         request.setAttribute("amount", amountInString);
+        request.setAttribute(KEY_REQUEST_KEY, requestKey);
 
         Fund fund;
         try {
@@ -82,12 +85,19 @@ public abstract class CustomerBaseBuyOrSellFundServlet extends BaseCustomerServl
 
 
         try {
-            if (isBuyFund()) {
-                getCustomerService().buyFund(customer, fundId, amountInString);
+            if (getOrderJournalService().isEnabled()) {
+                if (isBuyFund()) {
+                    getOrderJournalService().buyFund(customer, fundId, amountInString, requestKey);
+                } else {
+                    getOrderJournalService().sellFund(customer, fundId, amountInString, requestKey);
+                }
+            } else if (isBuyFund()) {
+                getCustomerService().buyFund(customer, fundId, amountInString, requestKey);
             } else {
-                getCustomerService().sellFund(customer, fundId, amountInString);
+                getCustomerService().sellFund(customer, fundId, amountInString, requestKey);
             }
             request.setAttribute(KEY_HINT, CCConstants.HINT_SUCCESS);
+            setNewRequestKey(request);
         } catch (CfsException e) {
             getCustomErrorList().add(e.getMessage());
         }
@@ -0,0 +1,71 @@
+/*
+ * The MIT License
+ *
+ *   Copyright (c) 2015, Delta Star Team
+ *
+ *   Permission is hereby granted, free of charge, to any person obtaining a copy
+ *   of this software and associated documentation files (the "Software"), to deal
+ *   in the Software without restriction, including without limitation the rights
+ *   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *   copies of the Software, and to permit persons to whom the Software is
+ *   furnished to do so, subject to the following conditions:
+ *
+ *   The above copyright notice and this permission notice shall be included in
+ *   all copies or substantial portions of the Software.
+ *
+ *   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *   THE SOFTWARE.
+ */
+
+package com.deltastar.task7.web.servlet.customer;
+
+import com.deltastar.task7.core.repository.domain.Customer;
+import com.deltastar.task7.core.service.exception.CfsException;
+import com.deltastar.task7.web.common.util.CfsUtils;
+import com.deltastar.task7.web.util.Views;
+import com.deltastart.task7.core.constants.CCConstants;
+
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+
+/**
+ * Servlet that places a basket of buys and sells in one request.
+ * <p>
+ * Delta Star Team
+ */
+
+@WebServlet(name = "CustomerBasketServlet", urlPatterns = {"/customer/basket", "/customer/basket.do"})
+public class CustomerBasketServlet extends BaseCustomerServlet {
+
+
+    @Override
+    protected String performDoGet(HttpServletRequest request, HttpServletResponse response) {
+        request.setAttribute("fundList", getCustomerService().getFundList());
+        return Views.CUSTOMER_BASKET;
+    }
+
+    @Override
+    protected String performDoPost(HttpServletRequest request, HttpServletResponse response) {
+        Customer customer = (Customer) request.getSession().getAttribute(CfsUtils.SESSION_CUSTOMER);
+        request.setAttribute("fundList", getCustomerService().getFundList());
+
+        try {
+            getCustomerService().submitBasket(customer, request.getParameterValues("fundId"),
+                    request.getParameterValues("buyAmount"), request.getParameterValues("sellShares"));
+            request.setAttribute(KEY_HINT, CCConstants.HINT_SUCCESS);
+        } catch (CfsException e) {
+            getCustomErrorList().add(e.getMessage());
+            //keep the inputs so the basket can be corrected.
+            request.setAttribute("keepInput", true);
+        }
+        return Views.CUSTOMER_BASKET;
+    }
+
+}
@@ -0,0 +1,95 @@
+/*
+ * The MIT License
+ *
+ *   Copyright (c) 2015, Delta Star Team
+ *
+ *   Permission is hereby granted, free of charge, to any person obtaining a copy
+ *   of this software and associated documentation files (the "Software"), to deal
+ *   in the Software without restriction, including without limitation the rights
+ *   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *   copies of the Software, and to permit persons to whom the Software is
+ *   furnished to do so, subject to the following conditions:
+ *
+ *   The above copyright notice and this permission notice shall be included in
+ *   all copies or substantial portions of the Software.
+ *
+ *   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *   THE SOFTWARE.
+ */
+
+package com.deltastar.task7.web.servlet.customer;
+
+import com.deltastar.task7.core.repository.domain.BarChartJson;
+import com.deltastar.task7.core.service.exception.CfsException;
+import com.deltastart.task7.core.constants.Util;
+
+import javax.servlet.ServletException;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Serves the bar chart of the last price of every fund, or of the price history of a fund if a fund
+ * id is given, as JSON. The price history may be limited to the days from and to, MM/dd/yyyy, and is
+ * downsampled to the given number of points. The chart carries an entity tag, a client which already has it gets a
+ * 304 Not Modified instead of the chart until a new price is posted.
+ * <p>
+ * Delta Star Team
+ */
+
+@WebServlet(name = "CustomerChartDataServlet", urlPatterns = {"/customer/chartData"})
+public class CustomerChartDataServlet extends BaseCustomerServlet {
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        String fundId = request.getParameter("fundId");
+        BarChartJson chart;
+        try {
+            chart = Util.isEmpty(fundId) ? getCustomerService().getBarChartJson()
+                    : getCustomerService().getBarChartJson(fundId, request.getParameter("points"),
+                    request.getParameter("from"), request.getParameter("to"));
+        } catch (CfsException e) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND, e.getMessage());
+            return;
+        }
+        if (chart == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND, "There is no price to chart");
+            return;
+        }
+        //the chart may change on any transition day, the client must revalidate it
+        response.setHeader("Cache-Control", "private, no-cache");
+        response.setHeader("ETag", chart.getEtag());
+        if (matches(request.getHeader("If-None-Match"), chart.getEtag())) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+        response.setContentType("application/json");
+        response.setCharacterEncoding("UTF-8");
+        response.getWriter().write(chart.getJson());
+    }
+
+    @Override
+    protected String performDoGet(HttpServletRequest request, HttpServletResponse response) {
+        //the response is written by doGet.
+        return null;
+    }
+
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            candidate = candidate.trim();
+            if (candidate.equals("*") || candidate.equals(etag) || candidate.equals("W/" + etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -47,6 +47,7 @@ public class CustomerRequestCheckServlet extends BaseCustomerServlet {
 
     @Override
     protected String performDoGet(HttpServletRequest request, HttpServletResponse response) {
+        setNewRequestKey(request);
         return Views.CUSTOMER_REQUEST_CHECK;
     }
 
@@ -55,9 +56,12 @@ public class CustomerRequestCheckServlet extends BaseCustomerServlet {
 
         Customer customer = (Customer) request.getSession().getAttribute(CfsUtils.SESSION_CUSTOMER);
         String amountInString = request.getParameter("amount");
+        String requestKey = request.getParameter(KEY_REQUEST_KEY);
+        request.setAttribute(KEY_REQUEST_KEY, requestKey);
         try {
-            getCustomerService().requestCheck(customer, amountInString);
+            getCustomerService().requestCheck(customer, amountInString, requestKey);
             request.setAttribute(KEY_HINT, CCConstants.HINT_SUCCESS);
+            setNewRequestKey(request);
         } catch (CfsException e) {
             e.printStackTrace();
             getCustomErrorList().add(e.getMessage());
@@ -50,7 +50,6 @@ public class CustomerResearchFundServlet extends BaseCustomerServlet {
         request.setAttribute("fundList", fundList);
         int totalCount = fundList.size();
         request.setAttribute("totalCountFund", totalCount);
-        request.setAttribute("barChartData", getCustomerService().generateBarChartData());
         return Views.CUSTOMER_RESEARCH_FUND;
     }
 
@@ -25,6 +25,7 @@
 package com.deltastar.task7.web.servlet.customer;
 
 import com.deltastar.task7.core.repository.domain.Customer;
+import com.deltastar.task7.core.repository.domain.KeysetPage;
 import com.deltastar.task7.core.repository.domain.TransitionView;
 import com.deltastar.task7.core.service.exception.CfsException;
 import com.deltastar.task7.web.common.util.CfsUtils;
@@ -49,12 +50,14 @@ public class CustomerTransitionHistoryServlet extends BaseCustomerServlet {
     protected String performDoGet(HttpServletRequest request, HttpServletResponse response) {
 
         Customer customer = (Customer) request.getSession().getAttribute(CfsUtils.SESSION_CUSTOMER);
-        List<TransitionView> transitionViewList = null;
         try {
-            transitionViewList = getCustomerService().getTransitionViewListByCustomerId(customer.getId());
+            KeysetPage<TransitionView> transitionViewPage = getCustomerService().getTransitionViewPageByCustomerId(
+                    customer.getId(), request.getParameter("cursor"), request.getParameter("pageSize"));
+            List<TransitionView> transitionViewList = transitionViewPage.getItems();
             request.setAttribute("transitionViewList", transitionViewList);
             int totalCount = transitionViewList.size();
             request.setAttribute("totalCountTransitionView", totalCount);
+            request.setAttribute("nextCursor", transitionViewPage.getNextCursor());
         } catch (CfsException e) {
             getCustomErrorList().add(e.getMessage());
         }
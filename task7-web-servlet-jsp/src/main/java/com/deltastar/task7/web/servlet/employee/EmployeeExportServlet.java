@@ -0,0 +1,96 @@
+/*
+ * The MIT License
+ *
+ *   Copyright (c) 2015, Delta Star Team
+ *
+ *   Permission is hereby granted, free of charge, to any person obtaining a copy
+ *   of this software and associated documentation files (the "Software"), to deal
+ *   in the Software without restriction, including without limitation the rights
+ *   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *   copies of the Software, and to permit persons to whom the Software is
+ *   furnished to do so, subject to the following conditions:
+ *
+ *   The above copyright notice and this permission notice shall be included in
+ *   all copies or substantial portions of the Software.
+ *
+ *   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *   THE SOFTWARE.
+ */
+
+package com.deltastar.task7.web.servlet.employee;
+
+import com.deltastar.task7.core.service.exception.CfsException;
+import com.deltastart.task7.core.constants.CCConstants;
+
+import javax.servlet.ServletException;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Downloads the transitions, the positions or the price history as CSV or JSON, gzipped if asked.
+ * The rows are streamed to the response as they are read, without a content length, so the response
+ * is sent in chunks and its size is not bounded by the memory of the server.
+ * <p>
+ * Delta Star Team
+ */
+
+@WebServlet(name = "EmployeeExportServlet", urlPatterns = {"/employee/export"})
+public class EmployeeExportServlet extends BaseEmployeeServlet {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        String data = request.getParameter("data");
+        String format = request.getParameter("format");
+        boolean gzip = "true".equals(request.getParameter("gzip"));
+        String fileName;
+        try {
+            fileName = getEmployeeService().getExportFileName(data, format);
+        } catch (CfsException e) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+            return;
+        }
+        if (gzip) {
+            response.setContentType("application/gzip");
+            fileName += ".gz";
+        } else {
+            response.setContentType(CCConstants.EXPORT_FORMAT_CSV.equals(format) ? "text/csv" : "application/json");
+            response.setCharacterEncoding("UTF-8");
+        }
+        response.setHeader("Content-Disposition", "attachment; filename=\"" + fileName + "\"");
+        response.setHeader("Cache-Control", "no-cache");
+
+        OutputStream outputStream = response.getOutputStream();
+        if (gzip) {
+            outputStream = new GZIPOutputStream(outputStream, BUFFER_SIZE);
+        }
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, "UTF-8"), BUFFER_SIZE);
+        try {
+            getEmployeeService().export(data, format, writer);
+        } catch (CfsException e) {
+            //the parameters were checked above.
+            throw new ServletException(e);
+        }
+        //a failed export is not closed, so that the client sees an incomplete response rather than a complete file.
+        writer.close();
+    }
+
+    @Override
+    protected String performDoGet(HttpServletRequest request, HttpServletResponse response) {
+        //the response is written by doGet.
+        return null;
+    }
+}
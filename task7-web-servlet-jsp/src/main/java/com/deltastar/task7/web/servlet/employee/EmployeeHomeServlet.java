@@ -24,8 +24,11 @@
 
 package com.deltastar.task7.web.servlet.employee;
 
-import com.deltastar.task7.core.repository.domain.Customer;
+import com.deltastar.task7.core.repository.domain.CustomerSummary;
 import com.deltastar.task7.core.repository.domain.Employee;
+import com.deltastar.task7.core.repository.domain.EmployeeSummary;
+import com.deltastar.task7.core.repository.domain.KeysetPage;
+import com.deltastar.task7.core.service.exception.CfsException;
 import com.deltastar.task7.web.common.util.CfsUtils;
 import com.deltastar.task7.web.util.Views;
 
@@ -53,15 +56,32 @@ public class EmployeeHomeServlet extends BaseEmployeeServlet {
         HttpSession session = request.getSession();
         Employee employee = (Employee) session.getAttribute(CfsUtils.SESSION_EMPLOYEE);
 
-        List<Customer> customerList = getEmployeeService().getCustomerList();
-        request.setAttribute("customerList", customerList);
         request.setAttribute("homeTabStyle", "active");
-        request.setAttribute("totalCountCustomer", customerList.size());
+        String keyword = request.getParameter("keyword");
+        String sort = request.getParameter("sort");
+        String order = request.getParameter("order");
+        request.setAttribute("keyword", keyword);
+        request.setAttribute("sort", sort);
+        request.setAttribute("order", order);
+        try {
+            KeysetPage<CustomerSummary> customerPage = getEmployeeService().getCustomerSummaryPage(keyword, sort, order,
+                    request.getParameter("cursor"), request.getParameter("pageSize"));
+            List<CustomerSummary> customerList = customerPage.getItems();
+            request.setAttribute("customerList", customerList);
+            request.setAttribute("totalCountCustomer", customerList.size());
+            request.setAttribute("nextCursor", customerPage.getNextCursor());
 
-        if (CfsUtils.isSuperAdmin(employee.getType())) {
-            List<Employee> employeeList = getEmployeeService().getEmployeeList();
-            request.setAttribute("employeeList", employeeList);
-            request.setAttribute("totalCountEmployee", employeeList.size());
+            if (CfsUtils.isSuperAdmin(employee.getType())) {
+                //the employee list is paged on its own and sorted by id
+                KeysetPage<EmployeeSummary> employeePage = getEmployeeService().getEmployeeSummaryPage(null, null, null,
+                        request.getParameter("employeeCursor"), request.getParameter("pageSize"));
+                List<EmployeeSummary> employeeList = employeePage.getItems();
+                request.setAttribute("employeeList", employeeList);
+                request.setAttribute("totalCountEmployee", employeeList.size());
+                request.setAttribute("nextEmployeeCursor", employeePage.getNextCursor());
+            }
+        } catch (CfsException e) {
+            getCustomErrorList().add(e.getMessage());
         }
 
         return Views.EMPLOYEE_HOME;
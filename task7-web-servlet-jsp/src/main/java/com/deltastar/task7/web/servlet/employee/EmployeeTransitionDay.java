@@ -25,23 +25,31 @@
 package com.deltastar.task7.web.servlet.employee;
 
 import com.deltastar.task7.core.repository.domain.Fund;
+import com.deltastar.task7.core.repository.domain.SettlementPreview;
+import com.deltastar.task7.core.repository.domain.SettlementRun;
 import com.deltastar.task7.core.service.exception.CfsException;
 import com.deltastar.task7.web.util.Views;
-import com.deltastart.task7.core.constants.CCConstants;
 import com.deltastart.task7.core.constants.Util;
 
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import java.text.MessageFormat;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Delta Star Team
  */
 
-@WebServlet(name = "EmployeeTransitionDay", urlPatterns = {"/employee/fundList", "/employee/executeTransitionDay.do"})
+@WebServlet(name = "EmployeeTransitionDay", urlPatterns = {"/employee/fundList", "/employee/executeTransitionDay.do",
+        "/employee/resumeTransitionDay.do", "/employee/previewTransitionDay.do"})
 public class EmployeeTransitionDay extends BaseEmployeeServlet {
 
+    private static final String PATH_RESUME_TRANSITION_DAY = "/employee/resumeTransitionDay.do";
+    private static final String PATH_PREVIEW_TRANSITION_DAY = "/employee/previewTransitionDay.do";
+
 
     @Override
     protected String performDoGet(HttpServletRequest request, HttpServletResponse response) {
@@ -52,12 +60,22 @@ public class EmployeeTransitionDay extends BaseEmployeeServlet {
         request.setAttribute("fundList", fundList);
         int totalCount = fundList.size();
         request.setAttribute("totalCountFund", totalCount);
+        setSettlementRun(request);
         return Views.EMPLOYEE_TRANSITION_DAY;
     }
 
     @Override
     protected String performDoPost(HttpServletRequest request, HttpServletResponse response) {
 
+        if (PATH_RESUME_TRANSITION_DAY.equals(request.getServletPath())) {
+            try {
+                setJob(request, getEmployeeService().resumeTransitionDay(request.getParameter("runId")));
+            } catch (CfsException e) {
+                getCustomErrorList().add(e.getMessage());
+            }
+            return performDoGet(request, response);
+        }
+
         String[] prices = request.getParameterValues("price");
         String[] fundIds = request.getParameterValues("fundId");
         String executionDay = request.getParameter("executionDay");
@@ -73,8 +91,12 @@ public class EmployeeTransitionDay extends BaseEmployeeServlet {
 
             Util.formatTimeStamp(executionDay);
             if (prices != null && prices.length > 0 && fundIds != null && fundIds.length > 0 && hasValidPrice(prices)) {
-                getEmployeeService().executeTransitionDay(prices, fundIds, executionDay);
-                request.setAttribute(KEY_HINT, CCConstants.HINT_SUCCESS);
+                if (PATH_PREVIEW_TRANSITION_DAY.equals(request.getServletPath())) {
+                    setPreview(request, prices, fundIds, getEmployeeService().previewTransitionDay(prices, fundIds,
+                            executionDay, request.getParameter("page")));
+                } else {
+                    setJob(request, getEmployeeService().executeTransitionDay(prices, fundIds, executionDay));
+                }
             } else {
                 getCustomErrorList().add("No validate price for funds.");
 
@@ -82,11 +104,41 @@ public class EmployeeTransitionDay extends BaseEmployeeServlet {
         } catch (CfsException e) {
             getCustomErrorList().add(e.getMessage());
         }
+        setSettlementRun(request);
 
 
         return Views.EMPLOYEE_TRANSITION_DAY;
     }
 
+    private void setJob(HttpServletRequest request, int jobId) {
+        request.setAttribute("jobId", jobId);
+        request.setAttribute(KEY_HINT, MessageFormat.format(getResourceBundle().getString("settlement.job.started"), jobId));
+    }
+
+    /**
+     * Keep the entered prices in the form, so the preview can be paged and then executed.
+     */
+    private void setPreview(HttpServletRequest request, String[] prices, String[] fundIds, SettlementPreview preview) {
+        Map<Integer, String> priceByFundId = new HashMap<>();
+        for (int i = 0; i < prices.length && i < fundIds.length; i++) {
+            try {
+                priceByFundId.put(Util.formatToInteger(fundIds[i]), prices[i]);
+            } catch (CfsException e) {
+                //the preview already rejected it.
+            }
+        }
+        request.setAttribute("priceByFundId", priceByFundId);
+        request.setAttribute("settlementPreview", preview);
+    }
+
+    private void setSettlementRun(HttpServletRequest request) {
+        SettlementRun settlementRun = getEmployeeService().getLatestSettlementRun();
+        if (settlementRun != null) {
+            request.setAttribute("settlementRun", settlementRun);
+            request.setAttribute("settlementCheckpointList", getEmployeeService().getSettlementCheckpointList(settlementRun.getId()));
+        }
+    }
+
 
     private boolean hasValidPrice(String[] prices) {
         for (String price : prices) {
@@ -0,0 +1,66 @@
+/*
+ * The MIT License
+ *
+ *   Copyright (c) 2015, Delta Star Team
+ *
+ *   Permission is hereby granted, free of charge, to any person obtaining a copy
+ *   of this software and associated documentation files (the "Software"), to deal
+ *   in the Software without restriction, including without limitation the rights
+ *   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *   copies of the Software, and to permit persons to whom the Software is
+ *   furnished to do so, subject to the following conditions:
+ *
+ *   The above copyright notice and this permission notice shall be included in
+ *   all copies or substantial portions of the Software.
+ *
+ *   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *   THE SOFTWARE.
+ */
+
+
+package com.deltastar.task7.web.servlet.employee;
+
+import com.deltastar.task7.core.service.exception.CfsException;
+
+import javax.servlet.ServletException;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Reports the progress of a transition day job as JSON, so that the transition day page can poll it
+ * instead of waiting on the request that started the job.
+ * <p>
+ * Delta Star Team
+ */
+
+@WebServlet(name = "EmployeeTransitionDayStatusServlet", urlPatterns = {"/employee/transitionDayStatus"})
+public class EmployeeTransitionDayStatusServlet extends BaseEmployeeServlet {
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        String json;
+        try {
+            json = getEmployeeService().getTransitionDayJobStatusJson(request.getParameter("jobId"));
+        } catch (CfsException e) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND, e.getMessage());
+            return;
+        }
+        response.setContentType("application/json");
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader("Cache-Control", "no-cache");
+        response.getWriter().write(json);
+    }
+
+    @Override
+    protected String performDoGet(HttpServletRequest request, HttpServletResponse response) {
+        //the response is written by doGet.
+        return null;
+    }
+}
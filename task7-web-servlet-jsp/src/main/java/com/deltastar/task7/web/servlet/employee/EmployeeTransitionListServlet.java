@@ -24,7 +24,9 @@
 
 package com.deltastar.task7.web.servlet.employee;
 
+import com.deltastar.task7.core.repository.domain.KeysetPage;
 import com.deltastar.task7.core.repository.domain.TransitionView;
+import com.deltastar.task7.core.service.exception.CfsException;
 import com.deltastar.task7.web.util.Views;
 
 import javax.servlet.annotation.WebServlet;
@@ -46,11 +48,20 @@ public class EmployeeTransitionListServlet extends BaseEmployeeServlet {
     @Override
     protected String performDoGet(HttpServletRequest request, HttpServletResponse response) {
 
-        List<TransitionView> transitionViewList = getEmployeeService().getTransitionViewList();
-        request.setAttribute("transitionViewList", transitionViewList);
         request.setAttribute("homeTabStyle", "active");
+        KeysetPage<TransitionView> transitionViewPage;
+        try {
+            transitionViewPage = getEmployeeService().getTransitionViewPage(request.getParameter("cursor"),
+                    request.getParameter("pageSize"));
+        } catch (CfsException e) {
+            getCustomErrorList().add(e.getMessage());
+            return Views.EMPLOYEE_TRANSITION_LIST;
+        }
+        List<TransitionView> transitionViewList = transitionViewPage.getItems();
+        request.setAttribute("transitionViewList", transitionViewList);
         int totalCount = transitionViewList.size();
         request.setAttribute("totalCountTransitionView", totalCount);
+        request.setAttribute("nextCursor", transitionViewPage.getNextCursor());
         return Views.EMPLOYEE_TRANSITION_LIST;
     }
 }
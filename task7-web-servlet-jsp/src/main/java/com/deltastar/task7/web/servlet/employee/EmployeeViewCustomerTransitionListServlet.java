@@ -25,6 +25,7 @@
 package com.deltastar.task7.web.servlet.employee;
 
 import com.deltastar.task7.core.repository.domain.Customer;
+import com.deltastar.task7.core.repository.domain.KeysetPage;
 import com.deltastar.task7.core.repository.domain.TransitionView;
 import com.deltastar.task7.core.service.exception.CfsException;
 import com.deltastar.task7.web.util.Views;
@@ -53,7 +54,10 @@ public class EmployeeViewCustomerTransitionListServlet extends BaseEmployeeServl
 
         List<TransitionView> transitionViewList = null;
         try {
-            transitionViewList = getEmployeeService().getTransitionViewList(customerId);
+            KeysetPage<TransitionView> transitionViewPage = getEmployeeService().getTransitionViewPageByCustomerId(
+                    customerId, request.getParameter("cursor"), request.getParameter("pageSize"));
+            transitionViewList = transitionViewPage.getItems();
+            request.setAttribute("nextCursor", transitionViewPage.getNextCursor());
             Customer customer = getEmployeeService().getCustomerById(customerId);
             request.setAttribute("customerDisplayName", Util.getDisplayName(customer));
         } catch (CfsException e) {
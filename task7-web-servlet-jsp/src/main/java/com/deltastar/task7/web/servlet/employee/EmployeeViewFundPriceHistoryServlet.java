@@ -26,6 +26,7 @@ package com.deltastar.task7.web.servlet.employee;
 
 import com.deltastar.task7.core.repository.domain.Fund;
 import com.deltastar.task7.core.repository.domain.FundPriceHistoryView;
+import com.deltastar.task7.core.repository.domain.KeysetPage;
 import com.deltastar.task7.core.service.exception.CfsException;
 import com.deltastar.task7.web.util.Views;
 import com.deltastart.task7.core.constants.Util;
@@ -58,16 +59,24 @@ public class EmployeeViewFundPriceHistoryServlet extends BaseEmployeeServlet {
             return Views.EMPLOYEE_FUND_PRICE_HISTORY_BY_FUND;
         }
         request.setAttribute("fundName", fund.getFundName());
-        List<FundPriceHistoryView> fundPriceHistoryViewList = null;
+        request.setAttribute("fundId", fund.getId());
+        String from = request.getParameter("from");
+        String to = request.getParameter("to");
+        request.setAttribute("from", from);
+        request.setAttribute("to", to);
+        KeysetPage<FundPriceHistoryView> fundPriceHistoryViewPage = null;
         try {
-            fundPriceHistoryViewList = getEmployeeService().getFundPriceHistoryViewList(fundId);
+            fundPriceHistoryViewPage = getEmployeeService().getFundPriceHistoryViewPage(fundId, from, to,
+                    request.getParameter("cursor"), request.getParameter("limit"));
         } catch (CfsException e) {
             getCustomErrorList().add(e.getMessage());
             return Views.EMPLOYEE_FUND_PRICE_HISTORY_BY_FUND;
         }
+        List<FundPriceHistoryView> fundPriceHistoryViewList = fundPriceHistoryViewPage.getItems();
         if (!Util.isEmptyList(fundPriceHistoryViewList)) {
             request.setAttribute("fundPriceHistoryViewList", fundPriceHistoryViewList);
             request.setAttribute("totalCountFundPriceHistoryView", fundPriceHistoryViewList.size());
+            request.setAttribute("nextCursor", fundPriceHistoryViewPage.getNextCursor());
         }
         request.setAttribute("homeTabStyle", "active");
         return Views.EMPLOYEE_FUND_PRICE_HISTORY_BY_FUND;
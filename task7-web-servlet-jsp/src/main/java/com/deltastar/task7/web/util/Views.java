@@ -18,6 +18,7 @@ public class Views {
     public static final String CUSTOMER_BUY_FUND = PREFIX + "/customer/buyFund.jsp";
     public static final String CUSTOMER_SELL_FUND = PREFIX + "/customer/sellFund.jsp";
     public static final String CUSTOMER_REQUEST_CHECK = PREFIX + "/customer/requestCheck.jsp";
+    public static final String CUSTOMER_BASKET = PREFIX + "/customer/basket.jsp";
     public static final String CUSTOMER_LOGIN = PREFIX + "/customer/login.jsp";
     public static final String CUSTOMER_FUND_PRICE_HISTORY_BY_FUND = PREFIX + "/customer/fundPriceHistoryViewListByFund.jsp";
 
@@ -0,0 +1,77 @@
+<%@ taglib prefix="c" uri="http://java.sun.com/jsp/jstl/core" %>
+<%@ taglib prefix="fmt" uri="http://java.sun.com/jsp/jstl/fmt" %>
+
+<%@ page contentType="text/html;charset=UTF-8" language="java" %>
+<%@ include file="../common/header.jspf" %>
+
+<div class="container">
+    <div class="row">
+        <div class="span3">
+            <%@ include file="../common/sidebar_customer.jspf" %>
+        </div>
+        <div class="span9">
+            <div class="well">
+                <div class="page-header">
+                    <h1>Basket order</h1>
+                </div>
+
+                <%@ include file="../common/error.jspf" %>
+
+                <form id="basketForm" action="/customer/basket.do" method="post">
+
+                    <table class="table table-bordered table-striped">
+
+                        <thead>
+                        <tr>
+                            <th>Fund name</th>
+                            <th>Symbol</th>
+                            <th>Last price</th>
+                            <th>Buy amount($)</th>
+                            <th>Sell shares</th>
+                        </tr>
+                        </thead>
+
+                        <tbody>
+                        <c:forEach items="${requestScope.fundList}" var="currentFund" varStatus="status">
+                            <tr>
+                                <td>${currentFund.fundName}</td>
+                                <td>${currentFund.symbol}</td>
+                                <td>${currentFund.lastPriceForDisplay}</td>
+                                <td>
+                                    <input type="hidden" name="fundId" value="${currentFund.id}"/>
+                                    <input type="text" class="input-small" name="buyAmount"
+                                           value="<c:if test='${requestScope.keepInput}'><c:out value='${paramValues.buyAmount[status.index]}'/></c:if>"/>
+                                </td>
+                                <td>
+                                    <input type="text" class="input-small" name="sellShares"
+                                           value="<c:if test='${requestScope.keepInput}'><c:out value='${paramValues.sellShares[status.index]}'/></c:if>"/>
+                                </td>
+                            </tr>
+                        </c:forEach>
+                        </tbody>
+                    </table>
+
+                    <c:if test="${empty requestScope.fundList}">
+                        <div class="alert alert-info">
+                            <div align="center">There is no available fund.</div>
+                        </div>
+                    </c:if>
+
+                    <div class="form-actions">
+                        <button type="submit" class="btn btn-primary"><i class="icon-ok icon-white"></i> Place orders
+                        </button>
+                        <button type="button" class="btn" onclick="location.href='home'"><i class="icon-remove"></i>
+                            Cancel
+                        </button>
+                    </div>
+
+                </form>
+                <%@ include file="../common/hint.jspf" %>
+
+            </div>
+        </div>
+    </div>
+</div>
+
+<%--end content--%>
+<%@ include file="../common/footer.jspf" %>
@@ -1,5 +1,6 @@
 <%@ taglib prefix="c" uri="http://java.sun.com/jsp/jstl/core" %>
 <%@ taglib prefix="fmt" uri="http://java.sun.com/jsp/jstl/fmt" %>
+<%@ taglib prefix="fn" uri="http://java.sun.com/jsp/jstl/functions" %>
 <%@ page contentType="text/html;charset=UTF-8" language="java" %>
 <%@ include file="../common/header.jspf" %>
 
@@ -14,8 +15,24 @@
             <div class="well">
                 <%@ include file="../common/error.jspf" %>
 
+                <c:if test="${not empty requestScope.fundName}">
+                    <form class="form-inline" action="/customer/fundPriceHistory" id="chartWindowForm" method="get">
+                        <input type="hidden" name="fundId" value="${fn:escapeXml(param.fundId)}"/>
+                        From
+                        <input type="text" name="from" class="input-small" placeholder="MM/DD/YYYY"
+                               value="${fn:escapeXml(requestScope.from)}"/>
+                        to
+                        <input type="text" name="to" class="input-small" placeholder="MM/DD/YYYY"
+                               value="${fn:escapeXml(requestScope.to)}"/>
+                        points
+                        <input type="text" name="points" class="input-mini" placeholder="200"
+                               value="${fn:escapeXml(requestScope.points)}"/>
+                        <button type="submit" class="btn">Show</button>
+                    </form>
+                </c:if>
+
                 <c:choose>
-                    <c:when test="${empty requestScope.barChartData}">
+                    <c:when test="${empty requestScope.barChartFundId}">
                         <div class="alert alert-info">
                             <div align="center">There is no fund price history}.
                             </div>
@@ -44,12 +61,16 @@
 <%@ include file="../common/footer.jspf" %>
 
 
+<c:if test="${not empty requestScope.barChartFundId}">
 <script>
     window.onload = function () {
         var ctx = document.getElementById("canvas").getContext("2d");
-        window.myBar = new Chart(ctx).Bar(${requestScope.barChartData}, {
-            responsive: true
+        $.getJSON("/customer/chartData", $("#chartWindowForm").serialize(), function (data) {
+            window.myBar = new Chart(ctx).Bar(data, {
+                responsive: true
+            });
         });
     }
 
-</script>
\ No newline at end of file
+</script>
+</c:if>
\ No newline at end of file
@@ -17,6 +17,8 @@
 
                     <fieldset>
 
+                        <input type="hidden" name="requestKey" value="<c:out value='${requestScope.requestKey}'/>"/>
+
 
                         <legend>Request check
                             <p class="alert-success">${requestScope.hint}</p>
@@ -47,8 +47,10 @@
 <script>
     window.onload = function () {
         var ctx = document.getElementById("canvas").getContext("2d");
-        window.myBar = new Chart(ctx).Bar(${requestScope.barChartData}, {
-            responsive: true
+        $.getJSON("/customer/chartData", function (data) {
+            window.myBar = new Chart(ctx).Bar(data, {
+                responsive: true
+            });
         });
     }
 
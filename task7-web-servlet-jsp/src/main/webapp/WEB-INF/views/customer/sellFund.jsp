@@ -24,6 +24,8 @@
 
                     <fieldset>
 
+                        <input type="hidden" name="requestKey" value="<c:out value='${requestScope.requestKey}'/>"/>
+
                         <div class="control-group">
                             <div class="controls">
                                 <input type="hidden" id="fundId" name="fundId" required="required"
@@ -19,6 +19,68 @@
                 <%@ include file="../common/error.jspf" %>
                 <%@ include file="../common/hint.jspf" %>
 
+                <c:if test="${requestScope.settlementRun != null}">
+                    <table class="table table-bordered">
+                        <thead>
+                        <tr>
+                            <th>Last execution day</th>
+                            <th>Status</th>
+                            <th>Funds settled</th>
+                            <th>Transitions settled</th>
+                            <th>Transitions / s</th>
+                            <th></th>
+                        </tr>
+                        </thead>
+                        <tbody>
+                        <tr>
+                            <td>${requestScope.settlementRun.executionDayForDisplay}</td>
+                            <td id="settlementStatus">${requestScope.settlementRun.displayStatus}</td>
+                            <td><span id="settlementSettledFundCount">${requestScope.settlementRun.settledFundCount}</span>
+                                / ${requestScope.settlementRun.fundCount}</td>
+                            <td id="settlementTransitionCount">${requestScope.settlementRun.transitionCount}</td>
+                            <td id="settlementThroughput"></td>
+                            <td>
+                                <c:if test="${!requestScope.settlementRun.done}">
+                                    <form action="/employee/resumeTransitionDay.do" method="post">
+                                        <input type="hidden" name="runId" value="${requestScope.settlementRun.id}"/>
+                                        <button type="submit" class="btn btn-mini btn-primary"><i
+                                                class="icon-repeat icon-white"></i>Resume
+                                        </button>
+                                    </form>
+                                </c:if>
+                            </td>
+                        </tr>
+                        <c:forEach items="${requestScope.settlementCheckpointList}" var="checkpoint">
+                            <c:if test="${!checkpoint.done}">
+                                <tr>
+                                    <td colspan="2">Fund ${checkpoint.fundId}</td>
+                                    <td>${checkpoint.displayStatus}</td>
+                                    <td colspan="3">${checkpoint.message}</td>
+                                </tr>
+                            </c:if>
+                        </c:forEach>
+                        </tbody>
+                    </table>
+
+                    <c:if test="${requestScope.settlementRun.running}">
+                        <script type="text/javascript">
+                            (function poll() {
+                                $.getJSON("/employee/transitionDayStatus", {jobId: ${requestScope.settlementRun.id}}, function (job) {
+                                    $("#settlementStatus").text(job.status);
+                                    $("#settlementSettledFundCount").text(job.settledFundCount);
+                                    $("#settlementTransitionCount").text(job.transitionCount);
+                                    $("#settlementThroughput").text(job.transitionsPerSecond.toFixed(1));
+                                    if (job.running) {
+                                        setTimeout(poll, 2000);
+                                    } else if (job.status !== "Running") {
+                                        window.location = "/employee/fundList";
+                                    }
+                                });
+                            })();
+                        </script>
+                    </c:if>
+                </c:if>
+
 
                 <form id="transitionDay" action="/employee/executeTransitionDay.do" method="post"
                       class="form-horizontal">
@@ -32,8 +94,117 @@
                         <button type="submit" class="btn btn-primary left"><i class="icon-ok icon-white"></i>
                             Execute
                         </button>
+                        <button type="submit" class="btn left" formaction="/employee/previewTransitionDay.do"><i
+                                class="icon-eye-open"></i> Preview
+                        </button>
                     </div>
 
+                    <c:set var="preview" value="${requestScope.settlementPreview}"/>
+                    <c:if test="${preview != null}">
+                        <h3>Preview of ${preview.executionDay}</h3>
+                        <table class="table table-bordered">
+                            <thead>
+                            <tr>
+                                <th>Transitions settled</th>
+                                <th>Orders left pending</th>
+                                <th>Customers</th>
+                                <th>Cash credited</th>
+                                <th>Checks</th>
+                                <th>Positions created</th>
+                            </tr>
+                            </thead>
+                            <tbody>
+                            <tr>
+                                <td>${preview.transitionCount}</td>
+                                <td>${preview.skippedTransitionCount}</td>
+                                <td>${preview.customerCount}</td>
+                                <td>${preview.cashCreditedForDisplay}</td>
+                                <td>${preview.cashCheckedForDisplay}</td>
+                                <td>${preview.positionCreatedCount}</td>
+                            </tr>
+                            </tbody>
+                        </table>
+
+                        <table class="table table-bordered table-striped">
+                            <thead>
+                            <tr>
+                                <th>Fund</th>
+                                <th>Price</th>
+                                <th>Buys</th>
+                                <th>Amount invested</th>
+                                <th>Shares allotted</th>
+                                <th>Sells</th>
+                                <th>Shares sold</th>
+                                <th>Cash credited</th>
+                                <th>Positions created</th>
+                            </tr>
+                            </thead>
+                            <tbody>
+                            <c:forEach items="${preview.fundList}" var="fundPreview">
+                                <tr>
+                                    <td>Fund ${fundPreview.fundId}</td>
+                                    <td>${fundPreview.priceForDisplay}</td>
+                                    <td>${fundPreview.buyCount}</td>
+                                    <td>${fundPreview.amountInvestedForDisplay}</td>
+                                    <td>${fundPreview.sharesBoughtForDisplay}</td>
+                                    <td>${fundPreview.sellCount}</td>
+                                    <td>${fundPreview.sharesSoldForDisplay}</td>
+                                    <td>${fundPreview.cashCreditedForDisplay}</td>
+                                    <td>${fundPreview.positionCreatedCount}</td>
+                                </tr>
+                            </c:forEach>
+                            </tbody>
+                        </table>
+
+                        <table class="table table-bordered table-striped">
+                            <thead>
+                            <tr>
+                                <th>Customer</th>
+                                <th>Transitions</th>
+                                <th>Amount invested</th>
+                                <th>Cash from sales</th>
+                                <th>Cash deposited</th>
+                                <th>Checks</th>
+                                <th>Positions created</th>
+                            </tr>
+                            </thead>
+                            <tbody>
+                            <c:forEach items="${preview.customerList}" var="customerPreview">
+                                <tr>
+                                    <td>Customer ${customerPreview.customerId}</td>
+                                    <td>${customerPreview.transitionCount}</td>
+                                    <td>${customerPreview.amountInvestedForDisplay}</td>
+                                    <td>${customerPreview.cashFromSalesForDisplay}</td>
+                                    <td>${customerPreview.cashDepositedForDisplay}</td>
+                                    <td>${customerPreview.cashCheckedForDisplay}</td>
+                                    <td>${customerPreview.positionCreatedCount}</td>
+                                </tr>
+                            </c:forEach>
+                            </tbody>
+                            <tfoot>
+                            <tr>
+                                <td colspan="7">
+                                    <div align="center">
+                                        <c:if test="${!preview.firstPage}">
+                                            <button type="submit" class="btn btn-mini" name="page"
+                                                    value="${preview.page - 1}"
+                                                    formaction="/employee/previewTransitionDay.do">Previous
+                                            </button>
+                                        </c:if>
+                                        Page ${preview.page + 1} / ${preview.pageCount}
+                                        <c:if test="${!preview.lastPage}">
+                                            <button type="submit" class="btn btn-mini" name="page"
+                                                    value="${preview.page + 1}"
+                                                    formaction="/employee/previewTransitionDay.do">Next
+                                            </button>
+                                        </c:if>
+                                    </div>
+                                </td>
+                            </tr>
+                            </tfoot>
+                        </table>
+                    </c:if>
+
                     <table class="table table-bordered table-striped">
 
                         <thead>
@@ -60,7 +231,8 @@
                                 <td>
                                     <input type="hidden" id="price_id_${currentFund.id}" name="fundId"
                                            value="${currentFund.id}"/>
-                                    <input type="text" id="price_${currentFund.id}" name="price"/>
+                                    <input type="text" id="price_${currentFund.id}" name="price"
+                                           value="<c:out value='${requestScope.priceByFundId[currentFund.id]}'/>"/>
                                 </td>
 
                             </tr>
@@ -1,5 +1,6 @@
 <%@ taglib prefix="c" uri="http://java.sun.com/jsp/jstl/core" %>
 <%@ taglib prefix="fmt" uri="http://java.sun.com/jsp/jstl/fmt" %>
+<%@ taglib prefix="fn" uri="http://java.sun.com/jsp/jstl/functions" %>
 <%@ page contentType="text/html;charset=UTF-8" language="java" %>
 <%@ include file="../common/header.jspf" %>
 
@@ -16,6 +17,19 @@
 
             <div class="well">
 
+                <c:if test="${not empty requestScope.fundId}">
+                    <form class="form-inline" action="/employee/fundPriceHistory" method="get">
+                        <input type="hidden" name="fundId" value="${requestScope.fundId}"/>
+                        From
+                        <input type="text" name="from" class="input-small" placeholder="MM/DD/YYYY"
+                               value="${fn:escapeXml(requestScope.from)}"/>
+                        to
+                        <input type="text" name="to" class="input-small" placeholder="MM/DD/YYYY"
+                               value="${fn:escapeXml(requestScope.to)}"/>
+                        <button type="submit" class="btn">Show</button>
+                    </form>
+                </c:if>
+
                 <c:choose>
                     <c:when test="${empty requestScope.fundPriceHistoryViewList}">
                         <div class="alert alert-info">
@@ -52,8 +66,18 @@
                             <tfoot>
                             <tr>
                                 <td colspan="3">
-                                    <div align="center">Total = <span
+                                    <div align="center">Shown = <span
                                             class="badge badge-inverse">${requestScope.totalCountFundPriceHistoryView}</span>
+                                        <c:if test="${not empty requestScope.nextCursor}">
+                                            <c:url var="olderUrl" value="/employee/fundPriceHistory">
+                                                <c:param name="fundId" value="${requestScope.fundId}"/>
+                                                <c:param name="from" value="${requestScope.from}"/>
+                                                <c:param name="to" value="${requestScope.to}"/>
+                                                <c:param name="cursor" value="${requestScope.nextCursor}"/>
+                                                <c:param name="limit" value="${param.limit}"/>
+                                            </c:url>
+                                            <a href="${olderUrl}">Older prices</a>
+                                        </c:if>
                                     </div>
                                 </td>
                             </tr>
@@ -1,5 +1,6 @@
 <%@ taglib prefix="c" uri="http://java.sun.com/jsp/jstl/core" %>
 <%@ taglib prefix="fmt" uri="http://java.sun.com/jsp/jstl/fmt" %>
+<%@ taglib prefix="fn" uri="http://java.sun.com/jsp/jstl/functions" %>
 <%@ page contentType="text/html;charset=UTF-8" language="java" %>
 <%@ include file="../common/header.jspf" %>
 
@@ -20,6 +21,23 @@
                     <h1>Customer List</h1>
                 </div>
 
+                <form class="form-inline" action="/employee/home" method="get">
+                    <input type="text" name="keyword" class="input-medium" placeholder="name starts with"
+                           value="${fn:escapeXml(requestScope.keyword)}"/>
+                    Sort by
+                    <select name="sort" class="input-small">
+                        <option value="id" ${requestScope.sort == 'id' ? 'selected' : ''}>ID</option>
+                        <option value="userName" ${requestScope.sort == 'userName' ? 'selected' : ''}>User name</option>
+                        <option value="firstName" ${requestScope.sort == 'firstName' ? 'selected' : ''}>First name</option>
+                        <option value="lastName" ${requestScope.sort == 'lastName' ? 'selected' : ''}>Last name</option>
+                    </select>
+                    <select name="order" class="input-small">
+                        <option value="asc" ${requestScope.order == 'asc' ? 'selected' : ''}>Ascending</option>
+                        <option value="desc" ${requestScope.order == 'desc' ? 'selected' : ''}>Descending</option>
+                    </select>
+                    <button type="submit" class="btn">Show</button>
+                </form>
+
 
                 <table class="table table-bordered table-striped">
 
@@ -59,8 +77,19 @@
                     <tfoot>
                     <tr>
                         <td colspan="4">
-                            <div align="center">Total = <span
-                                    class="badge badge-inverse">${requestScope.totalCountCustomer}</span></div>
+                            <div align="center">Shown = <span
+                                    class="badge badge-inverse">${requestScope.totalCountCustomer}</span>
+                                <c:if test="${not empty requestScope.nextCursor}">
+                                    <c:url var="nextCustomerUrl" value="/employee/home">
+                                        <c:param name="keyword" value="${requestScope.keyword}"/>
+                                        <c:param name="sort" value="${requestScope.sort}"/>
+                                        <c:param name="order" value="${requestScope.order}"/>
+                                        <c:param name="cursor" value="${requestScope.nextCursor}"/>
+                                        <c:param name="pageSize" value="${param.pageSize}"/>
+                                    </c:url>
+                                    <a href="${nextCustomerUrl}">Next customers</a>
+                                </c:if>
+                            </div>
                         </td>
                     </tr>
                     </tfoot>
@@ -104,8 +133,16 @@
                         <tfoot>
                         <tr>
                             <td colspan="2">
-                                <div align="center">Total = <span
-                                        class="badge badge-inverse">${requestScope.totalCountEmployee}</span></div>
+                                <div align="center">Shown = <span
+                                        class="badge badge-inverse">${requestScope.totalCountEmployee}</span>
+                                    <c:if test="${not empty requestScope.nextEmployeeCursor}">
+                                        <c:url var="nextEmployeeUrl" value="/employee/home">
+                                            <c:param name="employeeCursor" value="${requestScope.nextEmployeeCursor}"/>
+                                            <c:param name="pageSize" value="${param.pageSize}"/>
+                                        </c:url>
+                                        <a href="${nextEmployeeUrl}">Next employees</a>
+                                    </c:if>
+                                </div>
                             </td>
                         </tr>
                         </tfoot>
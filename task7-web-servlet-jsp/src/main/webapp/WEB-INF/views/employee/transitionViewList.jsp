@@ -53,8 +53,15 @@
                             <tfoot>
                             <tr>
                                 <td colspan="4">
-                                    <div align="center">Total = <span
+                                    <div align="center">Shown = <span
                                             class="badge badge-inverse">${requestScope.totalCountTransitionView}</span>
+                                        <c:if test="${not empty requestScope.nextCursor}">
+                                            <c:url var="olderUrl" value="/employee/transitionList">
+                                                <c:param name="cursor" value="${requestScope.nextCursor}"/>
+                                                <c:param name="pageSize" value="${param.pageSize}"/>
+                                            </c:url>
+                                            <a href="${olderUrl}">Older transitions</a>
+                                        </c:if>
                                     </div>
                                 </td>
                             </tr>
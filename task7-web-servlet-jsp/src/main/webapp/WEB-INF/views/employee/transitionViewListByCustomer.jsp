@@ -51,8 +51,16 @@
                             <tfoot>
                             <tr>
                                 <td colspan="3">
-                                    <div align="center">Total = <span
+                                    <div align="center">Shown = <span
                                             class="badge badge-inverse">${requestScope.totalCountTransitionView}</span>
+                                        <c:if test="${not empty requestScope.nextCursor}">
+                                            <c:url var="olderUrl" value="/employee/viewCustomerTransitionHistory">
+                                                <c:param name="customerId" value="${param.customerId}"/>
+                                                <c:param name="cursor" value="${requestScope.nextCursor}"/>
+                                                <c:param name="pageSize" value="${param.pageSize}"/>
+                                            </c:url>
+                                            <a href="${olderUrl}">Older transitions</a>
+                                        </c:if>
                                     </div>
                                 </td>
                             </tr>